@@ -162,8 +162,8 @@ public class BDReader extends FormatReader {
   /* @see loci.formats.IFormatReader#close(boolean) */
   public void close(boolean fileOnly) throws IOException {
     super.close(fileOnly);
+    if (reader != null) reader.close(fileOnly);
     if (!fileOnly) {
-      if (reader != null) reader.close();
       reader = null;
       tiffs = null;
       plateName = null;
@@ -294,6 +294,7 @@ public class BDReader extends FormatReader {
     tiffs = getTiffs(dir.getAbsolutePath());
 
     reader = new MinimalTiffReader();
+    reader.setHomogeneousFileSet(true);
     reader.setId(tiffs[0][0]);
 
     int sizeX = reader.getSizeX();
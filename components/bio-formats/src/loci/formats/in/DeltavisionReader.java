@@ -171,30 +171,7 @@ public class DeltavisionReader extends FormatReader {
   {
     FormatTools.checkPlaneParameters(this, no, buf.length, x, y, w, h);
 
-    int[] coords = getZCTCoords(no);
-
-    int[] newCoords = new int[4];
-    int coordIndex = 0;
-    int dimIndex = 2;
-
-    while (coordIndex < newCoords.length) {
-      char dim = getDimensionOrder().charAt(dimIndex++);
-
-      switch (dim) {
-        case 'Z':
-          newCoords[coordIndex++] = coords[0];
-          break;
-        case 'C':
-          newCoords[coordIndex++] = coords[1];
-          break;
-        case 'T':
-          newCoords[coordIndex++] = getSeries();
-          newCoords[coordIndex++] = coords[2];
-          break;
-      }
-    }
-
-    int planeIndex = FormatTools.positionToRaster(lengths, newCoords);
+    int planeIndex = getPlaneIndex(no);
 
     // read the image plane's pixel data
     long planeSize = (long) FormatTools.getPlaneSize(this);
@@ -203,19 +180,37 @@ public class DeltavisionReader extends FormatReader {
     if (offset < in.length()) {
       in.seek(HEADER_LENGTH + extSize + planeOffset);
       readPlane(in, x, getSizeY() - h - y, w, h, buf);
+      flipRows(buf, 0, w, h);
+    }
 
-      // reverse the order of the rows
-      // planes are stored with the origin in the lower-left corner
-      byte[] tmp = new byte[w * FormatTools.getBytesPerPixel(getPixelType())];
-      for (int row=0; row<h/2; row++) {
-        int src = row * tmp.length;
-        int dest = (h - row - 1) * tmp.length;
-        System.arraycopy(buf, src, tmp, 0, tmp.length);
-        System.arraycopy(buf, dest, buf, src, tmp.length);
-        System.arraycopy(tmp, 0, buf, dest, tmp.length);
+    return buf;
+  }
+
+  /* @see IFormatReader#openPlanes(int, int, byte[], int, int, int, int) */
+  public byte[] openPlanes(int no, int count, byte[] buf, int x, int y,
+    int w, int h) throws FormatException, IOException
+  {
+    FormatTools.checkPlaneParameters(this,
+      FormatTools.getPlaneIndexes(no, count), buf.length, x, y, w, h);
+
+    // the planes can be read at once if they are stored one after another
+    int planeIndex = getPlaneIndex(no);
+    for (int i=1; i<count; i++) {
+      if (getPlaneIndex(no + i) != planeIndex + i) {
+        return super.openPlanes(no, count, buf, x, y, w, h);
       }
     }
+    long planeSize = (long) FormatTools.getPlaneSize(this);
+    long offset = HEADER_LENGTH + extSize + planeSize * planeIndex;
+    if (offset + planeSize * count > in.length()) {
+      return super.openPlanes(no, count, buf, x, y, w, h);
+    }
 
+    readPlanes(in, offset, planeSize, count, x, getSizeY() - h - y, w, h, buf);
+    int regionSize = FormatTools.getPlaneSize(this, w, h);
+    for (int i=0; i<count; i++) {
+      flipRows(buf, i * regionSize, w, h);
+    }
     return buf;
   }
 
@@ -764,6 +759,49 @@ public class DeltavisionReader extends FormatReader {
 
   // -- Helper methods --
 
+  /** Gets the index of the given plane within the file. */
+  private int getPlaneIndex(int no) {
+    int[] coords = getZCTCoords(no);
+
+    int[] newCoords = new int[4];
+    int coordIndex = 0;
+    int dimIndex = 2;
+
+    while (coordIndex < newCoords.length) {
+      char dim = getDimensionOrder().charAt(dimIndex++);
+
+      switch (dim) {
+        case 'Z':
+          newCoords[coordIndex++] = coords[0];
+          break;
+        case 'C':
+          newCoords[coordIndex++] = coords[1];
+          break;
+        case 'T':
+          newCoords[coordIndex++] = getSeries();
+          newCoords[coordIndex++] = coords[2];
+          break;
+      }
+    }
+
+    return FormatTools.positionToRaster(lengths, newCoords);
+  }
+
+  /**
+   * Reverses the order of the rows of the w * h plane stored at the given
+   * offset; planes are stored with the origin in the lower-left corner.
+   */
+  private void flipRows(byte[] buf, int offset, int w, int h) {
+    byte[] tmp = new byte[w * FormatTools.getBytesPerPixel(getPixelType())];
+    for (int row=0; row<h/2; row++) {
+      int src = offset + row * tmp.length;
+      int dest = offset + (h - row - 1) * tmp.length;
+      System.arraycopy(buf, src, tmp, 0, tmp.length);
+      System.arraycopy(buf, dest, buf, src, tmp.length);
+      System.arraycopy(tmp, 0, buf, dest, tmp.length);
+    }
+  }
+
   /** Get a descriptive string representing the pixel type. */
   private String getPixelString(int filePixelType) {
      switch (filePixelType) {
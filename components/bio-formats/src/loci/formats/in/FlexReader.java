@@ -699,6 +699,10 @@ public class FlexReader extends FormatReader {
   }
 
   private void parseResFile(String id) throws IOException {
+    if (getMetadataOptions().getMetadataLevel() == MetadataLevel.MINIMUM) {
+      // .res files only provide the plate acquisition start time
+      return;
+    }
     ResHandler handler = new ResHandler();
     String resXML = DataTools.readFile(id);
     XMLTools.parseXML(resXML, handler);
@@ -412,6 +412,7 @@ public class InCellReader extends FormatReader {
 
     if (isTiff && filename != null) {
       tiffReader = new MinimalTiffReader();
+      tiffReader.setHomogeneousFileSet(true);
       tiffReader.setId(filename);
       int nextTiming = 0;
       for (int i=0; i<seriesCount; i++) {
@@ -147,6 +147,7 @@ public class LIFReader extends FormatReader {
   public LIFReader() {
     super("Leica Image File Format", "lif");
     suffixNecessary = false;
+    internMetadataKeys = true;
     domains = new String[] {FormatTools.LM_DOMAIN};
   }
 
@@ -307,12 +308,17 @@ public class LIFReader extends FormatReader {
       readPlane(in, x, y, w, h, buf);
     }
     else {
-      in.skipBytes(y * (getSizeX() * bpp + bytesToSkip));
+      long planeOffset = in.getFilePointer();
+      int scanline = getSizeX() * bpp + bytesToSkip;
+      long[] rowOffsets = new long[h];
+      int[] rowLengths = new int[h];
+      int[] destOffsets = new int[h];
       for (int row=0; row<h; row++) {
-        in.skipBytes(x * bpp);
-        in.read(buf, row * w * bpp, w * bpp);
-        in.skipBytes(bpp * (getSizeX() - w - x) + bytesToSkip);
+        rowOffsets[row] = planeOffset + (long) (y + row) * scanline + x * bpp;
+        rowLengths[row] = w * bpp;
+        destOffsets[row] = row * w * bpp;
       }
+      in.readSegments(rowOffsets, rowLengths, buf, destOffsets);
     }
 
     // color planes are stored in BGR order
@@ -323,6 +329,51 @@ public class LIFReader extends FormatReader {
     return buf;
   }
 
+  /* @see IFormatReader#openPlanes(int, int, byte[], int, int, int, int) */
+  public byte[] openPlanes(int no, int count, byte[] buf, int x, int y,
+    int w, int h) throws FormatException, IOException
+  {
+    FormatTools.checkPlaneParameters(this,
+      FormatTools.getPlaneIndexes(no, count), buf.length, x, y, w, h);
+
+    int bytes = FormatTools.getBytesPerPixel(getPixelType());
+    int bpp = bytes * getRGBChannelCount();
+    long planeSize = (long) getSizeX() * getSizeY() * bpp;
+    int regionSize = FormatTools.getPlaneSize(this, w, h);
+
+    // BGR to RGB conversion works on whole buffers of interleaved pixels
+    boolean bgr = getRGBChannelCount() == 3;
+    if (series >= offsets.size() ||
+      (bgr && (!isInterleaved() || buf.length != regionSize * count)))
+    {
+      return super.openPlanes(no, count, buf, x, y, w, h);
+    }
+
+    long offset = offsets.get(series).longValue();
+    long nextOffset = series + 1 < offsets.size() ?
+      offsets.get(series + 1).longValue() : in.length();
+    int bytesToSkip = (int) (nextOffset - offset - planeSize * getImageCount());
+    bytesToSkip /= getSizeY();
+    if ((getSizeX() % 4) == 0) bytesToSkip = 0;
+
+    if (bytesToSkip != 0 || offset + planeSize * (no + count) > in.length()) {
+      // padded scanlines or truncated file
+      return super.openPlanes(no, count, buf, x, y, w, h);
+    }
+
+    if (!isRGB()) {
+      int[] pos = getZCTCoords(no + count - 1);
+      lastChannel = realChannel[series][pos[1]];
+    }
+
+    readPlanes(in, offset + planeSize * no, planeSize, count, x, y, w, h, buf);
+
+    if (bgr) {
+      ImageTools.bgrToRgb(buf, true, bytes, getRGBChannelCount());
+    }
+    return buf;
+  }
+
   /* @see loci.formats.IFormatReader#close(boolean) */
   public void close(boolean fileOnly) throws IOException {
     super.close(fileOnly);
@@ -522,6 +573,13 @@ public class LIFReader extends FormatReader {
 
     MetadataTools.populatePixels(store, this, true, false);
 
+    if (level == MetadataLevel.MINIMUM) {
+      for (int i=0; i<getSeriesCount(); i++) {
+        store.setImageName(imageNames[i].trim(), i);
+      }
+      return;
+    }
+
     for (int i=0; i<getSeriesCount(); i++) {
       setSeries(i);
 
@@ -72,8 +72,8 @@ public class MIASReader extends FormatReader {
   /** TIFF files - indexed by well and file. */
   private String[][] tiffs;
 
-  /** Delegate readers. */
-  private MinimalTiffReader[][] readers;
+  /** Delegate reader, shared by every TIFF in the plate. */
+  private MinimalTiffReader reader;
 
   /** Path to file containing analysis results for all plates. */
   private String resultFile = null;
@@ -172,19 +172,19 @@ public class MIASReader extends FormatReader {
   /* @see loci.formats.IFormatReader#get8BitLookupTable() */
   public byte[][] get8BitLookupTable() throws FormatException, IOException {
     FormatTools.assertId(currentId, true, 1);
-    if (readers == null || readers[0][0].getCurrentFile() == null) {
+    if (reader == null || reader.getCurrentFile() == null) {
       return null;
     }
-    return readers[0][0].get8BitLookupTable();
+    return reader.get8BitLookupTable();
   }
 
   /* @see loci.formats.IFormatReader#get16BitLookupTable() */
   public short[][] get16BitLookupTable() throws FormatException, IOException {
     FormatTools.assertId(currentId, true, 1);
-    if (readers == null || readers[0][0].getCurrentFile() == null) {
+    if (reader == null || reader.getCurrentFile() == null) {
       return null;
     }
-    return readers[0][0].get16BitLookupTable();
+    return reader.get16BitLookupTable();
   }
 
   /**
@@ -196,9 +196,8 @@ public class MIASReader extends FormatReader {
     FormatTools.checkPlaneParameters(this, no, buf.length, x, y, w, h);
 
     if (tileRows == 1 && tileCols == 1) {
-      readers[getSeries()][no].setId(tiffs[getSeries()][no]);
-      readers[getSeries()][no].openBytes(0, buf, x, y, w, h);
-      readers[getSeries()][no].close();
+      reader.setId(tiffs[getSeries()][no]);
+      reader.openBytes(0, buf, x, y, w, h);
       return buf;
     }
 
@@ -270,15 +269,9 @@ public class MIASReader extends FormatReader {
   /* @see loci.formats.IFormatReader#close(boolean) */
   public void close(boolean fileOnly) throws IOException {
     super.close(fileOnly);
-    if (readers != null) {
-      for (MinimalTiffReader[] images : readers) {
-        for (MinimalTiffReader r : images) {
-          if (r != null) r.close(fileOnly);
-        }
-      }
-    }
+    if (reader != null) reader.close(fileOnly);
     if (!fileOnly) {
-      readers = null;
+      reader = null;
       tiffs = null;
       tileRows = tileCols = 0;
       resultFile = null;
@@ -298,8 +291,8 @@ public class MIASReader extends FormatReader {
   public int getOptimalTileWidth() {
     FormatTools.assertId(currentId, true, 1);
     try {
-      readers[0][0].setId(tiffs[0][0]);
-      return readers[0][0].getOptimalTileWidth();
+      reader.setId(tiffs[0][0]);
+      return reader.getOptimalTileWidth();
     }
     catch (FormatException e) {
       LOGGER.debug("", e);
@@ -314,8 +307,8 @@ public class MIASReader extends FormatReader {
   public int getOptimalTileHeight() {
     FormatTools.assertId(currentId, true, 1);
     try {
-      readers[0][0].setId(tiffs[0][0]);
-      return readers[0][0].getOptimalTileHeight();
+      reader.setId(tiffs[0][0]);
+      return reader.getOptimalTileHeight();
     }
     catch (FormatException e) {
       LOGGER.debug("", e);
@@ -370,8 +363,7 @@ public class MIASReader extends FormatReader {
 
     if (!isGroupFiles()) {
       tiffs = new String[][] {{id}};
-      readers = new MinimalTiffReader[1][1];
-      readers[0][0] = new MinimalTiffReader();
+      reader = new MinimalTiffReader();
 
       TiffReader r = new TiffReader();
       r.setMetadataStore(getMetadataStore());
@@ -516,7 +508,6 @@ public class MIASReader extends FormatReader {
 
     LOGGER.debug("Found {} wells.", nWells);
 
-    readers = new MinimalTiffReader[nWells][];
     tiffs = new String[nWells][];
     int[] zCount = new int[nWells];
     int[] cCount = new int[nWells];
@@ -612,10 +603,6 @@ public class MIASReader extends FormatReader {
       Arrays.sort(tiffFiles);
       tiffs[j] = tiffFiles;
       LOGGER.debug("Well {} has {} files.", j, tiffFiles.length);
-      readers[j] = new MinimalTiffReader[tiffFiles.length];
-      for (int k=0; k<tiffFiles.length; k++) {
-        readers[j][k] = new MinimalTiffReader();
-      }
     }
 
     // Populate core metadata
@@ -627,14 +614,16 @@ public class MIASReader extends FormatReader {
     core = new CoreMetadata[nSeries];
     bpp = new int[nSeries];
 
-    if (readers.length == 0) {
+    if (tiffs.length == 0) {
       throw new FormatException("No wells were found.");
     }
 
     // assume that all wells have the same width, height, and pixel type
-    readers[0][0].setId(tiffs[0][0]);
-    tileWidth = readers[0][0].getSizeX();
-    tileHeight = readers[0][0].getSizeY();
+    reader = new MinimalTiffReader();
+    reader.setHomogeneousFileSet(true);
+    reader.setId(tiffs[0][0]);
+    tileWidth = reader.getSizeX();
+    tileHeight = reader.getSizeY();
 
     if (tileCols == 0) tileCols = 1;
     if (tileRows == 0) tileRows = 1;
@@ -652,13 +641,13 @@ public class MIASReader extends FormatReader {
 
       core[i].sizeX = tileWidth * tileCols;
       core[i].sizeY = tileHeight * tileRows;
-      core[i].pixelType = readers[0][0].getPixelType();
-      core[i].sizeC *= readers[0][0].getSizeC();
-      core[i].rgb = readers[0][0].isRGB();
-      core[i].littleEndian = readers[0][0].isLittleEndian();
-      core[i].interleaved = readers[0][0].isInterleaved();
-      core[i].indexed = readers[0][0].isIndexed();
-      core[i].falseColor = readers[0][0].isFalseColor();
+      core[i].pixelType = reader.getPixelType();
+      core[i].sizeC *= reader.getSizeC();
+      core[i].rgb = reader.isRGB();
+      core[i].littleEndian = reader.isLittleEndian();
+      core[i].interleaved = reader.isInterleaved();
+      core[i].indexed = reader.isIndexed();
+      core[i].falseColor = reader.isFalseColor();
       core[i].dimensionOrder = order[i];
 
       if (core[i].dimensionOrder.indexOf("Z") == -1) {
@@ -964,17 +953,15 @@ public class MIASReader extends FormatReader {
 
     int tileIndex = (no * tileRows + row) * tileCols + col;
 
-    readers[well][tileIndex].setId(tiffs[well][tileIndex]);
+    reader.setId(tiffs[well][tileIndex]);
     int bpp = FormatTools.getBytesPerPixel(getPixelType());
     int ch = getRGBChannelCount();
     int bufferSize = intersection.width * intersection.height * ch * bpp;
     if (cachedTileBuffer == null || cachedTileBuffer.length != bufferSize) {
       cachedTileBuffer = new byte[bufferSize];
     }
-    byte[] buf = readers[well][tileIndex].openBytes(0, cachedTileBuffer,
+    return reader.openBytes(0, cachedTileBuffer,
       intersection.x, intersection.y, intersection.width, intersection.height);
-    readers[well][tileIndex].close();
-    return buf;
   }
 
   /** Parse metadata from the Nugenesistemplate.txt file. */
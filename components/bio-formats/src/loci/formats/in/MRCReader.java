@@ -97,19 +97,32 @@ public class MRCReader extends FormatReader {
     if (offset + planeSize <= in.length() && offset >= 0) {
       in.seek(offset);
       readPlane(in, x, getSizeY() - h - y, w, h, buf);
+      flipRows(buf, 0, w, h);
+    }
 
-      // reverse the order of the rows
-      // planes are stored with the origin in the lower-left corner
-      byte[] tmp = new byte[w * FormatTools.getBytesPerPixel(getPixelType())];
-      for (int row=0; row<h/2; row++) {
-        int src = row * tmp.length;
-        int dest = (h - row - 1) * tmp.length;
-        System.arraycopy(buf, src, tmp, 0, tmp.length);
-        System.arraycopy(buf, dest, buf, src, tmp.length);
-        System.arraycopy(tmp, 0, buf, dest, tmp.length);
-      }
+    return buf;
+  }
+
+  /* @see IFormatReader#openPlanes(int, int, byte[], int, int, int, int) */
+  public byte[] openPlanes(int no, int count, byte[] buf, int x, int y,
+    int w, int h) throws FormatException, IOException
+  {
+    FormatTools.checkPlaneParameters(this,
+      FormatTools.getPlaneIndexes(no, count), buf.length, x, y, w, h);
+
+    long planeSize = FormatTools.getPlaneSize(this);
+    long offset = HEADER_SIZE + extHeaderSize + no * planeSize;
+    if (offset < 0 || offset + count * planeSize > in.length()) {
+      // truncated file; only some of the planes can be read
+      return super.openPlanes(no, count, buf, x, y, w, h);
     }
 
+    // planes are stored one after another, so read them all at once
+    readPlanes(in, offset, planeSize, count, x, getSizeY() - h - y, w, h, buf);
+    int regionSize = FormatTools.getPlaneSize(this, w, h);
+    for (int i=0; i<count; i++) {
+      flipRows(buf, i * regionSize, w, h);
+    }
     return buf;
   }
 
@@ -320,4 +333,21 @@ public class MRCReader extends FormatReader {
     }
   }
 
+  // -- Helper methods --
+
+  /**
+   * Reverses the order of the rows of the w * h plane stored at the given
+   * offset; planes are stored with the origin in the lower-left corner.
+   */
+  private void flipRows(byte[] buf, int offset, int w, int h) {
+    byte[] tmp = new byte[w * FormatTools.getBytesPerPixel(getPixelType())];
+    for (int row=0; row<h/2; row++) {
+      int src = offset + row * tmp.length;
+      int dest = offset + (h - row - 1) * tmp.length;
+      System.arraycopy(buf, src, tmp, 0, tmp.length);
+      System.arraycopy(buf, dest, buf, src, tmp.length);
+      System.arraycopy(tmp, 0, buf, dest, tmp.length);
+    }
+  }
+
 }
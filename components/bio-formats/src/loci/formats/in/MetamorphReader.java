@@ -663,6 +663,13 @@ public class MetamorphReader extends BaseTiffReader {
 
     for (int i=0; i<getSeriesCount(); i++) {
       setSeries(i);
+
+      store.setImageName(makeImageName(i).trim(), i);
+
+      if (getMetadataOptions().getMetadataLevel() == MetadataLevel.MINIMUM) {
+        continue;
+      }
+
       handler = new MetamorphHandler(getSeriesMetadata());
 
       String instrumentID = MetadataTools.createLSID("Instrument", i);
@@ -689,11 +696,6 @@ public class MetamorphReader extends BaseTiffReader {
         }
       }
 
-      store.setImageName(makeImageName(i).trim(), i);
-
-      if (getMetadataOptions().getMetadataLevel() == MetadataLevel.MINIMUM) {
-        continue;
-      }
       store.setImageDescription("", i);
 
       store.setImagingEnvironmentTemperature(handler.getTemperature(), i);
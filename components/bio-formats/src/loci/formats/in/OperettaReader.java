@@ -136,10 +136,8 @@ public class OperettaReader extends FormatReader {
   /* @see loci.formats.IFormatReader#close(boolean) */
   public void close(boolean fileOnly) throws IOException {
     super.close(fileOnly);
+    if (reader != null) reader.close(fileOnly);
     if (!fileOnly) {
-      if (reader != null) {
-        reader.close();
-      }
       reader = null;
       planes = null;
     }
@@ -159,10 +157,10 @@ public class OperettaReader extends FormatReader {
       if (new Location(p.filename).exists()) {
         if (reader == null) {
           reader = new MinimalTiffReader();
+          reader.setHomogeneousFileSet(true);
         }
         reader.setId(p.filename);
         reader.openBytes(0, buf, x, y, w, h);
-        reader.close();
       }
     }
 
@@ -283,13 +281,13 @@ public class OperettaReader extends FormatReader {
 
       if (reader == null) {
         reader = new MinimalTiffReader();
+        reader.setHomogeneousFileSet(true);
       }
       reader.setId(planes[i][0].filename);
       core[i].pixelType = reader.getPixelType();
       core[i].rgb = false;
       core[i].imageCount = getSizeZ() * getSizeC() * getSizeT();
       core[i].littleEndian = reader.isLittleEndian();
-      reader.close();
     }
 
     // populate the MetadataStore
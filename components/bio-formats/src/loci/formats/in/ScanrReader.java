@@ -193,10 +193,8 @@ public class ScanrReader extends FormatReader {
   /* @see loci.formats.IFormatReader#close(boolean) */
   public void close(boolean fileOnly) throws IOException {
     super.close(fileOnly);
+    if (reader != null) reader.close(fileOnly);
     if (!fileOnly) {
-      if (reader != null) {
-        reader.close();
-      }
       reader = null;
       tiffs = null;
       plateName = null;
@@ -231,7 +229,6 @@ public class ScanrReader extends FormatReader {
       try {
         reader.setId(tiffs[index]);
         reader.openBytes(0, buf, x, y, w, h);
-        reader.close();
       }
       catch (FormatException e) {
         reader.close();
@@ -522,6 +519,7 @@ public class ScanrReader extends FormatReader {
     }
 
     reader = new MinimalTiffReader();
+    reader.setHomogeneousFileSet(true);
     reader.setId(tiffs[0]);
     int sizeX = reader.getSizeX();
     int sizeY = reader.getSizeY();
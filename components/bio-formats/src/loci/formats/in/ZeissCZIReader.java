@@ -451,6 +451,15 @@ public class ZeissCZIReader extends FormatReader {
       }
     }
 
+    String name = new Location(getCurrentFile()).getName();
+
+    if (getMetadataOptions().getMetadataLevel() == MetadataLevel.MINIMUM) {
+      for (int i=0; i<getSeriesCount(); i++) {
+        store.setImageName(name + " #" + (i + 1), i);
+      }
+      return;
+    }
+
     String experimenterID = MetadataTools.createLSID("Experimenter", 0);
     store.setExperimenterID(experimenterID, 0);
     store.setExperimenterEmail(userEmail, 0);
@@ -460,8 +469,6 @@ public class ZeissCZIReader extends FormatReader {
     store.setExperimenterMiddleName(userMiddleName, 0);
     store.setExperimenterUserName(userName, 0);
 
-    String name = new Location(getCurrentFile()).getName();
-
     for (int i=0; i<getSeriesCount(); i++) {
       if (acquiredDate != null) {
         store.setImageAcquisitionDate(new Timestamp(acquiredDate), i);
@@ -758,12 +765,15 @@ public class ZeissCZIReader extends FormatReader {
     translateInformation(realRoot);
     translateScaling(realRoot);
     translateDisplaySettings(realRoot);
-    translateLayers(realRoot);
-    translateExperiment(realRoot);
 
-    Stack<String> nameStack = new Stack<String>();
-    HashMap<String, Integer> indexes = new HashMap<String, Integer>();
-    populateOriginalMetadata(realRoot, nameStack, indexes);
+    if (getMetadataOptions().getMetadataLevel() != MetadataLevel.MINIMUM) {
+      translateLayers(realRoot);
+      translateExperiment(realRoot);
+
+      Stack<String> nameStack = new Stack<String>();
+      HashMap<String, Integer> indexes = new HashMap<String, Integer>();
+      populateOriginalMetadata(realRoot, nameStack, indexes);
+    }
   }
 
   private void translateInformation(Element root) throws FormatException {
@@ -843,7 +853,9 @@ public class ZeissCZIReader extends FormatReader {
       co2Percent = getFirstNodeValue(environment, "CO2Percent");
     }
 
-    if (instrument != null) {
+    if (instrument != null &&
+      getMetadataOptions().getMetadataLevel() != MetadataLevel.MINIMUM)
+    {
       NodeList microscopes = getGrandchildren(instrument, "Microscope");
       Element manufacturerNode = null;
 
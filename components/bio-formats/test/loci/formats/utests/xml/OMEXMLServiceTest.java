@@ -34,6 +34,8 @@ import java.io.InputStream;
 import loci.common.services.DependencyException;
 import loci.common.services.ServiceException;
 import loci.common.services.ServiceFactory;
+import loci.formats.meta.FilterMetadata;
+import loci.formats.ome.OMEXMLMetadata;
 import loci.formats.services.OMEXMLService;
 
 import org.testng.annotations.BeforeMethod;
@@ -98,6 +100,24 @@ public class OMEXMLServiceTest {
       service.getOMEXMLVersion(service.createOMEXMLMetadata(xml)));
   }
 
+  @Test
+  public void getOMEXMLVersionFromString() throws ServiceException {
+    assertEquals("2008-09", service.getOMEXMLVersion(xml));
+    String latest = service.getOMEXML(service.createOMEXMLMetadata(xml));
+    assertEquals("2012-06", service.getOMEXMLVersion(latest));
+  }
+
+  @Test
+  public void convertMetadata() throws ServiceException {
+    OMEXMLMetadata meta = service.createOMEXMLMetadata(xml);
+    OMEXMLMetadata dest = service.createOMEXMLMetadata();
+    // a non-OME-XML store is populated by copying from the parsed root
+    service.convertMetadata(service.getOMEXML(meta),
+      new FilterMetadata(dest, false));
+    assertEquals(meta.getImageCount(), dest.getImageCount());
+    assertEquals(meta.getImageName(0), dest.getImageName(0));
+  }
+
   @Test
   public void getOMEXML() throws ServiceException {
     assertNotNull(service.getOMEXML(service.createOMEXMLMetadata(xml)));
@@ -372,6 +372,16 @@ public final class DataTools {
     return ome.scifio.common.DataTools.sanitizeDouble(value);
   }
 
+  /**
+   * Parses a decimal number from the given bytes, without allocating
+   * in the common case.
+   *
+   * @throws NumberFormatException if the bytes do not contain a number
+   */
+  public static double parseDouble(byte[] bytes, int off, int len) {
+    return ome.scifio.common.DataTools.parseDouble(bytes, off, len);
+  }
+
   // -- Word decoding - primitive types to bytes --
 
   /** Translates the short value into an array of two bytes. */
@@ -494,6 +504,138 @@ public final class DataTools {
     return ome.scifio.common.DataTools.makeDataArray2D(b, bpp, fp, little, height);
   }
 
+  // -- Bulk conversion --
+
+  /**
+   * Translates len shorts from the byte array, starting at srcOff, into
+   * the short array, starting at destOff.
+   */
+  public static void bytesToShorts(byte[] src, int srcOff, short[] dest,
+    int destOff, int len, boolean little)
+  {
+    ome.scifio.common.DataTools.bytesToShorts(src, srcOff, dest, destOff, len,
+      little);
+  }
+
+  /**
+   * Translates len ints from the byte array, starting at srcOff, into
+   * the int array, starting at destOff.
+   */
+  public static void bytesToInts(byte[] src, int srcOff, int[] dest,
+    int destOff, int len, boolean little)
+  {
+    ome.scifio.common.DataTools.bytesToInts(src, srcOff, dest, destOff, len,
+      little);
+  }
+
+  /**
+   * Translates len floats from the byte array, starting at srcOff, into
+   * the float array, starting at destOff.
+   */
+  public static void bytesToFloats(byte[] src, int srcOff, float[] dest,
+    int destOff, int len, boolean little)
+  {
+    ome.scifio.common.DataTools.bytesToFloats(src, srcOff, dest, destOff, len,
+      little);
+  }
+
+  /**
+   * Translates len longs from the byte array, starting at srcOff, into
+   * the long array, starting at destOff.
+   */
+  public static void bytesToLongs(byte[] src, int srcOff, long[] dest,
+    int destOff, int len, boolean little)
+  {
+    ome.scifio.common.DataTools.bytesToLongs(src, srcOff, dest, destOff, len,
+      little);
+  }
+
+  /**
+   * Translates len doubles from the byte array, starting at srcOff, into
+   * the double array, starting at destOff.
+   */
+  public static void bytesToDoubles(byte[] src, int srcOff, double[] dest,
+    int destOff, int len, boolean little)
+  {
+    ome.scifio.common.DataTools.bytesToDoubles(src, srcOff, dest, destOff, len,
+      little);
+  }
+
+  /**
+   * Translates len shorts from the short array, starting at srcOff, into
+   * the byte array, starting at destOff.
+   */
+  public static void shortsToBytes(short[] src, int srcOff, byte[] dest,
+    int destOff, int len, boolean little)
+  {
+    ome.scifio.common.DataTools.shortsToBytes(src, srcOff, dest, destOff, len,
+      little);
+  }
+
+  /**
+   * Translates len ints from the int array, starting at srcOff, into
+   * the byte array, starting at destOff.
+   */
+  public static void intsToBytes(int[] src, int srcOff, byte[] dest,
+    int destOff, int len, boolean little)
+  {
+    ome.scifio.common.DataTools.intsToBytes(src, srcOff, dest, destOff, len,
+      little);
+  }
+
+  /**
+   * Translates len floats from the float array, starting at srcOff, into
+   * the byte array, starting at destOff.
+   */
+  public static void floatsToBytes(float[] src, int srcOff, byte[] dest,
+    int destOff, int len, boolean little)
+  {
+    ome.scifio.common.DataTools.floatsToBytes(src, srcOff, dest, destOff, len,
+      little);
+  }
+
+  /**
+   * Translates len longs from the long array, starting at srcOff, into
+   * the byte array, starting at destOff.
+   */
+  public static void longsToBytes(long[] src, int srcOff, byte[] dest,
+    int destOff, int len, boolean little)
+  {
+    ome.scifio.common.DataTools.longsToBytes(src, srcOff, dest, destOff, len,
+      little);
+  }
+
+  /**
+   * Translates len doubles from the double array, starting at srcOff, into
+   * the byte array, starting at destOff.
+   */
+  public static void doublesToBytes(double[] src, int srcOff, byte[] dest,
+    int destOff, int len, boolean little)
+  {
+    ome.scifio.common.DataTools.doublesToBytes(src, srcOff, dest, destOff, len,
+      little);
+  }
+
+  // -- Statistics --
+
+  /**
+   * Scans len samples of bpp bytes each, starting at off, for the minimum
+   * and maximum values.
+   *
+   * @param fp If set and bpp == 4 or bpp == 8, the samples are floats or
+   *   doubles.
+   * @param signed Whether integer samples are signed.
+   * @param little Whether the samples are in little-endian order.
+   * @return the minimum and maximum values, or null if len is 0.
+   * @throws IllegalArgumentException if bpp is not 1, 2, 4 or 8.
+   */
+  public static double[] minMax(byte[] b, int off, int len, int bpp,
+    boolean fp, boolean signed, boolean little)
+  {
+    return ome.scifio.common.DataTools.minMax(b, off, len, bpp, fp, signed,
+      little);
+  }
+
   // -- Byte swapping --
 
   public static short swap(short x) {
@@ -520,6 +662,14 @@ public final class DataTools {
     return ome.scifio.common.DataTools.swap(x);
   }
 
+  /**
+   * Reverses the byte order of len samples of bpp bytes each, in place,
+   * starting at the given offset.
+   */
+  public static void swapBytes(byte[] buf, int off, int len, int bpp) {
+    ome.scifio.common.DataTools.swapBytes(buf, off, len, bpp);
+  }
+
   // -- Strings --
 
   /**
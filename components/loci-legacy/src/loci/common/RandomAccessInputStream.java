@@ -218,6 +218,51 @@ public class RandomAccessInputStream extends InputStream implements DataInput {
     return rais.findString(saveString, blockSize, terminators);
   }
 
+  /**
+   * Searches for the first occurrence of any of the given byte sequences.
+   *
+   * @see #findBytes(int, byte[]...)
+   */
+  public long findBytes(byte[]... patterns) throws IOException {
+    return rais.findBytes(patterns);
+  }
+
+  /**
+   * Searches for the first occurrence of any of the given byte sequences,
+   * starting from the current file pointer and using the specified block
+   * size for buffering.  If more than one sequence matches at the same
+   * offset, the one listed first is used.
+   *
+   * @param blockSize The block size to use when reading bytes in chunks.
+   * @param patterns The byte sequences for which to search.
+   *
+   * @return The offset at which the matching sequence begins, or -1 if
+   *   none of the sequences were found.  The file pointer is left
+   *   immediately after the matching sequence, or at the end of the stream
+   *   if there was no match.
+   */
+  public long findBytes(int blockSize, byte[]... patterns)
+    throws IOException
+  {
+    return rais.findBytes(blockSize, patterns);
+  }
+
+  /**
+   * Reads a batch of segments from the stream into the given array.
+   * Segment i consists of lengths[i] bytes starting at the absolute stream
+   * offset offsets[i], and is stored at destOffsets[i] within the array.
+   * Nearby segments are coalesced into single reads.
+   * The file pointer is left immediately after the last segment.
+   *
+   * @return the total number of bytes read, which is less than the sum of
+   *   the lengths only if the end of the stream was reached.
+   */
+  public int readSegments(long[] offsets, int[] lengths, byte[] buf,
+    int[] destOffsets) throws IOException
+  {
+    return rais.readSegments(offsets, lengths, buf, destOffsets);
+  }
+
   // -- DataInput API methods --
 
   /** Read an input byte and return true if the byte is nonzero. */
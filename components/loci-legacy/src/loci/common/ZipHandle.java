@@ -39,6 +39,7 @@ package loci.common;
 import java.io.DataInputStream;
 import java.io.IOException;
 import java.lang.reflect.InvocationTargetException;
+import java.util.List;
 import java.util.zip.ZipEntry;
 
 import loci.utils.ProtectedMethodInvoker;
@@ -83,6 +84,16 @@ public class ZipHandle extends StreamHandle {
     return ome.scifio.io.ZipHandle.isZipFile(file);
   }
 
+  /**
+   * Returns the entries of the given Zip file, as listed in its
+   * central directory.
+   */
+  public static List<? extends ZipEntry> getEntries(String file)
+    throws IOException
+  {
+    return ome.scifio.io.ZipHandle.getEntries(file);
+  }
+
   /** Get the name of the backing Zip entry. */
   public String getEntryName() {
     return ((ome.scifio.io.ZipHandle)sHandle).getEntryName();
@@ -233,6 +233,14 @@ public class Colorizer {
         }
         catch (FormatException exc) { }
         catch (IOException exc) { }
+        if (cMinVal == null || cMaxVal == null) {
+          // planes may have been read by other readers
+          final double[] range = process.getChannelRange(series, cIndex);
+          if (range != null) {
+            cMinVal = range[0];
+            cMaxVal = range[1];
+          }
+        }
         if (cMinVal != null) cMin[c] = cMinVal;
         if (cMaxVal != null) cMax[c] = cMaxVal;
       }
@@ -39,6 +39,14 @@ import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Vector;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 
 import loci.common.Location;
 import loci.common.Region;
@@ -52,6 +60,7 @@ import loci.formats.FilePattern;
 import loci.formats.FormatException;
 import loci.formats.FormatTools;
 import loci.formats.IFormatReader;
+import loci.formats.MinMaxCalculator;
 import loci.formats.meta.IMetadata;
 import loci.formats.services.OMEXMLService;
 import loci.plugins.Slicer;
@@ -86,6 +95,9 @@ public class ImagePlusReader implements StatusReporter {
 
   protected List<StatusListener> listeners = new Vector<StatusListener>();
 
+  /** Serializes LuraWave license code prompts from parallel plane reads. */
+  private final Object licenseLock = new Object();
+
   // -- Constructors --
 
   /**
@@ -370,6 +382,11 @@ public class ImagePlusReader implements StatusReporter {
 
     // read applicable image planes
     final Region region = process.getCropRegion(s);
+    final int threads = thumbnail ? 1 : getThreadCount(s, region, total);
+    if (threads > 1) {
+      readPlanes(s, load, total, region, threads, procs, labels);
+      return createStack(procs, labels, luts);
+    }
     for (int i=0; i<load.length; i++) {
       if (!load[i]) continue;
 
@@ -377,7 +394,8 @@ public class ImagePlusReader implements StatusReporter {
       updateTiming(s, current, current++, total);
 
       // get image processor for ith plane
-      final ImageProcessor[] p = readProcessors(process, i, region, thumbnail);
+      final ImageProcessor[] p =
+        readProcessors(reader, i, region, thumbnail);
       if (p == null || p.length == 0) {
         throw new FormatException("Cannot read plane #" + i);
       }
@@ -394,16 +412,98 @@ public class ImagePlusReader implements StatusReporter {
     return createStack(procs, labels, luts);
   }
 
+  /**
+   * Reads the given planes on a pool of independently initialized readers,
+   * adding them to the list of image processors in plane order.
+   */
+  private void readPlanes(int s, boolean[] load, int total,
+    final Region region, int threads, List<ImageProcessor> procs,
+    List<String> labels) throws FormatException, IOException
+  {
+    final ImageProcessorReader reader = process.getReader();
+    final int zCount = process.getZCount(s);
+    final int cCount = process.getCCount(s);
+    final int tCount = process.getTCount(s);
+    final IMetadata meta = process.getOMEMetadata();
+
+    final List<ImageProcessorReader> readers =
+      new ArrayList<ImageProcessorReader>();
+    final BlockingQueue<ImageProcessorReader> pool =
+      new ArrayBlockingQueue<ImageProcessorReader>(threads);
+    final ExecutorService executor = Executors.newFixedThreadPool(threads);
+    try {
+      for (int t=0; t<threads; t++) {
+        final ImageProcessorReader r = process.createPlaneReader();
+        r.setSeries(s);
+        readers.add(r);
+        pool.add(r);
+      }
+
+      // queue up every plane, so that the readers never sit idle
+      final List<Future<ImageProcessor[]>> planes =
+        new ArrayList<Future<ImageProcessor[]>>();
+      for (int i=0; i<load.length; i++) {
+        if (!load[i]) continue;
+        final int no = i;
+        planes.add(executor.submit(new Callable<ImageProcessor[]>() {
+          public ImageProcessor[] call() throws Exception {
+            final ImageProcessorReader r = pool.take();
+            try {
+              return readProcessors(r, no, region, false);
+            }
+            finally {
+              pool.put(r);
+            }
+          }
+        }));
+      }
+
+      // collect the planes in order
+      int current = 0;
+      for (int i=0; i<load.length; i++) {
+        if (!load[i]) continue;
+
+        // limit message update rate
+        updateTiming(s, current, current, total);
+
+        final ImageProcessor[] p = getProcessors(planes.get(current++));
+        if (p == null || p.length == 0) {
+          throw new FormatException("Cannot read plane #" + i);
+        }
+        final String label = constructSliceLabel(i,
+          reader, meta, s, zCount, cCount, tCount);
+
+        for (ImageProcessor ip : p) {
+          procs.add(ip);
+          labels.add(label);
+        }
+      }
+
+      process.setChannelRanges(s, getChannelRanges(readers));
+    }
+    finally {
+      executor.shutdownNow();
+      try {
+        executor.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+      }
+      catch (InterruptedException exc) { }
+      for (ImageProcessorReader r : readers) r.close();
+    }
+  }
+
   /**
    * HACK: This method mainly exists to prompt the user for a missing
    * LuraWave license code, in the case of LWF-compressed Flex.
    *
+   * Planes read in parallel share the prompt, so that only one license code
+   * dialog is shown at a time, and readers that fail while another thread is
+   * prompting retry with the newly entered code.
+   *
    * @see ImportProcess#setId()
    */
-  private ImageProcessor[] readProcessors(ImportProcess process,
+  private ImageProcessor[] readProcessors(ImageProcessorReader reader,
     int no, Region r, boolean thumbnail) throws FormatException, IOException
   {
-    final ImageProcessorReader reader = process.getReader();
     final ImporterOptions options = process.getOptions();
 
     boolean first = true;
@@ -419,15 +519,71 @@ public class ImagePlusReader implements StatusReporter {
         if (options.isQuiet() || options.isWindowless()) throw exc;
         if (!LuraWave.isLicenseCodeException(exc)) throw exc;
 
-        // prompt user for LuraWave license code
-        code = LuraWave.promptLicenseCode(code, first);
-        if (code == null) throw exc;
-        if (first) first = false;
+        synchronized (licenseLock) {
+          // another reader may have obtained a new code in the meantime
+          String current = LuraWave.initLicenseCode();
+          if (current != null && !current.equals(code)) continue;
+
+          // prompt user for LuraWave license code
+          code = LuraWave.promptLicenseCode(code, first);
+          if (code == null) throw exc;
+          if (first) first = false;
+        }
       }
     }
     throw new FormatException(LuraWave.TOO_MANY_TRIES);
   }
 
+  /**
+   * Gets the image processors for a plane read by
+   * {@link #readPlanes(int, boolean[], int, Region, int, List, List)}.
+   */
+  private static ImageProcessor[] getProcessors(Future<ImageProcessor[]> f)
+    throws FormatException, IOException
+  {
+    try {
+      return f.get();
+    }
+    catch (InterruptedException exc) {
+      throw new FormatException(exc);
+    }
+    catch (ExecutionException exc) {
+      final Throwable cause = exc.getCause();
+      if (cause instanceof FormatException) throw (FormatException) cause;
+      if (cause instanceof IOException) throw (IOException) cause;
+      if (cause instanceof RuntimeException) throw (RuntimeException) cause;
+      if (cause instanceof Error) throw (Error) cause;
+      throw new FormatException(cause);
+    }
+  }
+
+  /**
+   * Merges the channel value ranges computed by each of the given readers,
+   * for their current series.
+   */
+  private static double[][] getChannelRanges(List<ImageProcessorReader> readers)
+    throws FormatException, IOException
+  {
+    final double[][] ranges = new double[readers.get(0).getSizeC()][];
+    for (ImageProcessorReader r : readers) {
+      final MinMaxCalculator minMax =
+        (MinMaxCalculator) r.unwrap(MinMaxCalculator.class, null);
+      if (minMax == null) continue;
+      for (int c=0; c<ranges.length; c++) {
+        final Double min = minMax.getChannelKnownMinimum(c);
+        final Double max = minMax.getChannelKnownMaximum(c);
+        // NB: channels without any planes read have an empty range
+        if (min == null || max == null || min > max) continue;
+        if (ranges[c] == null) ranges[c] = new double[] {min, max};
+        else {
+          ranges[c][0] = Math.min(ranges[c][0], min);
+          ranges[c][1] = Math.max(ranges[c][1], max);
+        }
+      }
+    }
+    return ranges;
+  }
+
   // -- Helper methods - image post processing --
 
   private List<ImagePlus> concatenate(List<ImagePlus> imps) {
@@ -523,6 +679,33 @@ public class ImagePlusReader implements StatusReporter {
     return fi;
   }
 
+  /**
+   * Determines how many planes of the given series to read at once. Each
+   * extra thread is only used if there is memory to spare for its plane
+   * once the whole dataset has been read, as estimated by
+   * {@link ImportProcess#getMemoryUsage()}.
+   */
+  private int getThreadCount(int s, Region region, int total) {
+    final ImporterOptions options = process.getOptions();
+    int threads = Math.min(options.getThreadCount(), total);
+    if (threads <= 1 || !(options.isLocal() || options.isHTTP())) return 1;
+
+    final ImageProcessorReader reader = process.getReader();
+    final long needMem = process.getMemoryUsage();
+    reader.setSeries(s);
+
+    // each plane in flight holds both the raw bytes and the processor
+    final long planeSize = 2L * region.width * region.height *
+      reader.getRGBChannelCount() *
+      FormatTools.getBytesPerPixel(reader.getPixelType());
+    final long spareMem = MemoryDialog.getAvailableMemory() - needMem -
+      MemoryDialog.MINIMUM_MEMORY_PADDING;
+    if (planeSize > 0 && spareMem / planeSize < threads) {
+      threads = (int) Math.max(1, spareMem / planeSize);
+    }
+    return threads;
+  }
+
   private boolean[] getPlanesToLoad(int s) {
     final ImageProcessorReader reader = process.getReader();
     final boolean[] load = new boolean[reader.getImageCount()];
@@ -31,7 +31,9 @@ import ij.IJ;
 
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.StringTokenizer;
 
 import loci.common.Location;
@@ -118,6 +120,13 @@ public class ImportProcess implements StatusReporter {
   /** A descriptive label for each series. */
   private String[] seriesLabels;
 
+  /**
+   * Per-channel value ranges for each series, gathered from planes read
+   * by readers other than {@link #getReader()}.
+   */
+  private Map<Integer, double[][]> channelRanges =
+    new HashMap<Integer, double[][]>();
+
   // -- Constructors --
 
   public ImportProcess() throws IOException {
@@ -436,6 +445,67 @@ public class ImportProcess implements StatusReporter {
     return total;
   }
 
+  // -- ImportProcess methods - post-DIM_ORDER --
+
+  /**
+   * Creates a new reader stack for the dataset, independent of
+   * {@link #getReader()} but configured the same way, including file
+   * grouping and dimension order. The caller is responsible for closing it.
+   * Valid only after {@link ImportStep#DIM_ORDER}.
+   */
+  public ImageProcessorReader createPlaneReader()
+    throws FormatException, IOException
+  {
+    assertStep(ImportStep.DIM_ORDER);
+    IFormatReader r =
+      LociPrefs.makeImageReader().getReader(baseReader.getCurrentFile());
+    r.setMetadataFiltered(true);
+    r.setGroupFiles(!options.isUngroupFiles());
+    if (options.isGroupFiles()) {
+      final FileStitcher stitcher = new FileStitcher(r);
+      stitcher.setUsingPatternIds(true);
+      stitcher.setCanChangePattern(false);
+      r = stitcher;
+    }
+    r = new ChannelFiller(r);
+    r = new ChannelSeparator(r);
+    final DimensionSwapper swapper = new DimensionSwapper(r);
+    r = new MinMaxCalculator(swapper);
+    if (options.doStitchTiles()) r = new TileStitcher(r);
+    final ImageProcessorReader planeReader = new ImageProcessorReader(r);
+    planeReader.setId(options.getId());
+
+    // match the dimension order of the primary reader
+    final String stackOrder = getStackOrder();
+    for (int s=0; s<planeReader.getSeriesCount(); s++) {
+      planeReader.setSeries(s);
+      final String dimOrder = options.getInputOrder(s);
+      if (dimOrder != null) swapper.swapDimensions(dimOrder);
+      swapper.setOutputOrder(stackOrder);
+    }
+    planeReader.setSeries(0);
+    return planeReader;
+  }
+
+  /**
+   * Gets the value range of the given channel, as recorded by
+   * {@link #setChannelRanges(int, double[][])}, or null if unknown.
+   */
+  public double[] getChannelRange(int s, int c) {
+    final double[][] ranges = channelRanges.get(s);
+    if (ranges == null || c < 0 || c >= ranges.length) return null;
+    return ranges[c];
+  }
+
+  /**
+   * Records the value range of each channel of the given series,
+   * for planes read with a reader from {@link #createPlaneReader()}.
+   * Each element is a {minimum, maximum} pair, or null if unknown.
+   */
+  public void setChannelRanges(int s, double[][] ranges) {
+    channelRanges.put(s, ranges);
+  }
+
   // -- ImportProcess methods - post-METADATA --
 
   /** Valid only after {@link ImportStep#METADATA}. */
@@ -77,6 +77,7 @@ public class ImporterOptions extends OptionsList {
   public static final String KEY_STACK_FORMAT    = "stackFormat";
   public static final String KEY_STACK_ORDER     = "stackOrder";
   public static final String KEY_SWAP_DIMS       = "swapDimensions";
+  public static final String KEY_THREADS         = "threads";
   public static final String KEY_UPGRADE_CHECK   = "upgradeCheck";
   public static final String KEY_VIRTUAL         = "virtual";
   public static final String KEY_WINDOWLESS      = "windowless";
@@ -380,6 +381,20 @@ public class ImporterOptions extends OptionsList {
   public boolean isSwapDimensions() { return isSet(KEY_SWAP_DIMS); }
   public void setSwapDimensions(boolean b) { setValue(KEY_SWAP_DIMS, b); }
 
+  // threads
+  public String getThreadsInfo() { return getInfo(KEY_THREADS); }
+  public int getThreadCount() {
+    final String threads = getValue(KEY_THREADS);
+    if (threads == null) return 1;
+    try {
+      return Math.max(1, Integer.parseInt(threads.trim()));
+    }
+    catch (NumberFormatException exc) {
+      return 1;
+    }
+  }
+  public void setThreadCount(int n) { setValue(KEY_THREADS, "" + n); }
+
   // upgradeCheck
   public String getUpgradeCheckInfo() { return getInfo(KEY_UPGRADE_CHECK); }
   public boolean doUpgradeCheck() { return isSet(KEY_UPGRADE_CHECK); }
@@ -41,7 +41,7 @@ public class MemoryDialog extends ImporterDialog {
   // -- Constants --
 
   /** Minimum amount of wiggle room for available memory, in bytes. */
-  private static final long MINIMUM_MEMORY_PADDING = 20 * 1024 * 1024; // 20 MB
+  static final long MINIMUM_MEMORY_PADDING = 20 * 1024 * 1024; // 20 MB
 
   // -- Fields --
 
@@ -92,7 +92,8 @@ public class MemoryDialog extends ImporterDialog {
 
   // -- Helper methods --
 
-  private long getAvailableMemory() {
+  /** Gets the remaining memory for the JVM, in bytes. */
+  static long getAvailableMemory() {
     final Runtime r = Runtime.getRuntime();
     final long usedMem = r.totalMemory() - r.freeMemory();
     return r.maxMemory() - usedMem;
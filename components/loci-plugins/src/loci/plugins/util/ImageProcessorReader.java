@@ -186,17 +186,22 @@ public class ImageProcessorReader extends ReaderWrapper {
   public ImageProcessor[] openProcessors(int no, int x, int y, int w, int h)
     throws FormatException, IOException
   {
-    // read byte array
-    byte[] b = openBytes(no, x, y, w, h);
-
     int c = getRGBChannelCount();
     int type = getPixelType();
     int bpp = FormatTools.getBytesPerPixel(type);
     boolean interleave = isInterleaved();
 
-    if (b.length != w * h * c * bpp && b.length != w * h * bpp) {
-      throw new FormatException("Invalid byte array length: " + b.length +
-        " (expected w=" + w + ", h=" + h + ", c=" + c + ", bpp=" + bpp + ")");
+    // read byte array; single channel planes of multi-byte types are read
+    // straight into a primitive array instead
+    byte[] b = null;
+    if (c > 1 || bpp == 1) {
+      b = openBytes(no, x, y, w, h);
+
+      if (b.length != w * h * c * bpp && b.length != w * h * bpp) {
+        throw new FormatException("Invalid byte array length: " + b.length +
+          " (expected w=" + w + ", h=" + h + ", c=" + c + ", bpp=" + bpp +
+          ")");
+      }
     }
 
     // create a color model for this plane (null means default)
@@ -210,9 +215,13 @@ public class ImageProcessorReader extends ReaderWrapper {
     // construct image processors
     ImageProcessor[] ip = new ImageProcessor[c];
     for (int i=0; i<c; i++) {
-      byte[] channel =
-        ImageTools.splitChannels(b, i, c, bpp, false, interleave);
-      Object pixels = DataTools.makeDataArray(channel, bpp, isFloat, isLittle);
+      Object pixels;
+      if (b == null) pixels = openPixels(no, x, y, w, h);
+      else {
+        byte[] channel =
+          ImageTools.splitChannels(b, i, c, bpp, false, interleave);
+        pixels = DataTools.makeDataArray(channel, bpp, isFloat, isLittle);
+      }
       if (pixels instanceof byte[]) {
         byte[] q = (byte[]) pixels;
         if (q.length != w * h) {
@@ -285,6 +294,29 @@ public class ImageProcessorReader extends ReaderWrapper {
 
   // -- Helper methods --
 
+  /**
+   * Reads a single channel plane of a multi-byte pixel type into a
+   * primitive array of the matching type.
+   */
+  private Object openPixels(int no, int x, int y, int w, int h)
+    throws FormatException, IOException
+  {
+    switch (getPixelType()) {
+      case FormatTools.INT16:
+      case FormatTools.UINT16:
+        return openShorts(no, null, x, y, w, h);
+      case FormatTools.INT32:
+      case FormatTools.UINT32:
+        return openInts(no, null, x, y, w, h);
+      case FormatTools.FLOAT:
+        return openFloats(no, null, x, y, w, h);
+      case FormatTools.DOUBLE:
+        return openDoubles(no, null, x, y, w, h);
+    }
+    throw new FormatException("Unsupported pixel type: " +
+      FormatTools.getPixelTypeString(getPixelType()));
+  }
+
   private LUT createColorModel() throws FormatException, IOException {
     // NB: If a color table is present, we might as well use it,
     // regardless of the value of isIndexed.
@@ -32,9 +32,10 @@ import ij.process.ImageProcessor;
 import java.io.IOException;
 
 import loci.formats.FormatException;
+import loci.formats.FormatTools;
 import loci.formats.IFormatReader;
 import loci.formats.cache.CacheException;
-import loci.formats.cache.ICacheSource;
+import loci.formats.cache.ISizedCacheSource;
 
 /**
  * Retrieves ImageJ image processors from an image reader.
@@ -43,7 +44,7 @@ import loci.formats.cache.ICacheSource;
  * <dd><a href="http://trac.openmicroscopy.org.uk/ome/browser/bioformats.git/components/loci-plugins/src/loci/plugins/util/ImageProcessorSource.java">Trac</a>,
  * <a href="http://git.openmicroscopy.org/?p=bioformats.git;a=blob;f=components/loci-plugins/src/loci/plugins/util/ImageProcessorSource.java;hb=HEAD">Gitweb</a></dd></dl>
  */
-public class ImageProcessorSource implements ICacheSource {
+public class ImageProcessorSource implements ISizedCacheSource {
 
   // -- Fields --
 
@@ -82,4 +83,12 @@ public class ImageProcessorSource implements ICacheSource {
     return ip;
   }
 
+  // -- ISizedCacheSource API methods --
+
+  /* @see loci.formats.cache.ISizedCacheSource#getObjectSize(int) */
+  public long getObjectSize(int index) {
+    // each ImageProcessor holds a single channel
+    return FormatTools.getPlaneSize(reader) / reader.getRGBChannelCount();
+  }
+
 }
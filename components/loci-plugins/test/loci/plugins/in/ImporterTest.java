@@ -1039,6 +1039,47 @@ public class ImporterTest {
     xyzctTest(imp,x,y,z,c,t);
   }
 
+  /** tests BF's options.setThreadCount() */
+  private void threadsTester(int pixType, int threads, int x, int y, int z, int c, int t)
+  {
+    String path = constructFakeFilename("threads", pixType, x, y, z, c, t, -1, false, -1, false, -1);
+
+    ImagePlus[] expected = null, imps = null;
+    try {
+      ImporterOptions options = new ImporterOptions();
+      options.setId(path);
+      options.setAutoscale(true);
+      expected = BF.openImagePlus(options);
+      options.setThreadCount(threads);
+      imps = BF.openImagePlus(options);
+    }
+    catch (IOException e) {
+      fail(e.getMessage());
+    }
+    catch (FormatException e) {
+      fail(e.getMessage());
+    }
+
+    impsCountTest(imps,1);
+
+    ImagePlus imp = imps[0];
+
+    xyzctTest(imp,x,y,z,c,t);
+
+    ImageStack expectedStack = expected[0].getStack();
+    ImageStack st = imp.getStack();
+    for (int i = 1; i <= st.getSize(); i++)
+    {
+      assertEquals(expectedStack.getSliceLabel(i), st.getSliceLabel(i));
+      ImageProcessor expectedProc = expectedStack.getProcessor(i);
+      ImageProcessor proc = st.getProcessor(i);
+      for (int p = 0; p < x*y; p++)
+        assertEquals(expectedProc.getf(p), proc.getf(p), 0);
+    }
+    assertEquals(expected[0].getDisplayRangeMin(), imp.getDisplayRangeMin(), 0);
+    assertEquals(expected[0].getDisplayRangeMax(), imp.getDisplayRangeMax(), 0);
+  }
+
   /** tests BF's options.setStackOrder() */
   private void outputStackOrderTester(boolean virtual, int pixType, ChannelOrder order, int x, int y, int z, int c, int t)
   {
@@ -2097,6 +2138,13 @@ public class ImporterTest {
     defaultBehaviorTester(FormatTools.DOUBLE, 106, 44, 5, 5, 4);
   }
 
+  @Test
+  public void testThreads()
+  {
+    threadsTester(FormatTools.UINT8, 3, 57, 78, 5, 2, 3);
+    threadsTester(FormatTools.UINT16, 4, 64, 48, 2, 3, 2);
+  }
+
   @Test
   public void testOutputStackOrder()
   {
@@ -31,12 +31,12 @@ import Glacier2.PermissionDeniedException;
 import java.io.BufferedReader;
 import java.io.InputStreamReader;
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.List;
 
 import loci.common.Constants;
 import loci.common.DateTools;
-import loci.common.RandomAccessInputStream;
 import loci.formats.FormatException;
 import loci.formats.FormatReader;
 import loci.formats.FormatTools;
@@ -81,6 +81,9 @@ public class OmeroReader extends FormatReader {
 
   public static final int DEFAULT_PORT = 4064;
 
+  /** Default number of tile requests that may be outstanding at once. */
+  public static final int DEFAULT_TILE_REQUESTS = 4;
+
   // -- Fields --
 
   private String server;
@@ -97,6 +100,12 @@ public class OmeroReader extends FormatReader {
   private Image img;
   private Pixels pix;
 
+  /** Pixels stores used to fetch tiles, including {@link #store}. */
+  private List<RawPixelsStorePrx> tileStores;
+  private TileCache tileCache;
+  private long tileCacheSize = TileCache.DEFAULT_MAX_BYTES;
+  private int tileRequests = DEFAULT_TILE_REQUESTS;
+
   // -- Constructors --
 
   public OmeroReader() {
@@ -137,6 +146,19 @@ public class OmeroReader extends FormatReader {
     this.groupID = groupID;
   }
 
+  /** Sets the maximum number of bytes of fetched tiles to keep in memory. */
+  public void setTileCacheSize(long tileCacheSize) {
+    this.tileCacheSize = tileCacheSize;
+  }
+
+  /**
+   * Sets the number of tile requests that may be outstanding at once.
+   * Each request uses a separate pixels store on the server.
+   */
+  public void setTileRequests(int tileRequests) {
+    this.tileRequests = Math.max(1, tileRequests);
+  }
+
   // -- IFormatReader methods --
 
   @Override
@@ -153,27 +175,18 @@ public class OmeroReader extends FormatReader {
     FormatTools.checkBufferSize(this, buf.length, w, h);
 
     final int[] zct = FormatTools.getZCTCoords(this, no);
-
-    final byte[] plane;
-    try {
-      plane = store.getPlane(zct[0], zct[1], zct[2]);
-    }
-    catch (ServerError e) {
-      throw new FormatException(e);
-    }
-
-    RandomAccessInputStream s = new RandomAccessInputStream(plane);
-    readPlane(s, x, y, w, h, buf);
-    s.close();
-
+    tileCache.readRegion(zct[0], zct[1], zct[2], x, y, w, h, buf);
     return buf;
   }
 
   @Override
   public void close(boolean fileOnly) throws IOException {
     super.close(fileOnly);
-    if (!fileOnly && client != null) {
-      client.closeSession();
+    if (!fileOnly) {
+      if (tileCache != null) tileCache.close();
+      tileCache = null;
+      tileStores = null;
+      if (client != null) client.closeSession();
     }
   }
 
@@ -345,6 +358,17 @@ public class OmeroReader extends FormatReader {
       core[0].imageCount = sizeZ * sizeC * sizeT;
       core[0].pixelType = FormatTools.pixelTypeFromString(pixelType);
 
+      // set up tile fetching; each outstanding request needs its own store
+
+      tileStores = new ArrayList<RawPixelsStorePrx>();
+      tileStores.add(store);
+      for (int i=1; i<tileRequests; i++) {
+        RawPixelsStorePrx tileStore = serviceFactory.createRawPixelsStore();
+        tileStore.setPixelsId(pixelsId, false);
+        tileStores.add(tileStore);
+      }
+      initTileCache(sizeX, sizeY, FormatTools.getBytesPerPixel(getPixelType()));
+
       RDouble x = pix.getPhysicalSizeX();
       Double px = x == null ? null : x.getValue();
       RDouble y = pix.getPhysicalSizeY();
@@ -433,6 +457,48 @@ public class OmeroReader extends FormatReader {
     }
   }
 
+  // -- Helper methods --
+
+  /**
+   * Creates the tile cache.  Tiles use the server's preferred tile size;
+   * servers that cannot return tiles are sent whole plane requests,
+   * and each plane is cached as a single tile.
+   */
+  private void initTileCache(int sizeX, int sizeY, int bpp)
+    throws ServerError
+  {
+    int[] tileSize = null;
+    try {
+      tileSize = store.getTileSize();
+    }
+    catch (Ice.OperationNotExistException e) {
+      LOGGER.debug("Server does not support tiles", e);
+    }
+    final boolean tiled = tileSize != null;
+    if (!tiled) tileSize = new int[] {sizeX, sizeY};
+
+    List<TileCache.TileLoader> loaders = new ArrayList<TileCache.TileLoader>();
+    for (final RawPixelsStorePrx s : tileStores) {
+      loaders.add(new TileCache.TileLoader() {
+        public byte[] getTile(int z, int c, int t, int x, int y, int w, int h)
+          throws IOException
+        {
+          try {
+            if (tiled) return s.getTile(z, c, t, x, y, w, h);
+            return s.getPlane(z, c, t);
+          }
+          catch (ServerError e) {
+            IOException exc = new IOException("Could not fetch tile");
+            exc.initCause(e);
+            throw exc;
+          }
+        }
+      });
+    }
+    tileCache = new TileCache(loaders, sizeX, sizeY, tileSize[0], tileSize[1],
+      bpp, tileCacheSize);
+  }
+
   /** A simple command line tool for downloading images from OMERO. */
   public static void main(String[] args) throws Exception {
     // parse OMERO credentials
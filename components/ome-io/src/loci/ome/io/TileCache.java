@@ -0,0 +1,324 @@
+/*
+ * #%L
+ * OME database I/O package for communicating with OME and OMERO servers.
+ * %%
+ * Copyright (C) 2005 - 2012 Open Microscopy Environment:
+ *   - Board of Regents of the University of Wisconsin-Madison
+ *   - Glencoe Software, Inc.
+ *   - University of Dundee
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 2 of the 
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public 
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/gpl-2.0.html>.
+ * #L%
+ */
+
+
+package loci.ome.io;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Bounded least-recently-used cache of image tiles fetched from a remote
+ * pixels service.  Requested regions are broken up along a fixed tile
+ * grid; only the tiles that are not already cached are fetched, and if
+ * more than one loader is available, the missing tiles are requested
+ * concurrently.
+ *
+ * <dl><dt><b>Source code:</b></dt>
+ * <dd><a href="http://trac.openmicroscopy.org.uk/ome/browser/bioformats.git/components/ome-io/src/loci/ome/io/TileCache.java">Trac</a>,
+ * <a href="http://git.openmicroscopy.org/?p=bioformats.git;a=blob;f=components/ome-io/src/loci/ome/io/TileCache.java;hb=HEAD">Gitweb</a></dd></dl>
+ *
+ * @see OmeroReader
+ */
+public class TileCache {
+
+  // -- Constants --
+
+  /** Default maximum number of bytes held by the cache. */
+  public static final long DEFAULT_MAX_BYTES = 64 * 1024 * 1024;
+
+  // -- Fields --
+
+  private final int sizeX, sizeY;
+  private final int tileWidth, tileHeight;
+  private final int bpp;
+  private final long maxBytes;
+
+  private final LinkedHashMap<TileKey, byte[]> tiles =
+    new LinkedHashMap<TileKey, byte[]>(16, 0.75f, true);
+  private long cachedBytes;
+
+  /** Loaders that are not currently fetching a tile. */
+  private final BlockingQueue<TileLoader> loaders;
+
+  /** Executor for concurrent requests; null if there is only one loader. */
+  private ExecutorService executor;
+
+  private long requests, hits;
+
+  // -- Constructor --
+
+  /**
+   * Constructs a tile cache for planes of the given size.
+   *
+   * @param loaders The loaders from which to fetch tiles.  Each loader is
+   *   only used by one thread at a time, so the number of loaders is the
+   *   number of requests that can be outstanding at once.
+   * @param tileWidth The width of each tile; the last column of tiles may
+   *   be narrower.
+   * @param tileHeight The height of each tile; the last row of tiles may
+   *   be shorter.
+   * @param bpp The number of bytes per pixel.
+   * @param maxBytes The maximum number of bytes to cache.
+   */
+  public TileCache(List<? extends TileLoader> loaders, int sizeX, int sizeY,
+    int tileWidth, int tileHeight, int bpp, long maxBytes)
+  {
+    if (loaders.size() == 0) {
+      throw new IllegalArgumentException("No tile loaders");
+    }
+    this.sizeX = sizeX;
+    this.sizeY = sizeY;
+    this.tileWidth = Math.max(1, Math.min(tileWidth, sizeX));
+    this.tileHeight = Math.max(1, Math.min(tileHeight, sizeY));
+    this.bpp = bpp;
+    this.maxBytes = maxBytes;
+
+    this.loaders = new ArrayBlockingQueue<TileLoader>(loaders.size());
+    this.loaders.addAll(loaders);
+    if (loaders.size() > 1) {
+      executor = Executors.newFixedThreadPool(loaders.size(),
+        new ThreadFactory() {
+          public Thread newThread(Runnable r) {
+            Thread t = new Thread(r, "OMERO-Tile-Loader");
+            t.setDaemon(true);
+            return t;
+          }
+        });
+    }
+  }
+
+  // -- TileCache API methods --
+
+  /**
+   * Copies the given region of the given plane into the buffer, fetching
+   * any tiles that are not already cached.
+   */
+  public synchronized void readRegion(int z, int c, int t, int x, int y,
+    int w, int h, byte[] buf) throws IOException
+  {
+    int firstColumn = x / tileWidth, lastColumn = (x + w - 1) / tileWidth;
+    int firstRow = y / tileHeight, lastRow = (y + h - 1) / tileHeight;
+
+    // look up cached tiles, and collect the ones that must be fetched
+    List<TileKey> keys = new ArrayList<TileKey>();
+    List<byte[]> data = new ArrayList<byte[]>();
+    List<TileKey> missing = new ArrayList<TileKey>();
+    for (int row=firstRow; row<=lastRow; row++) {
+      for (int col=firstColumn; col<=lastColumn; col++) {
+        TileKey key = new TileKey(z, c, t, col, row);
+        byte[] tile = tiles.get(key);
+        if (tile == null) missing.add(key);
+        else hits++;
+        keys.add(key);
+        data.add(tile);
+      }
+    }
+
+    List<byte[]> fetched = fetch(missing);
+    for (int i=0, m=0; i<keys.size(); i++) {
+      if (data.get(i) == null) data.set(i, fetched.get(m++));
+    }
+
+    int rowLength = w * bpp;
+    for (int i=0; i<keys.size(); i++) {
+      TileKey key = keys.get(i);
+      byte[] tile = data.get(i);
+      int tx = key.col * tileWidth, ty = key.row * tileHeight;
+      int tw = getTileWidth(key.col), th = getTileHeight(key.row);
+
+      // intersection of the tile and the requested region
+      int x0 = Math.max(x, tx), x1 = Math.min(x + w, tx + tw);
+      int y0 = Math.max(y, ty), y1 = Math.min(y + h, ty + th);
+      int len = (x1 - x0) * bpp;
+      for (int row=y0; row<y1; row++) {
+        int src = ((row - ty) * tw + (x0 - tx)) * bpp;
+        int dest = (row - y) * rowLength + (x0 - x) * bpp;
+        System.arraycopy(tile, src, buf, dest, len);
+      }
+    }
+
+    for (int i=0; i<missing.size(); i++) {
+      put(missing.get(i), fetched.get(i));
+    }
+  }
+
+  /** Returns the number of tiles that have been fetched. */
+  public synchronized long getRequestCount() {
+    return requests;
+  }
+
+  /** Returns the number of tiles that were found in the cache. */
+  public synchronized long getHitCount() {
+    return hits;
+  }
+
+  /** Returns the number of bytes currently held by the cache. */
+  public synchronized long getCachedBytes() {
+    return cachedBytes;
+  }
+
+  /** Discards all cached tiles and stops any request threads. */
+  public synchronized void close() {
+    tiles.clear();
+    cachedBytes = 0;
+    if (executor != null) executor.shutdown();
+    executor = null;
+  }
+
+  // -- Helper methods --
+
+  /** Fetches the given tiles, in order. */
+  private List<byte[]> fetch(List<TileKey> keys) throws IOException {
+    List<byte[]> fetched = new ArrayList<byte[]>(keys.size());
+    requests += keys.size();
+
+    if (executor == null || keys.size() == 1) {
+      for (TileKey key : keys) {
+        fetched.add(load(key));
+      }
+      return fetched;
+    }
+
+    List<Future<byte[]>> futures = new ArrayList<Future<byte[]>>();
+    for (final TileKey key : keys) {
+      futures.add(executor.submit(new Callable<byte[]>() {
+        public byte[] call() throws IOException {
+          return load(key);
+        }
+      }));
+    }
+    try {
+      for (Future<byte[]> f : futures) {
+        fetched.add(f.get());
+      }
+    }
+    catch (InterruptedException e) {
+      throw new IOException("Interrupted while fetching tiles");
+    }
+    catch (ExecutionException e) {
+      Throwable cause = e.getCause();
+      if (cause instanceof IOException) throw (IOException) cause;
+      if (cause instanceof RuntimeException) throw (RuntimeException) cause;
+      IOException exc = new IOException("Could not fetch tile");
+      exc.initCause(cause);
+      throw exc;
+    }
+    finally {
+      for (Future<byte[]> f : futures) {
+        f.cancel(false);
+      }
+    }
+    return fetched;
+  }
+
+  /** Fetches a single tile using the next free loader. */
+  private byte[] load(TileKey key) throws IOException {
+    TileLoader loader;
+    try {
+      loader = loaders.take();
+    }
+    catch (InterruptedException e) {
+      throw new IOException("Interrupted while fetching tiles");
+    }
+    try {
+      return loader.getTile(key.z, key.c, key.t, key.col * tileWidth,
+        key.row * tileHeight, getTileWidth(key.col), getTileHeight(key.row));
+    }
+    finally {
+      loaders.add(loader);
+    }
+  }
+
+  /** Adds a tile to the cache, evicting the least recently used tiles. */
+  private void put(TileKey key, byte[] tile) {
+    if (tile.length > maxBytes) return;
+    byte[] old = tiles.put(key, tile);
+    if (old != null) cachedBytes -= old.length;
+    cachedBytes += tile.length;
+
+    Iterator<Map.Entry<TileKey, byte[]>> it = tiles.entrySet().iterator();
+    while (cachedBytes > maxBytes && it.hasNext()) {
+      cachedBytes -= it.next().getValue().length;
+      it.remove();
+    }
+  }
+
+  private int getTileWidth(int col) {
+    return Math.min(tileWidth, sizeX - col * tileWidth);
+  }
+
+  private int getTileHeight(int row) {
+    return Math.min(tileHeight, sizeY - row * tileHeight);
+  }
+
+  // -- Helper classes --
+
+  /** Fetches a region of a plane from a remote pixels service. */
+  public interface TileLoader {
+    /**
+     * Returns the pixels in the given region of the given plane,
+     * as a row-major array of w * h pixels.
+     */
+    byte[] getTile(int z, int c, int t, int x, int y, int w, int h)
+      throws IOException;
+  }
+
+  /** Identifies a tile by plane and position within the tile grid. */
+  private static class TileKey {
+    private final int z, c, t, col, row;
+
+    public TileKey(int z, int c, int t, int col, int row) {
+      this.z = z;
+      this.c = c;
+      this.t = t;
+      this.col = col;
+      this.row = row;
+    }
+
+    public boolean equals(Object o) {
+      if (!(o instanceof TileKey)) return false;
+      TileKey k = (TileKey) o;
+      return z == k.z && c == k.c && t == k.t && col == k.col && row == k.row;
+    }
+
+    public int hashCode() {
+      return (((z * 31 + c) * 31 + t) * 31 + col) * 31 + row;
+    }
+  }
+
+}
@@ -0,0 +1,179 @@
+/*
+ * #%L
+ * OME database I/O package for communicating with OME and OMERO servers.
+ * %%
+ * Copyright (C) 2005 - 2012 Open Microscopy Environment:
+ *   - Board of Regents of the University of Wisconsin-Madison
+ *   - Glencoe Software, Inc.
+ *   - University of Dundee
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 2 of the 
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public 
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/gpl-2.0.html>.
+ * #L%
+ */
+
+
+package loci.ome.utests;
+
+import static org.testng.AssertJUnit.assertEquals;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import loci.ome.io.TileCache;
+
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+/**
+ * Unit tests for {@link loci.ome.io.TileCache}, using a local stand-in
+ * for the remote pixels service.
+ *
+ * <dl><dt><b>Source code:</b></dt>
+ * <dd><a href="http://trac.openmicroscopy.org.uk/ome/browser/bioformats.git/components/ome-io/test/loci/ome/utests/TileCacheTest.java">Trac</a>,
+ * <a href="http://git.openmicroscopy.org/?p=bioformats.git;a=blob;f=components/ome-io/test/loci/ome/utests/TileCacheTest.java;hb=HEAD">Gitweb</a></dd></dl>
+ */
+public class TileCacheTest {
+
+  private static final int SIZE_X = 100;
+  private static final int SIZE_Y = 70;
+  private static final int TILE_SIZE = 32;
+  private static final int BPP = 2;
+
+  private List<PixelsService> services;
+
+  @BeforeMethod
+  public void setUp() {
+    services = new ArrayList<PixelsService>();
+    for (int i=0; i<3; i++) {
+      services.add(new PixelsService());
+    }
+  }
+
+  @Test
+  public void testRegions() throws IOException {
+    TileCache cache = new TileCache(services, SIZE_X, SIZE_Y,
+      TILE_SIZE, TILE_SIZE, BPP, TileCache.DEFAULT_MAX_BYTES);
+
+    // regions that span several tiles, including the partial edge tiles
+    int[][] regions = {
+      {0, 0, SIZE_X, SIZE_Y}, {5, 7, 60, 40}, {90, 60, 10, 10}, {31, 31, 2, 2}
+    };
+    for (int[] r : regions) {
+      byte[] buf = new byte[r[2] * r[3] * BPP];
+      cache.readRegion(1, 2, 3, r[0], r[1], r[2], r[3], buf);
+      assertRegion(1, 2, 3, r[0], r[1], r[2], r[3], buf);
+    }
+
+    // the first region fetched every tile of the plane exactly once
+    assertEquals(12, cache.getRequestCount());
+    assertEquals(12, getRequestCount());
+    cache.close();
+  }
+
+  @Test
+  public void testEviction() throws IOException {
+    long tileBytes = TILE_SIZE * TILE_SIZE * BPP;
+    TileCache cache = new TileCache(services.subList(0, 1), SIZE_X, SIZE_Y,
+      TILE_SIZE, TILE_SIZE, BPP, 2 * tileBytes);
+
+    byte[] buf = new byte[TILE_SIZE * TILE_SIZE * BPP];
+    cache.readRegion(0, 0, 0, 0, 0, TILE_SIZE, TILE_SIZE, buf);
+    cache.readRegion(0, 0, 0, TILE_SIZE, 0, TILE_SIZE, TILE_SIZE, buf);
+    cache.readRegion(0, 0, 0, 0, 0, TILE_SIZE, TILE_SIZE, buf);
+    assertEquals(2, cache.getRequestCount());
+    assertEquals(1, cache.getHitCount());
+
+    // loading a third tile evicts the least recently used one
+    cache.readRegion(0, 0, 1, 0, 0, TILE_SIZE, TILE_SIZE, buf);
+    cache.readRegion(0, 0, 0, 0, 0, TILE_SIZE, TILE_SIZE, buf);
+    assertEquals(3, cache.getRequestCount());
+    cache.readRegion(0, 0, 0, TILE_SIZE, 0, TILE_SIZE, TILE_SIZE, buf);
+    assertEquals(4, cache.getRequestCount());
+    assertEquals(2 * tileBytes, cache.getCachedBytes());
+    assertRegion(0, 0, 0, TILE_SIZE, 0, TILE_SIZE, TILE_SIZE, buf);
+    cache.close();
+  }
+
+  @Test(expectedExceptions={IOException.class})
+  public void testFailedRequest() throws IOException {
+    services.get(1).fail = true;
+    services.get(2).fail = true;
+    TileCache cache = new TileCache(services.subList(1, 3), SIZE_X, SIZE_Y,
+      TILE_SIZE, TILE_SIZE, BPP, TileCache.DEFAULT_MAX_BYTES);
+    try {
+      cache.readRegion(0, 0, 0, 0, 0, SIZE_X, SIZE_Y,
+        new byte[SIZE_X * SIZE_Y * BPP]);
+    }
+    finally {
+      cache.close();
+    }
+  }
+
+  // -- Helper methods --
+
+  private int getRequestCount() {
+    int count = 0;
+    for (PixelsService s : services) {
+      count += s.requests;
+    }
+    return count;
+  }
+
+  private static void assertRegion(int z, int c, int t, int x, int y,
+    int w, int h, byte[] buf)
+  {
+    for (int row=0; row<h; row++) {
+      for (int col=0; col<w; col++) {
+        int offset = (row * w + col) * BPP;
+        for (int b=0; b<BPP; b++) {
+          assertEquals(pixel(z, c, t, x + col, y + row, b), buf[offset + b]);
+        }
+      }
+    }
+  }
+
+  private static byte pixel(int z, int c, int t, int x, int y, int b) {
+    return (byte) (x * 7 + y * 13 + z + c * 3 + t * 5 + b);
+  }
+
+  // -- Helper classes --
+
+  /** Stand-in for a remote pixels store. */
+  private static class PixelsService implements TileCache.TileLoader {
+    private int requests;
+    private boolean fail;
+
+    public byte[] getTile(int z, int c, int t, int x, int y, int w, int h)
+      throws IOException
+    {
+      if (fail) throw new IOException("Pixels service unavailable");
+      synchronized (this) {
+        requests++;
+      }
+      byte[] tile = new byte[w * h * BPP];
+      for (int row=0; row<h; row++) {
+        for (int col=0; col<w; col++) {
+          for (int b=0; b<BPP; b++) {
+            tile[(row * w + col) * BPP + b] =
+              pixel(z, c, t, x + col, y + row, b);
+          }
+        }
+      }
+      return tile;
+    }
+  }
+
+}
@@ -38,6 +38,14 @@ package ome.scifio.common;
 
 import java.io.File;
 import java.io.IOException;
+import java.io.UnsupportedEncodingException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+import java.nio.ShortBuffer;
 import java.text.DecimalFormatSymbols;
 
 import ome.scifio.io.RandomAccessInputStream;
@@ -58,6 +66,15 @@ public final class DataTools {
 
   // -- Constants --
 
+  /** Powers of ten that can be represented exactly as doubles. */
+  private static final double[] POWERS_OF_TEN = {
+    1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+    1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+  };
+
+  /** Maximum number of significant digits that can be parsed exactly. */
+  private static final int MAX_EXACT_DIGITS = 15;
+
   // -- Static fields --
 
   // -- Constructor --
@@ -434,6 +451,72 @@ public final class DataTools {
     return value;
   }
 
+  /**
+   * Parses a decimal number from the given bytes, without allocating
+   * in the common case. Numbers that cannot be converted exactly this way
+   * (too many significant digits, large exponents, "NaN", etc.) are passed
+   * to {@link Double#parseDouble(String)}, so the result is always the same
+   * as that of <code>Double.parseDouble(new String(bytes, off, len))</code>.
+   *
+   * @throws NumberFormatException if the bytes do not contain a number
+   */
+  public static double parseDouble(byte[] bytes, int off, int len) {
+    int end = off + len;
+    int i = off;
+    boolean negative = false;
+    if (i < end && (bytes[i] == '-' || bytes[i] == '+')) {
+      negative = bytes[i] == '-';
+      i++;
+    }
+
+    long mantissa = 0;
+    int digits = 0, exponent = 0;
+    boolean found = false, fraction = false;
+    for (; i<end; i++) {
+      if (bytes[i] == '.' && !fraction) {
+        fraction = true;
+        continue;
+      }
+      int digit = bytes[i] - '0';
+      if (digit < 0 || digit > 9) break;
+      found = true;
+      if (fraction) exponent--;
+      if (mantissa == 0 && digit == 0) continue;
+      if (++digits > MAX_EXACT_DIGITS) {
+        return parseDoubleString(bytes, off, len);
+      }
+      mantissa = mantissa * 10 + digit;
+    }
+
+    if (found && i < end && (bytes[i] == 'e' || bytes[i] == 'E')) {
+      i++;
+      boolean negativeExponent = false;
+      if (i < end && (bytes[i] == '-' || bytes[i] == '+')) {
+        negativeExponent = bytes[i] == '-';
+        i++;
+      }
+      int start = i, value = 0;
+      for (; i<end && bytes[i] >= '0' && bytes[i] <= '9'; i++) {
+        if (value < 10000) value = value * 10 + (bytes[i] - '0');
+      }
+      if (i == start) return parseDoubleString(bytes, off, len);
+      exponent += negativeExponent ? -value : value;
+    }
+    if (!found || i != end) return parseDoubleString(bytes, off, len);
+
+    double value = mantissa;
+    if (mantissa != 0 && exponent != 0) {
+      if (exponent > 0 && exponent < POWERS_OF_TEN.length) {
+        value *= POWERS_OF_TEN[exponent];
+      }
+      else if (exponent < 0 && -exponent < POWERS_OF_TEN.length) {
+        value /= POWERS_OF_TEN[-exponent];
+      }
+      else return parseDoubleString(bytes, off, len);
+    }
+    return negative ? -value : value;
+  }
+
   // -- Word decoding - primitive types to bytes --
 
   /** Translates the short value into an array of two bytes. */
@@ -474,45 +557,35 @@ public final class DataTools {
   /** Translates an array of short values into an array of byte values. */
   public static byte[] shortsToBytes(short[] values, boolean little) {
     byte[] v = new byte[values.length * 2];
-    for (int i=0; i<values.length; i++) {
-      unpackBytes(values[i], v, i * 2, 2, little);
-    }
+    shortsToBytes(values, 0, v, 0, values.length, little);
     return v;
   }
 
   /** Translates an array of int values into an array of byte values. */
   public static byte[] intsToBytes(int[] values, boolean little) {
     byte[] v = new byte[values.length * 4];
-    for (int i=0; i<values.length; i++) {
-      unpackBytes(values[i], v, i * 4, 4, little);
-    }
+    intsToBytes(values, 0, v, 0, values.length, little);
     return v;
   }
 
   /** Translates an array of float values into an array of byte values. */
   public static byte[] floatsToBytes(float[] values, boolean little) {
     byte[] v = new byte[values.length * 4];
-    for (int i=0; i<values.length; i++) {
-      unpackBytes(Float.floatToIntBits(values[i]), v, i * 4, 4, little);
-    }
+    floatsToBytes(values, 0, v, 0, values.length, little);
     return v;
   }
 
   /** Translates an array of long values into an array of byte values. */
   public static byte[] longsToBytes(long[] values, boolean little) {
     byte[] v = new byte[values.length * 8];
-    for (int i=0; i<values.length; i++) {
-      unpackBytes(values[i], v, i * 8, 8, little);
-    }
+    longsToBytes(values, 0, v, 0, values.length, little);
     return v;
   }
 
   /** Translates an array of double values into an array of byte values. */
   public static byte[] doublesToBytes(double[] values, boolean little) {
     byte[] v = new byte[values.length * 8];
-    for (int i=0; i<values.length; i++) {
-      unpackBytes(Double.doubleToLongBits(values[i]), v, i * 8, 8, little);
-    }
+    doublesToBytes(values, 0, v, 0, values.length, little);
     return v;
   }
 
@@ -567,37 +640,27 @@ public final class DataTools {
     }
     else if (bpp == 2) {
       short[] s = new short[b.length / 2];
-      for (int i=0; i<s.length; i++) {
-        s[i] = bytesToShort(b, i*2, 2, little);
-      }
+      bytesToShorts(b, 0, s, 0, s.length, little);
       return s;
     }
     else if (bpp == 4 && fp) {
       float[] f = new float[b.length / 4];
-      for (int i=0; i<f.length; i++) {
-        f[i] = bytesToFloat(b, i * 4, 4, little);
-      }
+      bytesToFloats(b, 0, f, 0, f.length, little);
       return f;
     }
     else if (bpp == 4) {
       int[] i = new int[b.length / 4];
-      for (int j=0; j<i.length; j++) {
-        i[j] = bytesToInt(b, j*4, 4, little);
-      }
+      bytesToInts(b, 0, i, 0, i.length, little);
       return i;
     }
     else if (bpp == 8 && fp) {
       double[] d = new double[b.length / 8];
-      for (int i=0; i<d.length; i++) {
-        d[i] = bytesToDouble(b, i * 8, 8, little);
-      }
+      bytesToDoubles(b, 0, d, 0, d.length, little);
       return d;
     }
     else if (bpp == 8) {
       long[] l = new long[b.length / 8];
-      for (int i=0; i<l.length; i++) {
-        l[i] = bytesToLong(b, i*8, 8, little);
-      }
+      bytesToLongs(b, 0, l, 0, l.length, little);
       return l;
     }
     return null;
@@ -650,56 +713,229 @@ public final class DataTools {
     else if (bpp == 2) {
       short[][] s = new short[height][width];
       for (int y=0; y<height; y++) {
-        for (int x=0; x<width; x++) {
-          int index = 2*(width*y + x);
-          s[y][x] = bytesToShort(b, index, 2, little);
-        }
+        bytesToShorts(b, 2*width*y, s[y], 0, width, little);
       }
       return s;
     }
     else if (bpp == 4 && fp) {
       float[][] f = new float[height][width];
       for (int y=0; y<height; y++) {
-        for (int x=0; x<width; x++) {
-          int index = 4*(width*y + x);
-          f[y][x] = bytesToFloat(b, index, 4, little);
-        }
+        bytesToFloats(b, 4*width*y, f[y], 0, width, little);
       }
       return f;
     }
     else if (bpp == 4) {
       int[][] i = new int[height][width];
       for (int y=0; y<height; y++) {
-        for (int x=0; x<width; x++) {
-          int index = 4*(width*y + x);
-          i[y][x] = bytesToInt(b, index, 4, little);
-        }
+        bytesToInts(b, 4*width*y, i[y], 0, width, little);
       }
       return i;
     }
     else if (bpp == 8 && fp) {
       double[][] d = new double[height][width];
       for (int y=0; y<height; y++) {
-        for (int x=0; x<width; x++) {
-          int index = 8*(width*y + x);
-          d[y][x] = bytesToDouble(b, index, 8, little);
-        }
+        bytesToDoubles(b, 8*width*y, d[y], 0, width, little);
       }
       return d;
     }
     else if (bpp == 8) {
       long[][] l = new long[height][width];
       for (int y=0; y<height; y++) {
-        for (int x=0; x<width; x++) {
-          int index = 8*(width*y + x);
-          l[y][x] = bytesToLong(b, index, 8, little);
-        }
+        bytesToLongs(b, 8*width*y, l[y], 0, width, little);
       }
       return l;
     }
     return null;
   }
 
+  // -- Bulk conversion --
+
+  /**
+   * Translates len shorts from the byte array, starting at srcOff, into
+   * the short array, starting at destOff.
+   */
+  public static void bytesToShorts(byte[] src, int srcOff, short[] dest,
+    int destOff, int len, boolean little)
+  {
+    wrap(src, srcOff, len * 2, little).asShortBuffer().get(dest, destOff, len);
+  }
+
+  /**
+   * Translates len ints from the byte array, starting at srcOff, into
+   * the int array, starting at destOff.
+   */
+  public static void bytesToInts(byte[] src, int srcOff, int[] dest,
+    int destOff, int len, boolean little)
+  {
+    wrap(src, srcOff, len * 4, little).asIntBuffer().get(dest, destOff, len);
+  }
+
+  /**
+   * Translates len floats from the byte array, starting at srcOff, into
+   * the float array, starting at destOff.
+   */
+  public static void bytesToFloats(byte[] src, int srcOff, float[] dest,
+    int destOff, int len, boolean little)
+  {
+    wrap(src, srcOff, len * 4, little).asFloatBuffer().get(dest, destOff, len);
+  }
+
+  /**
+   * Translates len longs from the byte array, starting at srcOff, into
+   * the long array, starting at destOff.
+   */
+  public static void bytesToLongs(byte[] src, int srcOff, long[] dest,
+    int destOff, int len, boolean little)
+  {
+    wrap(src, srcOff, len * 8, little).asLongBuffer().get(dest, destOff, len);
+  }
+
+  /**
+   * Translates len doubles from the byte array, starting at srcOff, into
+   * the double array, starting at destOff.
+   */
+  public static void bytesToDoubles(byte[] src, int srcOff, double[] dest,
+    int destOff, int len, boolean little)
+  {
+    wrap(src, srcOff, len * 8, little).asDoubleBuffer().get(dest, destOff,
+      len);
+  }
+
+  /**
+   * Translates len shorts from the short array, starting at srcOff, into
+   * the byte array, starting at destOff.
+   */
+  public static void shortsToBytes(short[] src, int srcOff, byte[] dest,
+    int destOff, int len, boolean little)
+  {
+    wrap(dest, destOff, len * 2, little).asShortBuffer().put(src, srcOff, len);
+  }
+
+  /**
+   * Translates len ints from the int array, starting at srcOff, into
+   * the byte array, starting at destOff.
+   */
+  public static void intsToBytes(int[] src, int srcOff, byte[] dest,
+    int destOff, int len, boolean little)
+  {
+    wrap(dest, destOff, len * 4, little).asIntBuffer().put(src, srcOff, len);
+  }
+
+  /**
+   * Translates len floats from the float array, starting at srcOff, into
+   * the byte array, starting at destOff.
+   */
+  public static void floatsToBytes(float[] src, int srcOff, byte[] dest,
+    int destOff, int len, boolean little)
+  {
+    wrap(dest, destOff, len * 4, little).asFloatBuffer().put(src, srcOff, len);
+  }
+
+  /**
+   * Translates len longs from the long array, starting at srcOff, into
+   * the byte array, starting at destOff.
+   */
+  public static void longsToBytes(long[] src, int srcOff, byte[] dest,
+    int destOff, int len, boolean little)
+  {
+    wrap(dest, destOff, len * 8, little).asLongBuffer().put(src, srcOff, len);
+  }
+
+  /**
+   * Translates len doubles from the double array, starting at srcOff, into
+   * the byte array, starting at destOff.
+   */
+  public static void doublesToBytes(double[] src, int srcOff, byte[] dest,
+    int destOff, int len, boolean little)
+  {
+    wrap(dest, destOff, len * 8, little).asDoubleBuffer().put(src, srcOff,
+      len);
+  }
+
+  // -- Statistics --
+
+  /**
+   * Scans len samples of bpp bytes each, starting at off, for the minimum
+   * and maximum values.
+   *
+   * @param fp If set and bpp == 4 or bpp == 8, the samples are floats or
+   *   doubles.
+   * @param signed Whether integer samples are signed.
+   * @param little Whether the samples are in little-endian order.
+   * @return the minimum and maximum values, or null if len is 0.
+   * @throws IllegalArgumentException if bpp is not 1, 2, 4 or 8.
+   */
+  public static double[] minMax(byte[] b, int off, int len, int bpp,
+    boolean fp, boolean signed, boolean little)
+  {
+    if (len == 0) return null;
+    if (fp) {
+      double min = Double.POSITIVE_INFINITY, max = Double.NEGATIVE_INFINITY;
+      if (bpp == 4) {
+        FloatBuffer v = wrap(b, off, len * 4, little).asFloatBuffer();
+        for (int i=0; i<len; i++) {
+          float f = v.get(i);
+          if (f < min) min = f;
+          if (f > max) max = f;
+        }
+      }
+      else if (bpp == 8) {
+        DoubleBuffer v = wrap(b, off, len * 8, little).asDoubleBuffer();
+        for (int i=0; i<len; i++) {
+          double d = v.get(i);
+          if (d < min) min = d;
+          if (d > max) max = d;
+        }
+      }
+      else throw new IllegalArgumentException("Invalid bpp: " + bpp);
+      return new double[] {min, max};
+    }
+
+    long min = Long.MAX_VALUE, max = Long.MIN_VALUE;
+    if (bpp == 1) {
+      int mask = signed ? -1 : 0xff;
+      int bmin = Integer.MAX_VALUE, bmax = Integer.MIN_VALUE;
+      for (int i=off; i<off + len; i++) {
+        int v = b[i] & mask;
+        if (v < bmin) bmin = v;
+        if (v > bmax) bmax = v;
+      }
+      min = bmin;
+      max = bmax;
+    }
+    else if (bpp == 2) {
+      ShortBuffer v = wrap(b, off, len * 2, little).asShortBuffer();
+      int mask = signed ? -1 : 0xffff;
+      int smin = Integer.MAX_VALUE, smax = Integer.MIN_VALUE;
+      for (int i=0; i<len; i++) {
+        int s = v.get(i) & mask;
+        if (s < smin) smin = s;
+        if (s > smax) smax = s;
+      }
+      min = smin;
+      max = smax;
+    }
+    else if (bpp == 4) {
+      IntBuffer v = wrap(b, off, len * 4, little).asIntBuffer();
+      long mask = signed ? -1L : 0xffffffffL;
+      for (int i=0; i<len; i++) {
+        long s = v.get(i) & mask;
+        if (s < min) min = s;
+        if (s > max) max = s;
+      }
+    }
+    else if (bpp == 8) {
+      LongBuffer v = wrap(b, off, len * 8, little).asLongBuffer();
+      for (int i=0; i<len; i++) {
+        long s = v.get(i);
+        if (s < min) min = s;
+        if (s > max) max = s;
+      }
+    }
+    else throw new IllegalArgumentException("Invalid bpp: " + bpp);
+    return new double[] {min, max};
+  }
+
   // -- Byte swapping --
 
   public static short swap(short x) {
@@ -726,6 +962,37 @@ public final class DataTools {
     return Double.longBitsToDouble(swap(Double.doubleToLongBits(x)));
   }
 
+  /**
+   * Reverses the byte order of len samples of bpp bytes each, in place,
+   * starting at the given offset.
+   */
+  public static void swapBytes(byte[] buf, int off, int len, int bpp) {
+    if (bpp == 2) {
+      ShortBuffer in = wrap(buf, off, len * 2, true).asShortBuffer();
+      ShortBuffer out = wrap(buf, off, len * 2, false).asShortBuffer();
+      for (int i=0; i<len; i++) out.put(i, in.get(i));
+    }
+    else if (bpp == 4) {
+      IntBuffer in = wrap(buf, off, len * 4, true).asIntBuffer();
+      IntBuffer out = wrap(buf, off, len * 4, false).asIntBuffer();
+      for (int i=0; i<len; i++) out.put(i, in.get(i));
+    }
+    else if (bpp == 8) {
+      LongBuffer in = wrap(buf, off, len * 8, true).asLongBuffer();
+      LongBuffer out = wrap(buf, off, len * 8, false).asLongBuffer();
+      for (int i=0; i<len; i++) out.put(i, in.get(i));
+    }
+    else if (bpp > 1) {
+      for (int i=off; i<off + len * bpp; i+=bpp) {
+        for (int lo=i, hi=i + bpp - 1; lo<hi; lo++, hi--) {
+          byte tmp = buf[lo];
+          buf[lo] = buf[hi];
+          buf[hi] = tmp;
+        }
+      }
+    }
+  }
+
   // -- Strings --
 
   /**
@@ -766,16 +1033,26 @@ public final class DataTools {
   /** Remove unprintable characters from the given string. */
   public static String sanitize(String s) {
     if (s == null) return null;
-    StringBuffer buf = new StringBuffer(s);
-    for (int i=0; i<buf.length(); i++) {
-      char c = buf.charAt(i);
-      if (c != '\t' && c != '\n' && (c < ' ' || c > '~')) {
-        buf = buf.deleteCharAt(i--);
-      }
+    int len = s.length();
+    int first = 0;
+    while (first < len && isPrintable(s.charAt(first))) first++;
+    if (first == len) return s;
+
+    // only copy if at least one character needs to be removed
+    StringBuilder buf = new StringBuilder(len - 1);
+    buf.append(s, 0, first);
+    for (int i=first+1; i<len; i++) {
+      char c = s.charAt(i);
+      if (isPrintable(c)) buf.append(c);
     }
     return buf.toString();
   }
 
+  /** Returns true if the given character is not removed by sanitize. */
+  private static boolean isPrintable(char c) {
+    return c == '\t' || c == '\n' || (c >= ' ' && c <= '~');
+  }
+
   // -- Normalization --
 
   /**
@@ -979,6 +1256,12 @@ public final class DataTools {
 
   // -- Helper methods --
 
+  /** Wraps len bytes of the array, starting at off, in the given order. */
+  private static ByteBuffer wrap(byte[] b, int off, int len, boolean little) {
+    return ByteBuffer.wrap(b, off, len).order(little ?
+      ByteOrder.LITTLE_ENDIAN : ByteOrder.BIG_ENDIAN);
+  }
+
   private static String sizeAsProduct(int... sizes) {
     StringBuilder sb = new StringBuilder();
     boolean first = true;
@@ -1005,4 +1288,14 @@ public final class DataTools {
     return Long.MAX_VALUE / v1 < v2;
   }
 
+  private static double parseDoubleString(byte[] bytes, int off, int len) {
+    try {
+      String value = new String(bytes, off, len, Constants.ENCODING);
+      return Double.parseDouble(value);
+    }
+    catch (UnsupportedEncodingException e) {
+      return Double.parseDouble(new String(bytes, off, len));
+    }
+  }
+
 }
@@ -45,7 +45,10 @@ import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.net.URL;
 import java.net.URLClassLoader;
+import java.util.Arrays;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
 import java.util.StringTokenizer;
 
 
@@ -55,6 +58,12 @@ import org.slf4j.LoggerFactory;
 /**
  * A general-purpose reflection wrapper class.
  *
+ * Each command string is parsed only once; the parsed form is cached along
+ * with the constructors, methods and fields it resolves to (keyed by
+ * receiver class and argument types), so repeated calls such as those made
+ * once per plane do not pay for string parsing or a brute force search
+ * through the receiver's public methods.
+ *
  * <dl><dt><b>Source code:</b></dt>
  * <dd><a href="http://trac.openmicroscopy.org.uk/ome/browser/bioformats.git/components/common/src/loci/common/ReflectedUniverse.java">Trac</a>,
  * <a href="http://git.openmicroscopy.org/?p=bioformats.git;a=blob;f=components/common/src/loci/common/ReflectedUniverse.java;hb=HEAD">Gitweb</a></dd></dl>
@@ -66,6 +75,12 @@ public class ReflectedUniverse {
   private static final Logger LOGGER =
     LoggerFactory.getLogger(ReflectedUniverse.class);
 
+  /** Maximum number of parsed commands retained per universe. */
+  private static final int MAX_COMMANDS = 512;
+
+  /** Marker returned by {@link #parseLiteral} for non-literal tokens. */
+  private static final Object NOT_LITERAL = new Object();
+
   // -- Fields --
 
   /** Hashtable containing all variables present in the universe. */
@@ -77,6 +92,12 @@ public class ReflectedUniverse {
   /** Whether to force our way past restrictive access modifiers. */
   protected boolean force;
 
+  /** Parsed commands, keyed by the original command string. */
+  private Map<String, Command> commands;
+
+  /** Resolved constructors, methods and fields. */
+  private HashMap<MemberKey, Object> members;
+
   // -- Constructors --
 
   /** Constructs a new reflected universe. */
@@ -95,6 +116,12 @@ public class ReflectedUniverse {
   public ReflectedUniverse(ClassLoader loader) {
     variables = new HashMap<String, Object>();
     this.loader = loader == null ? getClass().getClassLoader() : loader;
+    commands = new LinkedHashMap<String, Command>(16, 0.75f, true) {
+      protected boolean removeEldestEntry(Map.Entry<String, Command> eldest) {
+        return size() > MAX_COMMANDS;
+      }
+    };
+    members = new HashMap<MemberKey, Object>();
   }
 
   // -- Utility methods --
@@ -148,108 +175,64 @@ public class ReflectedUniverse {
    * </ul>
    */
   public Object exec(String command) throws ReflectException {
-    command = command.trim();
-    if (command.startsWith("import ")) {
-      // command is an import statement
-      command = command.substring(7).trim();
-      int dot = command.lastIndexOf(".");
-      String varName = dot < 0 ? command : command.substring(dot + 1);
+    Command cmd = commands.get(command);
+    if (cmd == null) {
+      cmd = parseCommand(command);
+      commands.put(command, cmd);
+    }
+
+    if (cmd.kind == Command.IMPORT) {
       Class<?> c;
       try {
-        c = Class.forName(command, true, loader);
+        c = Class.forName(cmd.name, true, loader);
       }
       catch (NoClassDefFoundError err) {
-        LOGGER.debug("No such class: {}", command, err);
-        throw new ReflectException("No such class: " + command, err);
+        LOGGER.debug("No such class: {}", cmd.name, err);
+        throw new ReflectException("No such class: " + cmd.name, err);
       }
       catch (ClassNotFoundException exc) {
-        LOGGER.debug("No such class: {}", command, exc);
-        throw new ReflectException("No such class: " + command, exc);
+        LOGGER.debug("No such class: {}", cmd.name, exc);
+        throw new ReflectException("No such class: " + cmd.name, exc);
       }
       catch (RuntimeException exc) {
         // HACK: workaround for bug in Apache Axis2
         String msg = exc.getMessage();
         if (msg != null && msg.indexOf("ClassNotFound") < 0) throw exc;
-        LOGGER.debug("No such class: {}", command, exc);
-        throw new ReflectException("No such class: " + command, exc);
+        LOGGER.debug("No such class: {}", cmd.name, exc);
+        throw new ReflectException("No such class: " + cmd.name, exc);
       }
-      setVar(varName, c);
+      setVar(cmd.target, c);
       return null;
     }
 
-    // get variable where results of command should be stored
-    int eqIndex = command.indexOf("=");
-    String target = null;
-    if (eqIndex >= 0) {
-      target = command.substring(0, eqIndex).trim();
-      command = command.substring(eqIndex + 1).trim();
-    }
-
-    Object result = null;
-
-    // parse parentheses
-    int leftParen = command.indexOf("(");
-    if (leftParen < 0) {
+    if (cmd.kind == Command.ASSIGN) {
       // command is a simple assignment
-      result = getVar(command);
-      if (target != null) setVar(target, result);
+      Object result = cmd.args[0].evaluate();
+      if (cmd.target != null) setVar(cmd.target, result);
       return result;
     }
-    else if (leftParen != command.lastIndexOf("(") ||
-      command.indexOf(")") != command.length() - 1)
-    {
-      throw new ReflectException("Invalid parentheses");
-    }
 
-    // parse arguments
-    String arglist = command.substring(leftParen + 1);
-    StringTokenizer st = new StringTokenizer(arglist, "(,)");
-    int len = st.countTokens();
-    Object[] args = new Object[len];
-    for (int i=0; i<len; i++) {
-      String arg = st.nextToken().trim();
-      args[i] = getVar(arg);
+    Object[] args = new Object[cmd.args.length];
+    Class<?>[] argTypes = new Class<?>[args.length];
+    for (int i=0; i<args.length; i++) {
+      args[i] = cmd.args[i].evaluate();
+      argTypes[i] = args[i] == null ? null : args[i].getClass();
     }
-    command = command.substring(0, leftParen);
 
-    if (command.startsWith("new ")) {
+    Object result = null;
+    if (cmd.kind == Command.NEW) {
       // command is a constructor call
-      String className = command.substring(4).trim();
-      Object var = getVar(className);
+      Object var = cmd.receiver.evaluate();
       if (var == null) {
-        throw new ReflectException("Class not found: " + className);
+        throw new ReflectException("Class not found: " + cmd.name);
       }
       else if (!(var instanceof Class<?>)) {
-        throw new ReflectException("Not a class: " + className);
-      }
-      Class<?> cl = (Class<?>) var;
-
-      // Search for a constructor that matches the arguments. Unfortunately,
-      // calling cl.getConstructor(argClasses) does not work, because
-      // getConstructor() is not flexible enough to detect when the arguments
-      // are subclasses of the constructor argument classes, making a brute
-      // force search through all public constructors necessary.
-      Constructor<?> constructor = null;
-      Constructor<?>[] c = cl.getConstructors();
-      for (int i=0; i<c.length; i++) {
-        if (force) c[i].setAccessible(true);
-        Class<?>[] params = c[i].getParameterTypes();
-        if (params.length == args.length) {
-          boolean match = true;
-          for (int j=0; j<params.length; j++) {
-            if (!isInstance(params[j], args[j])) {
-              match = false;
-              break;
-            }
-          }
-          if (match) {
-            constructor = c[i];
-            break;
-          }
-        }
+        throw new ReflectException("Not a class: " + cmd.name);
       }
+      Constructor<?> constructor =
+        findConstructor((Class<?>) var, args, argTypes);
       if (constructor == null) {
-        StringBuffer sb = new StringBuffer(command);
+        StringBuffer sb = new StringBuffer("new " + cmd.name);
         for (int i=0; i<args.length; i++) {
           sb.append(i == 0 ? "(" : ", ");
           sb.append(args[i].getClass().getName());
@@ -271,45 +254,15 @@ public class ReflectedUniverse {
     }
     else {
       // command is a method call
-      int dot = command.indexOf(".");
-      if (dot < 0) throw new ReflectException("Syntax error");
-      String varName = command.substring(0, dot).trim();
-      String methodName = command.substring(dot + 1).trim();
-      Object var = getVar(varName);
+      Object var = cmd.receiver.evaluate();
       if (var == null) {
-        throw new ReflectException("No such variable: " + varName);
+        throw new ReflectException("No such variable: " + cmd.name);
       }
       Class<?> varClass = var instanceof Class<?> ?
         (Class<?>) var : var.getClass();
-
-      // Search for a method that matches the arguments. Unfortunately,
-      // calling varClass.getMethod(methodName, argClasses) does not work,
-      // because getMethod() is not flexible enough to detect when the
-      // arguments are subclasses of the method argument classes, making a
-      // brute force search through all public methods necessary.
-      Method method = null;
-      Method[] m = varClass.getMethods();
-      for (int i=0; i<m.length; i++) {
-        if (force) m[i].setAccessible(true);
-        if (methodName.equals(m[i].getName())) {
-          Class<?>[] params = m[i].getParameterTypes();
-          if (params.length == args.length) {
-            boolean match = true;
-            for (int j=0; j<params.length; j++) {
-              if (!isInstance(params[j], args[j])) {
-                match = false;
-                break;
-              }
-            }
-            if (match) {
-              method = m[i];
-              break;
-            }
-          }
-        }
-      }
+      Method method = findMethod(varClass, cmd.method, args, argTypes);
       if (method == null) {
-        throw new ReflectException("No such method: " + methodName);
+        throw new ReflectException("No such method: " + cmd.method);
       }
 
       // invoke method
@@ -318,13 +271,13 @@ public class ReflectedUniverse {
       catch (IllegalAccessException e) { exc = e; }
       catch (InvocationTargetException e) { exc = e; }
       if (exc != null) {
-        LOGGER.debug("Cannot execute method: {}", methodName, exc);
-        throw new ReflectException("Cannot execute method: " + methodName, exc);
+        LOGGER.debug("Cannot execute method: {}", cmd.method, exc);
+        throw new ReflectException("Cannot execute method: " + cmd.method, exc);
       }
     }
 
     // assign result to proper variable
-    if (target != null) setVar(target, result);
+    if (cmd.target != null) setVar(cmd.target, result);
     return result;
   }
 
@@ -379,51 +332,142 @@ public class ReflectedUniverse {
    * Primitive types will be wrapped in their Java Object wrapper classes.
    */
   public Object getVar(String varName) throws ReflectException {
-    if (varName.equals("null")) {
+    Object literal = parseLiteral(varName);
+    if (literal != NOT_LITERAL) return literal;
+    int dot = varName.indexOf(".");
+    if (dot >= 0) {
+      return getField(varName.substring(0, dot).trim(),
+        varName.substring(dot + 1).trim());
+    }
+    // get variable
+    Object var = variables.get(varName);
+    return var;
+  }
+
+  /** Sets whether access modifiers (protected, private, etc.) are ignored. */
+  public void setAccessibilityIgnored(boolean ignore) {
+    // members resolved under the old setting must be looked up again
+    if (ignore != force) members.clear();
+    force = ignore;
+  }
+
+  /** Gets whether access modifiers (protected, private, etc.) are ignored. */
+  public boolean isAccessibilityIgnored() { return force; }
+
+  // -- Helper methods --
+
+  /** Parses the given command into its reusable, compiled form. */
+  private Command parseCommand(String command) throws ReflectException {
+    command = command.trim();
+    if (command.startsWith("import ")) {
+      // command is an import statement
+      command = command.substring(7).trim();
+      int dot = command.lastIndexOf(".");
+      String varName = dot < 0 ? command : command.substring(dot + 1);
+      return new Command(Command.IMPORT, varName, command, null, null, null);
+    }
+
+    // get variable where results of command should be stored
+    int eqIndex = command.indexOf("=");
+    String target = null;
+    if (eqIndex >= 0) {
+      target = command.substring(0, eqIndex).trim();
+      command = command.substring(eqIndex + 1).trim();
+    }
+
+    // parse parentheses
+    int leftParen = command.indexOf("(");
+    if (leftParen < 0) {
+      // command is a simple assignment
+      return new Command(Command.ASSIGN, target, null, null,
+        new Argument[] {new Argument(command)}, null);
+    }
+    else if (leftParen != command.lastIndexOf("(") ||
+      command.indexOf(")") != command.length() - 1)
+    {
+      throw new ReflectException("Invalid parentheses");
+    }
+
+    // parse arguments
+    String arglist = command.substring(leftParen + 1);
+    StringTokenizer st = new StringTokenizer(arglist, "(,)");
+    Argument[] args = new Argument[st.countTokens()];
+    for (int i=0; i<args.length; i++) {
+      args[i] = new Argument(st.nextToken().trim());
+    }
+    command = command.substring(0, leftParen);
+
+    if (command.startsWith("new ")) {
+      // command is a constructor call
+      String className = command.substring(4).trim();
+      return new Command(Command.NEW, target, className, null, args,
+        new Argument(className));
+    }
+
+    // command is a method call
+    int dot = command.indexOf(".");
+    if (dot < 0) throw new ReflectException("Syntax error");
+    String varName = command.substring(0, dot).trim();
+    String methodName = command.substring(dot + 1).trim();
+    return new Command(Command.CALL, target, varName, methodName, args,
+      new Argument(varName));
+  }
+
+  /**
+   * Returns the value of the given literal, or {@link #NOT_LITERAL} if the
+   * token does not denote a literal.
+   */
+  private static Object parseLiteral(String token) throws ReflectException {
+    if (token.equals("null")) {
       // variable is a null value
       return null;
     }
-    else if (varName.equals("true")) {
+    else if (token.equals("true")) {
       // variable is a boolean literal
       return Boolean.TRUE;
     }
-    else if (varName.equals("false")) {
+    else if (token.equals("false")) {
       // variable is a boolean literal
       return Boolean.FALSE;
     }
-    else if (varName.startsWith("\"") && varName.endsWith("\"")) {
+    else if (token.startsWith("\"") && token.endsWith("\"")) {
       // variable is a string literal
-      return varName.substring(1, varName.length() - 1);
+      return token.substring(1, token.length() - 1);
     }
     try {
-      if (varName.matches("-?\\d+")) {
+      if (token.matches("-?\\d+")) {
         // variable is an int literal
-        return new Integer(varName);
+        return new Integer(token);
       }
-      else if (varName.matches("-?\\d+L")) {
+      else if (token.matches("-?\\d+L")) {
         // variable is a long literal
-        return new Long(varName);
+        return new Long(token.substring(0, token.length() - 1));
       }
-      else if (varName.matches("-?\\d*\\.\\d*")) {
+      else if (token.matches("-?\\d*\\.\\d*")) {
         // variable is a double literal
-        return new Double(varName);
+        return new Double(token);
       }
     }
     catch (NumberFormatException exc) {
-      throw new ReflectException("Invalid literal: " + varName, exc);
+      throw new ReflectException("Invalid literal: " + token, exc);
     }
-    int dot = varName.indexOf(".");
-    if (dot >= 0) {
-      // get field value of variable
-      String className = varName.substring(0, dot).trim();
-      Object var = variables.get(className);
-      if (var == null) {
-        throw new ReflectException("No such class: " + className);
-      }
-      Class<?> varClass = var instanceof Class<?> ?
-        (Class<?>) var : var.getClass();
-      String fieldName = varName.substring(dot + 1).trim();
-      Field field;
+    return NOT_LITERAL;
+  }
+
+  /** Returns the value of the given field of a variable or class. */
+  private Object getField(String className, String fieldName)
+    throws ReflectException
+  {
+    Object var = variables.get(className);
+    if (var == null) {
+      throw new ReflectException("No such class: " + className);
+    }
+    Class<?> varClass = var instanceof Class<?> ?
+      (Class<?>) var : var.getClass();
+    String varName = className + "." + fieldName;
+    MemberKey key = new MemberKey(varClass, fieldName, null);
+    Field field = (Field) members.get(key);
+    if (field == null) {
       try {
         field = varClass.getField(fieldName);
         if (force) field.setAccessible(true);
@@ -432,24 +476,175 @@ public class ReflectedUniverse {
         LOGGER.debug("No such field: {}", varName, exc);
         throw new ReflectException("No such field: " + varName, exc);
       }
-      Object fieldVal;
-      try { fieldVal = field.get(var); }
-      catch (IllegalAccessException exc) {
-        LOGGER.debug("Cannot get field value: {}", varName, exc);
-        throw new ReflectException("Cannot get field value: " + varName, exc);
+      members.put(key, field);
+    }
+    Object fieldVal;
+    try { fieldVal = field.get(var); }
+    catch (IllegalAccessException exc) {
+      LOGGER.debug("Cannot get field value: {}", varName, exc);
+      throw new ReflectException("Cannot get field value: " + varName, exc);
+    }
+    return fieldVal;
+  }
+
+  /**
+   * Returns the public constructor of the given class that accepts the
+   * given arguments, or null if there is none.
+   */
+  private Constructor<?> findConstructor(Class<?> cl, Object[] args,
+    Class<?>[] argTypes)
+  {
+    MemberKey key = new MemberKey(cl, "<init>", argTypes);
+    Constructor<?> constructor = (Constructor<?>) members.get(key);
+    if (constructor != null) return constructor;
+
+    // Search for a constructor that matches the arguments. Unfortunately,
+    // calling cl.getConstructor(argClasses) does not work, because
+    // getConstructor() is not flexible enough to detect when the arguments
+    // are subclasses of the constructor argument classes, making a brute
+    // force search through all public constructors necessary.
+    Constructor<?>[] c = cl.getConstructors();
+    for (int i=0; i<c.length; i++) {
+      if (matches(c[i].getParameterTypes(), args)) {
+        constructor = c[i];
+        break;
       }
-      return fieldVal;
     }
-    // get variable
-    Object var = variables.get(varName);
-    return var;
+    if (constructor != null) {
+      if (force) constructor.setAccessible(true);
+      members.put(key, constructor);
+    }
+    return constructor;
   }
 
-  /** Sets whether access modifiers (protected, private, etc.) are ignored. */
-  public void setAccessibilityIgnored(boolean ignore) { force = ignore; }
+  /**
+   * Returns the public method of the given class with the given name that
+   * accepts the given arguments, or null if there is none.
+   */
+  private Method findMethod(Class<?> varClass, String methodName,
+    Object[] args, Class<?>[] argTypes)
+  {
+    MemberKey key = new MemberKey(varClass, methodName, argTypes);
+    Method method = (Method) members.get(key);
+    if (method != null) return method;
+
+    // Search for a method that matches the arguments. Unfortunately,
+    // calling varClass.getMethod(methodName, argClasses) does not work,
+    // because getMethod() is not flexible enough to detect when the
+    // arguments are subclasses of the method argument classes, making a
+    // brute force search through all public methods necessary.
+    Method[] m = varClass.getMethods();
+    for (int i=0; i<m.length; i++) {
+      if (methodName.equals(m[i].getName()) &&
+        matches(m[i].getParameterTypes(), args))
+      {
+        method = m[i];
+        break;
+      }
+    }
+    if (method != null) {
+      if (force) method.setAccessible(true);
+      members.put(key, method);
+    }
+    return method;
+  }
 
-  /** Gets whether access modifiers (protected, private, etc.) are ignored. */
-  public boolean isAccessibilityIgnored() { return force; }
+  /** Returns whether the given arguments fit the given parameter types. */
+  private static boolean matches(Class<?>[] params, Object[] args) {
+    if (params.length != args.length) return false;
+    for (int j=0; j<params.length; j++) {
+      if (!isInstance(params[j], args[j])) return false;
+    }
+    return true;
+  }
+
+  // -- Helper classes --
+
+  /** A command whose syntax has already been parsed. */
+  private static class Command {
+    static final int IMPORT = 0;
+    static final int ASSIGN = 1;
+    static final int NEW = 2;
+    static final int CALL = 3;
+
+    /** The kind of command: import, assignment, constructor or method. */
+    final int kind;
+
+    /** Variable receiving the result, or null. */
+    final String target;
+
+    /** Imported class, constructed class or method receiver. */
+    final String name;
+
+    /** Method name, for method calls. */
+    final String method;
+
+    /** Parsed arguments (or the assigned value, for assignments). */
+    final Argument[] args;
+
+    /** Parsed class or receiver, for constructor and method calls. */
+    final Argument receiver;
+
+    Command(int kind, String target, String name, String method,
+      Argument[] args, Argument receiver)
+    {
+      this.kind = kind;
+      this.target = target;
+      this.name = name;
+      this.method = method;
+      this.args = args;
+      this.receiver = receiver;
+    }
+  }
+
+  /**
+   * A parsed command argument. Literals are converted once when the command
+   * is parsed; variables and fields are looked up each time it executes.
+   */
+  private class Argument {
+    private final String token;
+    private final Object literal;
+    private final String className, fieldName;
+
+    Argument(String token) throws ReflectException {
+      this.token = token;
+      literal = parseLiteral(token);
+      int dot = literal == NOT_LITERAL ? token.indexOf(".") : -1;
+      className = dot < 0 ? null : token.substring(0, dot).trim();
+      fieldName = dot < 0 ? null : token.substring(dot + 1).trim();
+    }
+
+    Object evaluate() throws ReflectException {
+      if (literal != NOT_LITERAL) return literal;
+      if (className != null) return getField(className, fieldName);
+      return variables.get(token);
+    }
+  }
+
+  /** Lookup key for resolved constructors, methods and fields. */
+  private static class MemberKey {
+    private final Class<?> type;
+    private final String name;
+    private final Class<?>[] argTypes;
+    private final int hash;
+
+    MemberKey(Class<?> type, String name, Class<?>[] argTypes) {
+      this.type = type;
+      this.name = name;
+      this.argTypes = argTypes;
+      hash = 31 * (31 * type.hashCode() + name.hashCode()) +
+        Arrays.hashCode(argTypes);
+    }
+
+    public int hashCode() { return hash; }
+
+    public boolean equals(Object o) {
+      if (!(o instanceof MemberKey)) return false;
+      MemberKey key = (MemberKey) o;
+      return type == key.type && name.equals(key.name) &&
+        Arrays.equals(argTypes, key.argTypes);
+    }
+  }
 
   // -- Main method --
 
@@ -41,8 +41,6 @@ import java.io.DataInputStream;
 import java.io.FileInputStream;
 import java.io.IOException;
 
-import ome.scifio.common.Constants;
-
 
 /**
  * StreamHandle implementation for reading from BZip2-compressed files
@@ -58,6 +56,11 @@ import ome.scifio.common.Constants;
  */
 public class BZip2Handle extends StreamHandle {
 
+  // -- Fields --
+
+  /** Compressed file. */
+  private RandomAccessInputStream in;
+
   // -- Constructor --
 
   /**
@@ -66,11 +69,17 @@ public class BZip2Handle extends StreamHandle {
    * @throws HandleException if the given file is not a BZip2 file.
    */
   public BZip2Handle(String file) throws IOException {
+    this(file, openHandle(file));
+  }
+
+  /**
+   * Constructs a new BZip2Handle for the given BZip2 file, reading from an
+   * already open handle to it.  The handle is closed along with this one.
+   */
+  BZip2Handle(String file, IRandomAccess handle) throws IOException {
     super();
     this.file = file;
-    if (!isBZip2File(file)) {
-      throw new HandleException(file + " is not a BZip2 file.");
-    }
+    in = new RandomAccessInputStream(handle, file);
 
     resetStream();
 
@@ -94,20 +103,50 @@ public class BZip2Handle extends StreamHandle {
     byte[] b = new byte[2];
     s.read(b);
     s.close();
-    return new String(b, Constants.ENCODING).equals("BZ");
+    return isBZip2Magic(b);
+  }
+
+  /** Returns true if the given bytes begin with the BZip2 magic number. */
+  static boolean isBZip2Magic(byte[] b) {
+    return b[0] == 'B' && b[1] == 'Z';
+  }
+
+  // -- IRandomAccess API methods --
+
+  /* @see IRandomAccess#close() */
+  public void close() throws IOException {
+    super.close();
+    if (in != null) in.close();
+    in = null;
   }
 
   // -- StreamHandle API methods --
 
   /* @see StreamHandle#resetStream() */
   protected void resetStream() throws IOException {
+    if (stream != null) stream.close();
+    // skip the "BZ" magic number
     BufferedInputStream bis = new BufferedInputStream(
-      new FileInputStream(file), RandomAccessInputStream.MAX_OVERHEAD);
-    int skipped = 0;
-    while (skipped < 2) {
-      skipped += bis.skip(2 - skipped);
-    }
+      new HandleInputStream(in, 2, in.length() - 2),
+      RandomAccessInputStream.MAX_OVERHEAD);
     stream = new DataInputStream(new CBZip2InputStream(bis));
   }
 
+  // -- Helper methods --
+
+  /** Opens the given file, checking that it is a BZip2 file. */
+  private static IRandomAccess openHandle(String file) throws IOException {
+    if (!file.toLowerCase().endsWith(".bz2")) {
+      throw new HandleException(file + " is not a BZip2 file.");
+    }
+    IRandomAccess handle = new NIOFileHandle(file, "r");
+    byte[] b = new byte[2];
+    if (handle.length() < 2 || handle.read(b) < 2 || !isBZip2Magic(b)) {
+      handle.close();
+      throw new HandleException(file + " is not a BZip2 file.");
+    }
+    handle.seek(0);
+    return handle;
+  }
+
 }
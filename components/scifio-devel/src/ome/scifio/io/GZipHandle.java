@@ -59,6 +59,11 @@ import ome.scifio.common.DataTools;
  */
 public class GZipHandle extends StreamHandle {
 
+  // -- Fields --
+
+  /** Compressed file. */
+  private RandomAccessInputStream in;
+
   // -- Constructor --
 
   /**
@@ -67,11 +72,17 @@ public class GZipHandle extends StreamHandle {
    * @throws HandleException if the given file name is not a GZip file.
    */
   public GZipHandle(String file) throws IOException {
+    this(file, openHandle(file));
+  }
+
+  /**
+   * Constructs a new GZipHandle for the given gzip file, reading from an
+   * already open handle to it.  The handle is closed along with this one.
+   */
+  GZipHandle(String file, IRandomAccess handle) throws IOException {
     super();
     this.file = file;
-    if (!isGZipFile(file)) {
-      throw new HandleException(file + " is not a gzip file.");
-    }
+    in = new RandomAccessInputStream(handle, file);
 
     resetStream();
 
@@ -95,7 +106,21 @@ public class GZipHandle extends StreamHandle {
     byte[] b = new byte[2];
     s.read(b);
     s.close();
-    return DataTools.bytesToInt(b, true) == GZIPInputStream.GZIP_MAGIC;
+    return isGZipMagic(b);
+  }
+
+  /** Returns true if the given bytes begin with the gzip magic number. */
+  static boolean isGZipMagic(byte[] b) {
+    return DataTools.bytesToInt(b, 0, 2, true) == GZIPInputStream.GZIP_MAGIC;
+  }
+
+  // -- IRandomAccess API methods --
+
+  /* @see IRandomAccess#close() */
+  public void close() throws IOException {
+    super.close();
+    if (in != null) in.close();
+    in = null;
   }
 
   // -- StreamHandle API methods --
@@ -104,8 +129,26 @@ public class GZipHandle extends StreamHandle {
   protected void resetStream() throws IOException {
     if (stream != null) stream.close();
     BufferedInputStream bis = new BufferedInputStream(
-      new FileInputStream(file), RandomAccessInputStream.MAX_OVERHEAD);
+      new HandleInputStream(in, 0, in.length()),
+      RandomAccessInputStream.MAX_OVERHEAD);
     stream = new DataInputStream(new GZIPInputStream(bis));
   }
 
+  // -- Helper methods --
+
+  /** Opens the given file, checking that it is a gzip file. */
+  private static IRandomAccess openHandle(String file) throws IOException {
+    if (!file.toLowerCase().endsWith(".gz")) {
+      throw new HandleException(file + " is not a gzip file.");
+    }
+    IRandomAccess handle = new NIOFileHandle(file, "r");
+    byte[] b = new byte[2];
+    if (handle.length() < 2 || handle.read(b) < 2 || !isGZipMagic(b)) {
+      handle.close();
+      throw new HandleException(file + " is not a gzip file.");
+    }
+    handle.seek(0);
+    return handle;
+  }
+
 }
@@ -0,0 +1,548 @@
+/*
+ * #%L
+ * OME SCIFIO package for reading and converting scientific file formats.
+ * %%
+ * Copyright (C) 2005 - 2012 Open Microscopy Environment:
+ *   - Board of Regents of the University of Wisconsin-Madison
+ *   - Glencoe Software, Inc.
+ *   - University of Dundee
+ * %%
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ * 
+ * The views and conclusions contained in the software and documentation are
+ * those of the authors and should not be interpreted as representing official
+ * policies, either expressed or implied, of any organization.
+ * #L%
+ */
+
+package ome.scifio.io;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import ome.scifio.common.Constants;
+import ome.scifio.common.DataTools;
+
+/**
+ * Provides random access to files on an HTTP server using the IRandomAccess
+ * interface.  Data is requested in fixed-size, aligned blocks using HTTP
+ * Range requests, and recently used blocks are kept in an LRU cache, so
+ * seeking backwards does not require downloading the file again.
+ * Consecutive blocks that are missing from the cache are retrieved with a
+ * single request.
+ *
+ * The server must advertise support for byte ranges using the
+ * 'Accept-Ranges: bytes' header; otherwise, the constructor throws a
+ * {@link HandleException}.  Instances of HTTPRangeHandle are read-only.
+ *
+ * <dl><dt><b>Source code:</b></dt>
+ * <dd><a href="http://trac.openmicroscopy.org.uk/ome/browser/bioformats.git/components/common/src/loci/common/HTTPRangeHandle.java">Trac</a>,
+ * <a href="http://git.openmicroscopy.org/?p=bioformats.git;a=blob;f=components/common/src/loci/common/HTTPRangeHandle.java;hb=HEAD">Gitweb</a></dd></dl>
+ *
+ * @see IRandomAccess
+ * @see URLHandle
+ */
+public class HTTPRangeHandle implements IRandomAccess {
+
+  // -- Constants --
+
+  /** Default size of each block, in bytes. */
+  public static final int DEFAULT_BLOCK_SIZE = 64 * 1024;
+
+  /** Default maximum number of blocks to cache. */
+  public static final int DEFAULT_CACHE_SIZE = 256;
+
+  // -- Fields --
+
+  /** URL of the remote file. */
+  private URL url;
+
+  /** Length of the remote file. */
+  private long length;
+
+  /** Current position within the file. */
+  private long fp;
+
+  /** Byte ordering of this stream. */
+  private ByteOrder order = ByteOrder.BIG_ENDIAN;
+
+  /** Size of each block, in bytes. */
+  private int blockSize;
+
+  /** Cached blocks, in least recently used order. */
+  private Map<Long, byte[]> cache;
+
+  /** Number of uncached blocks to read ahead during sequential access. */
+  private int prefetch = 0;
+
+  /** Index of the block that contains the file pointer, or -1. */
+  private long currentIndex = -1;
+
+  /** Block that contains the file pointer. */
+  private byte[] currentBlock;
+
+  /** Number of Range requests sent to the server. */
+  private int requestCount = 0;
+
+  /** Buffer used when reading primitive values. */
+  private byte[] scratch = new byte[8];
+
+  // -- Constructors --
+
+  /**
+   * Constructs a new HTTPRangeHandle for the given URL, using the default
+   * block and cache sizes.
+   */
+  public HTTPRangeHandle(String url) throws IOException {
+    this(url, DEFAULT_BLOCK_SIZE, DEFAULT_CACHE_SIZE);
+  }
+
+  /**
+   * Constructs a new HTTPRangeHandle for the given URL.
+   * @param blockSize the size of each block, in bytes
+   * @param cacheSize the maximum number of blocks to keep in memory
+   * @throws HandleException if the server does not support Range requests
+   */
+  public HTTPRangeHandle(String url, int blockSize, final int cacheSize)
+    throws IOException
+  {
+    if (blockSize <= 0 || cacheSize <= 0) {
+      throw new IllegalArgumentException(
+        "Block and cache sizes must be positive");
+    }
+    this.url = new URL(url);
+    this.blockSize = blockSize;
+    cache = new LinkedHashMap<Long, byte[]>(16, 0.75f, true) {
+      protected boolean removeEldestEntry(Map.Entry<Long, byte[]> eldest) {
+        return size() > cacheSize;
+      }
+    };
+
+    HttpURLConnection conn = openConnection();
+    try {
+      conn.setRequestMethod("HEAD");
+      if (conn.getResponseCode() != HttpURLConnection.HTTP_OK) {
+        throw new HandleException("Could not open " + url + ": HTTP " +
+          conn.getResponseCode());
+      }
+      String ranges = conn.getHeaderField("Accept-Ranges");
+      if (ranges == null || !ranges.trim().equalsIgnoreCase("bytes")) {
+        throw new HandleException("Byte ranges are not supported: " + url);
+      }
+      String contentLength = conn.getHeaderField("Content-Length");
+      length = contentLength == null ? -1 : Long.parseLong(contentLength);
+      if (length < 0) {
+        throw new HandleException("Unknown content length: " + url);
+      }
+    }
+    catch (NumberFormatException e) {
+      throw new HandleException("Invalid content length: " + url, e);
+    }
+    finally {
+      conn.disconnect();
+    }
+  }
+
+  // -- HTTPRangeHandle API methods --
+
+  /**
+   * Sets the number of additional blocks to request when a block is read
+   * immediately after the previous block.
+   */
+  public void setPrefetch(int blocks) {
+    prefetch = Math.max(blocks, 0);
+  }
+
+  /** Gets the number of blocks that are read ahead during sequential access. */
+  public int getPrefetch() {
+    return prefetch;
+  }
+
+  /** Gets the size of each block, in bytes. */
+  public int getBlockSize() {
+    return blockSize;
+  }
+
+  /** Gets the number of Range requests that have been sent to the server. */
+  public int getRequestCount() {
+    return requestCount;
+  }
+
+  // -- IRandomAccess API methods --
+
+  /* @see IRandomAccess#close() */
+  public void close() throws IOException {
+    cache.clear();
+    currentBlock = null;
+    currentIndex = -1;
+  }
+
+  /* @see IRandomAccess#getFilePointer() */
+  public long getFilePointer() throws IOException {
+    return fp;
+  }
+
+  /* @see IRandomAccess#length() */
+  public long length() throws IOException {
+    return length;
+  }
+
+  /* @see IRandomAccess#read(byte[]) */
+  public int read(byte[] b) throws IOException {
+    return read(b, 0, b.length);
+  }
+
+  /* @see IRandomAccess#read(byte[], int, int) */
+  public int read(byte[] b, int off, int len) throws IOException {
+    if (fp + len > length) len = (int) Math.max(length - fp, 0);
+    if (len == 0) return 0;
+
+    long first = fp / blockSize;
+    long last = (fp + len - 1) / blockSize;
+    byte[][] blocks = getBlocks(first, last);
+
+    int n = 0;
+    for (int i=0; i<blocks.length; i++) {
+      int blockOffset = (int) (fp % blockSize);
+      int count = Math.min(blocks[i].length - blockOffset, len - n);
+      System.arraycopy(blocks[i], blockOffset, b, off + n, count);
+      n += count;
+      fp += count;
+    }
+    return n;
+  }
+
+  /* @see IRandomAccess#read(ByteBuffer) */
+  public int read(ByteBuffer buffer) throws IOException {
+    return read(buffer, 0, buffer.capacity());
+  }
+
+  /* @see IRandomAccess#read(ByteBuffer, int, int) */
+  public int read(ByteBuffer buffer, int off, int len) throws IOException {
+    if (buffer.hasArray()) {
+      return read(buffer.array(), buffer.arrayOffset() + off, len);
+    }
+
+    byte[] b = new byte[len];
+    int n = read(b);
+    buffer.position(off);
+    if (n > 0) buffer.put(b, 0, n);
+    return n;
+  }
+
+  /* @see IRandomAccess#seek(long) */
+  public void seek(long pos) throws IOException {
+    fp = pos;
+  }
+
+  /* @see IRandomAccess#write(ByteBuffer) */
+  public void write(ByteBuffer buf) throws IOException {
+    throw new HandleException("This stream is read-only.");
+  }
+
+  /* @see IRandomAccess#write(ByteBuffer, int, int) */
+  public void write(ByteBuffer buf, int off, int len) throws IOException {
+    throw new HandleException("This stream is read-only.");
+  }
+
+  /* @see IRandomAccess#getOrder() */
+  public ByteOrder getOrder() {
+    return order;
+  }
+
+  /* @see IRandomAccess#setOrder(ByteOrder) */
+  public void setOrder(ByteOrder order) {
+    this.order = order;
+  }
+
+  // -- DataInput API methods --
+
+  /* @see java.io.DataInput#readBoolean() */
+  public boolean readBoolean() throws IOException {
+    return readByte() != 0;
+  }
+
+  /* @see java.io.DataInput#readByte() */
+  public byte readByte() throws IOException {
+    if (fp >= length) throw new EOFException();
+    long index = fp / blockSize;
+    if (index != currentIndex) {
+      currentBlock = getBlocks(index, index)[0];
+      currentIndex = index;
+    }
+    return currentBlock[(int) (fp++ % blockSize)];
+  }
+
+  /* @see java.io.DataInput#readChar() */
+  public char readChar() throws IOException {
+    return (char) readShort();
+  }
+
+  /* @see java.io.DataInput#readDouble() */
+  public double readDouble() throws IOException {
+    readFully(scratch, 0, 8);
+    return DataTools.bytesToDouble(scratch, 0, 8, isLittleEndian());
+  }
+
+  /* @see java.io.DataInput#readFloat() */
+  public float readFloat() throws IOException {
+    readFully(scratch, 0, 4);
+    return DataTools.bytesToFloat(scratch, 0, 4, isLittleEndian());
+  }
+
+  /* @see java.io.DataInput#readFully(byte[]) */
+  public void readFully(byte[] b) throws IOException {
+    readFully(b, 0, b.length);
+  }
+
+  /* @see java.io.DataInput#readFully(byte[], int, int) */
+  public void readFully(byte[] b, int off, int len) throws IOException {
+    if (fp + len > length) throw new EOFException();
+    read(b, off, len);
+  }
+
+  /* @see java.io.DataInput#readInt() */
+  public int readInt() throws IOException {
+    readFully(scratch, 0, 4);
+    return DataTools.bytesToInt(scratch, 0, 4, isLittleEndian());
+  }
+
+  /* @see java.io.DataInput#readLine() */
+  public String readLine() throws IOException {
+    throw new IOException("Unimplemented");
+  }
+
+  /* @see java.io.DataInput#readLong() */
+  public long readLong() throws IOException {
+    readFully(scratch, 0, 8);
+    return DataTools.bytesToLong(scratch, 0, 8, isLittleEndian());
+  }
+
+  /* @see java.io.DataInput#readShort() */
+  public short readShort() throws IOException {
+    readFully(scratch, 0, 2);
+    return DataTools.bytesToShort(scratch, 0, 2, isLittleEndian());
+  }
+
+  /* @see java.io.DataInput#readUnsignedByte() */
+  public int readUnsignedByte() throws IOException {
+    return readByte() & 0xff;
+  }
+
+  /* @see java.io.DataInput#readUnsignedShort() */
+  public int readUnsignedShort() throws IOException {
+    return readShort() & 0xffff;
+  }
+
+  /* @see java.io.DataInput#readUTF() */
+  public String readUTF() throws IOException {
+    int length = readUnsignedShort();
+    byte[] b = new byte[length];
+    readFully(b);
+    return new String(b, Constants.ENCODING);
+  }
+
+  /* @see java.io.DataInput#skipBytes(int) */
+  public int skipBytes(int n) throws IOException {
+    int skipped = (int) Math.min(n, length - fp);
+    if (skipped < 0) return 0;
+    fp += skipped;
+    return skipped;
+  }
+
+  // -- DataOutput API methods --
+
+  /* @see java.io.DataOutput#write(byte[]) */
+  public void write(byte[] b) throws IOException {
+    throw new HandleException("This stream is read-only.");
+  }
+
+  /* @see java.io.DataOutput#write(byte[], int, int) */
+  public void write(byte[] b, int off, int len) throws IOException {
+    throw new HandleException("This stream is read-only.");
+  }
+
+  /* @see java.io.DataOutput#write(int) */
+  public void write(int b) throws IOException {
+    throw new HandleException("This stream is read-only.");
+  }
+
+  /* @see java.io.DataOutput#writeBoolean(boolean) */
+  public void writeBoolean(boolean v) throws IOException {
+    throw new HandleException("This stream is read-only.");
+  }
+
+  /* @see java.io.DataOutput#writeByte(int) */
+  public void writeByte(int v) throws IOException {
+    throw new HandleException("This stream is read-only.");
+  }
+
+  /* @see java.io.DataOutput#writeBytes(String) */
+  public void writeBytes(String s) throws IOException {
+    throw new HandleException("This stream is read-only.");
+  }
+
+  /* @see java.io.DataOutput#writeChar(int) */
+  public void writeChar(int v) throws IOException {
+    throw new HandleException("This stream is read-only.");
+  }
+
+  /* @see java.io.DataOutput#writeChars(String) */
+  public void writeChars(String s) throws IOException {
+    throw new HandleException("This stream is read-only.");
+  }
+
+  /* @see java.io.DataOutput#writeDouble(double) */
+  public void writeDouble(double v) throws IOException {
+    throw new HandleException("This stream is read-only.");
+  }
+
+  /* @see java.io.DataOutput#writeFloat(float) */
+  public void writeFloat(float v) throws IOException {
+    throw new HandleException("This stream is read-only.");
+  }
+
+  /* @see java.io.DataOutput#writeInt(int) */
+  public void writeInt(int v) throws IOException {
+    throw new HandleException("This stream is read-only.");
+  }
+
+  /* @see java.io.DataOutput#writeLong(long) */
+  public void writeLong(long v) throws IOException {
+    throw new HandleException("This stream is read-only.");
+  }
+
+  /* @see java.io.DataOutput#writeShort(int) */
+  public void writeShort(int v) throws IOException {
+    throw new HandleException("This stream is read-only.");
+  }
+
+  /* @see java.io.DataOutput#writeUTF(String) */
+  public void writeUTF(String str) throws IOException {
+    throw new HandleException("This stream is read-only.");
+  }
+
+  // -- Helper methods --
+
+  private boolean isLittleEndian() {
+    return order.equals(ByteOrder.LITTLE_ENDIAN);
+  }
+
+  private HttpURLConnection openConnection() throws IOException {
+    return (HttpURLConnection) url.openConnection();
+  }
+
+  /**
+   * Gets the blocks with the given indices, inclusive.  Runs of consecutive
+   * blocks that are not in the cache are each retrieved with one request.
+   */
+  private byte[][] getBlocks(long first, long last) throws IOException {
+    int count = (int) (last - first + 1);
+    byte[][] blocks = new byte[count][];
+    for (int i=0; i<count; i++) {
+      blocks[i] = cache.get(first + i);
+    }
+
+    long lastBlock = (length - 1) / blockSize;
+    boolean sequential = first == currentIndex + 1 || first == currentIndex;
+
+    int i = 0;
+    while (i < count) {
+      if (blocks[i] != null) {
+        i++;
+        continue;
+      }
+      int end = i;
+      while (end + 1 < count && blocks[end + 1] == null) end++;
+
+      // read ahead if the data is being read sequentially
+      long fetchLast = first + end;
+      if (end == count - 1 && sequential) {
+        long limit = Math.min(fetchLast + prefetch, lastBlock);
+        while (fetchLast < limit && !cache.containsKey(fetchLast + 1)) {
+          fetchLast++;
+        }
+      }
+
+      byte[][] fetched = fetch(first + i, fetchLast);
+      for (int b=0; b<fetched.length; b++) {
+        cache.put(first + i + b, fetched[b]);
+        if (i + b < count) blocks[i + b] = fetched[b];
+      }
+      i = end + 1;
+    }
+    currentIndex = last;
+    currentBlock = blocks[count - 1];
+    return blocks;
+  }
+
+  /** Retrieves the given blocks, inclusive, using a single Range request. */
+  private byte[][] fetch(long first, long last) throws IOException {
+    long start = first * blockSize;
+    long end = Math.min((last + 1) * blockSize, length) - 1;
+
+    HttpURLConnection conn = openConnection();
+    conn.setRequestProperty("Range", "bytes=" + start + "-" + end);
+    requestCount++;
+    InputStream in = null;
+    try {
+      int code = conn.getResponseCode();
+      in = conn.getInputStream();
+      if (code == HttpURLConnection.HTTP_OK) {
+        // the range was ignored, so skip to the start of the first block
+        long skipped = 0;
+        while (skipped < start) {
+          long n = in.skip(start - skipped);
+          if (n <= 0) throw new EOFException();
+          skipped += n;
+        }
+      }
+      else if (code != HttpURLConnection.HTTP_PARTIAL) {
+        throw new HandleException("Could not read " + url + ": HTTP " + code);
+      }
+
+      byte[][] blocks = new byte[(int) (last - first + 1)][];
+      for (int i=0; i<blocks.length; i++) {
+        long blockStart = (first + i) * blockSize;
+        blocks[i] = new byte[(int) Math.min(blockSize, length - blockStart)];
+        int n = 0;
+        while (n < blocks[i].length) {
+          int r = in.read(blocks[i], n, blocks[i].length - n);
+          if (r < 0) throw new EOFException();
+          n += r;
+        }
+      }
+      return blocks;
+    }
+    finally {
+      if (in != null) in.close();
+    }
+  }
+
+}
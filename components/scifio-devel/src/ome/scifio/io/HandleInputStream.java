@@ -0,0 +1,112 @@
+/*
+ * #%L
+ * OME SCIFIO package for reading and converting scientific file formats.
+ * %%
+ * Copyright (C) 2005 - 2012 Open Microscopy Environment:
+ *   - Board of Regents of the University of Wisconsin-Madison
+ *   - Glencoe Software, Inc.
+ *   - University of Dundee
+ * %%
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ * 
+ * The views and conclusions contained in the software and documentation are
+ * those of the authors and should not be interpreted as representing official
+ * policies, either expressed or implied, of any organization.
+ * #L%
+ */
+
+package ome.scifio.io;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * InputStream over a window of a {@link RandomAccessInputStream}.  Several
+ * handles use it to read compressed data from an already open file.
+ * Closing it leaves the underlying stream open.
+ *
+ * <dl><dt><b>Source code:</b></dt>
+ * <dd><a href="http://trac.openmicroscopy.org.uk/ome/browser/bioformats.git/components/common/src/loci/common/HandleInputStream.java">Trac</a>,
+ * <a href="http://git.openmicroscopy.org/?p=bioformats.git;a=blob;f=components/common/src/loci/common/HandleInputStream.java;hb=HEAD">Gitweb</a></dd></dl>
+ */
+class HandleInputStream extends InputStream {
+
+  // -- Fields --
+
+  private RandomAccessInputStream in;
+  private long offset;
+  private long length;
+  private long pos;
+
+  // -- Constructor --
+
+  /**
+   * Constructs a stream over the given number of bytes of the given
+   * stream, starting at the given offset.
+   */
+  public HandleInputStream(RandomAccessInputStream in, long offset,
+    long length)
+  {
+    this.in = in;
+    this.offset = offset;
+    this.length = length;
+  }
+
+  // -- HandleInputStream API methods --
+
+  /** Sets the position within the window. */
+  public void seek(long pos) {
+    this.pos = pos;
+  }
+
+  // -- InputStream API methods --
+
+  public int read() throws IOException {
+    if (pos >= length) return -1;
+    in.seek(offset + pos);
+    pos++;
+    return in.readUnsignedByte();
+  }
+
+  public int read(byte[] b, int off, int len) throws IOException {
+    if (len == 0) return 0;
+    if (pos >= length) return -1;
+    int n = (int) Math.min(len, length - pos);
+    in.seek(offset + pos);
+    n = in.read(b, off, n);
+    if (n > 0) pos += n;
+    return n;
+  }
+
+  public long skip(long n) {
+    long skipped = Math.max(0, Math.min(n, length - pos));
+    pos += skipped;
+    return skipped;
+  }
+
+  public int available() {
+    return (int) Math.min(Math.max(0, length - pos), Integer.MAX_VALUE);
+  }
+
+  public void close() { }
+
+}
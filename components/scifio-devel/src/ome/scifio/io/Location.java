@@ -83,12 +83,34 @@ public class Location {
   // By default, cache for one hour.
   private static volatile long cacheNanos = 60L * 60L * 1000L * 1000L * 1000L;
 
-  protected class ListingsResult {
+  /**
+   * Coarsest file system modification time granularity, in milliseconds.
+   * A directory modified within this interval before it was listed may
+   * change again without its modification time changing.
+   */
+  private static final long MTIME_GRANULARITY = 2000;
+
+  protected static class ListingsResult {
     public final String [] listing;
     public final long time;
-    ListingsResult(String [] listing, long time) {
+    /** Modification time of the directory when it was listed, or 0. */
+    public final long lastModified;
+    /** Wall clock time at which the directory was listed. */
+    public final long listed;
+    ListingsResult(String [] listing, long time, long lastModified,
+      long listed)
+    {
       this.listing = listing;
       this.time = time;
+      this.lastModified = lastModified;
+      this.listed = listed;
+    }
+    /** Copies the given listing, after confirming that it is still current. */
+    ListingsResult(ListingsResult current, long time) {
+      listing = current.listing;
+      this.time = time;
+      lastModified = current.lastModified;
+      listed = current.listed;
     }
   }
   private static ConcurrentHashMap<String, ListingsResult> fileListings =
@@ -163,6 +185,9 @@ public class Location {
 
   /**
    * Cache directory listings for this many seconds before relisting.
+   * Once a listing is older than this, the directory's modification time is
+   * checked; the directory is only listed again if it has changed, or if it
+   * was modified shortly before it was listed.
    *
    * @param sec - use the cache if a directory list was done within this many
    * seconds.
@@ -293,17 +318,11 @@ public class Location {
       LOGGER.trace("no handle was mapped for this ID");
       String mapId = getMappedId(id);
 
-      if (id.startsWith("http://")) {
-        handle = new URLHandle(mapId);
+      if (id.startsWith("http://") || id.startsWith("https://")) {
+        handle = getURLHandle(mapId);
       }
-      else if (allowArchiveHandles && ZipHandle.isZipFile(id)) {
-        handle = new ZipHandle(mapId);
-      }
-      else if (allowArchiveHandles && GZipHandle.isGZipFile(id)) {
-        handle = new GZipHandle(mapId);
-      }
-      else if (allowArchiveHandles && BZip2Handle.isBZip2File(id)) {
-        handle = new BZip2Handle(mapId);
+      else if (allowArchiveHandles && !writable && isArchiveName(id)) {
+        handle = getArchiveHandle(mapId, id.toLowerCase());
       }
       else {
         handle = new NIOFileHandle(mapId, writable ? "rw" : "r");
@@ -313,6 +332,63 @@ public class Location {
     return handle;
   }
 
+  /** Returns true if the given name has a Zip, gzip or BZip2 extension. */
+  private static boolean isArchiveName(String id) {
+    String lower = id.toLowerCase();
+    return lower.endsWith(".zip") || lower.endsWith(".gz") ||
+      lower.endsWith(".bz2");
+  }
+
+  /**
+   * Gets a handle for a file with an archive extension.  The file is opened
+   * once; its magic number decides which archive handle wraps the open file.
+   * If the contents are not compressed after all, the plain file handle is
+   * returned.
+   */
+  private static IRandomAccess getArchiveHandle(String file, String lowerId)
+    throws IOException
+  {
+    IRandomAccess handle = new NIOFileHandle(file, "r");
+    try {
+      byte[] magic = new byte[2];
+      if (handle.length() >= 2 && handle.read(magic) == magic.length) {
+        handle.seek(0);
+        if (lowerId.endsWith(".zip") && ZipHandle.isZipMagic(magic)) {
+          return new ZipHandle(file, handle);
+        }
+        else if (lowerId.endsWith(".gz") && GZipHandle.isGZipMagic(magic)) {
+          return new GZipHandle(file, handle);
+        }
+        else if (lowerId.endsWith(".bz2") && BZip2Handle.isBZip2Magic(magic))
+        {
+          return new BZip2Handle(file, handle);
+        }
+      }
+      handle.seek(0);
+      return handle;
+    }
+    catch (IOException e) {
+      handle.close();
+      throw e;
+    }
+  }
+
+  /**
+   * Gets a handle for the given HTTP URL.  If the server supports Range
+   * requests, an {@link HTTPRangeHandle} is returned so that seeking does
+   * not require the file to be downloaded again; otherwise, a
+   * {@link URLHandle} is returned.
+   */
+  private static IRandomAccess getURLHandle(String url) throws IOException {
+    try {
+      return new HTTPRangeHandle(url);
+    }
+    catch (HandleException e) {
+      LOGGER.debug("Range requests are not available for " + url, e);
+    }
+    return new URLHandle(url);
+  }
+
   /**
    * Checks that the given id points at a valid data stream.
    * 
@@ -327,6 +403,15 @@ public class Location {
       // not destroy an existing mapped IRandomAccess handle by closing it.
       return;
     }
+    // NB: A readable, uncompressed local file is known to be valid without
+    // opening it, which would also read its first buffer.
+    String mapId = getMappedId(id);
+    if (!isArchiveName(id) && !mapId.startsWith("http://") &&
+      !mapId.startsWith("https://"))
+    {
+      File file = new File(mapId);
+      if (file.isFile() && file.canRead()) return;
+    }
     // NB: Try to actually open a handle to make sure it is valid. Close it
     // afterward so we don't leave it dangling. The process of doing this will
     // throw IOException if something goes wrong.
@@ -342,12 +427,17 @@ public class Location {
   public String[] list(boolean noHiddenFiles) {
     String key = getAbsolutePath() + Boolean.toString(noHiddenFiles);
     String [] result = null;
+    long modified = 0, listed = 0;
     if (cacheListings) {
+      ListingsResult listingsResult = getCachedListing(key);
       cleanStaleCacheEntries();
-      ListingsResult listingsResult = fileListings.get(key);
       if (listingsResult != null) {
         return listingsResult.listing;
       }
+      // NB: Record the modification time before listing, so that changes
+      // made while listing are noticed later.
+      if (!isURL && file != null) modified = file.lastModified();
+      listed = System.currentTimeMillis();
     }
     ArrayList<String> files = new ArrayList<String>();
     if (isURL) {
@@ -398,7 +488,8 @@ public class Location {
     }
     result = files.toArray(new String[files.size()]);
     if (cacheListings) {
-      fileListings.put(key, new ListingsResult(result, System.nanoTime()));
+      fileListings.put(key,
+        new ListingsResult(result, System.nanoTime(), modified, listed));
     }
     return result;
   }
@@ -605,7 +696,8 @@ public class Location {
    * @see java.io.File#exists()
    */
   public boolean isFile() {
-    return isURL ? (!isDirectory() && exists()) : file.isFile();
+    if (isURL) return !isDirectory() && exists();
+    return file.isFile();
   }
 
   /**
@@ -698,4 +790,29 @@ public class Location {
     return isURL ? url.toString() : file.toString();
   }
 
+  // -- Helper methods --
+
+  /**
+   * Returns the cached listing with the given key, or null if there is none.
+   * An expired listing is reused if the directory has not been modified since
+   * it was listed, and was last modified long enough before it was listed
+   * that any later change must have changed its modification time.
+   */
+  private ListingsResult getCachedListing(String key) {
+    ListingsResult cached = fileListings.get(key);
+    if (cached == null || System.nanoTime() - cached.time <= cacheNanos) {
+      return cached;
+    }
+    if (!isURL && cached.lastModified != 0 &&
+      cached.listed - cached.lastModified > MTIME_GRANULARITY &&
+      file.lastModified() == cached.lastModified)
+    {
+      cached = new ListingsResult(cached, System.nanoTime());
+      fileListings.put(key, cached);
+      return cached;
+    }
+    fileListings.remove(key, cached);
+    return null;
+  }
+
 }
@@ -36,12 +36,14 @@
 
 package ome.scifio.io;
 
+import java.io.ByteArrayOutputStream;
 import java.io.DataInput;
 import java.io.IOException;
 import java.io.InputStream;
-import java.io.InputStreamReader;
 import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
 
 
 import ome.scifio.common.Constants;
@@ -74,9 +76,21 @@ public class RandomAccessInputStream extends InputStream implements DataInput {
    */
   protected static final int DEFAULT_BLOCK_SIZE = 256 * 1024; // 256 KB
 
+  /** Size of the first block read when searching through the stream. */
+  private static final int MIN_SEARCH_BLOCK_SIZE = 8192;
+
   /** Maximum number of bytes to search when searching through the stream. */
   protected static final int MAX_SEARCH_SIZE = 512 * 1024 * 1024; // 512 MB
 
+  /**
+   * Largest gap between two segments that is read through, rather than
+   * skipped, when reading a batch of segments.
+   */
+  protected static final int MAX_SEGMENT_GAP = 16 * 1024; // 16 KB
+
+  /** Maximum number of bytes to read at once when coalescing segments. */
+  protected static final int MAX_SEGMENT_RUN = 1024 * 1024; // 1 MB
+
   // -- Fields --
 
   protected IRandomAccess raf;
@@ -263,74 +277,119 @@ public class RandomAccessInputStream extends InputStream implements DataInput {
   public String findString(boolean saveString, int blockSize,
     String... terminators) throws IOException
   {
-    StringBuilder out = new StringBuilder();
-    long startPos = getFilePointer();
-    long bytesDropped = 0;
-    long inputLen = length();
-    long maxLen = inputLen - startPos;
+    byte[][] patterns = new byte[terminators.length][];
+    for (int i=0; i<terminators.length; i++) {
+      patterns[i] = terminators[i].getBytes(Constants.ENCODING);
+    }
+
+    long maxLen = length() - getFilePointer();
     boolean tooLong = saveString && maxLen > MAX_SEARCH_SIZE;
     if (tooLong) maxLen = MAX_SEARCH_SIZE;
-    boolean match = false;
-    int maxTermLen = 0;
-    for (String term : terminators) {
-      int len = term.length();
-      if (len > maxTermLen) maxTermLen = len;
-    }
 
-    InputStreamReader in = new InputStreamReader(this, Constants.ENCODING);
-    char[] buf = new char[blockSize];
-    long loc = 0;
-    while (loc < maxLen && getFilePointer() < length() - 1) {
-      // if we're not saving the string, drop any old, unnecessary output
-      if (!saveString) {
-        int outLen = out.length();
-        if (outLen >= maxTermLen) {
-          int dropIndex = outLen - maxTermLen + 1;
-          String last = out.substring(dropIndex, outLen);
-          out.setLength(0);
-          out.append(last);
-          bytesDropped += dropIndex;
-        }
-      }
+    ByteArrayOutputStream out = null;
+    if (saveString) out = new ByteArrayOutputStream();
+    long match = search(blockSize, maxLen, out, patterns);
 
-      // read block from stream
-      int r = in.read(buf, 0, blockSize);
-      if (r <= 0) throw new IOException("Cannot read from stream: " + r);
-
-      // append block to output
-      out.append(buf, 0, r);
-
-      // check output, returning smallest possible string
-      int min = Integer.MAX_VALUE, tagLen = 0;
-      for (String t : terminators) {
-        int len = t.length();
-        int start = (int) (loc - bytesDropped - len);
-        int value = out.indexOf(t, start < 0 ? 0 : start);
-        if (value >= 0 && value < min) {
-          match = true;
-          min = value;
-          tagLen = len;
-        }
-      }
+    if (match < 0 && tooLong) {
+      throw new IOException("Maximum search length reached.");
+    }
+    return saveString ? out.toString(Constants.ENCODING) : null;
+  }
 
-      if (match) {
-        // reset stream to proper location
-        seek(startPos + bytesDropped + min + tagLen);
+  /**
+   * Searches for the first occurrence of any of the given byte sequences.
+   *
+   * @see #findBytes(int, byte[]...)
+   */
+  public long findBytes(byte[]... patterns) throws IOException {
+    return findBytes(DEFAULT_BLOCK_SIZE, patterns);
+  }
+
+  /**
+   * Searches for the first occurrence of any of the given byte sequences,
+   * starting from the current file pointer and using the specified block
+   * size for buffering.  If more than one sequence matches at the same
+   * offset, the one listed first is used.
+   *
+   * @param blockSize The block size to use when reading bytes in chunks.
+   * @param patterns The byte sequences for which to search.
+   *
+   * @return The offset at which the matching sequence begins, or -1 if
+   *   none of the sequences were found.  The file pointer is left
+   *   immediately after the matching sequence, or at the end of the stream
+   *   if there was no match.
+   */
+  public long findBytes(int blockSize, byte[]... patterns)
+    throws IOException
+  {
+    return search(blockSize, length() - getFilePointer(), null, patterns);
+  }
 
-        // trim output string
-        if (saveString) {
-          out.setLength(min + tagLen);
-          return out.toString();
+  /**
+   * Reads a batch of segments from the stream into the given array.
+   * Segment i consists of lengths[i] bytes starting at the absolute stream
+   * offset offsets[i], and is stored at destOffsets[i] within the array.
+   *
+   * Consecutive segments that lie close together in the stream are
+   * coalesced into a single read, and local files are read with positional
+   * reads that bypass the handle's buffer, so many short segments (e.g.,
+   * the rows of a narrow region of a wide image) cost little more than one
+   * sequential read. Segments are best given in increasing order of offset.
+   *
+   * The file pointer is left immediately after the last segment.
+   *
+   * @return the total number of bytes read, which is less than the sum of
+   *   the lengths only if the end of the stream was reached.
+   */
+  public int readSegments(long[] offsets, int[] lengths, byte[] buf,
+    int[] destOffsets) throws IOException
+  {
+    final int count = offsets.length;
+    if (lengths.length != count || destOffsets.length != count) {
+      throw new IllegalArgumentException("Mismatched segment arrays");
+    }
+    if (count == 0) return 0;
+
+    final FileChannel channel = raf instanceof NIOFileHandle ?
+      ((NIOFileHandle) raf).getFileChannel() : null;
+    final long end = length();
+    byte[] run = null;
+    int total = 0;
+    int i = 0;
+    while (i < count) {
+      // extend the run while the next segment is close enough
+      final int first = i;
+      final long runStart = offsets[i];
+      long runEnd = runStart + lengths[i];
+      for (i++; i<count; i++) {
+        final long segmentEnd = offsets[i] + lengths[i];
+        if (offsets[i] < runStart || offsets[i] - runEnd > MAX_SEGMENT_GAP ||
+          Math.max(runEnd, segmentEnd) - runStart > MAX_SEGMENT_RUN)
+        {
+          break;
         }
-        return null;
+        runEnd = Math.max(runEnd, segmentEnd);
       }
 
-      loc += r;
+      if (i - first == 1) {
+        // lone segment; read it straight into place
+        total += readRun(channel, end, runStart,
+          buf, destOffsets[first], lengths[first]);
+        continue;
+      }
+      final int runLength = (int) (runEnd - runStart);
+      if (run == null || run.length < runLength) run = new byte[runLength];
+      final int valid = readRun(channel, end, runStart, run, 0, runLength);
+      for (int s=first; s<i; s++) {
+        final int runOffset = (int) (offsets[s] - runStart);
+        final int len = Math.min(lengths[s], valid - runOffset);
+        if (len <= 0) continue;
+        System.arraycopy(run, runOffset, buf, destOffsets[s], len);
+        total += len;
+      }
     }
-
-    // no match
-    if (tooLong) throw new IOException("Maximum search length reached.");
-    return saveString ? out.toString() : null;
+    seek(Math.min(offsets[count - 1] + lengths[count - 1], end));
+    return total;
   }
 
   // -- DataInput API methods --
@@ -488,4 +547,132 @@ public class RandomAccessInputStream extends InputStream implements DataInput {
     seek(markedPos);
   }
 
+  // -- Helper methods --
+
+  /**
+   * Searches at most maxLen bytes from the current file pointer for the
+   * first occurrence of any of the given patterns, using the Horspool
+   * algorithm generalized to multiple patterns.  The bytes from the
+   * initial file pointer through the end of the match (or through the end
+   * of the searched region) are copied to the given output stream,
+   * if it is not null.
+   *
+   * @return The offset at which the match begins, or -1 if there is none.
+   */
+  private long search(int blockSize, long maxLen, ByteArrayOutputStream out,
+    byte[]... patterns) throws IOException
+  {
+    long startPos = getFilePointer();
+    int minLen = patterns.length == 0 ? 1 : Integer.MAX_VALUE;
+    int maxPatternLen = 1;
+    for (byte[] p : patterns) {
+      if (p.length < minLen) minLen = p.length;
+      if (p.length > maxPatternLen) maxPatternLen = p.length;
+    }
+    if (minLen == 0) return startPos;
+    if (maxLen <= 0) return -1;
+
+    // distance to shift a window of minLen bytes,
+    // indexed by the last byte in the window
+    int[] shift = new int[256];
+    Arrays.fill(shift, minLen);
+    for (byte[] p : patterns) {
+      for (int i=0; i<minLen-1; i++) {
+        shift[p[i] & 0xff] = Math.min(shift[p[i] & 0xff], minLen - 1 - i);
+      }
+    }
+
+    // start with a small block, as most searches end close to where they
+    // start, and double the block size up to the requested size
+    blockSize = Math.max(blockSize, 1);
+    int chunk = Math.min(blockSize, MIN_SEARCH_BLOCK_SIZE);
+    byte[] buf = new byte[chunk + maxPatternLen];
+    long bufStart = startPos, next = startPos, limit = startPos + maxLen;
+    int valid = 0, pos = 0;
+    boolean eof = false;
+
+    while (true) {
+      if (buf.length < valid + chunk) {
+        byte[] grown = new byte[chunk + maxPatternLen];
+        System.arraycopy(buf, 0, grown, 0, valid);
+        buf = grown;
+      }
+      int toRead = (int) Math.min(chunk, limit - next);
+      if (toRead > 0) {
+        int n = raf.read(buf, valid, toRead);
+        if (n <= 0) eof = true;
+        else {
+          valid += n;
+          next += n;
+        }
+      }
+      boolean last = eof || next >= limit;
+
+      while (pos + minLen <= valid && (last || pos + maxPatternLen <= valid)) {
+        for (byte[] p : patterns) {
+          if (matches(buf, pos, valid, p)) {
+            int end = pos + p.length;
+            if (out != null) out.write(buf, 0, end);
+            seek(bufStart + end);
+            return bufStart + pos;
+          }
+        }
+        pos += shift[buf[pos + minLen - 1] & 0xff];
+      }
+
+      if (last) {
+        if (out != null) out.write(buf, 0, valid);
+        seek(bufStart + valid);
+        return -1;
+      }
+
+      // keep the bytes that have not yet been checked
+      if (out != null) out.write(buf, 0, pos);
+      System.arraycopy(buf, pos, buf, 0, valid - pos);
+      bufStart += pos;
+      valid -= pos;
+      pos = 0;
+      chunk = (int) Math.min((long) chunk * 2, blockSize);
+    }
+  }
+
+  /**
+   * Reads len bytes starting at the given absolute offset, stopping early
+   * only at the given end of the stream. If a file channel is given, it is
+   * read positionally, leaving the file pointer untouched.
+   *
+   * @return the number of bytes read.
+   */
+  private int readRun(FileChannel channel, long end, long offset,
+    byte[] b, int off, int len) throws IOException
+  {
+    len = (int) Math.max(0, Math.min(len, end - offset));
+    int read = 0;
+    if (channel != null) {
+      final ByteBuffer buffer = ByteBuffer.wrap(b, off, len);
+      while (buffer.hasRemaining()) {
+        final int r = channel.read(buffer, offset + read);
+        if (r <= 0) break;
+        read += r;
+      }
+      return read;
+    }
+    raf.seek(offset);
+    while (read < len) {
+      final int r = raf.read(b, off + read, len - read);
+      if (r <= 0) break;
+      read += r;
+    }
+    return read;
+  }
+
+  /** Returns true if the given pattern occurs in buf at the given offset. */
+  private static boolean matches(byte[] buf, int off, int valid, byte[] p) {
+    if (off + p.length > valid) return false;
+    for (int i=0; i<p.length; i++) {
+      if (buf[off + i] != p[i]) return false;
+    }
+    return true;
+  }
+
 }
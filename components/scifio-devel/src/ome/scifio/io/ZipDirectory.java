@@ -0,0 +1,318 @@
+/*
+ * #%L
+ * OME SCIFIO package for reading and converting scientific file formats.
+ * %%
+ * Copyright (C) 2005 - 2012 Open Microscopy Environment:
+ *   - Board of Regents of the University of Wisconsin-Madison
+ *   - Glencoe Software, Inc.
+ *   - University of Dundee
+ * %%
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ * 
+ * The views and conclusions contained in the software and documentation are
+ * those of the authors and should not be interpreted as representing official
+ * policies, either expressed or implied, of any organization.
+ * #L%
+ */
+
+package ome.scifio.io;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.zip.ZipEntry;
+
+import ome.scifio.common.Constants;
+
+/**
+ * Index of the entries in a Zip file, built from the file's central
+ * directory.  Both the classic and ZIP64 end of central directory records
+ * are supported, so entry offsets and sizes are known without reading
+ * (or decompressing) any of the entry data.
+ *
+ * <dl><dt><b>Source code:</b></dt>
+ * <dd><a href="http://trac.openmicroscopy.org.uk/ome/browser/bioformats.git/components/common/src/loci/common/ZipDirectory.java">Trac</a>,
+ * <a href="http://git.openmicroscopy.org/?p=bioformats.git;a=blob;f=components/common/src/loci/common/ZipDirectory.java;hb=HEAD">Gitweb</a></dd></dl>
+ *
+ * @see ZipHandle
+ */
+public class ZipDirectory {
+
+  // -- Constants --
+
+  private static final int LOCAL_HEADER = 0x04034b50;
+  private static final int CENTRAL_HEADER = 0x02014b50;
+  private static final int END_HEADER = 0x06054b50;
+  private static final int ZIP64_END_HEADER = 0x06064b50;
+  private static final int ZIP64_LOCATOR = 0x07064b50;
+
+  /** ID of the extra field holding 64-bit sizes and offsets. */
+  private static final int ZIP64_EXTRA = 0x0001;
+
+  /** Length of the end of central directory record, without comment. */
+  private static final int END_LENGTH = 22;
+
+  /** Length of the ZIP64 end of central directory locator. */
+  private static final int ZIP64_LOCATOR_LENGTH = 20;
+
+  /** Fixed-size portion of a local file header. */
+  private static final int LOCAL_HEADER_LENGTH = 30;
+
+  private static final int MAX_COMMENT_LENGTH = 0xffff;
+
+  private static final long UINT16_MAX = 0xffffL;
+  private static final long UINT32_MAX = 0xffffffffL;
+
+  // -- Fields --
+
+  private List<Entry> entries;
+  private HashMap<String, Entry> names;
+
+  // -- Constructor --
+
+  /**
+   * Reads the central directory of the Zip file backing the given stream.
+   * The stream's position and byte order are not preserved.
+   *
+   * @throws HandleException if the central directory could not be found.
+   */
+  public ZipDirectory(RandomAccessInputStream in) throws IOException {
+    in.order(true);
+    long end = findEndRecord(in);
+
+    in.seek(end + 10);
+    long count = in.readShort() & UINT16_MAX;
+    long size = in.readInt() & UINT32_MAX;
+    long offset = in.readInt() & UINT32_MAX;
+
+    if (count == UINT16_MAX || size == UINT32_MAX || offset == UINT32_MAX) {
+      long locator = end - ZIP64_LOCATOR_LENGTH;
+      if (locator >= 0) {
+        in.seek(locator);
+        if (in.readInt() == ZIP64_LOCATOR) {
+          in.skipBytes(4);
+          long zip64End = in.readLong();
+          in.seek(zip64End);
+          if (in.readInt() != ZIP64_END_HEADER) {
+            throw new HandleException("Invalid ZIP64 end of central directory");
+          }
+          in.skipBytes(28);
+          count = in.readLong();
+          size = in.readLong();
+          offset = in.readLong();
+        }
+      }
+    }
+
+    entries = new ArrayList<Entry>((int) Math.min(count, Integer.MAX_VALUE));
+    names = new HashMap<String, Entry>();
+
+    in.seek(offset);
+    for (long i=0; i<count; i++) {
+      Entry entry = readEntry(in);
+      entries.add(entry);
+      if (!names.containsKey(entry.getName())) {
+        names.put(entry.getName(), entry);
+      }
+    }
+    entries = Collections.unmodifiableList(entries);
+  }
+
+  // -- ZipDirectory API methods --
+
+  /** Returns the entries in the order in which they appear in the file. */
+  public List<Entry> getEntries() {
+    return entries;
+  }
+
+  /** Returns the entry with the given name, or null if there is none. */
+  public Entry getEntry(String name) {
+    return names.get(name);
+  }
+
+  /** Returns the number of entries. */
+  public int size() {
+    return entries.size();
+  }
+
+  /**
+   * Returns the offset of the given entry's data, read from the entry's
+   * local file header.
+   */
+  public static long getDataOffset(RandomAccessInputStream in, Entry entry)
+    throws IOException
+  {
+    if (entry.dataOffset < 0) {
+      in.order(true);
+      in.seek(entry.getHeaderOffset());
+      if (in.readInt() != LOCAL_HEADER) {
+        throw new HandleException("Invalid local header for Zip entry " +
+          entry.getName());
+      }
+      in.skipBytes(LOCAL_HEADER_LENGTH - 8);
+      int nameLength = in.readShort() & 0xffff;
+      int extraLength = in.readShort() & 0xffff;
+      entry.dataOffset = entry.getHeaderOffset() + LOCAL_HEADER_LENGTH +
+        nameLength + extraLength;
+    }
+    return entry.dataOffset;
+  }
+
+  // -- Helper methods --
+
+  /** Locates the end of central directory record. */
+  private static long findEndRecord(RandomAccessInputStream in)
+    throws IOException
+  {
+    long length = in.length();
+    if (length < END_LENGTH) {
+      throw new HandleException("Not a Zip file");
+    }
+
+    // the record is followed by a variable-length comment,
+    // so search backwards from the end of the file for its signature
+    int tailLength =
+      (int) Math.min(length, END_LENGTH + MAX_COMMENT_LENGTH);
+    byte[] tail = new byte[tailLength];
+    in.seek(length - tailLength);
+    in.readFully(tail);
+
+    for (int i=tailLength-END_LENGTH; i>=0; i--) {
+      if (tail[i] == 0x50 && tail[i + 1] == 0x4b && tail[i + 2] == 0x05 &&
+        tail[i + 3] == 0x06)
+      {
+        return length - tailLength + i;
+      }
+    }
+    throw new HandleException("Zip end of central directory not found");
+  }
+
+  /** Reads the central directory header at the current stream position. */
+  private static Entry readEntry(RandomAccessInputStream in)
+    throws IOException
+  {
+    if (in.readInt() != CENTRAL_HEADER) {
+      throw new HandleException("Invalid Zip central directory header");
+    }
+    in.skipBytes(4);
+    int flags = in.readShort() & 0xffff;
+    int method = in.readShort() & 0xffff;
+    in.skipBytes(4);
+    long crc = in.readInt() & UINT32_MAX;
+    long compressedSize = in.readInt() & UINT32_MAX;
+    long size = in.readInt() & UINT32_MAX;
+    int nameLength = in.readShort() & 0xffff;
+    int extraLength = in.readShort() & 0xffff;
+    int commentLength = in.readShort() & 0xffff;
+    in.skipBytes(8);
+    long headerOffset = in.readInt() & UINT32_MAX;
+
+    byte[] name = new byte[nameLength];
+    in.readFully(name);
+    // names are UTF-8 when general purpose bit 11 is set; as with
+    // ZipInputStream, UTF-8 is also assumed when it is not
+    Entry entry = new Entry(new String(name, Constants.ENCODING));
+
+    // 64-bit values are stored in the extra field, in this order,
+    // only for those header fields that overflowed
+    long extraEnd = in.getFilePointer() + extraLength;
+    while (in.getFilePointer() + 4 <= extraEnd) {
+      int id = in.readShort() & 0xffff;
+      int dataLength = in.readShort() & 0xffff;
+      long next = in.getFilePointer() + dataLength;
+      if (id == ZIP64_EXTRA) {
+        if (size == UINT32_MAX) size = in.readLong();
+        if (compressedSize == UINT32_MAX) compressedSize = in.readLong();
+        if (headerOffset == UINT32_MAX) headerOffset = in.readLong();
+      }
+      in.seek(next);
+    }
+    in.seek(extraEnd + commentLength);
+
+    entry.flags = flags;
+    entry.method = method;
+    entry.crc = crc;
+    entry.size = size;
+    entry.compressedSize = compressedSize;
+    entry.headerOffset = headerOffset;
+    return entry;
+  }
+
+  // -- Helper classes --
+
+  /**
+   * A ZipEntry that also records where its data is stored.  Instances can
+   * be passed to {@link ZipHandle#ZipHandle(String, ZipEntry)} so that the
+   * central directory is not read again.
+   */
+  public static class Entry extends ZipEntry {
+    private int flags;
+    private int method;
+    private long crc;
+    private long size;
+    private long compressedSize;
+    private long headerOffset;
+    private long dataOffset = -1;
+
+    private Entry(String name) {
+      super(name);
+    }
+
+    /* @see java.util.zip.ZipEntry#getMethod() */
+    public int getMethod() {
+      return method;
+    }
+
+    /* @see java.util.zip.ZipEntry#getCrc() */
+    public long getCrc() {
+      return crc;
+    }
+
+    /* @see java.util.zip.ZipEntry#getSize() */
+    public long getSize() {
+      return size;
+    }
+
+    /* @see java.util.zip.ZipEntry#getCompressedSize() */
+    public long getCompressedSize() {
+      return compressedSize;
+    }
+
+    /** Returns the general purpose bit flags. */
+    public int getFlags() {
+      return flags;
+    }
+
+    /** Returns the offset of this entry's local file header. */
+    public long getHeaderOffset() {
+      return headerOffset;
+    }
+
+    /** Returns true if this entry's data is encrypted. */
+    public boolean isEncrypted() {
+      return (flags & 1) != 0;
+    }
+  }
+
+}
@@ -40,21 +40,27 @@ import java.io.BufferedInputStream;
 import java.io.DataInputStream;
 import java.io.File;
 import java.io.IOException;
+import java.util.List;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
 import java.util.zip.ZipEntry;
-import java.util.zip.ZipInputStream;
-
-import ome.scifio.common.Constants;
 
 
 /**
  * StreamHandle implementation for reading from Zip-compressed files
  * or byte arrays.  Instances of ZipHandle are read-only.
  *
+ * Entries are located using the Zip file's central directory, so opening
+ * an entry does not require reading any of the entries that precede it.
+ * Entries that are stored without compression are read directly from the
+ * underlying file and support true random access.
+ *
  * <dl><dt><b>Source code:</b></dt>
  * <dd><a href="http://trac.openmicroscopy.org.uk/ome/browser/bioformats.git/components/common/src/loci/common/ZipHandle.java">Trac</a>,
  * <a href="http://git.openmicroscopy.org/?p=bioformats.git;a=blob;f=components/common/src/loci/common/ZipHandle.java;hb=HEAD">Gitweb</a></dd></dl>
  *
  * @see StreamHandle
+ * @see ZipDirectory
  *
  * @author Melissa Linkert melissa at glencoesoftware.com
  */
@@ -63,20 +69,36 @@ public class ZipHandle extends StreamHandle {
   // -- Fields --
 
   private RandomAccessInputStream in;
-  private ZipInputStream zip;
-  private ZipEntry entry;
+  private ZipDirectory.Entry entry;
   private int entryCount;
 
+  /** Offset of the backing entry's data within the Zip file. */
+  private long dataOffset;
+
+  /** Compressed data of the backing entry. */
+  private HandleInputStream data;
+
+  private Inflater inflater;
+
   // -- Constructor --
 
   public ZipHandle(String file) throws IOException {
+    this(file, getHandle(file));
+  }
+
+  /**
+   * Constructs a new ZipHandle for the given Zip file, reading from an
+   * already open handle to it.  The handle is closed along with this one.
+   */
+  ZipHandle(String file, IRandomAccess handle) throws IOException {
     super();
     this.file = file;
 
-    in = openStream(file);
-    zip = new ZipInputStream(in);
+    in = new RandomAccessInputStream(handle, file);
+    ZipDirectory directory = new ZipDirectory(in);
+    List<ZipDirectory.Entry> entries = directory.getEntries();
     entry = null;
-    entryCount = 0;
+    entryCount = entries.size();
 
     // strip off .zip extension and directory prefix
     String innerFile = file.substring(0, file.length() - 4);
@@ -85,26 +107,26 @@ public class ZipHandle extends StreamHandle {
     if (slash >= 0) innerFile = innerFile.substring(slash + 1);
 
     // look for Zip entry with same prefix as the Zip file itself
-    boolean matchFound = false;
-    while (true) {
-      ZipEntry ze = zip.getNextEntry();
-      if (ze == null) break;
-      if (entry == null) entry = ze;
-      if (!matchFound && ze.getName().startsWith(innerFile)) {
+    for (ZipDirectory.Entry ze : entries) {
+      if (ze.getName().startsWith(innerFile)) {
         // found entry with matching name
         entry = ze;
-        matchFound = true;
+        break;
       }
-      entryCount++;
     }
-    resetStream();
+    if (entry == null && entries.size() > 0) entry = entries.get(0);
+    if (entry == null) {
+      in.close();
+      throw new HandleException("Zip file " + file + " has no entries");
+    }
 
-    populateLength();
+    openEntry();
   }
 
   /**
    * Constructs a new ZipHandle corresponding to the given entry of the
-   * specified Zip file.
+   * specified Zip file.  If the entry was obtained from
+   * {@link #getEntries(String)}, the central directory is not read again.
    *
    * @throws HandleException if the given file is not a Zip file.
    */
@@ -113,13 +135,20 @@ public class ZipHandle extends StreamHandle {
     this.file = file;
 
     in = openStream(file);
-    zip = new ZipInputStream(in);
-    this.entry = entry;
+    if (entry instanceof ZipDirectory.Entry) {
+      this.entry = (ZipDirectory.Entry) entry;
+    }
+    else {
+      this.entry = new ZipDirectory(in).getEntry(entry.getName());
+      if (this.entry == null) {
+        in.close();
+        throw new HandleException("No entry " + entry.getName() +
+          " in Zip file " + file);
+      }
+    }
     entryCount = 1;
 
-    seekToEntry();
-    resetStream();
-    populateLength();
+    openEntry();
   }
 
   // -- ZipHandle API methods --
@@ -134,7 +163,28 @@ public class ZipHandle extends StreamHandle {
       handle.read(b);
     }
     handle.close();
-    return new String(b, Constants.ENCODING).equals("PK");
+    return isZipMagic(b);
+  }
+
+  /** Returns true if the given bytes begin with the Zip magic number. */
+  static boolean isZipMagic(byte[] b) {
+    return b[0] == 'P' && b[1] == 'K';
+  }
+
+  /**
+   * Returns the entries of the given Zip file, as listed in its
+   * central directory.
+   */
+  public static List<? extends ZipEntry> getEntries(String file)
+    throws IOException
+  {
+    RandomAccessInputStream s = openStream(file);
+    try {
+      return new ZipDirectory(s).getEntries();
+    }
+    finally {
+      s.close();
+    }
   }
 
   /** Get the name of the backing Zip entry. */
@@ -157,42 +207,59 @@ public class ZipHandle extends StreamHandle {
   /* @see IRandomAccess#close() */
   public void close() throws IOException {
     super.close();
-    zip = null;
+    if (inflater != null) inflater.end();
+    inflater = null;
+    data = null;
     entry = null;
     if (in != null) in.close();
     in = null;
     entryCount = 0;
   }
 
+  /* @see IRandomAccess#seek(long) */
+  public void seek(long pos) throws IOException {
+    if (inflater == null) {
+      // stored entries are read in place, so no data needs to be skipped
+      fp = pos;
+      data.seek(pos);
+    }
+    else super.seek(pos);
+  }
+
   // -- StreamHandle API methods --
 
   /* @see StreamHandle#resetStream() */
   protected void resetStream() throws IOException {
     if (stream != null) stream.close();
-    if (in != null) {
-      in.close();
-      in = openStream(file);
+    data = new HandleInputStream(in, dataOffset, entry.getCompressedSize());
+
+    switch (entry.getMethod()) {
+      case ZipEntry.STORED:
+        stream = new DataInputStream(data);
+        break;
+      case ZipEntry.DEFLATED:
+        if (inflater == null) inflater = new Inflater(true);
+        else inflater.reset();
+        stream = new DataInputStream(new BufferedInputStream(
+          new InflaterInputStream(data, inflater),
+          RandomAccessInputStream.MAX_OVERHEAD * 10));
+        stream.mark(RandomAccessInputStream.MAX_OVERHEAD * 10);
+        break;
+      default:
+        throw new HandleException("Unsupported compression method " +
+          entry.getMethod() + " for Zip entry " + entry.getName());
     }
-    if (zip != null) zip.close();
-    zip = new ZipInputStream(in);
-    if (entry != null) seekToEntry();
-    stream = new DataInputStream(new BufferedInputStream(
-      zip, RandomAccessInputStream.MAX_OVERHEAD * 10));
-    stream.mark(RandomAccessInputStream.MAX_OVERHEAD * 10);
   }
 
   // -- Helper methods --
 
-  private void seekToEntry() throws IOException {
-    while (!entry.getName().equals(zip.getNextEntry().getName()));
-  }
-
-  private void populateLength() throws IOException {
-    length = -1;
-    while (stream.available() > 0) {
-      stream.skip(1);
-      length++;
+  private void openEntry() throws IOException {
+    if (entry.isEncrypted()) {
+      close();
+      throw new HandleException("Encrypted Zip entries are not supported");
     }
+    dataOffset = ZipDirectory.getDataOffset(in, entry);
+    length = entry.getSize();
     resetStream();
   }
 
@@ -142,14 +142,12 @@ public final class XMLTools {
   public static Document parseDOM(String xml)
     throws ParserConfigurationException, SAXException, IOException
   {
-    byte[] bytes = xml.getBytes(Constants.ENCODING);
-    InputStream is = new ByteArrayInputStream(bytes);
-    try {
-      Document doc = parseDOM(is);
-      return doc;
-    } finally {
-      is.close();
-    }
+    // read the characters directly, rather than encoding a copy of the
+    // (possibly very large) string to bytes first
+    DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
+    DocumentBuilder db = factory.newDocumentBuilder();
+    db.setErrorHandler(new ParserErrorHandler());
+    return db.parse(new InputSource(new StringReader(xml)));
   }
 
   /** Parses a DOM from the given XML input stream. */
@@ -182,8 +180,13 @@ public final class XMLTools {
 
   /** Remove invalid characters from an XML string. */
   public static String sanitizeXML(String s) {
+    // most XML is already clean, in which case no copy is needed
+    int first = 0;
+    while (first < s.length() && !isInvalid(s, first)) first++;
+    if (first == s.length()) return s;
+
     final char[] c = s.toCharArray();
-    for (int i=0; i<s.length(); i++) {
+    for (int i=first; i<s.length(); i++) {
       if (Character.isISOControl(c[i]) ||
         !Character.isDefined(c[i]))
       {
@@ -592,6 +595,18 @@ public final class XMLTools {
     return errorHandler.ok();
   }
 
+  // -- Helper methods --
+
+  /**
+   * Returns true if {@link #sanitizeXML(String)} would replace the character
+   * at the given index, or the one immediately before it.
+   */
+  private static boolean isInvalid(String s, int i) {
+    char c = s.charAt(i);
+    if (Character.isISOControl(c) || !Character.isDefined(c)) return true;
+    return i > 0 && c == '#' && s.charAt(i - 1) == '&';
+  }
+
   // -- Helper class --
 
   /** ErrorListener implementation that logs errors and warnings using SLF4J. */
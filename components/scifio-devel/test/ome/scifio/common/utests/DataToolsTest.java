@@ -37,6 +37,7 @@
 package ome.scifio.common.utests;
 
 import static org.testng.AssertJUnit.assertEquals;
+import static org.testng.AssertJUnit.assertSame;
 import static org.testng.AssertJUnit.fail;
 
 import ome.scifio.common.DataTools;
@@ -125,6 +126,104 @@ public class DataToolsTest {
 			3037000499L, 3037000501L);
   }
 
+  @Test
+  public void testSanitize() {
+    assertEquals(null, DataTools.sanitize(null));
+    assertEquals("", DataTools.sanitize(""));
+    String clean = "Key\tValue\n~ ";
+    assertSame(clean, DataTools.sanitize(clean));
+    assertEquals("abc", DataTools.sanitize("\u0000a\u0001b\u00ffc\r"));
+    assertEquals("", DataTools.sanitize("\u0000\u0007\u0080"));
+  }
+
+  @Test
+  public void testParseDouble() {
+    String[] values = {
+      "0", "-0", "+4", "1.5", "-2.25", "7.", ".5", "0.000123", "1E-5",
+      "3e2", "123.456e-30", "1.0000001", "9007199254740993",
+      "12345678901234567890", "1e400", "-1e-400", "NaN", "-Infinity",
+      "2.5f", "0x1p3"
+    };
+    for (String value : values) {
+      byte[] bytes = ("[" + value + "]").getBytes();
+      double parsed = DataTools.parseDouble(bytes, 1, value.length());
+      assertEquals(value, Double.doubleToLongBits(Double.parseDouble(value)),
+        Double.doubleToLongBits(parsed));
+    }
+
+    String[] invalid = {"", "-", ".", "1e", "1.2.3", "abc", "1,5"};
+    for (String value : invalid) {
+      try {
+        DataTools.parseDouble(value.getBytes(), 0, value.length());
+        fail("Expected NumberFormatException for '" + value + "'");
+      }
+      catch (NumberFormatException e) { }
+    }
+  }
+
+  @Test
+  public void testBulkConversion() {
+    byte[] bytes = new byte[26];
+    for (int i=0; i<bytes.length; i++) bytes[i] = (byte) (i * 37 - 100);
+    for (boolean little : new boolean[] {true, false}) {
+      short[] s = new short[4];
+      DataTools.bytesToShorts(bytes, 3, s, 1, 3, little);
+      assertEquals(0, s[0]);
+      for (int i=0; i<3; i++) {
+        assertEquals(DataTools.bytesToShort(bytes, 3 + i * 2, little),
+          s[i + 1]);
+      }
+
+      int[] ints = new int[5];
+      DataTools.bytesToInts(bytes, 2, ints, 0, 5, little);
+      for (int i=0; i<5; i++) {
+        assertEquals(DataTools.bytesToInt(bytes, 2 + i * 4, little), ints[i]);
+      }
+
+      double[] d = new double[3];
+      DataTools.bytesToDoubles(bytes, 1, d, 0, 3, little);
+      for (int i=0; i<3; i++) {
+        assertEquals(DataTools.bytesToLong(bytes, 1 + i * 8, little),
+          Double.doubleToRawLongBits(d[i]));
+      }
+
+      byte[] copy = new byte[bytes.length];
+      DataTools.intsToBytes(ints, 0, copy, 2, 5, little);
+      for (int i=2; i<22; i++) assertEquals(bytes[i], copy[i]);
+    }
+  }
+
+  @Test
+  public void testSwapBytes() {
+    byte[] bytes = {1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11, 12};
+    DataTools.swapBytes(bytes, 2, 2, 4);
+    byte[] expected = {1, 2, 6, 5, 4, 3, 10, 9, 8, 7, 11, 12};
+    for (int i=0; i<bytes.length; i++) assertEquals(expected[i], bytes[i]);
+    DataTools.swapBytes(bytes, 0, 4, 3);
+    expected = new byte[] {6, 2, 1, 3, 4, 5, 8, 9, 10, 12, 11, 7};
+    for (int i=0; i<bytes.length; i++) assertEquals(expected[i], bytes[i]);
+  }
+
+  @Test
+  public void testMinMax() {
+    byte[] bytes = {(byte) 0xff, 0x7f, 0x00, 0x01, (byte) 0x80, 0x00};
+    double[] range = DataTools.minMax(bytes, 0, 6, 1, false, true, true);
+    assertEquals(-128.0, range[0]);
+    assertEquals(127.0, range[1]);
+    range = DataTools.minMax(bytes, 0, 3, 2, false, false, false);
+    assertEquals(1.0, range[0]);
+    assertEquals(65407.0, range[1]);
+    range = DataTools.minMax(bytes, 0, 3, 2, false, true, false);
+    assertEquals(-32768.0, range[0]);
+    assertEquals(1.0, range[1]);
+    assertEquals(null, DataTools.minMax(bytes, 0, 0, 2, false, true, false));
+
+    byte[] floats = DataTools.floatsToBytes(new float[] {2.5f, -1f, 7f}, true);
+    range = DataTools.minMax(floats, 0, 3, 4, true, true, true);
+    assertEquals(-1.0, range[0]);
+    assertEquals(7.0, range[1]);
+  }
+
 	// -- Helper methods --
 
   private void assertSafeMultiply32Pass(int expected, int... sizes) {
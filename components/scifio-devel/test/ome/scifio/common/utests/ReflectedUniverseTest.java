@@ -0,0 +1,153 @@
+/*
+ * #%L
+ * OME SCIFIO package for reading and converting scientific file formats.
+ * %%
+ * Copyright (C) 2005 - 2012 Open Microscopy Environment:
+ *   - Board of Regents of the University of Wisconsin-Madison
+ *   - Glencoe Software, Inc.
+ *   - University of Dundee
+ * %%
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ * 
+ * The views and conclusions contained in the software and documentation are
+ * those of the authors and should not be interpreted as representing official
+ * policies, either expressed or implied, of any organization.
+ * #L%
+ */
+
+package ome.scifio.common.utests;
+
+import static org.testng.AssertJUnit.assertEquals;
+import static org.testng.AssertJUnit.assertNull;
+import static org.testng.AssertJUnit.assertSame;
+import static org.testng.AssertJUnit.fail;
+
+import java.awt.Point;
+
+import ome.scifio.common.ReflectException;
+import ome.scifio.common.ReflectedUniverse;
+
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+/**
+ * Unit tests for {@link ome.scifio.common.ReflectedUniverse}.
+ *
+ * <dl><dt><b>Source code:</b></dt>
+ * <dd><a href="http://trac.openmicroscopy.org.uk/ome/browser/bioformats.git/components/common/test/loci/common/utests/ReflectedUniverseTest.java">Trac</a>,
+ * <a href="http://git.openmicroscopy.org/?p=bioformats.git;a=blob;f=components/common/test/loci/common/utests/ReflectedUniverseTest.java;hb=HEAD">Gitweb</a></dd></dl>
+ */
+public class ReflectedUniverseTest {
+
+  private ReflectedUniverse r;
+
+  @BeforeMethod
+  public void setUp() throws ReflectException {
+    r = new ReflectedUniverse();
+    r.exec("import java.awt.Point");
+    r.exec("import java.lang.Math");
+  }
+
+  // -- Tests --
+
+  @Test
+  public void testConstructorAndMethods() throws ReflectException {
+    r.exec("p = new Point(3, 4)");
+    assertEquals(new Point(3, 4), r.getVar("p"));
+    assertEquals(new Integer(3), r.getVar("p.x"));
+
+    r.setVar("dx", 2);
+    for (int i=0; i<10; i++) r.exec("p.translate(dx, -1)");
+    assertEquals(new Point(23, -6), r.getVar("p"));
+
+    assertEquals(new Integer(7), r.exec("m = Math.max(7, 5)"));
+    assertEquals(new Integer(7), r.getVar("m"));
+    assertEquals(new Long(9), r.exec("Math.max(9L, 5L)"));
+    assertEquals("abc", r.exec("s = \"abc\""));
+  }
+
+  @Test
+  public void testVariablesReadPerCall() throws ReflectException {
+    r.exec("p = new Point()");
+    for (int i=0; i<5; i++) {
+      r.setVar("x", i);
+      r.setVar("y", 2 * i);
+      r.exec("p.setLocation(x, y)");
+      assertEquals(new Point(i, 2 * i), r.getVar("p"));
+    }
+  }
+
+  @Test
+  public void testOverloadsByArgumentType() throws ReflectException {
+    String cmd = "v = Math.abs(a)";
+    r.setVar("a", -2);
+    assertEquals(new Integer(2), r.exec(cmd));
+    r.setVar("a", -2.5);
+    assertEquals(new Double(2.5), r.exec(cmd));
+    r.setVar("a", -3L);
+    assertEquals(new Long(3), r.exec(cmd));
+  }
+
+  @Test
+  public void testReceiverClassChanges() throws ReflectException {
+    String cmd = "s = obj.toString()";
+    r.setVar("obj", new Point(1, 2));
+    assertEquals(new Point(1, 2).toString(), r.exec(cmd));
+    r.setVar("obj", new StringBuffer("xyz"));
+    assertEquals("xyz", r.exec(cmd));
+    r.setVar("obj", null);
+    try {
+      r.exec(cmd);
+      fail("Expected ReflectException");
+    }
+    catch (ReflectException e) { }
+  }
+
+  @Test
+  public void testNullResultClearsTarget() throws ReflectException {
+    r.setVar("q", new Object());
+    assertNull(r.exec("q = null"));
+    assertNull(r.getVar("q"));
+    Object o = new Object();
+    r.setVar("o", o);
+    assertSame(o, r.exec("q = o"));
+  }
+
+  @Test
+  public void testErrors() {
+    String[] bad = {
+      "Math.noSuchMethod(1)", "p = new Point(\"x\")", "Math.max(1, 2",
+      "noDot()", "import no.such.Clazz", "x = Math.NO_SUCH_FIELD"
+    };
+    for (String cmd : bad) {
+      // repeated failures must not be cached as successes
+      for (int i=0; i<2; i++) {
+        try {
+          r.exec(cmd);
+          fail("Expected ReflectException: " + cmd);
+        }
+        catch (ReflectException e) { }
+      }
+    }
+  }
+
+}
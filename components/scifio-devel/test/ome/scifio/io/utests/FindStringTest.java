@@ -0,0 +1,142 @@
+/*
+ * #%L
+ * OME SCIFIO package for reading and converting scientific file formats.
+ * %%
+ * Copyright (C) 2005 - 2012 Open Microscopy Environment:
+ *   - Board of Regents of the University of Wisconsin-Madison
+ *   - Glencoe Software, Inc.
+ *   - University of Dundee
+ * %%
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ * 
+ * The views and conclusions contained in the software and documentation are
+ * those of the authors and should not be interpreted as representing official
+ * policies, either expressed or implied, of any organization.
+ * #L%
+ */
+
+package ome.scifio.io.utests;
+
+import static org.testng.AssertJUnit.assertEquals;
+import static org.testng.AssertJUnit.assertNull;
+
+import java.io.IOException;
+
+import ome.scifio.io.RandomAccessInputStream;
+
+import org.testng.annotations.Test;
+
+/**
+ * Unit tests for searching with
+ * ome.scifio.io.RandomAccessInputStream.findString and findBytes.
+ *
+ * <dl><dt><b>Source code:</b></dt>
+ * <dd><a href="http://trac.openmicroscopy.org.uk/ome/browser/bioformats.git/components/common/test/loci/common/utests/FindStringTest.java">Trac</a>,
+ * <a href="http://git.openmicroscopy.org/?p=bioformats.git;a=blob;f=components/common/test/loci/common/utests/FindStringTest.java;hb=HEAD">Gitweb</a></dd></dl>
+ *
+ * @see ome.scifio.io.RandomAccessInputStream
+ */
+public class FindStringTest {
+
+  private static final String TEXT =
+    "<Image><Pixels SizeX=\"512\"/></Image>\n<Plane TheZ=\"0\"/>\nend";
+
+  @Test
+  public void testSingleTerminator() throws IOException {
+    RandomAccessInputStream s = stream(TEXT);
+    assertEquals("<Image>", s.findString(">"));
+    assertEquals(7, s.getFilePointer());
+    assertEquals("<Pixels SizeX=\"512\"/></Image>\n", s.findString("\n"));
+  }
+
+  @Test
+  public void testEarliestTerminatorWins() throws IOException {
+    RandomAccessInputStream s = stream(TEXT);
+    assertEquals("<Image><Pixels", s.findString("</Image>", "Pixels"));
+
+    // terminators that match at the same offset are used in order
+    s.seek(0);
+    assertEquals("<Ima", s.findString("Ima", "Image"));
+    s.seek(0);
+    assertEquals("<Image", s.findString("Image", "Ima"));
+  }
+
+  @Test
+  public void testReadString() throws IOException {
+    RandomAccessInputStream s = stream(TEXT);
+    assertEquals("<Image><Pixels ", s.readString(" \""));
+  }
+
+  @Test
+  public void testBlockBoundaries() throws IOException {
+    for (int blockSize=1; blockSize<=16; blockSize++) {
+      RandomAccessInputStream s = stream(TEXT);
+      assertEquals("<Image><Pixels SizeX=\"512\"/></Image>",
+        s.findString(blockSize, "</Image>", "TheZ"));
+      assertEquals(36, s.getFilePointer());
+    }
+  }
+
+  @Test
+  public void testNoMatch() throws IOException {
+    RandomAccessInputStream s = stream(TEXT);
+    s.seek(10);
+    assertEquals(TEXT.substring(10), s.findString("</OME>"));
+    assertEquals(TEXT.length(), s.getFilePointer());
+  }
+
+  @Test
+  public void testSkip() throws IOException {
+    RandomAccessInputStream s = stream(TEXT);
+    assertNull(s.findString(false, 4, "<Plane"));
+    assertEquals(TEXT.indexOf("<Plane") + 6, s.getFilePointer());
+  }
+
+  @Test
+  public void testMultiByteCharacters() throws IOException {
+    String text = "µm Ångström|rest";
+    RandomAccessInputStream s = stream(text);
+    assertEquals("µm Ångström|", s.findString(2, "|"));
+    assertEquals(text.getBytes("UTF-8").length - 4, s.getFilePointer());
+  }
+
+  @Test
+  public void testFindBytes() throws IOException {
+    RandomAccessInputStream s = stream(TEXT);
+    byte[] plane = "<Plane".getBytes("UTF-8");
+    byte[] pixels = "<Pixels".getBytes("UTF-8");
+    assertEquals(7, s.findBytes(3, plane, pixels));
+    assertEquals(14, s.getFilePointer());
+    assertEquals(TEXT.indexOf("<Plane"), s.findBytes(plane, pixels));
+    assertEquals(-1, s.findBytes(plane));
+    assertEquals(TEXT.length(), s.getFilePointer());
+  }
+
+  // -- Helper methods --
+
+  private static RandomAccessInputStream stream(String text)
+    throws IOException
+  {
+    return new RandomAccessInputStream(text.getBytes("UTF-8"));
+  }
+
+}
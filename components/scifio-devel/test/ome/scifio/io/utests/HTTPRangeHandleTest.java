@@ -0,0 +1,202 @@
+/*
+ * #%L
+ * OME SCIFIO package for reading and converting scientific file formats.
+ * %%
+ * Copyright (C) 2005 - 2012 Open Microscopy Environment:
+ *   - Board of Regents of the University of Wisconsin-Madison
+ *   - Glencoe Software, Inc.
+ *   - University of Dundee
+ * %%
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ * 
+ * The views and conclusions contained in the software and documentation are
+ * those of the authors and should not be interpreted as representing official
+ * policies, either expressed or implied, of any organization.
+ * #L%
+ */
+
+package ome.scifio.io.utests;
+
+import static org.testng.AssertJUnit.assertEquals;
+import static org.testng.AssertJUnit.assertTrue;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+import ome.scifio.io.HTTPRangeHandle;
+import ome.scifio.io.IRandomAccess;
+import ome.scifio.io.Location;
+import ome.scifio.io.URLHandle;
+import ome.scifio.io.utests.providers.HTTPRangeHandleProvider.RangeServer;
+
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+/**
+ * Unit tests for the caching and request behavior of
+ * ome.scifio.io.HTTPRangeHandle.
+ *
+ * <dl><dt><b>Source code:</b></dt>
+ * <dd><a href="http://trac.openmicroscopy.org.uk/ome/browser/bioformats.git/components/common/test/loci/common/utests/HTTPRangeHandleTest.java">Trac</a>,
+ * <a href="http://git.openmicroscopy.org/?p=bioformats.git;a=blob;f=components/common/test/loci/common/utests/HTTPRangeHandleTest.java;hb=HEAD">Gitweb</a></dd></dl>
+ *
+ * @see ome.scifio.io.HTTPRangeHandle
+ */
+public class HTTPRangeHandleTest {
+
+  // -- Constants --
+
+  private static final int BLOCK_SIZE = 4;
+
+  // -- Fields --
+
+  private RangeServer server;
+
+  private RangeServer noRangeServer;
+
+  private byte[] page;
+
+  // -- Setup methods --
+
+  @BeforeClass
+  public void setup() throws IOException {
+    server = new RangeServer(true);
+    noRangeServer = new RangeServer(false);
+    page = new byte[64];
+    for (int i=0; i<page.length; i++) {
+      page[i] = (byte) i;
+    }
+  }
+
+  @AfterClass
+  public void tearDown() {
+    server.stop();
+    noRangeServer.stop();
+  }
+
+  // -- Test methods --
+
+  @Test
+  public void testLength() throws IOException {
+    HTTPRangeHandle handle = newHandle(16);
+    assertEquals(page.length, handle.length());
+    assertEquals(0, handle.getRequestCount());
+  }
+
+  @Test
+  public void testCoalescedRead() throws IOException {
+    HTTPRangeHandle handle = newHandle(16);
+    byte[] b = new byte[30];
+    handle.seek(1);
+    assertEquals(30, handle.read(b));
+    assertEquals(1, b[0]);
+    assertEquals(30, b[29]);
+    assertEquals(1, handle.getRequestCount());
+
+    // blocks 1 and 2 are cached, so only blocks 8 and 9 are requested
+    handle.seek(4);
+    b = new byte[8];
+    handle.read(b);
+    handle.seek(32);
+    handle.read(b);
+    assertEquals(2, handle.getRequestCount());
+  }
+
+  @Test
+  public void testBackwardSeek() throws IOException {
+    HTTPRangeHandle handle = newHandle(16);
+    handle.seek(40);
+    assertEquals(0x28292a2b, handle.readInt());
+    handle.seek(0);
+    assertEquals(0x00010203, handle.readInt());
+    handle.seek(41);
+    assertEquals(0x292a, handle.readShort());
+    assertEquals(2, handle.getRequestCount());
+  }
+
+  @Test
+  public void testEviction() throws IOException {
+    HTTPRangeHandle handle = newHandle(2);
+    handle.seek(0);
+    handle.readByte();
+    handle.seek(8);
+    handle.readByte();
+    handle.seek(16);
+    handle.readByte();
+    assertEquals(3, handle.getRequestCount());
+
+    // the first block was least recently used, so it has been evicted
+    handle.seek(0);
+    assertEquals(0, handle.readByte());
+    assertEquals(4, handle.getRequestCount());
+  }
+
+  @Test
+  public void testPrefetch() throws IOException {
+    HTTPRangeHandle handle = newHandle(16);
+    handle.setPrefetch(3);
+    for (int i=0; i<16; i++) {
+      assertEquals(i, handle.readByte());
+    }
+    assertEquals(1, handle.getRequestCount());
+    assertEquals(16, handle.readByte());
+    assertEquals(2, handle.getRequestCount());
+  }
+
+  @Test
+  public void testDirectBuffer() throws IOException {
+    HTTPRangeHandle handle = newHandle(16);
+    ByteBuffer buffer = ByteBuffer.allocateDirect(16);
+    handle.seek(20);
+    assertEquals(8, handle.read(buffer, 4, 8));
+    for (int i=0; i<8; i++) {
+      assertEquals(page[20 + i], buffer.get(4 + i));
+    }
+    assertEquals(0, buffer.get(0));
+
+    // nothing is left to read, so the buffer must not be touched
+    handle.seek(page.length);
+    assertEquals(0, handle.read(buffer, 4, 8));
+    assertEquals(page[20], buffer.get(4));
+  }
+
+  @Test
+  public void testLocationHandle() throws IOException {
+    IRandomAccess handle = Location.getHandle(server.publish(page));
+    assertTrue(handle instanceof HTTPRangeHandle);
+    handle.close();
+
+    handle = Location.getHandle(noRangeServer.publish(page));
+    assertTrue(handle instanceof URLHandle);
+    handle.seek(10);
+    assertEquals(10, handle.readByte());
+    handle.close();
+  }
+
+  // -- Helper methods --
+
+  private HTTPRangeHandle newHandle(int cacheSize) throws IOException {
+    return new HTTPRangeHandle(server.publish(page), BLOCK_SIZE, cacheSize);
+  }
+
+}
@@ -209,6 +209,67 @@ public class LocationTest {
     }
   }
 
+  @Test
+  public void testCachedListing() throws IOException {
+    File dir = new File(System.getProperty("java.io.tmpdir"),
+      System.currentTimeMillis() + "-listing-test");
+    dir.mkdirs();
+    dir.deleteOnExit();
+    File a = new File(dir, "a.tif");
+    a.createNewFile();
+    a.deleteOnExit();
+    File b = new File(dir, "b.tif");
+    b.deleteOnExit();
+    File c = new File(dir, "c.tif");
+    c.deleteOnExit();
+
+    Location.cacheDirectoryListings(true);
+    try {
+      Location directory = new Location(dir);
+      assertEquals(Arrays.asList("a.tif"), Arrays.asList(directory.list()));
+      assertEquals(true, new Location(a).exists());
+      assertEquals(true, new Location(a).isFile());
+      assertEquals(false, new Location(b).exists());
+      assertEquals(false, new Location(b).isFile());
+      assertEquals(false, new Location(directory, "missing").isDirectory());
+
+      // files that are not listed are looked up on disk
+      b.createNewFile();
+      assertEquals(true, new Location(b).exists());
+      assertEquals(true, new Location(b).isFile());
+      assertEquals(false, new Location(b).isDirectory());
+
+      // expired listings made just after the directory was modified are
+      // refreshed, as a change in the same instant may not be visible in the
+      // modification time
+      Location.setCacheDirectoryTimeout(0);
+      List<String> names = Arrays.asList(directory.list());
+      assertEquals(2, names.size());
+      assertEquals(true, names.contains("b.tif"));
+
+      // other expired listings of unmodified directories are reused
+      dir.setLastModified(System.currentTimeMillis() - 60000);
+      Location.clearDirectoryListingsCache();
+      String[] listing = directory.list();
+      assertEquals(true, listing == directory.list());
+
+      // expired listings of modified directories are refreshed
+      c.createNewFile();
+      names = Arrays.asList(directory.list());
+      assertEquals(3, names.size());
+      assertEquals(true, names.contains("c.tif"));
+
+      // deleted files do not exist, even though they are still listed
+      directory.list();
+      a.delete();
+      assertEquals(false, new Location(a).exists());
+      assertEquals(false, new Location(a).isFile());
+    }
+    finally {
+      Location.reset();
+    }
+  }
+
   @Test
   public void testToURL() throws IOException {
     for (Location file : files) {
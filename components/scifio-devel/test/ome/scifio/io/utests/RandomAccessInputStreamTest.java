@@ -141,4 +141,52 @@ public class RandomAccessInputStreamTest {
     }
   }
 
+  @Test
+  public void testSegmentRead() throws IOException {
+    // three rows of 4 bytes from a 16-byte wide image, stored in reverse
+    long[] offsets = {2, 18, 34};
+    int[] lengths = {4, 4, 4};
+    int[] destOffsets = {8, 4, 0};
+    byte[] buf = new byte[12];
+    assertEquals(12, stream.readSegments(offsets, lengths, buf, destOffsets));
+    assertEquals(38, stream.getFilePointer());
+    for (int row=0; row<3; row++) {
+      for (int i=0; i<4; i++) {
+        assertEquals(PAGE[row * 16 + 2 + i], buf[(2 - row) * 4 + i]);
+      }
+    }
+  }
+
+  @Test
+  public void testUnorderedSegmentRead() throws IOException {
+    long[] offsets = {40, 0, 20};
+    int[] lengths = {2, 3, 1};
+    int[] destOffsets = {0, 2, 5};
+    byte[] buf = new byte[6];
+    assertEquals(6, stream.readSegments(offsets, lengths, buf, destOffsets));
+    assertEquals(21, stream.getFilePointer());
+    assertEquals(PAGE[40], buf[0]);
+    assertEquals(PAGE[41], buf[1]);
+    assertEquals(PAGE[0], buf[2]);
+    assertEquals(PAGE[1], buf[3]);
+    assertEquals(PAGE[2], buf[4]);
+    assertEquals(PAGE[20], buf[5]);
+  }
+
+  @Test
+  public void testSegmentReadPastEnd() throws IOException {
+    long[] offsets = {PAGE.length - 6, PAGE.length - 2};
+    int[] lengths = {2, 4};
+    int[] destOffsets = {0, 2};
+    byte[] buf = new byte[6];
+    assertEquals(4, stream.readSegments(offsets, lengths, buf, destOffsets));
+    assertEquals(PAGE.length, stream.getFilePointer());
+    assertEquals(PAGE[PAGE.length - 6], buf[0]);
+    assertEquals(PAGE[PAGE.length - 5], buf[1]);
+    assertEquals(PAGE[PAGE.length - 2], buf[2]);
+    assertEquals(PAGE[PAGE.length - 1], buf[3]);
+    assertEquals(0, buf[4]);
+    assertEquals(0, buf[5]);
+  }
+
 }
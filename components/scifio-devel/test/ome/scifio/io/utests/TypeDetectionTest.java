@@ -37,13 +37,22 @@
 package ome.scifio.io.utests;
 
 import static org.testng.AssertJUnit.assertEquals;
+import static org.testng.AssertJUnit.assertTrue;
+import static org.testng.AssertJUnit.fail;
 
 import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
 import java.io.IOException;
-
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
 
 import ome.scifio.io.BZip2Handle;
 import ome.scifio.io.GZipHandle;
+import ome.scifio.io.IRandomAccess;
+import ome.scifio.io.Location;
+import ome.scifio.io.NIOFileHandle;
 import ome.scifio.io.ZipHandle;
 
 import org.testng.annotations.Test;
@@ -79,4 +88,71 @@ public class TypeDetectionTest {
     invalidFile.deleteOnExit();
     assertEquals(ZipHandle.isZipFile(invalidFile.getAbsolutePath()), false);
   }
+
+  @Test
+  public void testGetHandleGZip() throws IOException {
+    File file = File.createTempFile("valid", ".gz");
+    file.deleteOnExit();
+    GZIPOutputStream out = new GZIPOutputStream(new FileOutputStream(file));
+    out.write(CONTENT);
+    out.close();
+    assertContent(GZipHandle.class, file);
+  }
+
+  @Test
+  public void testGetHandleZip() throws IOException {
+    File file = File.createTempFile("valid", ".zip");
+    file.deleteOnExit();
+    ZipOutputStream out = new ZipOutputStream(new FileOutputStream(file));
+    out.putNextEntry(new ZipEntry("valid.dat"));
+    out.write(CONTENT);
+    out.close();
+    assertContent(ZipHandle.class, file);
+  }
+
+  @Test
+  public void testGetHandleUncompressedArchiveName() throws IOException {
+    String[] suffixes = {".gz", ".zip", ".bz2"};
+    for (String suffix : suffixes) {
+      File file = File.createTempFile("plain", suffix);
+      file.deleteOnExit();
+      FileOutputStream out = new FileOutputStream(file);
+      out.write(CONTENT);
+      out.close();
+      assertContent(NIOFileHandle.class, file);
+    }
+  }
+
+  @Test
+  public void testCheckValidId() throws IOException {
+    File file = File.createTempFile("valid", ".dat");
+    file.deleteOnExit();
+    Location.checkValidId(file.getAbsolutePath());
+    assertTrue(file.delete());
+    try {
+      Location.checkValidId(file.getAbsolutePath());
+      fail("Expected FileNotFoundException");
+    }
+    catch (FileNotFoundException e) { }
+  }
+
+  // -- Helper methods --
+
+  private static final byte[] CONTENT = "uncompressed content".getBytes();
+
+  private void assertContent(Class<?> type, File file) throws IOException {
+    IRandomAccess handle = Location.getHandle(file.getAbsolutePath());
+    try {
+      assertEquals(type, handle.getClass());
+      assertEquals(CONTENT.length, handle.length());
+      byte[] b = new byte[CONTENT.length];
+      handle.readFully(b);
+      assertEquals(new String(CONTENT), new String(b));
+      handle.seek(2);
+      assertEquals(CONTENT[2], handle.readByte());
+    }
+    finally {
+      handle.close();
+    }
+  }
 }
@@ -0,0 +1,193 @@
+/*
+ * #%L
+ * OME SCIFIO package for reading and converting scientific file formats.
+ * %%
+ * Copyright (C) 2005 - 2012 Open Microscopy Environment:
+ *   - Board of Regents of the University of Wisconsin-Madison
+ *   - Glencoe Software, Inc.
+ *   - University of Dundee
+ * %%
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ * 
+ * The views and conclusions contained in the software and documentation are
+ * those of the authors and should not be interpreted as representing official
+ * policies, either expressed or implied, of any organization.
+ * #L%
+ */
+
+package ome.scifio.io.utests;
+
+import static org.testng.AssertJUnit.assertEquals;
+import static org.testng.AssertJUnit.assertTrue;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.List;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import ome.scifio.io.ZipDirectory;
+import ome.scifio.io.ZipHandle;
+
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+/**
+ * Unit tests for central directory based access to Zip entries in
+ * ome.scifio.io.ZipHandle.
+ *
+ * <dl><dt><b>Source code:</b></dt>
+ * <dd><a href="http://trac.openmicroscopy.org.uk/ome/browser/bioformats.git/components/common/test/loci/common/utests/ZipHandleTest.java">Trac</a>,
+ * <a href="http://git.openmicroscopy.org/?p=bioformats.git;a=blob;f=components/common/test/loci/common/utests/ZipHandleTest.java;hb=HEAD">Gitweb</a></dd></dl>
+ *
+ * @see ome.scifio.io.ZipHandle
+ * @see ome.scifio.io.ZipDirectory
+ */
+public class ZipHandleTest {
+
+  // -- Fields --
+
+  private byte[] page;
+
+  private File zipFile;
+
+  // -- Setup methods --
+
+  @BeforeClass
+  public void setup() throws IOException {
+    page = new byte[100000];
+    for (int i=0; i<page.length; i++) {
+      page[i] = (byte) (i % 251);
+    }
+
+    zipFile = File.createTempFile("entries", ".zip");
+    zipFile.deleteOnExit();
+    ZipOutputStream out = new ZipOutputStream(new FileOutputStream(zipFile));
+    out.putNextEntry(new ZipEntry("first.dat"));
+    out.write(page);
+    out.putNextEntry(newStoredEntry("stored.dat", page));
+    out.write(page);
+    out.putNextEntry(new ZipEntry("deflated.dat"));
+    out.write(page);
+    out.close();
+  }
+
+  // -- Test methods --
+
+  @Test
+  public void testEntries() throws IOException {
+    List<? extends ZipEntry> entries =
+      ZipHandle.getEntries(zipFile.getAbsolutePath());
+    assertEquals(3, entries.size());
+    assertEquals("first.dat", entries.get(0).getName());
+    assertEquals(ZipEntry.STORED, entries.get(1).getMethod());
+    assertEquals(ZipEntry.DEFLATED, entries.get(2).getMethod());
+    assertEquals(page.length, entries.get(2).getSize());
+    assertTrue(entries.get(2) instanceof ZipDirectory.Entry);
+
+    ZipHandle handle = new ZipHandle(zipFile.getAbsolutePath());
+    assertEquals(3, handle.getEntryCount());
+    assertEquals("first.dat", handle.getEntryName());
+    handle.close();
+  }
+
+  @Test
+  public void testStoredRandomAccess() throws IOException {
+    ZipHandle handle =
+      new ZipHandle(zipFile.getAbsolutePath(), new ZipEntry("stored.dat"));
+    assertRandomAccess(handle);
+  }
+
+  @Test
+  public void testDeflatedRandomAccess() throws IOException {
+    List<? extends ZipEntry> entries =
+      ZipHandle.getEntries(zipFile.getAbsolutePath());
+    ZipHandle handle =
+      new ZipHandle(zipFile.getAbsolutePath(), entries.get(2));
+    assertRandomAccess(handle);
+  }
+
+  @Test(expectedExceptions={IOException.class})
+  public void testMissingEntry() throws IOException {
+    new ZipHandle(zipFile.getAbsolutePath(), new ZipEntry("missing.dat"));
+  }
+
+  @Test
+  public void testZip64() throws IOException {
+    // more than 65535 entries forces a ZIP64 end of central directory
+    File zip64 = File.createTempFile("zip64", ".zip");
+    zip64.deleteOnExit();
+    ZipOutputStream out = new ZipOutputStream(new FileOutputStream(zip64));
+    byte[] empty = new byte[0];
+    int count = 0x10001;
+    for (int i=0; i<count; i++) {
+      out.putNextEntry(newStoredEntry(Integer.toString(i), empty));
+    }
+    out.putNextEntry(new ZipEntry("last.dat"));
+    out.write(page);
+    out.close();
+
+    List<? extends ZipEntry> entries =
+      ZipHandle.getEntries(zip64.getAbsolutePath());
+    assertEquals(count + 1, entries.size());
+
+    ZipHandle handle =
+      new ZipHandle(zip64.getAbsolutePath(), entries.get(count));
+    assertEquals("last.dat", handle.getEntryName());
+    assertRandomAccess(handle);
+  }
+
+  // -- Helper methods --
+
+  private void assertRandomAccess(ZipHandle handle) throws IOException {
+    assertEquals(page.length, handle.length());
+
+    int[] offsets = {90000, 17, 50000, 0, page.length - 4};
+    byte[] b = new byte[4];
+    for (int offset : offsets) {
+      handle.seek(offset);
+      handle.readFully(b);
+      for (int i=0; i<b.length; i++) {
+        assertEquals(page[offset + i], b[i]);
+      }
+      assertEquals(offset + b.length, handle.getFilePointer());
+    }
+
+    handle.seek(1000);
+    assertEquals(page[1000] & 0xff, handle.readUnsignedByte());
+    handle.close();
+  }
+
+  private static ZipEntry newStoredEntry(String name, byte[] data) {
+    ZipEntry entry = new ZipEntry(name);
+    entry.setMethod(ZipEntry.STORED);
+    entry.setSize(data.length);
+    entry.setCompressedSize(data.length);
+    CRC32 crc = new CRC32();
+    crc.update(data);
+    entry.setCrc(crc.getValue());
+    return entry;
+  }
+
+}
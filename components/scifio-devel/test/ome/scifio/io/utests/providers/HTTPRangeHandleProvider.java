@@ -0,0 +1,160 @@
+/*
+ * #%L
+ * OME SCIFIO package for reading and converting scientific file formats.
+ * %%
+ * Copyright (C) 2005 - 2012 Open Microscopy Environment:
+ *   - Board of Regents of the University of Wisconsin-Madison
+ *   - Glencoe Software, Inc.
+ *   - University of Dundee
+ * %%
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ * 
+ * The views and conclusions contained in the software and documentation are
+ * those of the authors and should not be interpreted as representing official
+ * policies, either expressed or implied, of any organization.
+ * #L%
+ */
+
+package ome.scifio.io.utests.providers;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.util.HashMap;
+import java.util.Map;
+
+import ome.scifio.io.HTTPRangeHandle;
+import ome.scifio.io.IRandomAccess;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * Implementation of IRandomAccessProvider that produces instances of
+ * ome.scifio.io.HTTPRangeHandle, backed by an embedded HTTP server.
+ *
+ * <dl><dt><b>Source code:</b></dt>
+ * <dd><a href="http://trac.openmicroscopy.org.uk/ome/browser/bioformats.git/components/common/test/loci/common/utests/providers/HTTPRangeHandleProvider.java">Trac</a>,
+ * <a href="http://git.openmicroscopy.org/?p=bioformats.git;a=blob;f=components/common/test/loci/common/utests/providers/HTTPRangeHandleProvider.java;hb=HEAD">Gitweb</a></dd></dl>
+ *
+ * @see IRandomAccessProvider
+ * @see ome.scifio.io.HTTPRangeHandle
+ */
+public class HTTPRangeHandleProvider implements IRandomAccessProvider {
+
+  /** Block size used by the handles; small, so that reads span blocks. */
+  private static final int BLOCK_SIZE = 4;
+
+  private static RangeServer server;
+
+  public IRandomAccess createMock(
+      byte[] page, String mode, int bufferSize) throws IOException {
+    return new HTTPRangeHandle(getServer().publish(page), BLOCK_SIZE, 2);
+  }
+
+  /** Gets the embedded server, starting it if necessary. */
+  public static synchronized RangeServer getServer() throws IOException {
+    if (server == null) server = new RangeServer(true);
+    return server;
+  }
+
+  /**
+   * Minimal HTTP server that serves byte arrays and optionally supports
+   * Range requests of the form 'bytes=start-end'.
+   */
+  public static class RangeServer implements HttpHandler {
+
+    private HttpServer http;
+    private boolean ranges;
+    private Map<String, byte[]> pages = new HashMap<String, byte[]>();
+    private int rangeRequests = 0;
+
+    public RangeServer(boolean ranges) throws IOException {
+      this.ranges = ranges;
+      http = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+      http.createContext("/", this);
+      http.start();
+    }
+
+    /** Makes the given data available, and returns its URL. */
+    public synchronized String publish(byte[] page) {
+      String path = "/page" + pages.size();
+      pages.put(path, page);
+      return "http://127.0.0.1:" + http.getAddress().getPort() + path;
+    }
+
+    public synchronized int getRangeRequestCount() {
+      return rangeRequests;
+    }
+
+    public void stop() {
+      http.stop(0);
+    }
+
+    public void handle(HttpExchange exchange) throws IOException {
+      byte[] page;
+      synchronized (this) {
+        page = pages.get(exchange.getRequestURI().getPath());
+      }
+      if (page == null) {
+        exchange.sendResponseHeaders(404, -1);
+        exchange.close();
+        return;
+      }
+      if (ranges) {
+        exchange.getResponseHeaders().set("Accept-Ranges", "bytes");
+      }
+
+      int start = 0;
+      int end = page.length - 1;
+      int code = 200;
+      String range = exchange.getRequestHeaders().getFirst("Range");
+      if (ranges && range != null && range.startsWith("bytes=")) {
+        String[] bounds = range.substring(6).split("-");
+        start = Integer.parseInt(bounds[0]);
+        end = Math.min(Integer.parseInt(bounds[1]), page.length - 1);
+        code = 206;
+        exchange.getResponseHeaders().set("Content-Range",
+          "bytes " + start + "-" + end + "/" + page.length);
+        synchronized (this) {
+          rangeRequests++;
+        }
+      }
+
+      int length = end - start + 1;
+      if (exchange.getRequestMethod().equals("HEAD")) {
+        exchange.getResponseHeaders().set("Content-Length",
+          String.valueOf(length));
+        exchange.sendResponseHeaders(code, -1);
+      }
+      else {
+        exchange.sendResponseHeaders(code, length);
+        OutputStream out = exchange.getResponseBody();
+        out.write(page, start, length);
+        out.close();
+      }
+      exchange.close();
+    }
+  }
+
+}
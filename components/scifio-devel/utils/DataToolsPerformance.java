@@ -0,0 +1,202 @@
+/*
+ * #%L
+ * OME SCIFIO package for reading and converting scientific file formats.
+ * %%
+ * Copyright (C) 2005 - 2012 Open Microscopy Environment:
+ *   - Board of Regents of the University of Wisconsin-Madison
+ *   - Glencoe Software, Inc.
+ *   - University of Dundee
+ * %%
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ * 
+ * The views and conclusions contained in the software and documentation are
+ * those of the authors and should not be interpreted as representing official
+ * policies, either expressed or implied, of any organization.
+ * #L%
+ */
+
+import java.util.Random;
+
+import ome.scifio.common.DataTools;
+
+/**
+ * A benchmark comparing the bulk conversion methods of {@link DataTools}
+ * with the equivalent per-element conversions.
+ *
+ * Usage: java DataToolsPerformance [plane size in bytes]
+ *
+ * <dl><dt><b>Source code:</b></dt>
+ * <dd><a href="http://trac.openmicroscopy.org.uk/ome/browser/bioformats.git/components/scifio-devel/utils/DataToolsPerformance.java">Trac</a>,
+ * <a href="http://git.openmicroscopy.org/?p=bioformats.git;a=blob;f=components/scifio-devel/utils/DataToolsPerformance.java;hb=HEAD">Gitweb</a></dd></dl>
+ */
+public class DataToolsPerformance {
+
+  private static final int ROUNDS = 5;
+
+  private static byte[] plane;
+  private static int loops;
+
+  /** Accumulates results so that the JIT cannot discard the work. */
+  private static long sink;
+
+  public static void benchmarkShorts() {
+    System.out.println();
+    System.out.println("--== bytes to shorts ==--");
+    short[] s = new short[plane.length / 2];
+    for (int round=0; round<ROUNDS; round++) {
+      long start = System.currentTimeMillis();
+      for (int loop=0; loop<loops; loop++) {
+        for (int i=0; i<s.length; i++) {
+          s[i] = DataTools.bytesToShort(plane, i * 2, 2, true);
+        }
+        sink += s[loop % s.length];
+      }
+      long perElement = System.currentTimeMillis() - start;
+
+      start = System.currentTimeMillis();
+      for (int loop=0; loop<loops; loop++) {
+        DataTools.bytesToShorts(plane, 0, s, 0, s.length, true);
+        sink += s[loop % s.length];
+      }
+      report(perElement, System.currentTimeMillis() - start);
+    }
+  }
+
+  public static void benchmarkFloats() {
+    System.out.println();
+    System.out.println("--== bytes to floats ==--");
+    float[] f = new float[plane.length / 4];
+    for (int round=0; round<ROUNDS; round++) {
+      long start = System.currentTimeMillis();
+      for (int loop=0; loop<loops; loop++) {
+        for (int i=0; i<f.length; i++) {
+          f[i] = DataTools.bytesToFloat(plane, i * 4, 4, false);
+        }
+        sink += (long) f[loop % f.length];
+      }
+      long perElement = System.currentTimeMillis() - start;
+
+      start = System.currentTimeMillis();
+      for (int loop=0; loop<loops; loop++) {
+        DataTools.bytesToFloats(plane, 0, f, 0, f.length, false);
+        sink += (long) f[loop % f.length];
+      }
+      report(perElement, System.currentTimeMillis() - start);
+    }
+  }
+
+  public static void benchmarkShortsToBytes() {
+    System.out.println();
+    System.out.println("--== shorts to bytes ==--");
+    short[] s = new short[plane.length / 2];
+    DataTools.bytesToShorts(plane, 0, s, 0, s.length, true);
+    byte[] b = new byte[plane.length];
+    for (int round=0; round<ROUNDS; round++) {
+      long start = System.currentTimeMillis();
+      for (int loop=0; loop<loops; loop++) {
+        for (int i=0; i<s.length; i++) {
+          DataTools.unpackBytes(s[i], b, i * 2, 2, false);
+        }
+        sink += b[loop % b.length];
+      }
+      long perElement = System.currentTimeMillis() - start;
+
+      start = System.currentTimeMillis();
+      for (int loop=0; loop<loops; loop++) {
+        DataTools.shortsToBytes(s, 0, b, 0, s.length, false);
+        sink += b[loop % b.length];
+      }
+      report(perElement, System.currentTimeMillis() - start);
+    }
+  }
+
+  public static void benchmarkSwap() {
+    System.out.println();
+    System.out.println("--== 32-bit byte swapping ==--");
+    byte[] b = plane.clone();
+    for (int round=0; round<ROUNDS; round++) {
+      long start = System.currentTimeMillis();
+      for (int loop=0; loop<loops; loop++) {
+        for (int i=0; i<b.length; i+=4) {
+          int v = DataTools.bytesToInt(b, i, 4, true);
+          DataTools.unpackBytes(v, b, i, 4, false);
+        }
+        sink += b[loop % b.length];
+      }
+      long perElement = System.currentTimeMillis() - start;
+
+      start = System.currentTimeMillis();
+      for (int loop=0; loop<loops; loop++) {
+        DataTools.swapBytes(b, 0, b.length / 4, 4);
+        sink += b[loop % b.length];
+      }
+      report(perElement, System.currentTimeMillis() - start);
+    }
+  }
+
+  public static void benchmarkMinMax() {
+    System.out.println();
+    System.out.println("--== 16-bit min/max scan ==--");
+    for (int round=0; round<ROUNDS; round++) {
+      long start = System.currentTimeMillis();
+      for (int loop=0; loop<loops; loop++) {
+        int min = Integer.MAX_VALUE, max = Integer.MIN_VALUE;
+        for (int i=0; i<plane.length; i+=2) {
+          int v = DataTools.bytesToShort(plane, i, 2, true) & 0xffff;
+          if (v < min) min = v;
+          if (v > max) max = v;
+        }
+        sink += min + max;
+      }
+      long perElement = System.currentTimeMillis() - start;
+
+      start = System.currentTimeMillis();
+      for (int loop=0; loop<loops; loop++) {
+        double[] range =
+          DataTools.minMax(plane, 0, plane.length / 2, 2, false, false, true);
+        sink += (long) (range[0] + range[1]);
+      }
+      report(perElement, System.currentTimeMillis() - start);
+    }
+  }
+
+  private static void report(long perElement, long bulk) {
+    System.out.println(loops + " planes: per-element " + perElement +
+      " ms, bulk " + bulk + " ms");
+  }
+
+  public static void main(String[] args) throws Exception {
+    int size = args.length > 0 ? Integer.parseInt(args[0]) : 4 * 1024 * 1024;
+    plane = new byte[size - size % 8];
+    new Random(0).nextBytes(plane);
+    loops = Math.max(1, (256 * 1024 * 1024) / plane.length);
+
+    benchmarkShorts();
+    benchmarkFloats();
+    benchmarkShortsToBytes();
+    benchmarkSwap();
+    benchmarkMinMax();
+    System.out.println();
+    System.out.println("(checksum " + sink + ")");
+  }
+
+}
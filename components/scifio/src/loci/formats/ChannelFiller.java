@@ -250,6 +250,27 @@ public class ChannelFiller extends ReaderWrapper {
     return buf;
   }
 
+  /* @see IFormatReader#openPlanes(int, int, byte[], int, int, int, int) */
+  @Override
+  public byte[] openPlanes(int no, int count, byte[] buf, int x, int y,
+    int w, int h) throws FormatException, IOException
+  {
+    if (!isFilled()) return reader.openPlanes(no, count, buf, x, y, w, h);
+    return openPlanes(FormatTools.getPlaneIndexes(no, count), buf, x, y, w, h);
+  }
+
+  /* @see IFormatReader#openPlanes(int[], byte[], int, int, int, int) */
+  @Override
+  public byte[] openPlanes(int[] no, byte[] buf, int x, int y, int w, int h)
+    throws FormatException, IOException
+  {
+    if (!isFilled()) return reader.openPlanes(no, buf, x, y, w, h);
+
+    // NB: the lookup table may change from plane to plane, so each plane
+    // is filled as soon as it has been read
+    return FormatTools.openPlanes(this, no, buf, x, y, w, h);
+  }
+
   // -- IFormatHandler API methods --
 
   /* @see IFormatHandler#getNativeDataType() */
@@ -174,6 +174,22 @@ public class ChannelMerger extends ReaderWrapper {
     return buf;
   }
 
+  /* @see IFormatReader#openPlanes(int, int, byte[], int, int, int, int) */
+  public byte[] openPlanes(int no, int count, byte[] buf, int x, int y,
+    int w, int h) throws FormatException, IOException
+  {
+    return openPlanes(FormatTools.getPlaneIndexes(no, count), buf, x, y, w, h);
+  }
+
+  /* @see IFormatReader#openPlanes(int[], byte[], int, int, int, int) */
+  public byte[] openPlanes(int[] no, byte[] buf, int x, int y, int w, int h)
+    throws FormatException, IOException
+  {
+    FormatTools.assertId(getCurrentFile(), true, 2);
+    if (!canMerge()) return super.openPlanes(no, buf, x, y, w, h);
+    return FormatTools.openPlanes(this, no, buf, x, y, w, h);
+  }
+
   public int getIndex(int z, int c, int t) {
     return FormatTools.getIndex(this, z, c, t);
   }
@@ -226,6 +226,71 @@ public class ChannelSeparator extends ReaderWrapper {
     return reader.openBytes(no, buf, x, y, w, h);
   }
 
+  /* @see IFormatReader#openPlanes(int, int, byte[], int, int, int, int) */
+  public byte[] openPlanes(int no, int count, byte[] buf, int x, int y,
+    int w, int h) throws FormatException, IOException
+  {
+    return openPlanes(FormatTools.getPlaneIndexes(no, count), buf, x, y, w, h);
+  }
+
+  /* @see IFormatReader#openPlanes(int[], byte[], int, int, int, int) */
+  public byte[] openPlanes(int[] no, byte[] buf, int x, int y, int w, int h)
+    throws FormatException, IOException
+  {
+    FormatTools.assertId(getCurrentFile(), true, 2);
+    if (!reader.isRGB() || reader.isIndexed()) {
+      return super.openPlanes(no, buf, x, y, w, h);
+    }
+    FormatTools.checkPlaneParameters(this, no, buf.length, x, y, w, h);
+
+    int c = getSizeC() / reader.getEffectiveSizeC();
+    int bpp = FormatTools.getBytesPerPixel(getPixelType());
+    int planeSize = w * h * bpp;
+
+    // list each source plane once, unless it is requested again later on
+    int[] sources = new int[no.length];
+    int[] sourceIndex = new int[no.length];
+    int count = 0;
+    for (int i=0; i<no.length; i++) {
+      int source = getOriginalIndex(no[i]);
+      if (count == 0 || sources[count - 1] != source) sources[count++] = source;
+      sourceIndex[i] = count - 1;
+    }
+
+    long sourceSize = (long) planeSize * c * count;
+    if (sourceSize > Integer.MAX_VALUE ||
+      sourceSize > Runtime.getRuntime().freeMemory())
+    {
+      // not enough memory to hold all source planes; fall back to reading
+      // them one at a time, which splits large planes into strips
+      return FormatTools.openPlanes(this, no, buf, x, y, w, h);
+    }
+
+    int[] sourcePlanes = new int[count];
+    System.arraycopy(sources, 0, sourcePlanes, 0, count);
+    byte[] source =
+      reader.openPlanes(sourcePlanes, new byte[(int) sourceSize], x, y, w, h);
+
+    boolean interleaved = isInterleaved();
+    for (int i=0; i<no.length; i++) {
+      int channel = no[i] % c;
+      int src = sourceIndex[i] * planeSize * c;
+      int dest = i * planeSize;
+      if (!interleaved) {
+        System.arraycopy(source, src + channel * planeSize, buf, dest,
+          planeSize);
+      }
+      else {
+        src += channel * bpp;
+        for (int p=0; p<planeSize; p+=bpp) {
+          System.arraycopy(source, src, buf, dest + p, bpp);
+          src += c * bpp;
+        }
+      }
+    }
+    return buf;
+  }
+
   /* @see loci.formats.IFormatReader#openThumbBytes(int) */
   public byte[] openThumbBytes(int no) throws FormatException, IOException {
     FormatTools.assertId(getCurrentFile(), true, 2);
@@ -255,6 +255,24 @@ public class DimensionSwapper extends ReaderWrapper {
     return super.openBytes(reorder(no), buf, x, y, w, h);
   }
 
+  /* @see IFormatReader#openPlanes(int, int, byte[], int, int, int, int) */
+  public byte[] openPlanes(int no, int count, byte[] buf, int x, int y,
+    int w, int h) throws FormatException, IOException
+  {
+    return openPlanes(FormatTools.getPlaneIndexes(no, count), buf, x, y, w, h);
+  }
+
+  /* @see IFormatReader#openPlanes(int[], byte[], int, int, int, int) */
+  public byte[] openPlanes(int[] no, byte[] buf, int x, int y, int w, int h)
+    throws FormatException, IOException
+  {
+    int[] reordered = new int[no.length];
+    for (int i=0; i<no.length; i++) {
+      reordered[i] = reorder(no[i]);
+    }
+    return super.openPlanes(reordered, buf, x, y, w, h);
+  }
+
   /* @see IFormatReader#openThumbImage(int) */
   public byte[] openThumbBytes(int no) throws FormatException, IOException {
     return super.openThumbBytes(reorder(no));
@@ -477,6 +477,68 @@ public class FileStitcher extends ReaderWrapper {
     return buf;
   }
 
+  /* @see IFormatReader#openPlanes(int, int, byte[], int, int, int, int) */
+  public byte[] openPlanes(int no, int count, byte[] buf, int x, int y,
+    int w, int h) throws FormatException, IOException
+  {
+    return openPlanes(FormatTools.getPlaneIndexes(no, count), buf, x, y, w, h);
+  }
+
+  /* @see IFormatReader#openPlanes(int[], byte[], int, int, int, int) */
+  public byte[] openPlanes(int[] no, byte[] buf, int x, int y, int w, int h)
+    throws FormatException, IOException
+  {
+    FormatTools.assertId(getCurrentFile(), true, 2);
+    if (noStitch) return super.openPlanes(no, buf, x, y, w, h);
+    FormatTools.checkPlaneParameters(this, no, buf.length, x, y, w, h);
+    int planeSize = FormatTools.getPlaneSize(this, w, h);
+
+    int[] files = new int[no.length];
+    int[] planes = new int[no.length];
+    for (int i=0; i<no.length; i++) {
+      int[] pos = computeIndices(no[i]);
+      files[i] = pos[0];
+      planes[i] = pos[1];
+    }
+
+    // pass each run of planes from the same file to that file's reader
+    int first = 0;
+    while (first < no.length) {
+      int end = first + 1;
+      while (end < no.length && files[end] == files[first]) end++;
+
+      IFormatReader r = getReader(getCoreIndex(), files[first]);
+      int[] valid = new int[end - first];
+      int count = 0;
+      for (int i=first; i<end; i++) {
+        if (planes[i] < r.getImageCount()) valid[count++] = planes[i];
+      }
+      if (count == no.length) {
+        return r.openPlanes(valid, buf, x, y, w, h);
+      }
+
+      byte[] run = null;
+      if (count > 0) {
+        int[] runPlanes = new int[count];
+        System.arraycopy(valid, 0, runPlanes, 0, count);
+        run = r.openPlanes(runPlanes, new byte[count * planeSize], x, y, w, h);
+      }
+      int next = 0;
+      for (int i=first; i<end; i++) {
+        if (planes[i] < r.getImageCount()) {
+          System.arraycopy(run, next++ * planeSize, buf, i * planeSize,
+            planeSize);
+        }
+        else {
+          // this file does not contain enough image planes
+          Arrays.fill(buf, i * planeSize, (i + 1) * planeSize, (byte) 0);
+        }
+      }
+      first = end;
+    }
+    return buf;
+  }
+
   /* @see IFormatReader#openPlane(int, int, int, int, int) */
   public Object openPlane(int no, int x, int y, int w, int h)
     throws FormatException, IOException
@@ -37,6 +37,8 @@
 package loci.formats;
 
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Hashtable;
 import java.util.Set;
@@ -128,6 +130,11 @@ public abstract class FormatReader extends FormatHandler
   /** Default thumbnail width and height. */
   protected static final int THUMBNAIL_DIMENSION = 128;
 
+  /** Sequences removed from filtered metadata keys and values, in order. */
+  private static final String[] INVALID_SEQUENCES = new String[] {
+    "&lt;", "&gt;", "&amp;", "<", ">", "&"
+  };
+
   // -- Fields --
 
   /** Current file. */
@@ -175,6 +182,12 @@ public abstract class FormatReader extends FormatHandler
   /** Whether or not to save proprietary metadata in the MetadataStore. */
   protected boolean saveOriginalMetadata = false;
 
+  /**
+   * Whether or not metadata keys should be canonicalized, so that equal keys
+   * in the global and series metadata tables share a single String instance.
+   */
+  protected boolean internMetadataKeys = false;
+
   /** Whether or not MetadataStore sets C = 3 for indexed color images. */
   protected boolean indexedAsRGB = false;
 
@@ -196,6 +209,12 @@ public abstract class FormatReader extends FormatHandler
   private ServiceFactory factory;
   private OMEXMLService service;
 
+  /** Canonical instances of metadata keys, if keys are interned. */
+  private HashMap<String, String> metadataKeys;
+
+  /** Time in nanoseconds spent in addMeta since the last call to initFile. */
+  private long metadataTime;
+
   // -- Constructors --
 
   /** Constructs a format reader with the given name and default suffix. */
@@ -229,6 +248,8 @@ public abstract class FormatReader extends FormatHandler
     close();
     currentId = id;
     metadata = new Hashtable<String, Object>();
+    metadataKeys = null;
+    metadataTime = 0;
 
     core = new CoreMetadata[1];
     core[0] = new CoreMetadata();
@@ -258,51 +279,139 @@ public abstract class FormatReader extends FormatHandler
       return;
     }
 
-    key = key.trim();
+    long start = System.nanoTime();
+    try {
+      key = key.trim();
 
-    boolean string = value instanceof String || value instanceof Character;
-    boolean simple = string ||
-      value instanceof Number ||
-      value instanceof Boolean;
+      boolean string = value instanceof String || value instanceof Character;
+      boolean simple = string ||
+        value instanceof Number ||
+        value instanceof Boolean;
 
-    // string value, if passed in value is a string
-    String val = string ? String.valueOf(value) : null;
+      // string value, if passed in value is a string
+      String val = string ? String.valueOf(value) : null;
 
-    if (filterMetadata ||
-      (saveOriginalMetadata && (getMetadataStore() instanceof OMEXMLMetadata)))
-    {
-      // filter out complex data types
-      if (!simple) return;
-
-      // verify key & value are reasonable length
-      int maxLen = 8192;
-      if (key.length() > maxLen) return;
-      if (string && val.length() > maxLen) return;
-
-      // remove all non-printable characters
-      key = DataTools.sanitize(key);
-      if (string) val = DataTools.sanitize(val);
-
-      // verify key contains at least one alphabetic character
-      if (!key.matches(".*[a-zA-Z].*")) return;
-
-      // remove &lt;, &gt; and &amp; to prevent XML parsing errors
-      String[] invalidSequences = new String[] {
-        "&lt;", "&gt;", "&amp;", "<", ">", "&"
-      };
-      for (int i=0; i<invalidSequences.length; i++) {
-        key = key.replaceAll(invalidSequences[i], "");
-        if (string) val = val.replaceAll(invalidSequences[i], "");
+      if (filterMetadata ||
+        (saveOriginalMetadata &&
+        (getMetadataStore() instanceof OMEXMLMetadata)))
+      {
+        // filter out complex data types
+        if (!simple) return;
+
+        // verify key & value are reasonable length
+        int maxLen = 8192;
+        if (key.length() > maxLen) return;
+        if (string && val.length() > maxLen) return;
+
+        // remove all non-printable characters
+        key = DataTools.sanitize(key);
+        if (string) val = DataTools.sanitize(val);
+
+        // verify key contains at least one alphabetic character
+        // and no line terminators
+        if (!isValidKey(key)) return;
+
+        // remove &lt;, &gt; and &amp; to prevent XML parsing errors
+        key = removeInvalidSequences(key);
+        if (string) val = removeInvalidSequences(val);
+
+        // verify key & value are not empty
+        if (key.length() == 0) return;
+        if (string && val.trim().length() == 0) return;
+
+        if (string) value = val;
       }
 
-      // verify key & value are not empty
-      if (key.length() == 0) return;
-      if (string && val.trim().length() == 0) return;
+      if (internMetadataKeys) {
+        if (metadataKeys == null) metadataKeys = new HashMap<String, String>();
+        String canonical = metadataKeys.get(key);
+        if (canonical == null) metadataKeys.put(key, key);
+        else key = canonical;
+      }
 
-      if (string) value = val;
+      meta.put(key, val == null ? value : val);
+    }
+    finally {
+      metadataTime += System.nanoTime() - start;
     }
+  }
+
+  /**
+   * Returns the number of nanoseconds spent adding entries to the
+   * global and series metadata tables since the current file was initialized.
+   */
+  public long getMetadataIngestionTime() {
+    return metadataTime;
+  }
 
-    meta.put(key, val == null ? value : val);
+  /**
+   * Returns true if the given string contains an ASCII letter and no line
+   * terminators, i.e. if it matches the regular expression ".*[a-zA-Z].*".
+   */
+  private static boolean isValidKey(String s) {
+    boolean letter = false;
+    for (int i=0; i<s.length(); i++) {
+      char c = s.charAt(i);
+      if ((c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z')) letter = true;
+      else if (c == '\n' || c == '\r' || c == '\u0085' || c == '\u2028' ||
+        c == '\u2029')
+      {
+        return false;
+      }
+    }
+    return letter;
+  }
+
+  /**
+   * Removes "&amp;lt;", "&amp;gt;", "&amp;amp;", '&lt;', '&gt;' and '&amp;'
+   * from the given string.  Strings that do not contain any of the
+   * characters '&lt;', '&gt;' or '&amp;' are returned unchanged.
+   */
+  private static String removeInvalidSequences(String s) {
+    int len = s.length();
+    int first = 0;
+    boolean ampersand = false;
+    for (; first<len; first++) {
+      char c = s.charAt(first);
+      if (c == '&') {
+        ampersand = true;
+        break;
+      }
+      if (c == '<' || c == '>') break;
+    }
+    if (first == len) return s;
+
+    if (ampersand || s.indexOf('&', first) >= 0) {
+      // removing an escape sequence can create a new escape sequence,
+      // so the removals must be applied in order
+      for (String seq : INVALID_SEQUENCES) {
+        s = replaceAll(s, seq);
+      }
+      return s;
+    }
+
+    StringBuilder buf = new StringBuilder(len - 1);
+    buf.append(s, 0, first);
+    for (int i=first+1; i<len; i++) {
+      char c = s.charAt(i);
+      if (c != '<' && c != '>') buf.append(c);
+    }
+    return buf.toString();
+  }
+
+  /** Removes all non-overlapping occurrences of seq from s. */
+  private static String replaceAll(String s, String seq) {
+    int index = s.indexOf(seq);
+    if (index < 0) return s;
+    StringBuilder buf = new StringBuilder(s.length());
+    int last = 0;
+    while (index >= 0) {
+      buf.append(s, last, index);
+      last = index + seq.length();
+      index = s.indexOf(seq, last);
+    }
+    buf.append(s, last, s.length());
+    return buf.toString();
   }
 
   /** Adds an entry to the global metadata table. */
@@ -416,61 +525,78 @@ public abstract class FormatReader extends FormatHandler
   protected byte[] readPlane(RandomAccessInputStream s, int x, int y,
     int w, int h, int scanlinePad, byte[] buf) throws IOException
   {
-    int c = getRGBChannelCount();
-    int bpp = FormatTools.getBytesPerPixel(getPixelType());
     if (x == 0 && y == 0 && w == getSizeX() && h == getSizeY() &&
       scanlinePad == 0)
     {
       s.read(buf);
+      return buf;
     }
-    else if (x == 0 && w == getSizeX() && scanlinePad == 0) {
-      if (isInterleaved()) {
-        s.skipBytes(y * w * bpp * c);
-        s.read(buf, 0, h * w * bpp * c);
-      }
-      else {
-        int rowLen = w * bpp;
-        for (int channel=0; channel<c; channel++) {
-          s.skipBytes(y * rowLen);
-          s.read(buf, channel * h * rowLen, h * rowLen);
-          if (channel < c - 1) {
-            // no need to skip bytes after reading final channel
-            s.skipBytes((getSizeY() - y - h) * rowLen);
-          }
-        }
-      }
+    return readRegion(s, s.getFilePointer(), 0, 1, x, y, w, h, scanlinePad,
+      buf);
+  }
+
+  /**
+   * Reads the same region of count raw planes, which are stored planeStride
+   * bytes apart starting at the given offset, into consecutive w * h planes
+   * of the buffer.  The rows of all planes are read as a single batch.
+   */
+  protected byte[] readPlanes(RandomAccessInputStream s, long offset,
+    long planeStride, int count, int x, int y, int w, int h, byte[] buf)
+    throws IOException
+  {
+    int planeSize = FormatTools.getPlaneSize(this, w, h);
+    if (x == 0 && y == 0 && w == getSizeX() && h == getSizeY() &&
+      planeStride == planeSize)
+    {
+      s.seek(offset);
+      s.read(buf, 0, count * planeSize);
+      return buf;
     }
-    else {
-      int scanlineWidth = getSizeX() + scanlinePad;
-      if (isInterleaved()) {
-        s.skipBytes(y * scanlineWidth * bpp * c);
-        for (int row=0; row<h; row++) {
-          s.skipBytes(x * bpp * c);
-          s.read(buf, row * w * bpp * c, w * bpp * c);
-          if (row < h - 1) {
-            // no need to skip bytes after reading final row
-            s.skipBytes(bpp * c * (scanlineWidth - w - x));
-          }
-        }
-      }
-      else {
-        for (int channel=0; channel<c; channel++) {
-          s.skipBytes(y * scanlineWidth * bpp);
-          for (int row=0; row<h; row++) {
-            s.skipBytes(x * bpp);
-            s.read(buf, channel * w * h * bpp + row * w * bpp, w * bpp);
-            if (row < h - 1 || channel < c - 1) {
-              // no need to skip bytes after reading final row of final channel
-              s.skipBytes(bpp * (scanlineWidth - w - x));
-            }
-          }
-          if (channel < c - 1) {
-            // no need to skip bytes after reading final channel
-            s.skipBytes(scanlineWidth * bpp * (getSizeY() - y - h));
-          }
+    return readRegion(s, offset, planeStride, count, x, y, w, h, 0, buf);
+  }
+
+  /**
+   * Reads the given region of count raw planes as one batch of segments, so
+   * that the stream can coalesce nearby rows instead of skipping and reading
+   * row by row.
+   */
+  private byte[] readRegion(RandomAccessInputStream s, long offset,
+    long planeStride, int count, int x, int y, int w, int h, int scanlinePad,
+    byte[] buf) throws IOException
+  {
+    int c = getRGBChannelCount();
+    int bpp = FormatTools.getBytesPerPixel(getPixelType());
+    long scanlineWidth = getSizeX() + scanlinePad;
+    boolean interleaved = isInterleaved();
+    int pixelSize = interleaved ? bpp * c : bpp;
+    int channels = interleaved ? 1 : c;
+    long channelSize = scanlineWidth * getSizeY() * bpp;
+    int rowLen = w * pixelSize;
+    int planeSize = rowLen * h * channels;
+
+    // rows spanning the full scanline are contiguous within each channel
+    boolean contiguous = x == 0 && w == scanlineWidth;
+    int rows = contiguous ? 1 : h;
+    int segmentLen = contiguous ? h * rowLen : rowLen;
+
+    long[] offsets = new long[count * channels * rows];
+    int[] lengths = new int[offsets.length];
+    int[] destOffsets = new int[offsets.length];
+    int segment = 0;
+    for (int plane=0; plane<count; plane++) {
+      long planeOffset = offset + plane * planeStride;
+      for (int channel=0; channel<channels; channel++) {
+        for (int row=0; row<rows; row++) {
+          offsets[segment] = planeOffset + channel * channelSize +
+            ((y + row) * scanlineWidth + x) * pixelSize;
+          lengths[segment] = segmentLen;
+          destOffsets[segment] =
+            plane * planeSize + (channel * h + row) * rowLen;
+          segment++;
         }
       }
     }
+    s.readSegments(offsets, lengths, buf, destOffsets);
     return buf;
   }
 
@@ -781,6 +907,77 @@ public abstract class FormatReader extends FormatHandler
   public abstract byte[] openBytes(int no, byte[] buf, int x, int y,
     int w, int h) throws FormatException, IOException;
 
+  /* @see IFormatReader#openPlanes(int, int, byte[], int, int, int, int) */
+  public byte[] openPlanes(int no, int count, byte[] buf, int x, int y,
+    int w, int h) throws FormatException, IOException
+  {
+    return FormatTools.openPlanes(this,
+      FormatTools.getPlaneIndexes(no, count), buf, x, y, w, h);
+  }
+
+  /* @see IFormatReader#openPlanes(int[], byte[], int, int, int, int) */
+  public byte[] openPlanes(int[] no, byte[] buf, int x, int y, int w, int h)
+    throws FormatException, IOException
+  {
+    FormatTools.checkPlaneParameters(this, no, buf.length, x, y, w, h);
+    int planeSize = FormatTools.getPlaneSize(this, w, h);
+
+    // hand each run of consecutive planes to openPlanes(int, int, ...), so
+    // that readers storing planes contiguously can read a run at once
+    int first = 0;
+    while (first < no.length) {
+      int count = 1;
+      while (first + count < no.length &&
+        no[first + count] == no[first] + count)
+      {
+        count++;
+      }
+      if (count == no.length) {
+        return openPlanes(no[0], count, buf, x, y, w, h);
+      }
+      byte[] run = new byte[count * planeSize];
+      openPlanes(no[first], count, run, x, y, w, h);
+      System.arraycopy(run, 0, buf, first * planeSize, run.length);
+      first += count;
+    }
+    return buf;
+  }
+
+  /* @see IFormatReader#openByteBuffer(int, int, int, int, int) */
+  public ByteBuffer openByteBuffer(int no, int x, int y, int w, int h)
+    throws FormatException, IOException
+  {
+    return FormatTools.openByteBuffer(this, no, x, y, w, h);
+  }
+
+  /* @see IFormatReader#openShorts(int, short[], int, int, int, int) */
+  public short[] openShorts(int no, short[] buf, int x, int y, int w, int h)
+    throws FormatException, IOException
+  {
+    return FormatTools.openShorts(this, no, buf, x, y, w, h);
+  }
+
+  /* @see IFormatReader#openInts(int, int[], int, int, int, int) */
+  public int[] openInts(int no, int[] buf, int x, int y, int w, int h)
+    throws FormatException, IOException
+  {
+    return FormatTools.openInts(this, no, buf, x, y, w, h);
+  }
+
+  /* @see IFormatReader#openFloats(int, float[], int, int, int, int) */
+  public float[] openFloats(int no, float[] buf, int x, int y, int w, int h)
+    throws FormatException, IOException
+  {
+    return FormatTools.openFloats(this, no, buf, x, y, w, h);
+  }
+
+  /* @see IFormatReader#openDoubles(int, double[], int, int, int, int) */
+  public double[] openDoubles(int no, double[] buf, int x, int y, int w, int h)
+    throws FormatException, IOException
+  {
+    return FormatTools.openDoubles(this, no, buf, x, y, w, h);
+  }
+
   /* @see IFormatReader#openPlane(int, int, int, int, int int) */
   public Object openPlane(int no, int x, int y, int w, int h)
     throws FormatException, IOException
@@ -802,6 +999,7 @@ public abstract class FormatReader extends FormatHandler
       in = null;
       currentId = null;
       resolution = 0;
+      metadataKeys = null;
     }
   }
 
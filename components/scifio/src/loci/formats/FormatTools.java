@@ -37,6 +37,12 @@
 package loci.formats;
 
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
+import java.nio.ShortBuffer;
 import java.util.Vector;
 
 import loci.common.DateTools;
@@ -356,6 +362,56 @@ public final class FormatTools {
     return v0 + v1 * len0 + v2 * len0 * len1;
   }
 
+  /** Gets the rasterized indices of count consecutive planes from no. */
+  public static int[] getPlaneIndexes(int no, int count) {
+    int[] indexes = new int[count];
+    for (int i=0; i<count; i++) {
+      indexes[i] = no + i;
+    }
+    return indexes;
+  }
+
+  /**
+   * Gets the rasterized indices of the planes within the given Z, C and T
+   * hyperslab, for use with {@link IFormatReader#openPlanes(int[], byte[],
+   * int, int, int, int)}.  The indices are listed in the reader's dimension
+   * order, so planes that are adjacent in the reader stay adjacent.
+   *
+   * @param z First Z coordinate of the hyperslab.
+   * @param c First C coordinate of the hyperslab.
+   * @param t First T coordinate of the hyperslab.
+   * @param sizeZ Number of focal planes in the hyperslab.
+   * @param sizeC Number of channels in the hyperslab.
+   * @param sizeT Number of time points in the hyperslab.
+   */
+  public static int[] getPlaneIndexes(IFormatReader reader, int z, int c,
+    int t, int sizeZ, int sizeC, int sizeT)
+  {
+    String order = reader.getDimensionOrder();
+    int[] start = new int[3], size = new int[3];
+    for (int i=0; i<3; i++) {
+      char dim = order.charAt(i + 2);
+      start[i] = dim == 'Z' ? z : dim == 'C' ? c : t;
+      size[i] = dim == 'Z' ? sizeZ : dim == 'C' ? sizeC : sizeT;
+    }
+    int zIndex = order.indexOf('Z') - 2;
+    int cIndex = order.indexOf('C') - 2;
+    int tIndex = order.indexOf('T') - 2;
+
+    int[] indexes = new int[sizeZ * sizeC * sizeT];
+    int[] pos = new int[3];
+    int next = 0;
+    for (pos[2]=0; pos[2]<size[2]; pos[2]++) {
+      for (pos[1]=0; pos[1]<size[1]; pos[1]++) {
+        for (pos[0]=0; pos[0]<size[0]; pos[0]++) {
+          indexes[next++] = reader.getIndex(start[zIndex] + pos[zIndex],
+            start[cIndex] + pos[cIndex], start[tIndex] + pos[tIndex]);
+        }
+      }
+    }
+    return indexes;
+  }
+
   /**
    * Gets the Z, C and T coordinates corresponding
    * to the given rasterized index value.
@@ -728,6 +784,29 @@ public final class FormatTools {
     if (bufLength >= 0) checkBufferSize(r, bufLength, w, h);
   }
 
+  /**
+   * Convenience method for checking that the plane numbers, tile size and
+   * buffer size are all valid for reading the given planes into a single
+   * buffer.  If 'bufLength' is less than 0, then the buffer length check is
+   * not performed.
+   */
+  public static void checkPlaneParameters(IFormatReader r, int[] no,
+    int bufLength, int x, int y, int w, int h) throws FormatException
+  {
+    assertId(r.getCurrentFile(), true, 2);
+    for (int i=0; i<no.length; i++) {
+      checkPlaneNumber(r, no[i]);
+    }
+    checkTileSize(r, x, y, w, h);
+    if (bufLength >= 0) {
+      long size = (long) getPlaneSize(r, w, h) * no.length;
+      if (size > bufLength) {
+        throw new FormatException("Buffer too small (got " + bufLength +
+          ", expected " + size + ").");
+      }
+    }
+  }
+
   /** Checks that the given plane number is valid for the given reader. */
   public static void checkPlaneNumber(IFormatReader r, int no)
     throws FormatException
@@ -796,6 +875,25 @@ public final class FormatTools {
     return w * h * r.getRGBChannelCount() * getBytesPerPixel(r.getPixelType());
   }
 
+  /**
+   * Checks that the reader's pixel type can be stored in a primitive array
+   * with the given element size.
+   *
+   * @throws FormatException if the pixel type does not match.
+   */
+  public static void checkPixelType(IFormatReader r, int bpp,
+    boolean floatingPoint, String typeName) throws FormatException
+  {
+    int pixelType = r.getPixelType();
+    if (getBytesPerPixel(pixelType) != bpp ||
+      isFloatingPoint(pixelType) != floatingPoint)
+    {
+      throw new FormatException("Cannot read " +
+        getPixelTypeString(pixelType) + " pixels into a " + typeName +
+        " array");
+    }
+  }
+
   // -- Utility methods -- export
 
   /**
@@ -955,6 +1053,93 @@ public final class FormatTools {
     return rtn;
   }
 
+  /**
+   * Default implementation for {@link IFormatReader#openPlanes}, which
+   * reads each plane with {@link IFormatReader#openBytes(int, byte[], int,
+   * int, int, int)} and copies it into place.
+   */
+  public static byte[] openPlanes(IFormatReader reader, int[] no, byte[] buf,
+    int x, int y, int w, int h) throws FormatException, IOException
+  {
+    checkPlaneParameters(reader, no, buf.length, x, y, w, h);
+    int planeSize = getPlaneSize(reader, w, h);
+    byte[] plane = no.length == 1 && buf.length == planeSize ?
+      buf : new byte[planeSize];
+    for (int i=0; i<no.length; i++) {
+      reader.openBytes(no[i], plane, x, y, w, h);
+      if (plane != buf) {
+        System.arraycopy(plane, 0, buf, i * planeSize, planeSize);
+      }
+    }
+    return buf;
+  }
+
+  /**
+   * Default implementation for {@link IFormatReader#openByteBuffer}, which
+   * wraps the plane returned by {@link IFormatReader#openBytes(int, int, int,
+   * int, int)} in a buffer whose byte order matches the reader's.
+   */
+  public static ByteBuffer openByteBuffer(IFormatReader reader, int no,
+    int x, int y, int w, int h) throws FormatException, IOException
+  {
+    ByteBuffer plane = ByteBuffer.wrap(reader.openBytes(no, x, y, w, h));
+    return plane.order(reader.isLittleEndian() ?
+      ByteOrder.LITTLE_ENDIAN : ByteOrder.BIG_ENDIAN);
+  }
+
+  /** Default implementation for {@link IFormatReader#openShorts}. */
+  public static short[] openShorts(IFormatReader reader, int no, short[] buf,
+    int x, int y, int w, int h) throws FormatException, IOException
+  {
+    checkPixelType(reader, 2, false, "short");
+    if (buf == null) buf = new short[getPlaneSize(reader, w, h) / 2];
+    checkBufferSize(reader, buf.length * 2, w, h);
+    ShortBuffer pixels =
+      openByteBuffer(reader, no, x, y, w, h).asShortBuffer();
+    pixels.get(buf, 0, Math.min(buf.length, pixels.remaining()));
+    return buf;
+  }
+
+  /** Default implementation for {@link IFormatReader#openInts}. */
+  public static int[] openInts(IFormatReader reader, int no, int[] buf,
+    int x, int y, int w, int h) throws FormatException, IOException
+  {
+    checkPixelType(reader, 4, false, "int");
+    if (buf == null) buf = new int[getPlaneSize(reader, w, h) / 4];
+    checkBufferSize(reader, buf.length * 4, w, h);
+    IntBuffer pixels =
+      openByteBuffer(reader, no, x, y, w, h).asIntBuffer();
+    pixels.get(buf, 0, Math.min(buf.length, pixels.remaining()));
+    return buf;
+  }
+
+  /** Default implementation for {@link IFormatReader#openFloats}. */
+  public static float[] openFloats(IFormatReader reader, int no, float[] buf,
+    int x, int y, int w, int h) throws FormatException, IOException
+  {
+    checkPixelType(reader, 4, true, "float");
+    if (buf == null) buf = new float[getPlaneSize(reader, w, h) / 4];
+    checkBufferSize(reader, buf.length * 4, w, h);
+    FloatBuffer pixels =
+      openByteBuffer(reader, no, x, y, w, h).asFloatBuffer();
+    pixels.get(buf, 0, Math.min(buf.length, pixels.remaining()));
+    return buf;
+  }
+
+  /** Default implementation for {@link IFormatReader#openDoubles}. */
+  public static double[] openDoubles(IFormatReader reader, int no,
+    double[] buf, int x, int y, int w, int h)
+    throws FormatException, IOException
+  {
+    checkPixelType(reader, 8, true, "double");
+    if (buf == null) buf = new double[getPlaneSize(reader, w, h) / 8];
+    checkBufferSize(reader, buf.length * 8, w, h);
+    DoubleBuffer pixels =
+      openByteBuffer(reader, no, x, y, w, h).asDoubleBuffer();
+    pixels.get(buf, 0, Math.min(buf.length, pixels.remaining()));
+    return buf;
+  }
+
   // -- Conversion convenience methods --
 
   /**
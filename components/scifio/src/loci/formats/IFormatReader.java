@@ -37,6 +37,7 @@
 package loci.formats;
 
 import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.util.Hashtable;
 
 import loci.common.RandomAccessInputStream;
@@ -286,6 +287,144 @@ public interface IFormatReader extends IFormatHandler, IMetadataConfigurable {
   byte[] openBytes(int no, byte[] buf, int x, int y, int w, int h)
     throws FormatException, IOException;
 
+  /**
+   * Obtains a sub-image of each of count consecutive image planes, starting
+   * with plane no, into a single pre-allocated byte array.  The sub-images
+   * are stored one after another, each occupying
+   * (w * h * bytesPerPixel * RGB channel count) bytes.
+   *
+   * @param no the index of the first image plane.
+   * @param count the number of image planes to read.
+   * @param buf a pre-allocated buffer large enough for all of the planes.
+   * @param x X coordinate of the upper-left corner of the sub-images
+   * @param y Y coordinate of the upper-left corner of the sub-images
+   * @param w width of the sub-images
+   * @param h height of the sub-images
+   * @return the pre-allocated buffer <code>buf</code> for convenience.
+   * @throws FormatException if there was a problem parsing the metadata of the
+   *   file.
+   * @throws IOException if there was a problem reading the file.
+   */
+  byte[] openPlanes(int no, int count, byte[] buf, int x, int y, int w, int h)
+    throws FormatException, IOException;
+
+  /**
+   * Obtains a sub-image of each of the given image planes, in the given
+   * order, into a single pre-allocated byte array.  The sub-images are
+   * stored one after another as in {@link #openPlanes(int, int, byte[], int,
+   * int, int, int)}; use
+   * {@link FormatTools#getPlaneIndexes(IFormatReader, int, int, int, int,
+   * int, int)} to read a Z, C and T hyperslab.
+   *
+   * @param no the indices of the image planes.
+   * @param buf a pre-allocated buffer large enough for all of the planes.
+   * @param x X coordinate of the upper-left corner of the sub-images
+   * @param y Y coordinate of the upper-left corner of the sub-images
+   * @param w width of the sub-images
+   * @param h height of the sub-images
+   * @return the pre-allocated buffer <code>buf</code> for convenience.
+   * @throws FormatException if there was a problem parsing the metadata of the
+   *   file.
+   * @throws IOException if there was a problem reading the file.
+   */
+  byte[] openPlanes(int[] no, byte[] buf, int x, int y, int w, int h)
+    throws FormatException, IOException;
+
+  /**
+   * Obtains a sub-image of the specified image plane wrapped in a
+   * {@link ByteBuffer} whose byte order matches {@link #isLittleEndian()}.
+   * Typed views of the buffer, such as {@link ByteBuffer#asShortBuffer()},
+   * read the pixel values without copying or converting the plane.
+   *
+   * @param no the image index within the file.
+   * @param x X coordinate of the upper-left corner of the sub-image
+   * @param y Y coordinate of the upper-left corner of the sub-image
+   * @param w width of the sub-image
+   * @param h height of the sub-image
+   * @return the sub-image wrapped in a buffer positioned at its first byte.
+   * @throws FormatException if there was a problem parsing the metadata of the
+   *   file.
+   * @throws IOException if there was a problem reading the file.
+   */
+  ByteBuffer openByteBuffer(int no, int x, int y, int w, int h)
+    throws FormatException, IOException;
+
+  /**
+   * Obtains a sub-image of the specified image plane of 16-bit pixels into
+   * a short array, laid out as in
+   * {@link #openBytes(int, byte[], int, int, int, int)}.
+   *
+   * @param no the image index within the file.
+   * @param buf a pre-allocated buffer, or null to allocate a new one.
+   * @param x X coordinate of the upper-left corner of the sub-image
+   * @param y Y coordinate of the upper-left corner of the sub-image
+   * @param w width of the sub-image
+   * @param h height of the sub-image
+   * @return the filled buffer.
+   * @throws FormatException if there was a problem parsing the metadata of the
+   *   file, or if the pixel type does not match the array type.
+   * @throws IOException if there was a problem reading the file.
+   */
+  short[] openShorts(int no, short[] buf, int x, int y, int w, int h)
+    throws FormatException, IOException;
+
+  /**
+   * Obtains a sub-image of the specified image plane of 32-bit integer
+   * pixels into an int array, laid out as in
+   * {@link #openBytes(int, byte[], int, int, int, int)}.
+   *
+   * @param no the image index within the file.
+   * @param buf a pre-allocated buffer, or null to allocate a new one.
+   * @param x X coordinate of the upper-left corner of the sub-image
+   * @param y Y coordinate of the upper-left corner of the sub-image
+   * @param w width of the sub-image
+   * @param h height of the sub-image
+   * @return the filled buffer.
+   * @throws FormatException if there was a problem parsing the metadata of the
+   *   file, or if the pixel type does not match the array type.
+   * @throws IOException if there was a problem reading the file.
+   */
+  int[] openInts(int no, int[] buf, int x, int y, int w, int h)
+    throws FormatException, IOException;
+
+  /**
+   * Obtains a sub-image of the specified image plane of single precision
+   * floating point pixels into a float array, laid out as in
+   * {@link #openBytes(int, byte[], int, int, int, int)}.
+   *
+   * @param no the image index within the file.
+   * @param buf a pre-allocated buffer, or null to allocate a new one.
+   * @param x X coordinate of the upper-left corner of the sub-image
+   * @param y Y coordinate of the upper-left corner of the sub-image
+   * @param w width of the sub-image
+   * @param h height of the sub-image
+   * @return the filled buffer.
+   * @throws FormatException if there was a problem parsing the metadata of the
+   *   file, or if the pixel type does not match the array type.
+   * @throws IOException if there was a problem reading the file.
+   */
+  float[] openFloats(int no, float[] buf, int x, int y, int w, int h)
+    throws FormatException, IOException;
+
+  /**
+   * Obtains a sub-image of the specified image plane of double precision
+   * floating point pixels into a double array, laid out as in
+   * {@link #openBytes(int, byte[], int, int, int, int)}.
+   *
+   * @param no the image index within the file.
+   * @param buf a pre-allocated buffer, or null to allocate a new one.
+   * @param x X coordinate of the upper-left corner of the sub-image
+   * @param y Y coordinate of the upper-left corner of the sub-image
+   * @param w width of the sub-image
+   * @param h height of the sub-image
+   * @return the filled buffer.
+   * @throws FormatException if there was a problem parsing the metadata of the
+   *   file, or if the pixel type does not match the array type.
+   * @throws IOException if there was a problem reading the file.
+   */
+  double[] openDoubles(int no, double[] buf, int x, int y, int w, int h)
+    throws FormatException, IOException;
+
   /**
    * Obtains the specified image plane (or sub-image thereof) in the reader's
    * native data structure. For most readers this is a byte array; however,
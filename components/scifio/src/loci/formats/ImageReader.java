@@ -37,6 +37,7 @@
 package loci.formats;
 
 import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashSet;
@@ -416,6 +417,55 @@ public class ImageReader implements IFormatReader {
     return getReader().openBytes(no, buf, x, y, w, h);
   }
 
+  /* @see IFormatReader#openPlanes(int, int, byte[], int, int, int, int) */
+  public byte[] openPlanes(int no, int count, byte[] buf, int x, int y,
+    int w, int h) throws FormatException, IOException
+  {
+    return getReader().openPlanes(no, count, buf, x, y, w, h);
+  }
+
+  /* @see IFormatReader#openPlanes(int[], byte[], int, int, int, int) */
+  public byte[] openPlanes(int[] no, byte[] buf, int x, int y, int w, int h)
+    throws FormatException, IOException
+  {
+    return getReader().openPlanes(no, buf, x, y, w, h);
+  }
+
+  /* @see IFormatReader#openByteBuffer(int, int, int, int, int) */
+  public ByteBuffer openByteBuffer(int no, int x, int y, int w, int h)
+    throws FormatException, IOException
+  {
+    return getReader().openByteBuffer(no, x, y, w, h);
+  }
+
+  /* @see IFormatReader#openShorts(int, short[], int, int, int, int) */
+  public short[] openShorts(int no, short[] buf, int x, int y, int w, int h)
+    throws FormatException, IOException
+  {
+    return getReader().openShorts(no, buf, x, y, w, h);
+  }
+
+  /* @see IFormatReader#openInts(int, int[], int, int, int, int) */
+  public int[] openInts(int no, int[] buf, int x, int y, int w, int h)
+    throws FormatException, IOException
+  {
+    return getReader().openInts(no, buf, x, y, w, h);
+  }
+
+  /* @see IFormatReader#openFloats(int, float[], int, int, int, int) */
+  public float[] openFloats(int no, float[] buf, int x, int y, int w, int h)
+    throws FormatException, IOException
+  {
+    return getReader().openFloats(no, buf, x, y, w, h);
+  }
+
+  /* @see IFormatReader#openDoubles(int, double[], int, int, int, int) */
+  public double[] openDoubles(int no, double[] buf, int x, int y, int w, int h)
+    throws FormatException, IOException
+  {
+    return getReader().openDoubles(no, buf, x, y, w, h);
+  }
+
   /* @see IFormatReader#openPlane(int, int, int, int, int) */
   public Object openPlane(int no, int x, int y, int w, int h)
     throws FormatException, IOException
@@ -171,23 +171,22 @@ public final class ImageTools {
     }
 
     int c = b.length / rtn.length;
-
-    for (int i=0; i<rtn.length; i++) {
-      byte[] a = new byte[4];
-      int maxC = Math.min(c, a.length);
-      for (int j=maxC-1; j>=0; j--) {
-        a[j] = b[interleaved ? i * c + j : i + j * w * h];
-      }
-      if (c == 1) {
-        for (int j=1; j<a.length; j++) {
-          a[j] = a[0];
-        }
+    if (c == 0) return rtn;
+
+    // pack up to four samples per pixel as 0xAARRGGBB, where the first three
+    // samples are red, green and blue and the fourth (if any) is alpha;
+    // a single sample is replicated into all four bytes
+    int step = interleaved ? c : 1;
+    int channelStep = interleaved ? 1 : w * h;
+    for (int i=0, p=0; i<rtn.length; i++, p+=step) {
+      int s0 = b[p] & 0xff;
+      if (c == 1) rtn[i] = s0 * 0x01010101;
+      else {
+        int s1 = b[p + channelStep] & 0xff;
+        int s2 = c > 2 ? b[p + 2 * channelStep] & 0xff : 0;
+        int s3 = c > 3 ? b[p + 3 * channelStep] & 0xff : 0;
+        rtn[i] = (s3 << 24) | (s0 << 16) | (s1 << 8) | s2;
       }
-
-      byte tmp = a[0];
-      a[0] = a[2];
-      a[2] = tmp;
-      rtn[i] = DataTools.bytesToInt(a, true);
     }
 
     return rtn;
@@ -232,17 +231,71 @@ public final class ImageTools {
       System.arraycopy(array, channelLength * index, rtn, 0, channelLength);
     }
     else {
-      int next = 0;
-      for (int i=0; i<array.length; i+=c*bytes) {
-        for (int k=0; k<bytes; k++) {
-          if (next < rtn.length) rtn[next] = array[i + index*bytes + k];
-          next++;
+      int stride = c * bytes;
+      int pixels = (array.length + stride - 1) / stride;
+      int len = Math.min(rtn.length, pixels * bytes);
+      int src = index * bytes;
+      if (bytes == 1) {
+        for (int next=0; next<len; next++, src+=stride) {
+          rtn[next] = array[src];
+        }
+      }
+      else {
+        for (int next=0; next<len; next+=bytes, src+=stride) {
+          int n = Math.min(bytes, len - next);
+          for (int k=0; k<n; k++) rtn[next + k] = array[src + k];
         }
       }
     }
     return rtn;
   }
 
+  /**
+   * Converts channel-sequential samples into interleaved samples, i.e.
+   * from RRR...GGG...BBB... to RGBRGBRGB... order.  If the 'rtn' parameter
+   * is not null, the interleaved samples are stored in 'rtn'.
+   *
+   * @param c the number of channels.
+   * @param bytes the number of bytes per sample.
+   */
+  public static byte[] interleave(byte[] array, byte[] rtn, int c, int bytes) {
+    if (rtn == null) rtn = new byte[array.length];
+    int channelLength = array.length / c;
+    int stride = c * bytes;
+    for (int ch=0; ch<c; ch++) {
+      int src = ch * channelLength;
+      int dest = ch * bytes;
+      for (int i=0; i<channelLength; i+=bytes, dest+=stride) {
+        for (int k=0; k<bytes; k++) rtn[dest + k] = array[src + i + k];
+      }
+    }
+    return rtn;
+  }
+
+  /**
+   * Converts interleaved samples into channel-sequential samples, i.e.
+   * from RGBRGBRGB... to RRR...GGG...BBB... order.  If the 'rtn' parameter
+   * is not null, the channel-sequential samples are stored in 'rtn'.
+   *
+   * @param c the number of channels.
+   * @param bytes the number of bytes per sample.
+   */
+  public static byte[] deinterleave(byte[] array, byte[] rtn, int c,
+    int bytes)
+  {
+    if (rtn == null) rtn = new byte[array.length];
+    int channelLength = array.length / c;
+    int stride = c * bytes;
+    for (int ch=0; ch<c; ch++) {
+      int src = ch * bytes;
+      int dest = ch * channelLength;
+      for (int i=0; i<channelLength; i+=bytes, src+=stride) {
+        for (int k=0; k<bytes; k++) rtn[dest + i + k] = array[src + k];
+      }
+    }
+    return rtn;
+  }
+
   /**
    * Pads (or crops) the byte array to the given width and height.
    * The image will be centered within the new bounds.
@@ -479,20 +532,27 @@ public final class ImageTools {
     if (bpp == 1) return b;
 
     byte[] out = new byte[b.length / bpp];
+    float scale = 255f / (max - min);
 
-    for (int i=0; i<b.length; i+=bpp) {
-      int s = DataTools.bytesToInt(b, i, bpp, little);
-
-      if (s >= max) s = 255;
-      else if (s <= min) s = 0;
-      else {
-        int diff = max - min;
-        float dist = (s - min) / diff;
-
-        s = (int) dist * 256;
+    if (bpp == 2) {
+      short[] s = new short[out.length];
+      DataTools.bytesToShorts(b, 0, s, 0, s.length, little);
+      for (int i=0; i<out.length; i++) {
+        out[i] = scaleSample(s[i] & 0xffff, min, max, scale);
+      }
+    }
+    else if (bpp == 4) {
+      int[] s = new int[out.length];
+      DataTools.bytesToInts(b, 0, s, 0, s.length, little);
+      for (int i=0; i<out.length; i++) {
+        out[i] = scaleSample(s[i], min, max, scale);
+      }
+    }
+    else {
+      for (int i=0; i<out.length; i++) {
+        int s = DataTools.bytesToInt(b, i * bpp, bpp, little);
+        out[i] = scaleSample(s, min, max, scale);
       }
-
-      out[i / bpp] = (byte) s;
     }
     return out;
   }
@@ -500,27 +560,16 @@ public final class ImageTools {
   /** Scan a plane for the channel min and max values. */
   public static Double[] scanData(byte[] plane, int bits, boolean littleEndian)
   {
-    int max = 0;
-    int min = Integer.MAX_VALUE;
+    double max = 0;
+    double min = Integer.MAX_VALUE;
 
-    if (bits <= 8) {
-      for (int j=0; j<plane.length; j++) {
-        if (plane[j] < min) min = plane[j];
-        if (plane[j] > max) max = plane[j];
-      }
-    }
-    else if (bits == 16) {
-      for (int j=0; j<plane.length; j+=2) {
-        short s = DataTools.bytesToShort(plane, j, 2, littleEndian);
-        if (s < min) min = s;
-        if (s > max) max = s;
-      }
-    }
-    else if (bits == 32) {
-      for (int j=0; j<plane.length; j+=4) {
-        int s = DataTools.bytesToInt(plane, j, 4, littleEndian);
-        if (s < min) min = s;
-        if (s > max) max = s;
+    int bpp = bits <= 8 ? 1 : bits == 16 ? 2 : bits == 32 ? 4 : 0;
+    if (bpp > 0) {
+      double[] range = DataTools.minMax(plane, 0, plane.length / bpp, bpp,
+        false, true, littleEndian);
+      if (range != null) {
+        min = Math.min(min, range[0]);
+        max = Math.max(max, range[1]);
       }
     }
 
@@ -776,4 +825,13 @@ public final class ImageTools {
     }
   }
 
+  // -- Helper methods --
+
+  /** Maps a sample from the range [min, max] to an unsigned byte. */
+  private static byte scaleSample(int s, int min, int max, float scale) {
+    if (s >= max) return (byte) 255;
+    if (s <= min) return 0;
+    return (byte) ((s - min) * scale);
+  }
+
 }
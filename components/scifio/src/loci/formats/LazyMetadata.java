@@ -0,0 +1,324 @@
+/*
+ * #%L
+ * OME SCIFIO package for reading and converting scientific file formats.
+ * %%
+ * Copyright (C) 2005 - 2012 Open Microscopy Environment:
+ *   - Board of Regents of the University of Wisconsin-Madison
+ *   - Glencoe Software, Inc.
+ *   - University of Dundee
+ * %%
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ * 
+ * The views and conclusions contained in the software and documentation are
+ * those of the authors and should not be interpreted as representing official
+ * policies, either expressed or implied, of any organization.
+ * #L%
+ */
+
+package loci.formats;
+
+import java.io.IOException;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.List;
+
+import loci.formats.in.DefaultMetadataOptions;
+import loci.formats.in.MetadataLevel;
+import loci.formats.meta.IMetadata;
+import loci.formats.meta.MetadataStore;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Metadata object which defers population of everything except the pixels
+ * metadata until a value is first retrieved.
+ *
+ * The reader to which a lazy metadata object is attached is expected to
+ * use {@link MetadataLevel#MINIMUM}, so that only the pixels metadata is
+ * stored during <code>setId</code>.  The first call to any
+ * {@link loci.formats.meta.MetadataRetrieve} method re-initializes the file
+ * at {@link MetadataLevel#ALL} with a duplicate of the reader stack
+ * (see {@link ReaderWrapper#duplicate(Class)}), storing everything in the
+ * delegate metadata object.  Callers that only need {@link CoreMetadata}
+ * and pixel data never pay for the full metadata.
+ *
+ * If population fails, the retrieve call that triggered it returns whatever
+ * the delegate already contains; {@link #getFailure(Object)} reports the
+ * error, and {@link #populate(Object)} rethrows it.
+ *
+ * Methods declared by {@link MetadataStore}, including getRoot(), are always
+ * passed directly to the delegate and never trigger population.
+ *
+ * <dl><dt><b>Source code:</b></dt>
+ * <dd><a href="http://trac.openmicroscopy.org.uk/ome/browser/bioformats.git/components/bio-formats/src/loci/formats/LazyMetadata.java">Trac</a>,
+ * <a href="http://git.openmicroscopy.org/?p=bioformats.git;a=blob;f=components/bio-formats/src/loci/formats/LazyMetadata.java;hb=HEAD">Gitweb</a></dd></dl>
+ */
+public class LazyMetadata implements InvocationHandler {
+
+  // -- Constants --
+
+  private static final Logger LOGGER =
+    LoggerFactory.getLogger(LazyMetadata.class);
+
+  // -- Fields --
+
+  /** Reader which populates the minimum metadata. */
+  private IFormatReader reader;
+
+  /** Metadata object in which all values are stored. */
+  private IMetadata delegate;
+
+  /** Class of the reader that initialized the current file. */
+  private Class<? extends IFormatReader> readerClass;
+
+  /** File that was being initialized when createRoot() was last called. */
+  private String currentId;
+
+  /** Error that prevented the full metadata from being populated. */
+  private Exception failure;
+
+  private boolean group, filtered, originalMetadata, flattened;
+
+  /** Whether or not the delegate contains the full metadata. */
+  private boolean populated = false;
+
+  // -- Constructor --
+
+  private LazyMetadata(IFormatReader reader, IMetadata delegate) {
+    this.reader = reader;
+    this.delegate = delegate;
+  }
+
+  // -- Static LazyMetadata API methods --
+
+  /**
+   * Creates a lazy metadata object that stores values in the given delegate,
+   * and attaches it to the given reader.  The reader's metadata level is
+   * set to {@link MetadataLevel#MINIMUM}; the reader must not yet be
+   * initialized.
+   */
+  public static IMetadata attach(IFormatReader reader, IMetadata delegate) {
+    IMetadata lazy = (IMetadata) Proxy.newProxyInstance(
+      LazyMetadata.class.getClassLoader(), new Class<?>[] {IMetadata.class},
+      new LazyMetadata(reader, delegate));
+    reader.setMetadataOptions(
+      new DefaultMetadataOptions(MetadataLevel.MINIMUM));
+    reader.setMetadataStore(lazy);
+    return lazy;
+  }
+
+  /** Returns true if the given object is a lazy metadata object. */
+  public static boolean isLazy(Object o) {
+    return o != null && Proxy.isProxyClass(o.getClass()) &&
+      Proxy.getInvocationHandler(o) instanceof LazyMetadata;
+  }
+
+  /**
+   * Forces population of the full metadata, if the given object is a lazy
+   * metadata object that has not yet been populated.
+   *
+   * @throws FormatException if the full metadata could not be populated.
+   * @throws IOException if the full metadata could not be populated.
+   */
+  public static void populate(Object o) throws FormatException, IOException {
+    if (isLazy(o)) ((LazyMetadata) Proxy.getInvocationHandler(o)).populate();
+  }
+
+  /**
+   * Returns the error that prevented the given lazy metadata object from
+   * being fully populated, or null if population has not failed.
+   */
+  public static Exception getFailure(Object o) {
+    if (!isLazy(o)) return null;
+    LazyMetadata lazy = (LazyMetadata) Proxy.getInvocationHandler(o);
+    synchronized (lazy) {
+      return lazy.failure;
+    }
+  }
+
+  // -- InvocationHandler API methods --
+
+  /* @see InvocationHandler#invoke(Object, Method, Object[]) */
+  public Object invoke(Object proxy, Method method, Object[] args)
+    throws Throwable
+  {
+    Class<?> declaringClass = method.getDeclaringClass();
+    if (declaringClass == Object.class) {
+      String name = method.getName();
+      if (name.equals("equals")) return proxy == args[0];
+      if (name.equals("hashCode")) return System.identityHashCode(proxy);
+      return "LazyMetadata[" + delegate + "]";
+    }
+
+    if (declaringClass == MetadataStore.class) {
+      if (method.getName().equals("createRoot")) reset();
+    }
+    else if (getFailure(proxy) == null) {
+      try {
+        populate();
+      }
+      catch (FormatException e) {
+        LOGGER.warn("Could not populate full metadata", e);
+      }
+      catch (IOException e) {
+        LOGGER.warn("Could not populate full metadata", e);
+      }
+    }
+
+    try {
+      return method.invoke(delegate, args);
+    }
+    catch (InvocationTargetException e) {
+      throw e.getCause();
+    }
+  }
+
+  // -- Helper methods --
+
+  /**
+   * Records the reader state needed to re-initialize the current file.
+   * The root is recreated during every call to initFile, so this is the
+   * point at which the file and reader class are known.
+   */
+  private synchronized void reset() {
+    populated = false;
+    failure = null;
+    IFormatReader r = reader;
+    while (true) {
+      if (r instanceof ReaderWrapper) r = ((ReaderWrapper) r).getReader();
+      else if (r instanceof ImageReader && r.getCurrentFile() != null) {
+        r = ((ImageReader) r).getReader();
+      }
+      else break;
+    }
+    readerClass = r.getClass();
+    currentId = reader.getCurrentFile();
+    if (currentId == null) currentId = r.getCurrentFile();
+    group = reader.isGroupFiles();
+    filtered = reader.isMetadataFiltered();
+    originalMetadata = reader.isOriginalMetadataPopulated();
+    flattened = reader.hasFlattenedResolutions();
+  }
+
+  /**
+   * Re-initializes the current file with a duplicate of the reader stack,
+   * storing all metadata.
+   */
+  private synchronized void populate() throws FormatException, IOException {
+    if (failure instanceof FormatException) throw (FormatException) failure;
+    if (failure instanceof IOException) throw (IOException) failure;
+    if (populated || currentId == null) return;
+    populated = true;
+
+    long start = System.currentTimeMillis();
+    IFormatReader r = null;
+    try {
+      r = duplicateReader();
+      r.setMetadataOptions(new DefaultMetadataOptions(MetadataLevel.ALL));
+      r.setGroupFiles(group);
+      r.setMetadataFiltered(filtered);
+      r.setOriginalMetadataPopulated(originalMetadata);
+      r.setFlattenedResolutions(flattened);
+      r.setMetadataStore(delegate);
+      r.setId(currentId);
+      reapplyDimensions(r);
+      LOGGER.debug("Populated full metadata for {} in {} ms", currentId,
+        System.currentTimeMillis() - start);
+    }
+    catch (FormatException e) {
+      failure = e;
+      throw e;
+    }
+    catch (IOException e) {
+      failure = e;
+      throw e;
+    }
+    finally {
+      if (r != null) {
+        try {
+          r.close();
+        }
+        catch (IOException e) {
+          LOGGER.debug("Could not close reader", e);
+        }
+      }
+    }
+  }
+
+  /**
+   * Creates an uninitialized copy of the reader stack, in which any
+   * {@link ImageReader} is replaced by the reader that handled the file.
+   */
+  private IFormatReader duplicateReader() throws FormatException {
+    if (reader instanceof ReaderWrapper) {
+      return ((ReaderWrapper) reader).duplicate(readerClass);
+    }
+    try {
+      return readerClass.newInstance();
+    }
+    catch (InstantiationException e) {
+      throw new FormatException(e);
+    }
+    catch (IllegalAccessException e) {
+      throw new FormatException(e);
+    }
+  }
+
+  /**
+   * Applies the dimension orders of each {@link DimensionSwapper} in the
+   * original reader stack to its counterpart in the given copy, so that the
+   * pixels metadata stored by the copy matches the original.  Swappers whose
+   * reader has already been closed cannot be copied and are left unchanged.
+   */
+  private void reapplyDimensions(IFormatReader copy) {
+    List<DimensionSwapper[]> swappers = new ArrayList<DimensionSwapper[]>();
+    IFormatReader original = reader;
+    while (original instanceof ReaderWrapper && copy instanceof ReaderWrapper)
+    {
+      if (original instanceof DimensionSwapper &&
+        original.getCurrentFile() != null)
+      {
+        swappers.add(0, new DimensionSwapper[] {
+          (DimensionSwapper) original, (DimensionSwapper) copy});
+      }
+      original = ((ReaderWrapper) original).getReader();
+      copy = ((ReaderWrapper) copy).getReader();
+    }
+
+    // innermost swappers first, so that outer ones store the final values
+    for (DimensionSwapper[] pair : swappers) {
+      int series = pair[0].getSeries();
+      for (int s=0; s<pair[0].getSeriesCount(); s++) {
+        pair[0].setSeries(s);
+        pair[1].setSeries(s);
+        pair[1].swapDimensions(pair[0].getInputOrder());
+        pair[1].setOutputOrder(pair[0].getDimensionOrder());
+      }
+      pair[0].setSeries(series);
+    }
+  }
+
+}
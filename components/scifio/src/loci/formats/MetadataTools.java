@@ -138,27 +138,34 @@ public final class MetadataTools {
         r.isLittleEndian(), r.getDimensionOrder(), pixelType, r.getSizeX(),
         r.getSizeY(), r.getSizeZ(), r.getSizeC(), r.getSizeT(),
         r.getRGBChannelCount());
+    }
 
-      try {
-        OMEXMLService service =
-          new ServiceFactory().getInstance(OMEXMLService.class);
-        if (service.isOMEXMLRoot(store.getRoot())) {
-          MetadataStore baseStore = r.getMetadataStore();
-          if (service.isOMEXMLMetadata(baseStore)) {
-            ((OMEXMLMetadataImpl) baseStore).resolveReferences();
-          }
+    // the OME root is retrieved once for all series, as retrieving it may
+    // force a compact store to expand any planes that have been populated
+    try {
+      OMEXMLService service =
+        new ServiceFactory().getInstance(OMEXMLService.class);
+      if (service.isOMEXMLRoot(store.getRoot())) {
+        MetadataStore baseStore = r.getMetadataStore();
+        if (service.isOMEXMLMetadata(baseStore)) {
+          ((OMEXMLMetadataImpl) baseStore).resolveReferences();
+        }
 
-          OME root = (OME) store.getRoot();
+        OME root = (OME) store.getRoot();
+        for (int i=0; i<r.getSeriesCount(); i++) {
           BinData bin = root.getImage(i).getPixels().getBinData(0);
           bin.setLength(new NonNegativeLong(0L));
-          store.setRoot(root);
         }
+        store.setRoot(root);
       }
-      catch (DependencyException exc) {
-        LOGGER.warn("Failed to set BinData.Length", exc);
-      }
+    }
+    catch (DependencyException exc) {
+      LOGGER.warn("Failed to set BinData.Length", exc);
+    }
 
-      if (doPlane) {
+    if (doPlane) {
+      for (int i=0; i<r.getSeriesCount(); i++) {
+        r.setSeries(i);
         for (int q=0; q<r.getImageCount(); q++) {
           int[] coords = r.getZCTCoords(q);
           store.setPlaneTheZ(new NonNegativeInteger(coords[0]), i, q);
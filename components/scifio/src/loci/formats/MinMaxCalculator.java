@@ -36,12 +36,30 @@
 
 package loci.formats;
 
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
 
 import loci.common.DataTools;
+import loci.common.Location;
 import loci.formats.meta.IMinMaxStore;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
 /**
  * Logic to compute minimum and maximum values for each channel.
  *
@@ -51,6 +69,17 @@ import loci.formats.meta.IMinMaxStore;
  */
 public class MinMaxCalculator extends ReaderWrapper {
 
+  // -- Constants --
+
+  private static final Logger LOGGER =
+    LoggerFactory.getLogger(MinMaxCalculator.class);
+
+  /** Maximum number of bytes read per batch by {@link #computeMinMax()}. */
+  private static final int MAX_BATCH_SIZE = 32 * 1024 * 1024;
+
+  /** Suffix of the files in which statistics are persisted. */
+  private static final String STATISTICS_SUFFIX = ".minmax";
+
   // -- Utility methods --
 
   /** Converts the given reader into a MinMaxCalculator, wrapping if needed. */
@@ -79,6 +108,20 @@ public class MinMaxCalculator extends ReaderWrapper {
   /** Consumer of channel global minima and maxima */
   protected IMinMaxStore minMaxStore;
 
+  /** Per-value histograms for each channel, computed by computeMinMax. */
+  protected long[][][] chanHistogram;
+
+  /** Whether {@link #computeMinMax()} also computes channel histograms. */
+  private boolean histogramEnabled;
+
+  /** Number of threads used to scan planes in {@link #computeMinMax()}. */
+  private int threadCount = Runtime.getRuntime().availableProcessors();
+
+  /** Directory in which computed statistics are persisted, or null. */
+  private String statisticsDirectory;
+
+  private ExecutorService executor;
+
   // -- Constructors --
 
   /** Constructs a MinMaxCalculator around a new image reader. */
@@ -105,8 +148,135 @@ public class MinMaxCalculator extends ReaderWrapper {
     return minMaxStore;
   }
 
+  /** Sets the number of threads used by {@link #computeMinMax()}. */
+  public void setThreadCount(int threads) {
+    if (threads < 1) {
+      throw new IllegalArgumentException("Invalid thread count: " + threads);
+    }
+    if (threads != threadCount) {
+      shutdownExecutor();
+      threadCount = threads;
+    }
+  }
+
+  /** Gets the number of threads used by {@link #computeMinMax()}. */
+  public int getThreadCount() {
+    return threadCount;
+  }
+
+  /**
+   * Sets whether {@link #computeMinMax()} also computes a histogram of each
+   * channel. Histograms are only available for 8 and 16 bit integer data.
+   */
+  public void setHistogramEnabled(boolean enabled) {
+    histogramEnabled = enabled;
+  }
+
+  /** Gets whether {@link #computeMinMax()} computes channel histograms. */
+  public boolean isHistogramEnabled() {
+    return histogramEnabled;
+  }
+
+  /**
+   * Sets the directory in which {@link #computeMinMax()} saves the
+   * statistics of each file, keyed by the file's path and modification time,
+   * so that they need not be recomputed the next time the file is opened.
+   * Statistics are not persisted if the directory is null (the default).
+   */
+  public void setStatisticsDirectory(String directory) {
+    statisticsDirectory = directory;
+  }
+
+  /** Gets the directory in which computed statistics are persisted. */
+  public String getStatisticsDirectory() {
+    return statisticsDirectory;
+  }
+
   // -- MinMaxCalculator API methods --
 
+  /**
+   * Computes the minimum and maximum values of every plane and channel in
+   * the current series, so that the global channel ranges are available
+   * before any plane is requested. Planes are read from the underlying
+   * reader in batches, and each batch is scanned on up to
+   * {@link #getThreadCount()} threads while the next one is being read.
+   * If a statistics directory is set, results saved for the same
+   * unmodified file are used instead of reading any planes, and newly
+   * computed results are saved there.
+   */
+  public void computeMinMax() throws FormatException, IOException {
+    FormatTools.assertId(getCurrentFile(), true, 2);
+    initMinMax();
+    int series = getSeries();
+    boolean histogram = histogramEnabled && getHistogramSize() > 0;
+    if (minMaxDone[series] == getImageCount() &&
+      (!histogram || chanHistogram[series] != null))
+    {
+      return;
+    }
+
+    File file = getStatisticsFile();
+    if (file == null || !loadStatistics(file, histogram)) {
+      scanPlanes(histogram);
+      if (file != null) saveStatistics(file);
+    }
+    minMaxDone[series] = getImageCount();
+    updateMinMaxStore();
+  }
+
+  /**
+   * Retrieves the histogram of the specified channel, as computed by
+   * {@link #computeMinMax()}. Element <code>i</code> is the number of pixels
+   * whose value is <code>i</code> plus the minimum value of the pixel type.
+   * Returns null if histograms were not enabled when the statistics were
+   * computed, or if the pixel type is not an 8 or 16 bit integer type.
+   *
+   * @throws IOException Not actually thrown.
+   */
+  public long[] getChannelHistogram(int theC)
+    throws FormatException, IOException
+  {
+    FormatTools.assertId(getCurrentFile(), true, 2);
+    if (theC < 0 || theC >= getSizeC()) {
+      throw new FormatException("Invalid channel index: " + theC);
+    }
+    if (chanHistogram == null || chanHistogram[getSeries()] == null) {
+      return null;
+    }
+    return chanHistogram[getSeries()][theC].clone();
+  }
+
+  /**
+   * Retrieves the smallest value such that the given percentage of the
+   * specified channel's pixels are less than or equal to it.
+   * Returns null if the channel's histogram is not available.
+   *
+   * @throws IOException Not actually thrown.
+   */
+  public Double getChannelPercentile(int theC, double percentile)
+    throws FormatException, IOException
+  {
+    if (percentile < 0 || percentile > 100) {
+      throw new FormatException("Invalid percentile: " + percentile);
+    }
+    long[] histogram = getChannelHistogram(theC);
+    if (histogram == null) return null;
+
+    long total = 0;
+    for (long count : histogram) total += count;
+    if (total == 0) return null;
+
+    long target = Math.max(1, (long) Math.ceil(total * percentile / 100));
+    double offset = FormatTools.isSigned(getPixelType()) ?
+      -(histogram.length / 2) : 0;
+    long sum = 0;
+    for (int i=0; i<histogram.length; i++) {
+      sum += histogram[i];
+      if (sum >= target) return new Double(i + offset);
+    }
+    return new Double(histogram.length - 1 + offset);
+  }
+
   /**
    * Retrieves a specified channel's global minimum.
    * Returns null if some of the image planes have not been read.
@@ -276,6 +446,28 @@ public class MinMaxCalculator extends ReaderWrapper {
     return buf;
   }
 
+  /* @see IFormatReader#openPlanes(int, int, byte[], int, int, int, int) */
+  public byte[] openPlanes(int no, int count, byte[] buf, int x, int y,
+    int w, int h) throws FormatException, IOException
+  {
+    return openPlanes(FormatTools.getPlaneIndexes(no, count), buf, x, y, w, h);
+  }
+
+  /* @see IFormatReader#openPlanes(int[], byte[], int, int, int, int) */
+  public byte[] openPlanes(int[] no, byte[] buf, int x, int y, int w, int h)
+    throws FormatException, IOException
+  {
+    FormatTools.assertId(getCurrentFile(), true, 2);
+    super.openPlanes(no, buf, x, y, w, h);
+
+    int planeSize = FormatTools.getPlaneSize(this, w, h);
+    int len = FormatTools.getBytesPerPixel(getPixelType()) * w * h;
+    for (int i=0; i<no.length; i++) {
+      updateMinMax(no[i], buf, i * planeSize, len);
+    }
+    return buf;
+  }
+
   /* @see IFormatReader#close(boolean) */
   public void close(boolean fileOnly) throws IOException {
     reader.close(fileOnly);
@@ -285,6 +477,8 @@ public class MinMaxCalculator extends ReaderWrapper {
       planeMin = null;
       planeMax = null;
       minMaxDone = null;
+      chanHistogram = null;
+      shutdownExecutor();
     }
   }
 
@@ -306,6 +500,20 @@ public class MinMaxCalculator extends ReaderWrapper {
    */
   protected void updateMinMax(int no, byte[] buf, int len)
     throws FormatException, IOException
+  {
+    updateMinMax(no, buf, 0, len);
+  }
+
+  /**
+   * Updates min/max values based on the plane stored at the given offset
+   * within the byte array.
+   * @param no the image index within the file.
+   * @param buf a pre-allocated buffer.
+   * @param offset the offset (in bytes) of the plane within <code>buf</code>.
+   * @param len the length (in bytes) of the plane's pixels.
+   */
+  protected void updateMinMax(int no, byte[] buf, int offset, int len)
+    throws FormatException, IOException
   {
     if (buf == null) return;
     initMinMax();
@@ -338,7 +546,8 @@ public class MinMaxCalculator extends ReaderWrapper {
     long threshold = (long) Math.pow(2, bpp * 8 - 1);
     for (int i=0; i<pixels; i++) {
       for (int c=0; c<numRGB; c++) {
-        int idx = bpp * (interleaved ? i * numRGB + c : c * pixels + i);
+        int idx =
+          offset + bpp * (interleaved ? i * numRGB + c : c * pixels + i);
         long bits = DataTools.bytesToLong(buf, idx, bpp, little);
         if (signed) {
           if (bits >= threshold) bits -= 2*threshold;
@@ -370,11 +579,19 @@ public class MinMaxCalculator extends ReaderWrapper {
     }
     minMaxDone[series] = Math.max(minMaxDone[series], no + 1);
 
-    if (minMaxDone[getSeries()] == getImageCount() && minMaxStore != null) {
-      for (int c=0; c<getSizeC(); c++) {
-        minMaxStore.setChannelGlobalMinMax(c, chanMin[getSeries()][c],
-          chanMax[getSeries()][c], getSeries());
-      }
+    if (minMaxDone[series] == getImageCount()) updateMinMaxStore();
+  }
+
+  /**
+   * Notifies the min-max store, if any, of the current series' channel
+   * global minima and maxima.
+   */
+  protected void updateMinMaxStore() {
+    if (minMaxStore == null) return;
+    int series = getSeries();
+    for (int c=0; c<getSizeC(); c++) {
+      minMaxStore.setChannelGlobalMinMax(c, chanMin[series][c],
+        chanMax[series][c], series);
     }
   }
 
@@ -427,6 +644,475 @@ public class MinMaxCalculator extends ReaderWrapper {
       setSeries(oldSeries);
     }
     if (minMaxDone == null) minMaxDone = new int[seriesCount];
+    if (chanHistogram == null) chanHistogram = new long[seriesCount][][];
+  }
+
+  /**
+   * Gets the number of histogram bins for the current pixel type,
+   * or 0 if histograms are not supported for it.
+   */
+  private int getHistogramSize() {
+    int pixelType = getPixelType();
+    int bpp = FormatTools.getBytesPerPixel(pixelType);
+    if (FormatTools.isFloatingPoint(pixelType) || bpp > 2) return 0;
+    return 1 << (bpp * 8);
+  }
+
+  /**
+   * Reads every plane of the current series and computes its minimum and
+   * maximum values. Whole planes are read in batches when they are small
+   * enough, and strips of rows otherwise; while one batch is being scanned,
+   * the next one is read into a second buffer.
+   */
+  private void scanPlanes(boolean histogram)
+    throws FormatException, IOException
+  {
+    int series = getSeries();
+    int imageCount = getImageCount();
+    int numRGB = getRGBChannelCount();
+    int sizeX = getSizeX();
+    int sizeY = getSizeY();
+    int pixelType = getPixelType();
+    int bpp = FormatTools.getBytesPerPixel(pixelType);
+    int bins = histogram ? getHistogramSize() : 0;
+
+    long rowSize = (long) sizeX * numRGB * bpp;
+    int rows = (int) Math.max(1, Math.min(sizeY, MAX_BATCH_SIZE / rowSize));
+    int planes = 1;
+    if (rows == sizeY) {
+      planes = (int) Math.max(1, Math.min(Math.min(threadCount, imageCount),
+        MAX_BATCH_SIZE / (rowSize * rows)));
+    }
+
+    Arrays.fill(planeMin[series], Double.POSITIVE_INFINITY);
+    Arrays.fill(planeMax[series], Double.NEGATIVE_INFINITY);
+    long[][] histograms = bins == 0 ? null : new long[getSizeC()][bins];
+
+    byte[][] buffers = new byte[2][];
+    List<List<Future<PlaneScan>>> pending =
+      new ArrayList<List<Future<PlaneScan>>>();
+    pending.add(null);
+    pending.add(null);
+    boolean success = false;
+    try {
+      int batch = 0;
+      for (int no=0; no<imageCount; no+=planes) {
+        int count = Math.min(planes, imageCount - no);
+        for (int y=0; y<sizeY; y+=rows) {
+          int h = Math.min(rows, sizeY - y);
+          int slot = batch++ % 2;
+          mergeScans(pending.get(slot), histograms);
+
+          int len = (int) (count * h * rowSize);
+          if (buffers[slot] == null || buffers[slot].length < len) {
+            buffers[slot] = new byte[len];
+          }
+          if (count == 1) {
+            reader.openBytes(no, buffers[slot], 0, y, sizeX, h);
+          }
+          else {
+            reader.openPlanes(no, count, buffers[slot], 0, y, sizeX, h);
+          }
+          pending.set(slot, submitScans(buffers[slot], no, count, h, bins));
+        }
+      }
+      mergeScans(pending.get(batch % 2), histograms);
+      mergeScans(pending.get((batch + 1) % 2), histograms);
+      success = true;
+    }
+    finally {
+      if (!success) {
+        Arrays.fill(planeMin[series], Double.NaN);
+        Arrays.fill(planeMax[series], Double.NaN);
+      }
+    }
+    chanHistogram[series] = histograms;
+  }
+
+  /**
+   * Submits the scans of the given number of consecutive planes, each of
+   * which consists of <code>h</code> rows stored in <code>buf</code>.
+   * Each plane is split into enough pieces to keep every thread busy.
+   */
+  private List<Future<PlaneScan>> submitScans(byte[] buf, int no, int count,
+    int h, int bins)
+  {
+    int numRGB = getRGBChannelCount();
+    int sizeX = getSizeX();
+    int pixelType = getPixelType();
+    int bpp = FormatTools.getBytesPerPixel(pixelType);
+    boolean interleaved = numRGB > 1 && isInterleaved();
+    boolean floatingPoint = FormatTools.isFloatingPoint(pixelType);
+    boolean signed = FormatTools.isSigned(pixelType);
+    boolean little = isLittleEndian();
+
+    int channelSize = h * sizeX * bpp;
+    int pieces = Math.max(1, Math.min(h, threadCount / count));
+    List<Future<PlaneScan>> scans = new ArrayList<Future<PlaneScan>>();
+    for (int i=0; i<count; i++) {
+      int planeOffset = i * channelSize * numRGB;
+      for (int piece=0; piece<pieces; piece++) {
+        int start = piece * h / pieces;
+        int end = (piece + 1) * h / pieces;
+        int offset =
+          planeOffset + start * sizeX * bpp * (interleaved ? numRGB : 1);
+        scans.add(getExecutor().submit(new PlaneScan(buf, offset,
+          (end - start) * sizeX, interleaved ? 0 : channelSize, no + i, numRGB,
+          bpp, interleaved, floatingPoint, signed, little, bins)));
+      }
+    }
+    return scans;
+  }
+
+  /** Waits for the given scans and merges their results. */
+  private void mergeScans(List<Future<PlaneScan>> scans, long[][] histograms)
+    throws FormatException, IOException
+  {
+    if (scans == null) return;
+    int series = getSeries();
+    int numRGB = getRGBChannelCount();
+    for (Future<PlaneScan> result : scans) {
+      PlaneScan scan = waitFor(result);
+      int pBase = scan.no * numRGB;
+      int cBase = getZCTCoords(scan.no)[1] * numRGB;
+      for (int c=0; c<numRGB; c++) {
+        planeMin[series][pBase + c] =
+          Math.min(planeMin[series][pBase + c], scan.min[c]);
+        planeMax[series][pBase + c] =
+          Math.max(planeMax[series][pBase + c], scan.max[c]);
+        chanMin[series][cBase + c] =
+          Math.min(chanMin[series][cBase + c], scan.min[c]);
+        chanMax[series][cBase + c] =
+          Math.max(chanMax[series][cBase + c], scan.max[c]);
+        if (histograms != null) {
+          long[] counts = histograms[cBase + c];
+          int[] scanned = scan.histogram[c];
+          for (int i=0; i<counts.length; i++) counts[i] += scanned[i];
+        }
+      }
+    }
+    scans.clear();
+  }
+
+  /**
+   * Gets the file in which statistics for the current file are persisted,
+   * or null if statistics are not persisted.
+   */
+  private File getStatisticsFile() {
+    if (statisticsDirectory == null) return null;
+    Location file = new Location(getCurrentFile());
+    if (!file.exists()) return null;
+    String path = file.getAbsolutePath();
+    return new File(statisticsDirectory, file.getName() + "." +
+      Integer.toHexString(path.hashCode()) + STATISTICS_SUFFIX);
+  }
+
+  /**
+   * Reads the statistics persisted in the given file, returning null if
+   * there are none or if they do not belong to the current file in its
+   * current state.
+   */
+  private Properties readStatistics(File file) {
+    if (!file.exists()) return null;
+    Properties statistics = new Properties();
+    try {
+      InputStream in = new FileInputStream(file);
+      try {
+        statistics.load(in);
+      }
+      finally {
+        in.close();
+      }
+    }
+    catch (IOException e) {
+      LOGGER.debug("Could not read statistics from " + file, e);
+      return null;
+    }
+    String path = new Location(getCurrentFile()).getAbsolutePath();
+    if (!path.equals(statistics.getProperty("path")) ||
+      !String.valueOf(getLastModified()).equals(
+      statistics.getProperty("lastModified")))
+    {
+      return null;
+    }
+    return statistics;
+  }
+
+  /**
+   * Loads the current series' statistics from the given file.
+   * Returns false if the file does not contain valid statistics for it.
+   */
+  private boolean loadStatistics(File file, boolean histogram) {
+    Properties statistics = readStatistics(file);
+    if (statistics == null) return false;
+
+    int series = getSeries();
+    String prefix = "series." + series + ".";
+    if (!getDimensions().equals(statistics.getProperty(prefix + "dimensions")))
+    {
+      return false;
+    }
+    try {
+      double[] pMin = parseValues(statistics, prefix + "planeMin");
+      double[] pMax = parseValues(statistics, prefix + "planeMax");
+      double[] cMin = parseValues(statistics, prefix + "channelMin");
+      double[] cMax = parseValues(statistics, prefix + "channelMax");
+      if (pMin.length != planeMin[series].length ||
+        pMax.length != planeMax[series].length ||
+        cMin.length != chanMin[series].length ||
+        cMax.length != chanMax[series].length)
+      {
+        return false;
+      }
+
+      long[][] histograms = null;
+      if (histogram) {
+        histograms = new long[getSizeC()][getHistogramSize()];
+        for (int c=0; c<histograms.length; c++) {
+          String bins = statistics.getProperty(prefix + "histogram." + c);
+          if (bins == null) return false;
+          for (String bin : bins.split(",")) {
+            if (bin.length() == 0) continue;
+            int sep = bin.indexOf(':');
+            histograms[c][Integer.parseInt(bin.substring(0, sep))] =
+              Long.parseLong(bin.substring(sep + 1));
+          }
+        }
+      }
+
+      planeMin[series] = pMin;
+      planeMax[series] = pMax;
+      chanMin[series] = cMin;
+      chanMax[series] = cMax;
+      if (histograms != null) chanHistogram[series] = histograms;
+    }
+    catch (RuntimeException e) {
+      LOGGER.debug("Invalid statistics in " + file, e);
+      return false;
+    }
+    return true;
+  }
+
+  /**
+   * Saves the current series' statistics to the given file, along with
+   * those of any other series that are already saved there.
+   */
+  private void saveStatistics(File file) {
+    Properties statistics = readStatistics(file);
+    if (statistics == null) {
+      statistics = new Properties();
+      statistics.setProperty("path",
+        new Location(getCurrentFile()).getAbsolutePath());
+      statistics.setProperty("lastModified", String.valueOf(getLastModified()));
+    }
+
+    int series = getSeries();
+    String prefix = "series." + series + ".";
+    statistics.setProperty(prefix + "dimensions", getDimensions());
+    formatValues(statistics, prefix + "planeMin", planeMin[series]);
+    formatValues(statistics, prefix + "planeMax", planeMax[series]);
+    formatValues(statistics, prefix + "channelMin", chanMin[series]);
+    formatValues(statistics, prefix + "channelMax", chanMax[series]);
+    long[][] histograms = chanHistogram[series];
+    for (int c=0; histograms != null && c<histograms.length; c++) {
+      StringBuilder bins = new StringBuilder();
+      for (int i=0; i<histograms[c].length; i++) {
+        if (histograms[c][i] == 0) continue;
+        if (bins.length() > 0) bins.append(',');
+        bins.append(i).append(':').append(histograms[c][i]);
+      }
+      statistics.setProperty(prefix + "histogram." + c, bins.toString());
+    }
+
+    try {
+      file.getParentFile().mkdirs();
+      OutputStream out = new FileOutputStream(file);
+      try {
+        statistics.store(out, "MinMaxCalculator statistics");
+      }
+      finally {
+        out.close();
+      }
+    }
+    catch (IOException e) {
+      LOGGER.warn("Could not save statistics to " + file, e);
+    }
+  }
+
+  /** Gets the latest modification time of the files in the dataset. */
+  private long getLastModified() {
+    long lastModified = new Location(getCurrentFile()).lastModified();
+    String[] files = getUsedFiles();
+    for (int i=0; files != null && i<files.length; i++) {
+      lastModified =
+        Math.max(lastModified, new Location(files[i]).lastModified());
+    }
+    return lastModified;
+  }
+
+  /**
+   * Gets a string describing the current series' dimensions and pixel
+   * layout, which must match for persisted statistics to be used.
+   */
+  private String getDimensions() {
+    return getSizeX() + "x" + getSizeY() + "x" + getSizeZ() + "x" +
+      getSizeC() + "x" + getSizeT() + " " + getImageCount() + " " +
+      getRGBChannelCount() + " " +
+      FormatTools.getPixelTypeString(getPixelType());
+  }
+
+  private static void formatValues(Properties statistics, String key,
+    double[] values)
+  {
+    StringBuilder sb = new StringBuilder();
+    for (int i=0; i<values.length; i++) {
+      if (i > 0) sb.append(',');
+      sb.append(values[i]);
+    }
+    statistics.setProperty(key, sb.toString());
+  }
+
+  private static double[] parseValues(Properties statistics, String key) {
+    String[] tokens = statistics.getProperty(key).split(",");
+    double[] rtn = new double[tokens.length];
+    for (int i=0; i<tokens.length; i++) {
+      rtn[i] = Double.parseDouble(tokens[i]);
+    }
+    return rtn;
+  }
+
+  private ExecutorService getExecutor() {
+    if (executor == null) {
+      executor = Executors.newFixedThreadPool(threadCount,
+        new ThreadFactory() {
+          public Thread newThread(Runnable r) {
+            Thread t = new Thread(r, "MinMax-Scanner");
+            t.setDaemon(true);
+            return t;
+          }
+        });
+    }
+    return executor;
+  }
+
+  private void shutdownExecutor() {
+    if (executor != null) {
+      executor.shutdown();
+      executor = null;
+    }
+  }
+
+  private static <T> T waitFor(Future<T> f)
+    throws FormatException, IOException
+  {
+    try {
+      return f.get();
+    }
+    catch (InterruptedException exc) {
+      throw new FormatException(exc);
+    }
+    catch (ExecutionException exc) {
+      Throwable cause = exc.getCause();
+      if (cause instanceof FormatException) throw (FormatException) cause;
+      if (cause instanceof IOException) throw (IOException) cause;
+      if (cause instanceof RuntimeException) throw (RuntimeException) cause;
+      if (cause instanceof Error) throw (Error) cause;
+      throw new FormatException(cause);
+    }
+  }
+
+  // -- Helper classes --
+
+  /**
+   * Computes the minimum, maximum and optionally the histogram of each
+   * channel within a run of pixels of a single plane.
+   */
+  private static class PlaneScan implements Callable<PlaneScan> {
+    private final byte[] buf;
+    private final int offset, pixels, channelStride;
+    private final int numRGB, bpp, bins;
+    private final boolean interleaved, floatingPoint, signed, little;
+
+    final int no;
+    final double[] min, max;
+    int[][] histogram;
+
+    /**
+     * @param buf the buffer containing the pixels.
+     * @param offset the offset (in bytes) of the first pixel.
+     * @param pixels the number of pixels in each channel.
+     * @param channelStride the distance (in bytes) between the first pixels
+     *   of consecutive channels, if the channels are not interleaved.
+     * @param no the index of the plane containing the pixels.
+     */
+    PlaneScan(byte[] buf, int offset, int pixels, int channelStride, int no,
+      int numRGB, int bpp, boolean interleaved, boolean floatingPoint,
+      boolean signed, boolean little, int bins)
+    {
+      this.buf = buf;
+      this.offset = offset;
+      this.pixels = pixels;
+      this.channelStride = channelStride;
+      this.no = no;
+      this.numRGB = numRGB;
+      this.bpp = bpp;
+      this.interleaved = interleaved;
+      this.floatingPoint = floatingPoint;
+      this.signed = signed;
+      this.little = little;
+      this.bins = bins;
+      min = new double[numRGB];
+      max = new double[numRGB];
+      Arrays.fill(min, Double.POSITIVE_INFINITY);
+      Arrays.fill(max, Double.NEGATIVE_INFINITY);
+    }
+
+    public PlaneScan call() {
+      byte[] b = buf;
+      int off = offset;
+      int stride = channelStride;
+      if (interleaved) {
+        // gather each channel's samples so that they can be scanned in bulk
+        b = new byte[pixels * numRGB * bpp];
+        stride = pixels * bpp;
+        int src = offset;
+        for (int i=0; i<pixels; i++) {
+          for (int c=0; c<numRGB; c++) {
+            System.arraycopy(buf, src, b, c * stride + i * bpp, bpp);
+            src += bpp;
+          }
+        }
+        off = 0;
+      }
+      if (bins > 0) histogram = new int[numRGB][bins];
+
+      for (int c=0; c<numRGB; c++) {
+        int start = off + c * stride;
+        double[] range = DataTools.minMax(b, start, pixels, bpp,
+          floatingPoint, signed, little);
+        if (range == null) continue;
+        min[c] = range[0];
+        max[c] = range[1];
+        if (bins > 0) count(b, start, histogram[c]);
+      }
+      return this;
+    }
+
+    /** Adds the channel's samples starting at the given offset to counts. */
+    private void count(byte[] b, int start, int[] counts) {
+      int flip = signed ? 1 << (bpp * 8 - 1) : 0;
+      if (bpp == 1) {
+        for (int i=start; i<start+pixels; i++) counts[(b[i] & 0xff) ^ flip]++;
+      }
+      else {
+        int end = start + pixels * 2;
+        for (int i=start; i<end; i+=2) {
+          int v = little ? (b[i] & 0xff) | ((b[i + 1] & 0xff) << 8) :
+            ((b[i] & 0xff) << 8) | (b[i + 1] & 0xff);
+          counts[v ^ flip]++;
+        }
+      }
+    }
   }
 
 }
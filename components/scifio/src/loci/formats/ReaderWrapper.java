@@ -39,6 +39,7 @@ package loci.formats;
 import java.io.IOException;
 import java.lang.reflect.Array;
 import java.lang.reflect.InvocationTargetException;
+import java.nio.ByteBuffer;
 import java.util.Hashtable;
 import java.util.Set;
 
@@ -318,6 +319,51 @@ public abstract class ReaderWrapper implements IFormatReader {
     return reader.openBytes(no, buf, x, y, w, h);
   }
 
+  public byte[] openPlanes(int no, int count, byte[] buf, int x, int y,
+    int w, int h) throws FormatException, IOException
+  {
+    return reader.openPlanes(no, count, buf, x, y, w, h);
+  }
+
+  public byte[] openPlanes(int[] no, byte[] buf, int x, int y, int w, int h)
+    throws FormatException, IOException
+  {
+    return reader.openPlanes(no, buf, x, y, w, h);
+  }
+
+  // NB: typed reads go through this wrapper's own openBytes, so subclasses
+  // that transform pixels do not need to override them.
+
+  public ByteBuffer openByteBuffer(int no, int x, int y, int w, int h)
+    throws FormatException, IOException
+  {
+    return FormatTools.openByteBuffer(this, no, x, y, w, h);
+  }
+
+  public short[] openShorts(int no, short[] buf, int x, int y, int w, int h)
+    throws FormatException, IOException
+  {
+    return FormatTools.openShorts(this, no, buf, x, y, w, h);
+  }
+
+  public int[] openInts(int no, int[] buf, int x, int y, int w, int h)
+    throws FormatException, IOException
+  {
+    return FormatTools.openInts(this, no, buf, x, y, w, h);
+  }
+
+  public float[] openFloats(int no, float[] buf, int x, int y, int w, int h)
+    throws FormatException, IOException
+  {
+    return FormatTools.openFloats(this, no, buf, x, y, w, h);
+  }
+
+  public double[] openDoubles(int no, double[] buf, int x, int y, int w, int h)
+    throws FormatException, IOException
+  {
+    return FormatTools.openDoubles(this, no, buf, x, y, w, h);
+  }
+
   public Object openPlane(int no, int x, int y, int w, int h)
     throws FormatException, IOException
   {
@@ -36,10 +36,21 @@
 
 package loci.formats.cache;
 
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
 import java.util.Vector;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
 
 import loci.formats.FormatTools;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
 /**
  * Cache provides a means of managing subsets of large collections of image
  * planes in memory. Each cache has a source, which provides image planes or
@@ -51,12 +62,22 @@ import loci.formats.FormatTools;
  * strategy indicating which surrounding planes to load into the cache (i.e.,
  * planes within a certain range along each dimensional axis).
  *
+ * The cache can optionally be limited to a number of bytes, in which case
+ * only as many planes as fit are kept, in the order given by the strategy.
+ * By default planes are loaded synchronously by {@link #recache()}; if a
+ * thread count is set, they are instead loaded in the background, and loads
+ * that have not started when the position changes are cancelled.
+ *
  * <dl><dt><b>Source code:</b></dt>
  * <dd><a href="http://trac.openmicroscopy.org.uk/ome/browser/bioformats.git/components/bio-formats/src/loci/formats/cache/Cache.java">Trac</a>,
  * <a href="http://git.openmicroscopy.org/?p=bioformats.git;a=blob;f=components/bio-formats/src/loci/formats/cache/Cache.java;hb=HEAD">Gitweb</a></dd></dl>
  */
 public class Cache implements CacheReporter {
 
+  // -- Constants --
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(Cache.class);
+
   // -- Fields --
 
   /** Current cache strategy. */
@@ -80,6 +101,28 @@ public class Cache implements CacheReporter {
   /** Whether the cache should automatically update when a parameter changes. */
   protected boolean autoUpdate;
 
+  /** Size in bytes of each cached object. */
+  private long[] sizes;
+
+  /** Position of each object in the current load list, or -1. */
+  private int[] rank;
+
+  /** Total size in bytes of the cached objects. */
+  private long cachedBytes;
+
+  /** Maximum total size in bytes of the cached objects, or 0 for no limit. */
+  private long maxBytes;
+
+  /** Number of background loading threads; 0 loads synchronously. */
+  private int threadCount;
+
+  private ExecutorService loader;
+
+  /** Background loads that have been submitted, by index. */
+  private Map<Integer, Future<?>> pending = new HashMap<Integer, Future<?>>();
+
+  private long hits, misses, loads, loadTime;
+
   // -- Constructors --
 
   /** Constructs an object cache with the given cache strategy and source. */
@@ -106,7 +149,15 @@ public class Cache implements CacheReporter {
     }
 
     int ndx = FormatTools.positionToRaster(strategy.getLengths(), pos);
-    return cache[ndx];
+    Object o;
+    synchronized (this) {
+      o = cache[ndx];
+      if (o == null) misses++;
+      else hits++;
+    }
+    notifyListeners(new CacheEvent(this,
+      o == null ? CacheEvent.CACHE_MISS : CacheEvent.CACHE_HIT, ndx));
+    return o;
   }
 
   /**
@@ -124,9 +175,17 @@ public class Cache implements CacheReporter {
 
   /** Reallocates the cache. */
   public void reset() throws CacheException {
-    currentPos = new int[strategy.getLengths().length];
-    cache = new Object[source.getObjectCount()];
-    inCache = new boolean[source.getObjectCount()];
+    int count = source.getObjectCount();
+    synchronized (this) {
+      cancelLoads();
+      currentPos = new int[strategy.getLengths().length];
+      cache = new Object[count];
+      inCache = new boolean[count];
+      sizes = new long[count];
+      rank = new int[count];
+      Arrays.fill(rank, -1);
+      cachedBytes = 0;
+    }
   }
 
   /** Gets the cache's caching strategy. */
@@ -138,6 +197,75 @@ public class Cache implements CacheReporter {
   /** Gets the current dimensional position. */
   public int[] getCurrentPos() { return currentPos; }
 
+  /**
+   * Sets the maximum number of bytes that the cache may hold,
+   * or 0 if the cache should only be limited by the strategy's range.
+   */
+  public void setMaxBytes(long maxBytes) throws CacheException {
+    this.maxBytes = Math.max(maxBytes, 0);
+    if (autoUpdate) recache();
+  }
+
+  /** Gets the maximum number of bytes that the cache may hold. */
+  public long getMaxBytes() { return maxBytes; }
+
+  /** Gets the number of bytes currently held by the cache. */
+  public synchronized long getCachedBytes() { return cachedBytes; }
+
+  /**
+   * Sets the number of threads used to load objects in the background.
+   * If 0 (the default), objects are loaded by the thread that calls
+   * {@link #recache()}. More than one thread should only be used if the
+   * cache source supports concurrent calls to
+   * {@link ICacheSource#getObject(int)}.
+   */
+  public void setThreadCount(int threadCount) {
+    synchronized (this) {
+      if (threadCount == this.threadCount) return;
+      cancelLoads();
+      if (loader != null) loader.shutdown();
+      loader = null;
+      this.threadCount = Math.max(threadCount, 0);
+      if (this.threadCount > 0) {
+        loader = Executors.newFixedThreadPool(this.threadCount,
+          new LoaderThreadFactory());
+      }
+    }
+  }
+
+  /** Gets the number of threads used to load objects in the background. */
+  public int getThreadCount() { return threadCount; }
+
+  /** Gets the number of calls to getObject that found a cached object. */
+  public synchronized long getHitCount() { return hits; }
+
+  /** Gets the number of calls to getObject that found no cached object. */
+  public synchronized long getMissCount() { return misses; }
+
+  /** Gets the number of objects loaded from the source. */
+  public synchronized long getLoadCount() { return loads; }
+
+  /**
+   * Gets the average time in nanoseconds taken to load
+   * an object from the source.
+   */
+  public synchronized long getAverageLoadTime() {
+    return loads == 0 ? 0 : loadTime / loads;
+  }
+
+  /** Resets the hit, miss and load statistics. */
+  public synchronized void resetStatistics() {
+    hits = misses = loads = loadTime = 0;
+  }
+
+  /**
+   * Stops any background loading threads.  Loads in progress are
+   * allowed to finish, but their results are discarded.
+   */
+  public void close() {
+    setThreadCount(0);
+  }
+
   /** Sets the cache's caching strategy. */
   public void setStrategy(ICacheStrategy strategy) throws CacheException {
     if (strategy == null) throw new CacheException("strategy is null");
@@ -185,51 +313,19 @@ public class Cache implements CacheReporter {
 
   /** Updates the given plane. */
   public void recache(int n) throws CacheException {
-    int[][] indices = strategy.getLoadList(currentPos);
-    int[] len = strategy.getLengths();
-
-    for (int i=0; i<inCache.length; i++) {
-      boolean found = false;
-      for (int j=0; j<indices.length; j++) {
-        if (i == FormatTools.positionToRaster(len, indices[j])) {
-          found = true;
-          break;
-        }
-      }
-      if (!found) {
-        inCache[i] = false;
-        if (cache[i] != null) {
-          cache[i] = null;
-          notifyListeners(new CacheEvent(this, CacheEvent.OBJECT_DROPPED, i));
-        }
-      }
-    }
-
-    int ndx = FormatTools.positionToRaster(len, indices[n]);
-    if (ndx >= 0) inCache[ndx] = true;
-
-    if (cache[ndx] == null) {
-      cache[ndx] = source.getObject(ndx);
-      notifyListeners(new CacheEvent(this, CacheEvent.OBJECT_LOADED, ndx));
-    }
+    int[] load = updateLoadList();
+    if (n < load.length && load[n] >= 0) load(load[n]);
   }
 
-  /** Updates all planes on the load list. */
+  /**
+   * Updates all planes on the load list.  Planes that are no longer on the
+   * load list (or that no longer fit within the byte limit) are dropped,
+   * and the remaining planes are loaded in the order given by the strategy.
+   */
   public void recache() throws CacheException {
-    // what happens if cache source and cache strategy lengths do not match?
-    // throw exception in that case
-    // what if developer wants to change both source and strategy to something
-    // completely different -- make sure it works
-    // in general, what if developer wants to tweak a few parameters before
-    // starting to reload things? probably should have a recache method that
-    // you must explicitly call to trigger the separate thread refresh
-    // need to be careful -- don't want cache parameter changes affecting the
-    // recaching thread on the fly -- should refresh those parameter values
-    // each time through the loop only (i.e., only when a recache call occurs)
-    //
-    // /lo
-    for (int i=0; i<strategy.getLoadList(currentPos).length; i++) {
-      recache(i);
+    int[] load = updateLoadList();
+    for (int i=0; i<load.length; i++) {
+      if (load[i] >= 0) load(load[i]);
     }
   }
 
@@ -273,4 +369,252 @@ public class Cache implements CacheReporter {
     }
   }
 
+  /**
+   * Gets the approximate number of bytes used by the given object.
+   * Sizes are taken from the source if it implements
+   * {@link ISizedCacheSource}; otherwise primitive arrays are measured,
+   * and any other object is treated as having no size.
+   */
+  protected long getObjectSize(int index, Object o) throws CacheException {
+    if (source instanceof ISizedCacheSource) {
+      return ((ISizedCacheSource) source).getObjectSize(index);
+    }
+    return getArraySize(o);
+  }
+
+  /**
+   * Marks the objects on the current load list as cached, drops any other
+   * cached objects, and returns the indices of the objects that need to be
+   * loaded, in load list order.  Indices that are already loaded or
+   * loading are replaced by -1.
+   */
+  private int[] updateLoadList() throws CacheException {
+    // what happens if cache source and cache strategy lengths do not match?
+    // throw exception in that case
+    // what if developer wants to change both source and strategy to something
+    // completely different -- make sure it works
+    int[][] indices = strategy.getLoadList(currentPos);
+    int[] len = strategy.getLengths();
+
+    int[] load = new int[indices.length];
+    Vector<Integer> dropped = new Vector<Integer>();
+    Vector<Integer> cancelled = new Vector<Integer>();
+    synchronized (this) {
+      Arrays.fill(rank, -1);
+      long total = 0, known = 0;
+      int knownCount = 0;
+      for (int i=0; i<sizes.length; i++) {
+        if (cache[i] != null) {
+          known += sizes[i];
+          knownCount++;
+        }
+      }
+      long average = knownCount == 0 ? 0 : known / knownCount;
+
+      int count = 0;
+      for (int i=0; i<indices.length; i++) {
+        int ndx = FormatTools.positionToRaster(len, indices[i]);
+        if (ndx < 0 || rank[ndx] >= 0) continue;
+
+        // always keep the first object, even if it exceeds the limit
+        long size =
+          cache[ndx] != null ? sizes[ndx] : estimateSize(ndx, average);
+        if (maxBytes > 0 && count > 0 && total + size > maxBytes) break;
+        total += size;
+        rank[ndx] = count;
+        load[count++] = cache[ndx] == null && !pending.containsKey(ndx) ?
+          ndx : -1;
+      }
+      if (count < load.length) {
+        int[] tmp = new int[count];
+        System.arraycopy(load, 0, tmp, 0, count);
+        load = tmp;
+      }
+
+      for (int i=0; i<inCache.length; i++) {
+        inCache[i] = rank[i] >= 0;
+        if (!inCache[i] && cache[i] != null) {
+          drop(i);
+          dropped.add(i);
+        }
+      }
+
+      // cancel background loads of objects that are no longer wanted
+      for (Iterator<Map.Entry<Integer, Future<?>>> it =
+        pending.entrySet().iterator(); it.hasNext();)
+      {
+        Map.Entry<Integer, Future<?>> entry = it.next();
+        if (!inCache[entry.getKey()] && entry.getValue().cancel(false)) {
+          it.remove();
+          cancelled.add(entry.getKey());
+        }
+      }
+    }
+
+    for (Integer i : dropped) {
+      notifyListeners(new CacheEvent(this, CacheEvent.OBJECT_DROPPED, i));
+    }
+    for (Integer i : cancelled) {
+      notifyListeners(new CacheEvent(this, CacheEvent.LOAD_CANCELLED, i));
+    }
+    return load;
+  }
+
+  /** Loads the given object, or schedules it to be loaded. */
+  private void load(final int ndx) throws CacheException {
+    synchronized (this) {
+      if (loader != null) {
+        final Object[] target = cache;
+        pending.put(ndx, loader.submit(new Runnable() {
+          public void run() {
+            try {
+              loadObject(target, ndx);
+            }
+            catch (CacheException e) {
+              LOGGER.info("Could not load object " + ndx, e);
+            }
+          }
+        }));
+        return;
+      }
+    }
+    loadObject(cache, ndx);
+  }
+
+  /**
+   * Loads the given object from the source, and stores it if it is still
+   * wanted by the time it has been loaded.
+   */
+  private void loadObject(Object[] target, int ndx) throws CacheException {
+    synchronized (this) {
+      if (target != cache || !inCache[ndx] || cache[ndx] != null) {
+        pending.remove(ndx);
+        return;
+      }
+
+      // skip the object if it would not fit alongside the objects that
+      // precede it on the load list, now that more sizes are known
+      if (maxBytes > 0 && rank[ndx] > 0) {
+        long used = 0, known = 0;
+        int knownCount = 0;
+        for (int i=0; i<cache.length; i++) {
+          if (cache[i] != null) {
+            known += sizes[i];
+            knownCount++;
+            if (rank[i] < rank[ndx]) used += sizes[i];
+          }
+        }
+        long average = knownCount == 0 ? 0 : known / knownCount;
+        if (used + estimateSize(ndx, average) > maxBytes) {
+          inCache[ndx] = false;
+          rank[ndx] = -1;
+          pending.remove(ndx);
+          return;
+        }
+      }
+    }
+
+    long start = System.nanoTime();
+    Object o;
+    try {
+      o = source.getObject(ndx);
+    }
+    finally {
+      synchronized (this) {
+        if (target == cache) pending.remove(ndx);
+      }
+    }
+    long time = System.nanoTime() - start;
+    long size = getObjectSize(ndx, o);
+
+    Vector<Integer> dropped = new Vector<Integer>();
+    synchronized (this) {
+      loads++;
+      loadTime += time;
+      if (target != cache || !inCache[ndx] || cache[ndx] != null) return;
+      cache[ndx] = o;
+      sizes[ndx] = size;
+      cachedBytes += size;
+
+      // drop the lowest priority objects if the size estimate was too low
+      while (maxBytes > 0 && cachedBytes > maxBytes) {
+        int last = -1;
+        for (int i=0; i<cache.length; i++) {
+          if (cache[i] != null && rank[i] > 0 &&
+            (last < 0 || rank[i] > rank[last]))
+          {
+            last = i;
+          }
+        }
+        if (last < 0) break;
+        inCache[last] = false;
+        rank[last] = -1;
+        drop(last);
+        dropped.add(last);
+      }
+    }
+
+    if (!dropped.contains(ndx)) {
+      notifyListeners(new CacheEvent(this, CacheEvent.OBJECT_LOADED, ndx,
+        time));
+    }
+    for (Integer i : dropped) {
+      notifyListeners(new CacheEvent(this, CacheEvent.OBJECT_DROPPED, i));
+    }
+  }
+
+  /** Removes the given object from the cache. */
+  private void drop(int ndx) {
+    cache[ndx] = null;
+    cachedBytes -= sizes[ndx];
+    sizes[ndx] = 0;
+  }
+
+  /** Estimates the size of an object that has not yet been loaded. */
+  private long estimateSize(int ndx, long average) throws CacheException {
+    if (source instanceof ISizedCacheSource) {
+      return ((ISizedCacheSource) source).getObjectSize(ndx);
+    }
+    return average;
+  }
+
+  /** Cancels all background loads that have not yet started. */
+  private void cancelLoads() {
+    for (Future<?> f : pending.values()) {
+      f.cancel(false);
+    }
+    pending.clear();
+  }
+
+  /** Gets the number of bytes in the given primitive array. */
+  private static long getArraySize(Object o) {
+    if (o instanceof byte[]) return ((byte[]) o).length;
+    if (o instanceof short[]) return ((short[]) o).length * 2L;
+    if (o instanceof char[]) return ((char[]) o).length * 2L;
+    if (o instanceof int[]) return ((int[]) o).length * 4L;
+    if (o instanceof float[]) return ((float[]) o).length * 4L;
+    if (o instanceof long[]) return ((long[]) o).length * 8L;
+    if (o instanceof double[]) return ((double[]) o).length * 8L;
+    if (o instanceof Object[]) {
+      long size = 0;
+      for (Object e : (Object[]) o) size += getArraySize(e);
+      return size;
+    }
+    return 0;
+  }
+
+  // -- Helper classes --
+
+  /** Creates low priority daemon threads for loading objects. */
+  private static class LoaderThreadFactory implements ThreadFactory {
+    private int count = 0;
+
+    public Thread newThread(Runnable r) {
+      Thread t = new Thread(r, "Bio-Formats-Cache-Loader-" + (++count));
+      t.setDaemon(true);
+      t.setPriority(Thread.MIN_PRIORITY);
+      return t;
+    }
+  }
+
 }
@@ -73,6 +73,18 @@ public class CacheEvent {
   /** Event type indicating an object has been removed from the cache. */
   public static final int OBJECT_DROPPED = 8;
 
+  /** Event type indicating a requested object was in the cache. */
+  public static final int CACHE_HIT = 9;
+
+  /** Event type indicating a requested object was not in the cache. */
+  public static final int CACHE_MISS = 10;
+
+  /**
+   * Event type indicating a background load was cancelled before it started,
+   * because the object is no longer on the load list.
+   */
+  public static final int LOAD_CANCELLED = 11;
+
   // -- Fields --
 
   /** Source of the cache update. */
@@ -84,6 +96,9 @@ public class CacheEvent {
   /** Relevant index to the event, if any. */
   protected int index;
 
+  /** Time in nanoseconds taken to load the relevant object, if any. */
+  protected long loadTime;
+
   // -- Constructor --
 
   /** Constructs a cache event. */
@@ -91,9 +106,15 @@ public class CacheEvent {
 
   /** Constructs a cache event. */
   public CacheEvent(Object source, int type, int index) {
+    this(source, type, index, -1);
+  }
+
+  /** Constructs a cache event with the time taken to load an object. */
+  public CacheEvent(Object source, int type, int index, long loadTime) {
     this.source = source;
     this.type = type;
     this.index = index;
+    this.loadTime = loadTime;
   }
 
   // -- CacheEvent API methods --
@@ -107,10 +128,16 @@ public class CacheEvent {
   /**
    * Gets the index relevant to the cache update, if any.
    * This parameter is only set for events POSITION_CHANGED,
-   * OBJECT_LOADED and OBJECT_DROPPED.
+   * OBJECT_LOADED, OBJECT_DROPPED, CACHE_HIT, CACHE_MISS and LOAD_CANCELLED.
    */
   public int getIndex() { return index; }
 
+  /**
+   * Gets the time in nanoseconds taken to load the relevant object,
+   * or -1.  This parameter is only set for OBJECT_LOADED events.
+   */
+  public long getLoadTime() { return loadTime; }
+
   // -- Object API methods --
 
   public String toString() {
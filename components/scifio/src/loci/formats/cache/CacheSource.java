@@ -40,6 +40,7 @@ import java.io.IOException;
 
 import loci.formats.FileStitcher;
 import loci.formats.FormatException;
+import loci.formats.FormatTools;
 import loci.formats.IFormatReader;
 
 /**
@@ -50,7 +51,7 @@ import loci.formats.IFormatReader;
  * <dd><a href="http://trac.openmicroscopy.org.uk/ome/browser/bioformats.git/components/bio-formats/src/loci/formats/cache/CacheSource.java">Trac</a>,
  * <a href="http://git.openmicroscopy.org/?p=bioformats.git;a=blob;f=components/bio-formats/src/loci/formats/cache/CacheSource.java;hb=HEAD">Gitweb</a></dd></dl>
  */
-public abstract class CacheSource implements ICacheSource {
+public abstract class CacheSource implements ISizedCacheSource {
 
   // -- Fields --
 
@@ -78,4 +79,11 @@ public abstract class CacheSource implements ICacheSource {
   /* @see ICacheSource#getObject(int) */
   public abstract Object getObject(int index) throws CacheException;
 
+  // -- ISizedCacheSource API methods --
+
+  /* @see ISizedCacheSource#getObjectSize(int) */
+  public long getObjectSize(int index) {
+    return FormatTools.getPlaneSize(reader);
+  }
+
 }
@@ -69,6 +69,8 @@ import java.awt.image.SampleModel;
 import java.awt.image.SinglePixelPackedSampleModel;
 import java.awt.image.WritableRaster;
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
 import java.util.Hashtable;
 
 import loci.common.DataTools;
@@ -111,6 +113,14 @@ public final class AWTImageTools {
   private static final Logger LOGGER =
     LoggerFactory.getLogger(AWTImageTools.class);
 
+  /** Color models of the standard gray and RGB image types. */
+  private static final ColorModel GRAY8_MODEL =
+    new BufferedImage(1, 1, BufferedImage.TYPE_BYTE_GRAY).getColorModel();
+  private static final ColorModel GRAY16_MODEL =
+    new BufferedImage(1, 1, BufferedImage.TYPE_USHORT_GRAY).getColorModel();
+  private static final ColorModel RGB_MODEL =
+    new BufferedImage(1, 1, BufferedImage.TYPE_INT_RGB).getColorModel();
+
   // -- Constructor --
 
   private AWTImageTools() { }
@@ -686,8 +696,10 @@ public final class AWTImageTools {
       model =
         new SinglePixelPackedSampleModel(DataBuffer.TYPE_INT, w, h, bitMasks);
     }
-    else if (banded) model = new BandedSampleModel(type, w, h, c);
-    else if (interleaved) {
+    else if (banded && c > 1) model = new BandedSampleModel(type, w, h, c);
+    else if (interleaved || c == 1) {
+      // NB: A single channel is laid out identically in every model; the
+      // interleaved model is the one that standard image types recognize.
       int[] bandOffsets = new int[c];
       for (int i=0; i<c; i++) bandOffsets[i] = i;
       model = new PixelInterleavedSampleModel(type,
@@ -703,34 +715,38 @@ public final class AWTImageTools {
 
     BufferedImage b = null;
 
+    // NB: Wherever the raster already has the layout of a standard image
+    // type, the image wraps it directly (with that type's color model) so
+    // that the pixels are not copied.
+
     if (c == 1 && type == DataBuffer.TYPE_BYTE &&
       !(buffer instanceof SignedByteBuffer))
     {
       if (colorModel instanceof IndexColorModel) {
         b = new BufferedImage(w, h, BufferedImage.TYPE_BYTE_INDEXED);
+        b.setData(raster);
       }
       else {
-        b = new BufferedImage(w, h, BufferedImage.TYPE_BYTE_GRAY);
+        b = new BufferedImage(GRAY8_MODEL, raster, false, null);
       }
-      b.setData(raster);
     }
     else if (c == 1 && type == DataBuffer.TYPE_USHORT) {
       if (!(colorModel instanceof IndexColorModel)) {
-        b = new BufferedImage(w, h, BufferedImage.TYPE_USHORT_GRAY);
-        b.setData(raster);
+        b = new BufferedImage(GRAY16_MODEL, raster, false, null);
       }
     }
     else if (c > 2 && type == DataBuffer.TYPE_INT && buffer.getNumBanks() == 1
       && !(buffer instanceof UnsignedIntBuffer))
     {
       if (c == 3) {
-        b = new BufferedImage(w, h, BufferedImage.TYPE_INT_RGB);
+        b = new BufferedImage(RGB_MODEL, raster, false, null);
       }
       else if (c == 4) {
+        // NB: The channels are packed as RGBA rather than ARGB, so they
+        // must be reordered.
         b = new BufferedImage(w, h, BufferedImage.TYPE_INT_ARGB);
+        b.setData(raster);
       }
-
-      if (b != null) b.setData(raster);
     }
 
     if (b == null) b = new BufferedImage(colorModel, raster, false, null);
@@ -817,6 +833,99 @@ public final class AWTImageTools {
     return b;
   }
 
+  /**
+   * Gets the pixel array backing the given image, if the image has exactly
+   * the layout that {@link #openImage(byte[], IFormatReader, int, int)} would
+   * produce for a w x h plane of the given reader.  Such an image can be
+   * reused for another plane by filling in the returned array.
+   *
+   * @return the image's byte[], short[], int[], float[] or double[] pixel
+   *   array, or null if the image cannot be reused
+   */
+  public static Object getReusablePixels(BufferedImage img, IFormatReader r,
+    int w, int h)
+  {
+    int pixelType = r.getPixelType();
+    int c = r.getRGBChannelCount();
+    int bpp = FormatTools.getBytesPerPixel(pixelType);
+    if (img.getWidth() != w || img.getHeight() != h || c > 4 ||
+      (c > 2 && bpp == 1) || r.isIndexed() ||
+      (FormatTools.isFloatingPoint(pixelType) && r.isNormalized()))
+    {
+      // image would be converted, or would need a new color model
+      return null;
+    }
+
+    WritableRaster raster = img.getRaster();
+    SampleModel model = raster.getSampleModel();
+    DataBuffer buffer = raster.getDataBuffer();
+    if (raster.getNumBands() != c || raster.getParent() != null ||
+      buffer.getNumBanks() != 1 || buffer.getSize() != c * w * h ||
+      !(model instanceof ComponentSampleModel) ||
+      (c > 1 && (model instanceof PixelInterleavedSampleModel) !=
+      r.isInterleaved()))
+    {
+      return null;
+    }
+
+    switch (pixelType) {
+      case FormatTools.INT8:
+        return buffer.getClass() == SignedByteBuffer.class ?
+          ((SignedByteBuffer) buffer).getData() : null;
+      case FormatTools.UINT8:
+        return buffer.getClass() == DataBufferByte.class ?
+          ((DataBufferByte) buffer).getData() : null;
+      case FormatTools.INT16:
+        return buffer.getClass() == SignedShortBuffer.class ?
+          ((SignedShortBuffer) buffer).getData() : null;
+      case FormatTools.UINT16:
+        return buffer.getClass() == DataBufferUShort.class ?
+          ((DataBufferUShort) buffer).getData() : null;
+      case FormatTools.INT32:
+        return buffer.getClass() == DataBufferInt.class ?
+          ((DataBufferInt) buffer).getData() : null;
+      case FormatTools.UINT32:
+        return buffer.getClass() == UnsignedIntBuffer.class ?
+          ((UnsignedIntBuffer) buffer).getData() : null;
+      case FormatTools.FLOAT:
+        return buffer.getClass() == DataBufferFloat.class ?
+          ((DataBufferFloat) buffer).getData() : null;
+      case FormatTools.DOUBLE:
+        return buffer.getClass() == DataBufferDouble.class ?
+          ((DataBufferDouble) buffer).getData() : null;
+    }
+    return null;
+  }
+
+  /**
+   * Converts the given raw bytes into an existing primitive array, which
+   * must be a short[], int[], float[] or double[] with room for all of the
+   * samples.
+   */
+  public static void unpackPixels(byte[] src, Object dest, boolean little) {
+    ByteBuffer bytes = wrap(src, little);
+    if (dest instanceof short[]) {
+      short[] s = (short[]) dest;
+      bytes.asShortBuffer().get(s, 0, Math.min(s.length, src.length / 2));
+    }
+    else if (dest instanceof int[]) {
+      int[] i = (int[]) dest;
+      bytes.asIntBuffer().get(i, 0, Math.min(i.length, src.length / 4));
+    }
+    else if (dest instanceof float[]) {
+      float[] f = (float[]) dest;
+      bytes.asFloatBuffer().get(f, 0, Math.min(f.length, src.length / 4));
+    }
+    else if (dest instanceof double[]) {
+      double[] d = (double[]) dest;
+      bytes.asDoubleBuffer().get(d, 0, Math.min(d.length, src.length / 8));
+    }
+    else {
+      throw new IllegalArgumentException("Unsupported array type: " +
+        (dest == null ? null : dest.getClass().getName()));
+    }
+  }
+
   // -- Data extraction --
 
   /**
@@ -1086,9 +1195,7 @@ public final class AWTImageTools {
       short[][] s = (short[][]) pixels;
       pixelBytes = new byte[s.length][s[0].length * 2];
       for (int i=0; i<pixelBytes.length; i++) {
-        for (int j=0; j<s[0].length; j++) {
-          DataTools.unpackBytes(s[i][j], pixelBytes[i], j * 2, 2, little);
-        }
+        wrap(pixelBytes[i], little).asShortBuffer().put(s[i]);
       }
     }
     else if (pixels instanceof int[][]) {
@@ -1113,9 +1220,7 @@ public final class AWTImageTools {
       else {
         pixelBytes = new byte[in.length][in[0].length * 4];
         for (int i=0; i<pixelBytes.length; i++) {
-          for (int j=0; j<in[0].length; j++) {
-            DataTools.unpackBytes(in[i][j], pixelBytes[i], j * 4, 4, little);
-          }
+          wrap(pixelBytes[i], little).asIntBuffer().put(in[i]);
         }
       }
     }
@@ -1123,20 +1228,14 @@ public final class AWTImageTools {
       float[][] in = (float[][]) pixels;
       pixelBytes = new byte[in.length][in[0].length * 4];
       for (int i=0; i<pixelBytes.length; i++) {
-        for (int j=0; j<in[0].length; j++) {
-          int v = Float.floatToIntBits(in[i][j]);
-          DataTools.unpackBytes(v, pixelBytes[i], j * 4, 4, little);
-        }
+        wrap(pixelBytes[i], little).asFloatBuffer().put(in[i]);
       }
     }
     else if (pixels instanceof double[][]) {
       double[][] in = (double[][]) pixels;
       pixelBytes = new byte[in.length][in[0].length * 8];
       for (int i=0; i<pixelBytes.length; i++) {
-        for (int j=0; j<in[0].length; j++) {
-          long v = Double.doubleToLongBits(in[i][j]);
-          DataTools.unpackBytes(v, pixelBytes[i], j * 8, 8, little);
-        }
+        wrap(pixelBytes[i], little).asDoubleBuffer().put(in[i]);
       }
     }
 
@@ -1988,4 +2087,12 @@ public final class AWTImageTools {
     return lut;
   }
 
+  // -- Helper methods --
+
+  /** Wraps the given array in a ByteBuffer with the given byte order. */
+  private static ByteBuffer wrap(byte[] b, boolean little) {
+    return ByteBuffer.wrap(b).order(
+      little ? ByteOrder.LITTLE_ENDIAN : ByteOrder.BIG_ENDIAN);
+  }
+
 }
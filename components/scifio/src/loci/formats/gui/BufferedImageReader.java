@@ -40,6 +40,7 @@ import java.awt.image.BufferedImage;
 import java.io.IOException;
 
 import loci.formats.FormatException;
+import loci.formats.FormatTools;
 import loci.formats.IFormatReader;
 import loci.formats.ReaderWrapper;
 
@@ -62,6 +63,11 @@ public class BufferedImageReader extends ReaderWrapper {
     return new BufferedImageReader(r);
   }
 
+  // -- Fields --
+
+  /** Raw plane, for conversion into reused images of multi-byte types. */
+  private byte[] planeBuffer;
+
   // -- Constructors --
 
   /** Constructs a BufferedImageReader around a new image reader. */
@@ -95,6 +101,48 @@ public class BufferedImageReader extends ReaderWrapper {
     }
   }
 
+  /**
+   * Obtains the specified image from the current file, reusing the given
+   * image if possible.
+   *
+   * @see #openImage(int, BufferedImage, int, int, int, int)
+   */
+  public BufferedImage openImage(int no, BufferedImage img)
+    throws FormatException, IOException
+  {
+    return openImage(no, img, 0, 0, getSizeX(), getSizeY());
+  }
+
+  /**
+   * Obtains a sub-image of the specified image, whose upper-left corner is
+   * given by (x, y), reusing the given image if possible.  If the image was
+   * returned by an earlier call for a region of the same size, the plane is
+   * read directly into its pixel array and the same image is returned;
+   * otherwise, a new image is returned.
+   */
+  public BufferedImage openImage(int no, BufferedImage img,
+    int x, int y, int w, int h) throws FormatException, IOException
+  {
+    Object pixels = img == null ||
+      BufferedImage.class.isAssignableFrom(getNativeDataType()) ? null :
+      AWTImageTools.getReusablePixels(img, this, w, h);
+    if (pixels == null) return openImage(no, x, y, w, h);
+
+    if (pixels instanceof byte[]) {
+      openBytes(no, (byte[]) pixels, x, y, w, h);
+    }
+    else {
+      int size = w * h * getRGBChannelCount() *
+        FormatTools.getBytesPerPixel(getPixelType());
+      if (planeBuffer == null || planeBuffer.length != size) {
+        planeBuffer = new byte[size];
+      }
+      openBytes(no, planeBuffer, x, y, w, h);
+      AWTImageTools.unpackPixels(planeBuffer, pixels, isLittleEndian());
+    }
+    return img;
+  }
+
   /** Obtains a thumbnail for the specified image from the current file. */
   public BufferedImage openThumbImage(int no)
     throws FormatException, IOException
@@ -110,4 +158,12 @@ public class BufferedImageReader extends ReaderWrapper {
       getThumbSizeX(), getThumbSizeY());
   }
 
+  // -- IFormatReader API methods --
+
+  /* @see IFormatReader#close(boolean) */
+  public void close(boolean fileOnly) throws IOException {
+    super.close(fileOnly);
+    planeBuffer = null;
+  }
+
 }
@@ -40,9 +40,10 @@ import java.awt.image.BufferedImage;
 import java.io.IOException;
 
 import loci.formats.FormatException;
+import loci.formats.FormatTools;
 import loci.formats.IFormatReader;
 import loci.formats.cache.CacheException;
-import loci.formats.cache.ICacheSource;
+import loci.formats.cache.ISizedCacheSource;
 
 
 /**
@@ -52,7 +53,7 @@ import loci.formats.cache.ICacheSource;
  * <dd><a href="http://trac.openmicroscopy.org.uk/ome/browser/bioformats.git/components/bio-formats/src/loci/formats/gui/BufferedImageSource.java">Trac</a>,
  * <a href="http://git.openmicroscopy.org/?p=bioformats.git;a=blob;f=components/bio-formats/src/loci/formats/gui/BufferedImageSource.java;hb=HEAD">Gitweb</a></dd></dl>
  */
-public class BufferedImageSource implements ICacheSource {
+public class BufferedImageSource implements ISizedCacheSource {
 
   // -- Fields --
 
@@ -90,4 +91,11 @@ public class BufferedImageSource implements ICacheSource {
     return bi;
   }
 
+  // -- ISizedCacheSource API methods --
+
+  /* @see loci.formats.cache.ISizedCacheSource#getObjectSize(int) */
+  public long getObjectSize(int index) {
+    return FormatTools.getPlaneSize(reader);
+  }
+
 }
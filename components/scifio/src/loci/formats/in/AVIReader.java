@@ -76,6 +76,9 @@ public class AVIReader extends FormatReader {
   private static final int JPEG = 1196444237;
   private static final int Y8 = 538982489;
 
+  /** Flag set on key frames in the 'idx1' chunk. */
+  private static final int AVIIF_KEYFRAME = 0x10;
+
   /** Huffman table for MJPEG data. */
   private static final byte[] MJPEG_HUFFMAN_TABLE = new byte[] {
     (byte) 0xff, (byte) 0xc4, 1, (byte) 0xa2, 0, 0, 1, 5, 1, 1, 1, 1, 1, 1, 0,
@@ -155,6 +158,9 @@ public class AVIReader extends FormatReader {
   private byte[] lastImage;
   private int lastImageNo;
 
+  /** Key frames and decoded checkpoints for delta-encoded movies. */
+  private KeyframeIndex keyframeIndex;
+
   // -- Constructor --
 
   /** Constructs a new AVI reader. */
@@ -301,6 +307,7 @@ public class AVIReader extends FormatReader {
       lut = null;
       lastImage = null;
       lastImageNo = -1;
+      keyframeIndex = null;
     }
   }
 
@@ -375,6 +382,11 @@ public class AVIReader extends FormatReader {
 
     if (bmpCompression != 0) core[0].pixelType = FormatTools.UINT8;
 
+    if (bmpCompression == MSRLE || bmpCompression == MS_VIDEO) {
+      keyframeIndex = new KeyframeIndex(getImageCount(),
+        FormatTools.getPlaneSize(this), readKeyframes());
+    }
+
     MetadataStore store = makeFilterMetadata();
     MetadataTools.populatePixels(store, this);
   }
@@ -388,29 +400,42 @@ public class AVIReader extends FormatReader {
       buf = lastImage;
       return buf;
     }
+    if (bmpCompression == MSRLE || bmpCompression == MS_VIDEO) {
+      // decode forward from the closest frame that is already available
+      int keyframe = keyframeIndex.getKeyframe(no);
+      int checkpoint = keyframeIndex.getCheckpoint(no);
+      int start = keyframe;
+      byte[] previous = null;
+      if (checkpoint >= 0) {
+        start = checkpoint + 1;
+        previous = keyframeIndex.getCheckpointPixels(checkpoint);
+      }
+      if (lastImage != null && lastImageNo < no &&
+        lastImageNo >= Math.max(keyframe, checkpoint))
+      {
+        start = lastImageNo + 1;
+        previous = lastImage;
+      }
+      // the codecs may update the previous frame in place
+      lastImage = null;
+      lastImageNo = -1;
+      for (int frame=start; frame<=no; frame++) {
+        previous = uncompressDelta(frame, previous);
+        keyframeIndex.update(frame, previous);
+      }
+      lastImage = previous;
+      lastImageNo = no;
+      return previous;
+    }
+
     CodecOptions options = new CodecOptions();
     options.width = getSizeX();
     options.height = getSizeY();
-    options.previousImage = (lastImageNo == no - 1) ? lastImage : null;
     options.bitsPerSample = bmpBitsPerPixel;
     options.interleaved = isInterleaved();
     options.littleEndian = isLittleEndian();
 
-    if (bmpCompression == MSRLE) {
-      byte[] b = new byte[(int) lengths.get(no).longValue()];
-      in.read(b);
-      MSRLECodec codec = new MSRLECodec();
-      buf = codec.decompress(b, options);
-      lastImage = buf;
-      lastImageNo = no;
-    }
-    else if (bmpCompression == MS_VIDEO) {
-      MSVideoCodec codec = new MSVideoCodec();
-      buf = codec.decompress(in, options);
-      lastImage = buf;
-      lastImageNo = no;
-    }
-    else if (bmpCompression == JPEG) {
+    if (bmpCompression == JPEG) {
       JPEGCodec codec = new JPEGCodec();
 
       byte[] plane = new byte[(int) lengths.get(no).longValue()];
@@ -493,6 +518,73 @@ public class AVIReader extends FormatReader {
     return buf;
   }
 
+  /**
+   * Decodes a single MSRLE or MS Video frame,
+   * using the given pixels as the previous frame.
+   */
+  private byte[] uncompressDelta(int no, byte[] previous)
+    throws FormatException, IOException
+  {
+    CodecOptions options = new CodecOptions();
+    options.width = getSizeX();
+    options.height = getSizeY();
+    options.previousImage = previous;
+    options.bitsPerSample = bmpBitsPerPixel;
+    options.interleaved = isInterleaved();
+    options.littleEndian = isLittleEndian();
+
+    in.seek(offsets.get(no).longValue());
+    if (bmpCompression == MSRLE) {
+      byte[] b = new byte[(int) lengths.get(no).longValue()];
+      in.read(b);
+      return new MSRLECodec().decompress(b, options);
+    }
+    return new MSVideoCodec().decompress(in, options);
+  }
+
+  /**
+   * Reads the key frame flags from the 'idx1' chunk.
+   * Returns null if there is no index, or if it does not describe
+   * the same frames that were found in the 'movi' list.
+   */
+  private int[] readKeyframes() throws IOException {
+    long fp = in.getFilePointer();
+    try {
+      long offset = 12;
+      while (offset + 8 <= in.length()) {
+        in.seek(offset);
+        String chunk = in.readString(4);
+        long chunkSize = in.readInt() & 0xffffffffL;
+        if (chunk.equals("idx1")) {
+          int entries = (int) (Math.min(chunkSize, in.length() - offset - 8) /
+            16);
+          Vector<Integer> keyframes = new Vector<Integer>();
+          int frame = 0;
+          for (int i=0; i<entries; i++) {
+            String id = in.readString(4);
+            int flags = in.readInt();
+            in.skipBytes(8);
+            if (id.endsWith("db") || id.endsWith("dc")) {
+              if ((flags & AVIIF_KEYFRAME) != 0) keyframes.add(frame);
+              frame++;
+            }
+          }
+          if (frame != offsets.size()) return null;
+          int[] indices = new int[keyframes.size()];
+          for (int i=0; i<indices.length; i++) {
+            indices[i] = keyframes.get(i).intValue();
+          }
+          return indices;
+        }
+        offset += 8 + chunkSize + (chunkSize & 1);
+      }
+      return null;
+    }
+    finally {
+      in.seek(fp);
+    }
+  }
+
   private void readChunkHeader() throws IOException {
     readTypeAndSize();
     fcc = in.readString(4);
@@ -37,9 +37,18 @@
 package loci.formats.in;
 
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Hashtable;
+import java.util.List;
 import java.util.Vector;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import loci.common.DataTools;
 import loci.common.DateTools;
@@ -127,6 +136,17 @@ public class DicomReader extends FormatReader {
   private byte[][] lut;
   private short[][] shortLut;
   private long[] offsets;
+
+  /**
+   * Offset and length of each fragment of each frame, for encapsulated
+   * pixel data; null if the frame offsets were found by scanning.
+   */
+  private long[][] fragmentOffsets;
+  private int[][] fragmentLengths;
+
+  /** Offset of the first item of encapsulated pixel data. */
+  private long pixelDataOffset;
+
   private int maxPixelValue;
 
   private double rescaleSlope = 1.0, rescaleIntercept = 0.0;
@@ -149,6 +169,13 @@ public class DicomReader extends FormatReader {
 
   private DicomReader helper;
 
+  /** Number of threads used to decode frames in {@link #openPlanes}. */
+  private int threadCount = Runtime.getRuntime().availableProcessors();
+
+  private ExecutorService executor;
+  private FrameDecoder[] decoders;
+  private DicomReader[] helpers;
+
   private Vector<String> companionFiles = new Vector<String>();
 
   // -- Constructor --
@@ -165,6 +192,24 @@ public class DicomReader extends FormatReader {
     hasCompanionFiles = true;
   }
 
+  // -- DicomReader API methods --
+
+  /** Sets the number of threads used by {@link #openPlanes}. */
+  public void setThreadCount(int threads) {
+    if (threads < 1) {
+      throw new IllegalArgumentException("Invalid thread count: " + threads);
+    }
+    if (threads != threadCount) {
+      shutdownExecutor();
+      threadCount = threads;
+    }
+  }
+
+  /** Gets the number of threads used by {@link #openPlanes}. */
+  public int getThreadCount() {
+    return threadCount;
+  }
+
   // -- IFormatReader API methods --
 
   /* @see loci.formats.IFormatReader#isThisType(String, boolean) */
@@ -239,160 +284,132 @@ public class DicomReader extends FormatReader {
   {
     FormatTools.checkPlaneParameters(this, no, buf.length, x, y, w, h);
 
-    Integer[] keys = fileList.keySet().toArray(new Integer[0]);
-    Arrays.sort(keys);
-    if (fileList.get(keys[getSeries()]).size() > 1) {
+    Vector<String> files = getSeriesFiles();
+    if (files.size() > 1) {
       int fileNumber = no / imagesPerFile;
       no = no % imagesPerFile;
-      String file = fileList.get(keys[getSeries()]).get(fileNumber);
+      String file = files.get(fileNumber);
       helper.setId(file);
       return helper.openBytes(no, buf, x, y, w, h);
     }
 
-    int ec = isIndexed() ? 1 : getSizeC();
-    int bpp = FormatTools.getBytesPerPixel(getPixelType());
-    int bytes = getSizeX() * getSizeY() * bpp * ec;
-    in.seek(offsets[no]);
+    return readFrame(no, buf, x, y, w, h, getDecoders(1)[0]);
+  }
 
-    if (isRLE) {
-      // plane is compressed using run-length encoding
-      CodecOptions options = new CodecOptions();
-      options.maxBytes = getSizeX() * getSizeY();
-      for (int c=0; c<ec; c++) {
-        PackbitsCodec codec = new PackbitsCodec();
-        byte[] t = null;
+  /**
+   * Compressed frames, and the files of a multi-file series, are decoded
+   * on up to {@link #getThreadCount()} threads; each thread keeps its own
+   * codecs and helper reader across calls.
+   *
+   * @see loci.formats.IFormatReader#openPlanes(int, int, byte[], int, int,
+   *   int, int)
+   */
+  public byte[] openPlanes(int no, int count, byte[] buf, int x, int y,
+    int w, int h) throws FormatException, IOException
+  {
+    if (count < 1) {
+      throw new IllegalArgumentException("Invalid plane count: " + count);
+    }
+    FormatTools.checkPlaneParameters(this, no, -1, x, y, w, h);
+    FormatTools.checkPlaneNumber(this, no + count - 1);
+    final int planeSize = FormatTools.getPlaneSize(this, w, h);
+    if ((long) planeSize * count > buf.length) {
+      throw new FormatException("Buffer too small (got " + buf.length +
+        ", expected " + ((long) planeSize * count) + ").");
+    }
 
-        if (bpp > 1) {
-          int plane = bytes / (bpp * ec);
-          byte[][] tmp = new byte[bpp][];
-          for (int i=0; i<bpp; i++) {
-            tmp[i] = codec.decompress(in, options);
-            if (no < imagesPerFile - 1 || i < bpp - 1) {
-              while (in.read() == 0);
-              in.seek(in.getFilePointer() - 1);
-            }
+    // split the range into tasks; planes stored in the same file are read
+    // by the same task, so that each helper reader is initialized once
+    final Vector<String> files = getSeriesFiles();
+    final boolean multiFile = files.size() > 1;
+    boolean compressed = isRLE || isJPEG || isJP2K;
+    final Vector<int[]> tasks = new Vector<int[]>();
+    int start = no;
+    for (int plane=no; plane<no + count; plane++) {
+      boolean split = plane == no + count - 1 ||
+        (multiFile && (plane + 1) % imagesPerFile == 0) ||
+        (!multiFile && compressed);
+      if (split) {
+        tasks.add(new int[] {start, plane + 1});
+        start = plane + 1;
+      }
+    }
+
+    final int threads = Math.min(threadCount, tasks.size());
+    final FrameDecoder[] workers = getDecoders(threads);
+    final DicomReader[] helperReaders = multiFile ? getHelpers(threads) : null;
+    final AtomicInteger nextTask = new AtomicInteger();
+    final int first = no;
+    final byte[] dest = buf;
+    final int tx = x, ty = y, tw = w, th = h;
+
+    List<Callable<Object>> jobs = new ArrayList<Callable<Object>>();
+    for (int i=0; i<threads; i++) {
+      final FrameDecoder decoder = workers[i];
+      final DicomReader reader = multiFile ? helperReaders[i] : null;
+      jobs.add(new Callable<Object>() {
+        public Object call() throws FormatException, IOException {
+          if (decoder.plane == null || decoder.plane.length != planeSize) {
+            decoder.plane = new byte[planeSize];
           }
-          t = new byte[bytes / ec];
-          for (int i=0; i<plane; i++) {
-            for (int j=0; j<bpp; j++) {
-              int byteIndex = isLittleEndian() ? bpp - j - 1 : j;
-              if (i < tmp[byteIndex].length) {
-                t[i * bpp + j] = tmp[byteIndex][i];
+          int task;
+          while ((task = nextTask.getAndIncrement()) < tasks.size()) {
+            int[] range = tasks.get(task);
+            for (int plane=range[0]; plane<range[1]; plane++) {
+              if (reader == null) {
+                readFrame(plane, decoder.plane, tx, ty, tw, th, decoder);
+              }
+              else {
+                reader.setId(files.get(plane / imagesPerFile));
+                reader.openBytes(plane % imagesPerFile, decoder.plane,
+                  tx, ty, tw, th);
               }
+              System.arraycopy(decoder.plane, 0, dest,
+                (plane - first) * planeSize, planeSize);
             }
           }
+          return null;
         }
-        else {
-          t = codec.decompress(in, options);
-          if (t.length < (bytes / ec)) {
-            byte[] tmp = t;
-            t = new byte[bytes / ec];
-            System.arraycopy(tmp, 0, t, 0, tmp.length);
-          }
-          if (no < imagesPerFile - 1 || c < ec - 1) {
-            while (in.read() == 0);
-            in.seek(in.getFilePointer() - 1);
-          }
-        }
-
-        int rowLen = w * bpp;
-        int srcRowLen = getSizeX() * bpp;
-
-        int srcPlane = getSizeY() * srcRowLen;
-
-        for (int row=0; row<h; row++) {
-          int src = (row + y) * srcRowLen + x * bpp;
-          int dest = (h * c + row) * rowLen;
-          int len = (int) Math.min(rowLen, t.length - src - 1);
-          if (len < 0) break;
-          System.arraycopy(t, src, buf, dest, len);
-        }
-      }
+      });
     }
-    else if (isJPEG || isJP2K) {
-      // plane is compressed using JPEG or JPEG-2000
-      long end = no < offsets.length - 1 ? offsets[no + 1] : in.length();
-      byte[] b = new byte[(int) (end - in.getFilePointer())];
-      in.read(b);
 
-      if (b[2] != (byte) 0xff) {
-        byte[] tmp = new byte[b.length + 1];
-        tmp[0] = b[0];
-        tmp[1] = b[1];
-        tmp[2] = (byte) 0xff;
-        System.arraycopy(b, 2, tmp, 3, b.length - 2);
-        b = tmp;
+    if (threads == 1) {
+      try {
+        jobs.get(0).call();
       }
-      if ((b[3] & 0xff) >= 0xf0) {
-        b[3] -= (byte) 0x30;
+      catch (FormatException e) {
+        throw e;
       }
-
-      int pt = b.length - 2;
-      while (pt >= 0 && b[pt] != (byte) 0xff || b[pt + 1] != (byte) 0xd9) {
-        pt--;
+      catch (IOException e) {
+        throw e;
       }
-      if (pt < b.length - 2) {
-        byte[] tmp = b;
-        b = new byte[pt + 2];
-        System.arraycopy(tmp, 0, b, 0, b.length);
+      catch (Exception e) {
+        throw new FormatException(e);
       }
+      return buf;
+    }
 
-      Codec codec = null;
-      CodecOptions options = new CodecOptions();
-      options.littleEndian = isLittleEndian();
-      options.interleaved = isInterleaved();
-      if (isJPEG) codec = new JPEGCodec();
-      else codec = new JPEG2000Codec();
-      b = codec.decompress(b, options);
-
-      int rowLen = w * bpp;
-      int srcRowLen = getSizeX() * bpp;
-
-      int srcPlane = getSizeY() * srcRowLen;
-
-      for (int c=0; c<ec; c++) {
-        for (int row=0; row<h; row++) {
-          System.arraycopy(b, c * srcPlane + (row + y) * srcRowLen + x * bpp,
-            buf, h * rowLen * c + row * rowLen, rowLen);
-        }
-      }
+    List<Future<Object>> results;
+    try {
+      results = getExecutor().invokeAll(jobs);
     }
-    else if (isDeflate) {
-      // TODO
-      throw new UnsupportedCompressionException(
-        "Deflate data is not supported.");
+    catch (InterruptedException e) {
+      throw new FormatException(e);
     }
-    else {
-      // plane is not compressed
-      readPlane(in, x, y, w, h, buf);
-    }
-
-    if (inverted) {
-      // pixels are stored such that white -> 0; invert the values so that
-      // white -> 255 (or 65535)
-      if (bpp == 1) {
-        for (int i=0; i<buf.length; i++) {
-          buf[i] = (byte) (255 - buf[i]);
-        }
-      }
-      else if (bpp == 2) {
-        if (maxPixelValue == -1) maxPixelValue = 65535;
-        boolean little = isLittleEndian();
-        for (int i=0; i<buf.length; i+=2) {
-          short s = DataTools.bytesToShort(buf, i, 2, little);
-          DataTools.unpackBytes(maxPixelValue - s, buf, i, 2, little);
-        }
-      }
+    for (Future<Object> result : results) {
+      waitFor(result);
     }
-
-    // NB: do *not* apply the rescale function
-
     return buf;
   }
 
   /* @see loci.formats.IFormatReader#close(boolean) */
   public void close(boolean fileOnly) throws IOException {
     super.close(fileOnly);
+    if (helpers != null) {
+      for (int i=1; i<helpers.length; i++) {
+        helpers[i].close(fileOnly);
+      }
+    }
     if (helper != null) helper.close(fileOnly);
     if (!fileOnly) {
       bitsPerPixel = location = elementLength = vr = 0;
@@ -400,6 +417,9 @@ public class DicomReader extends FormatReader {
       isJPEG = isJP2K = isRLE = isDeflate = false;
       lut = null;
       offsets = null;
+      fragmentOffsets = null;
+      fragmentLengths = null;
+      pixelDataOffset = 0;
       shortLut = null;
       maxPixelValue = 0;
       rescaleSlope = 1.0;
@@ -413,6 +433,9 @@ public class DicomReader extends FormatReader {
       originalDate = originalTime = originalInstance = null;
       originalSeries = 0;
       helper = null;
+      helpers = null;
+      decoders = null;
+      shutdownExecutor();
       companionFiles.clear();
     }
   }
@@ -443,6 +466,9 @@ public class DicomReader extends FormatReader {
     vr = 0;
     lut = null;
     offsets = null;
+    fragmentOffsets = null;
+    fragmentLengths = null;
+    pixelDataOffset = 0;
     inverted = false;
 
     // some DICOM files have a 128 byte header followed by a 4 byte identifier
@@ -618,55 +644,80 @@ public class DicomReader extends FormatReader {
     }
 
     offsets = new long[imagesPerFile];
-    for (int i=0; i<imagesPerFile; i++) {
+    boolean indexed =
+      (isRLE || isJPEG || isJP2K) && readFragmentTable(pixelDataOffset);
+
+    // each frame starts at its first fragment; RLE fragments begin with a
+    // 64 byte header that is followed by zero padding, and JPEG fragments
+    // must start with a marker or else the stream is scanned as before
+    for (int i=0; indexed && i<imagesPerFile; i++) {
+      offsets[i] = fragmentOffsets[i][0];
       if (isRLE) {
-        if (i == 0) in.seek(baseOffset);
-        else {
-          in.seek(offsets[i - 1]);
-          CodecOptions options = new CodecOptions();
-          options.maxBytes = plane / bpp;
-          for (int q=0; q<bpp; q++) {
-            new PackbitsCodec().decompress(in, options);
-            while (in.read() == 0);
-            in.seek(in.getFilePointer() - 1);
-          }
-        }
-        in.skipBytes(i == 0 ? 64 : 53);
+        in.seek(offsets[i] + 64);
         while (in.read() == 0);
         offsets[i] = in.getFilePointer() - 1;
       }
-      else if (isJPEG || isJP2K) {
-        // scan for next JPEG magic byte sequence
-        if (i == 0) offsets[i] = baseOffset;
-        else offsets[i] = offsets[i - 1] + 3;
-
-        byte secondCheck = isJPEG ? (byte) 0xd8 : (byte) 0x4f;
-
+      else {
         in.seek(offsets[i]);
-        byte[] buf = new byte[8192];
-        int n = in.read(buf);
-        boolean found = false;
-        while (!found) {
-          for (int q=0; q<n-2; q++) {
-            if (buf[q] == (byte) 0xff && buf[q + 1] == secondCheck &&
-              buf[q + 2] == (byte) 0xff)
-            {
-              if (isJPEG || (isJP2K && buf[q + 3] == 0x51)) {
-                found = true;
-                offsets[i] = in.getFilePointer() + q - n;
-                break;
-              }
+        if (in.readByte() != (byte) 0xff) {
+          indexed = false;
+          fragmentOffsets = null;
+          fragmentLengths = null;
+        }
+      }
+    }
+
+    if (!indexed) {
+      for (int i=0; i<imagesPerFile; i++) {
+        if (isRLE) {
+          if (i == 0) in.seek(baseOffset);
+          else {
+            in.seek(offsets[i - 1]);
+            CodecOptions options = new CodecOptions();
+            options.maxBytes = plane / bpp;
+            for (int q=0; q<bpp; q++) {
+              new PackbitsCodec().decompress(in, options);
+              while (in.read() == 0);
+              in.seek(in.getFilePointer() - 1);
             }
           }
-          if (!found) {
-            for (int q=0; q<4; q++) {
-              buf[q] = buf[buf.length + q - 4];
+          in.skipBytes(i == 0 ? 64 : 53);
+          while (in.read() == 0);
+          offsets[i] = in.getFilePointer() - 1;
+        }
+        else if (isJPEG || isJP2K) {
+          // scan for next JPEG magic byte sequence
+          if (i == 0) offsets[i] = baseOffset;
+          else offsets[i] = offsets[i - 1] + 3;
+
+          byte secondCheck = isJPEG ? (byte) 0xd8 : (byte) 0x4f;
+
+          in.seek(offsets[i]);
+          byte[] buf = new byte[8192];
+          int n = in.read(buf);
+          boolean found = false;
+          while (!found) {
+            for (int q=0; q<n-2; q++) {
+              if (buf[q] == (byte) 0xff && buf[q + 1] == secondCheck &&
+                buf[q + 2] == (byte) 0xff)
+              {
+                if (isJPEG || (isJP2K && buf[q + 3] == 0x51)) {
+                  found = true;
+                  offsets[i] = in.getFilePointer() + q - n;
+                  break;
+                }
+              }
+            }
+            if (!found) {
+              for (int q=0; q<4; q++) {
+                buf[q] = buf[buf.length + q - 4];
+              }
+              n = in.read(buf, 4, buf.length - 4) + 4;
             }
-            n = in.read(buf, 4, buf.length - 4) + 4;
           }
         }
+        else offsets[i] = baseOffset + plane*i;
       }
-      else offsets[i] = baseOffset + plane*i;
     }
 
     makeFileList();
@@ -754,6 +805,372 @@ public class DicomReader extends FormatReader {
 
   // -- Helper methods --
 
+  /** Gets the list of files that make up the current series. */
+  private Vector<String> getSeriesFiles() {
+    Integer[] keys = fileList.keySet().toArray(new Integer[0]);
+    Arrays.sort(keys);
+    return fileList.get(keys[getSeries()]);
+  }
+
+  /**
+   * Decodes the given frame of the current file into buf.  All reads from
+   * the underlying stream are synchronized, so this may be called from
+   * several threads as long as each passes its own decoder.
+   */
+  private byte[] readFrame(int no, byte[] buf, int x, int y, int w, int h,
+    FrameDecoder decoder) throws FormatException, IOException
+  {
+    int ec = isIndexed() ? 1 : getSizeC();
+    int bpp = FormatTools.getBytesPerPixel(getPixelType());
+    int bytes = getSizeX() * getSizeY() * bpp * ec;
+
+    if (isRLE) {
+      // plane is compressed using run-length encoding
+      RandomAccessInputStream s =
+        new RandomAccessInputStream(readCompressedFrame(no));
+      CodecOptions options = new CodecOptions();
+      options.maxBytes = getSizeX() * getSizeY();
+      for (int c=0; c<ec; c++) {
+        PackbitsCodec codec = decoder.packbits;
+        byte[] t = null;
+
+        if (bpp > 1) {
+          int plane = bytes / (bpp * ec);
+          byte[][] tmp = new byte[bpp][];
+          for (int i=0; i<bpp; i++) {
+            tmp[i] = codec.decompress(s, options);
+            if (no < imagesPerFile - 1 || i < bpp - 1) {
+              skipPadding(s);
+            }
+          }
+          t = new byte[bytes / ec];
+          for (int i=0; i<plane; i++) {
+            for (int j=0; j<bpp; j++) {
+              int byteIndex = isLittleEndian() ? bpp - j - 1 : j;
+              if (i < tmp[byteIndex].length) {
+                t[i * bpp + j] = tmp[byteIndex][i];
+              }
+            }
+          }
+        }
+        else {
+          t = codec.decompress(s, options);
+          if (t.length < (bytes / ec)) {
+            byte[] tmp = t;
+            t = new byte[bytes / ec];
+            System.arraycopy(tmp, 0, t, 0, tmp.length);
+          }
+          if (no < imagesPerFile - 1 || c < ec - 1) {
+            skipPadding(s);
+          }
+        }
+
+        int rowLen = w * bpp;
+        int srcRowLen = getSizeX() * bpp;
+
+        for (int row=0; row<h; row++) {
+          int src = (row + y) * srcRowLen + x * bpp;
+          int dest = (h * c + row) * rowLen;
+          int len = Math.min(rowLen, t.length - src);
+          if (len < 0) break;
+          System.arraycopy(t, src, buf, dest, len);
+        }
+      }
+      s.close();
+    }
+    else if (isJPEG || isJP2K) {
+      // plane is compressed using JPEG or JPEG-2000
+      byte[] b = readCompressedFrame(no);
+
+      if (b[2] != (byte) 0xff) {
+        byte[] tmp = new byte[b.length + 1];
+        tmp[0] = b[0];
+        tmp[1] = b[1];
+        tmp[2] = (byte) 0xff;
+        System.arraycopy(b, 2, tmp, 3, b.length - 2);
+        b = tmp;
+      }
+      if ((b[3] & 0xff) >= 0xf0) {
+        b[3] -= (byte) 0x30;
+      }
+
+      int pt = b.length - 2;
+      while (pt >= 0 && b[pt] != (byte) 0xff || b[pt + 1] != (byte) 0xd9) {
+        pt--;
+      }
+      if (pt < b.length - 2) {
+        byte[] tmp = b;
+        b = new byte[pt + 2];
+        System.arraycopy(tmp, 0, b, 0, b.length);
+      }
+
+      CodecOptions options = new CodecOptions();
+      options.littleEndian = isLittleEndian();
+      options.interleaved = isInterleaved();
+      Codec codec =
+        isJPEG ? decoder.getJPEGCodec() : decoder.getJPEG2000Codec();
+      b = codec.decompress(b, options);
+
+      int rowLen = w * bpp;
+      int srcRowLen = getSizeX() * bpp;
+
+      int srcPlane = getSizeY() * srcRowLen;
+
+      for (int c=0; c<ec; c++) {
+        for (int row=0; row<h; row++) {
+          System.arraycopy(b, c * srcPlane + (row + y) * srcRowLen + x * bpp,
+            buf, h * rowLen * c + row * rowLen, rowLen);
+        }
+      }
+    }
+    else if (isDeflate) {
+      // TODO
+      throw new UnsupportedCompressionException(
+        "Deflate data is not supported.");
+    }
+    else {
+      // plane is not compressed
+      synchronized (in) {
+        in.seek(offsets[no]);
+        readPlane(in, x, y, w, h, buf);
+      }
+    }
+
+    if (inverted) {
+      // pixels are stored such that white -> 0; invert the values so that
+      // white -> 255 (or 65535)
+      if (bpp == 1) {
+        for (int i=0; i<buf.length; i++) {
+          buf[i] = (byte) (255 - buf[i]);
+        }
+      }
+      else if (bpp == 2) {
+        int max = maxPixelValue == -1 ? 65535 : maxPixelValue;
+        boolean little = isLittleEndian();
+        for (int i=0; i<buf.length; i+=2) {
+          short s = DataTools.bytesToShort(buf, i, 2, little);
+          DataTools.unpackBytes(max - s, buf, i, 2, little);
+        }
+      }
+    }
+
+    // NB: do *not* apply the rescale function
+
+    return buf;
+  }
+
+  /**
+   * Reads the compressed bytes of the given frame.  If the fragment table
+   * is available, only the frame's own fragments are read and the item
+   * headers between them are left out; otherwise the frame is assumed to
+   * extend up to the start of the next frame.
+   */
+  private byte[] readCompressedFrame(int no) throws IOException {
+    synchronized (in) {
+      if (fragmentOffsets == null) {
+        long end = no < offsets.length - 1 ? offsets[no + 1] : in.length();
+        byte[] b = new byte[(int) (end - offsets[no])];
+        in.seek(offsets[no]);
+        in.read(b);
+        return b;
+      }
+
+      long[] fragments = fragmentOffsets[no];
+      int[] lengths = fragmentLengths[no];
+      int skip = (int) (offsets[no] - fragments[0]);
+      int total = -skip;
+      for (int length : lengths) total += length;
+      byte[] b = new byte[total];
+      int pos = 0;
+      for (int i=0; i<fragments.length; i++) {
+        int off = i == 0 ? skip : 0;
+        in.seek(fragments[i] + off);
+        in.readFully(b, pos, lengths[i] - off);
+        pos += lengths[i] - off;
+      }
+      return b;
+    }
+  }
+
+  /** Skips the zero padding that follows an RLE segment. */
+  private void skipPadding(RandomAccessInputStream s) throws IOException {
+    while (s.getFilePointer() < s.length()) {
+      if (s.read() != 0) {
+        s.seek(s.getFilePointer() - 1);
+        break;
+      }
+    }
+  }
+
+  /**
+   * Builds the frame to fragment table for encapsulated pixel data, by
+   * walking the item headers that follow the basic offset table at the
+   * given offset.  Fragments are assigned to frames using the basic offset
+   * table if it is present, or one fragment per frame otherwise.
+   *
+   * @return false if the items cannot be matched to the frames, in which
+   *   case the frame offsets must be found by scanning the pixel data.
+   */
+  private boolean readFragmentTable(long start) throws IOException {
+    fragmentOffsets = null;
+    fragmentLengths = null;
+    if (start <= 0 || start + 8 > in.length()) return false;
+
+    // encapsulated pixel data is always little-endian
+    boolean little = in.isLittleEndian();
+    in.order(true);
+    try {
+      in.seek(start);
+      if (readItemTag() != ITEM) return false;
+      int tableLength = in.readInt();
+      if (tableLength < 0 || (tableLength % 4) != 0 ||
+        in.getFilePointer() + tableLength > in.length())
+      {
+        return false;
+      }
+      long[] table = new long[tableLength / 4];
+      for (int i=0; i<table.length; i++) {
+        table[i] = in.readInt() & 0xffffffffL;
+      }
+      long firstItem = in.getFilePointer();
+
+      Vector<Long> items = new Vector<Long>();
+      Vector<Integer> lengths = new Vector<Integer>();
+      while (in.getFilePointer() + 8 <= in.length()) {
+        long fp = in.getFilePointer();
+        if (readItemTag() != ITEM) break;
+        int length = in.readInt();
+        if (length < 0 || fp + 8 + length > in.length()) return false;
+        items.add(fp);
+        lengths.add(length);
+        in.seek(fp + 8 + length);
+      }
+
+      int[] firstFragment = new int[imagesPerFile + 1];
+      firstFragment[imagesPerFile] = items.size();
+      if (table.length == imagesPerFile) {
+        int fragment = 0;
+        for (int i=0; i<imagesPerFile; i++) {
+          long item = firstItem + table[i];
+          while (fragment < items.size() && items.get(fragment) < item) {
+            fragment++;
+          }
+          if (fragment == items.size() || items.get(fragment) != item ||
+            (i > 0 && fragment == firstFragment[i - 1]))
+          {
+            return false;
+          }
+          firstFragment[i] = fragment;
+        }
+      }
+      else if (items.size() == imagesPerFile) {
+        for (int i=0; i<imagesPerFile; i++) {
+          firstFragment[i] = i;
+        }
+      }
+      else if (imagesPerFile != 1 || items.size() == 0) return false;
+
+      fragmentOffsets = new long[imagesPerFile][];
+      fragmentLengths = new int[imagesPerFile][];
+      for (int i=0; i<imagesPerFile; i++) {
+        int n = firstFragment[i + 1] - firstFragment[i];
+        fragmentOffsets[i] = new long[n];
+        fragmentLengths[i] = new int[n];
+        for (int q=0; q<n; q++) {
+          fragmentOffsets[i][q] = items.get(firstFragment[i] + q) + 8;
+          fragmentLengths[i][q] = lengths.get(firstFragment[i] + q);
+        }
+      }
+      return true;
+    }
+    finally {
+      in.order(little);
+    }
+  }
+
+  /** Reads the group and element words of an item tag. */
+  private int readItemTag() throws IOException {
+    int groupWord = in.readShort() & 0xffff;
+    int elementWord = in.readShort() & 0xffff;
+    return (groupWord << 16) | elementWord;
+  }
+
+  /** Gets at least the given number of per-thread frame decoders. */
+  private FrameDecoder[] getDecoders(int count) {
+    if (decoders == null || decoders.length < count) {
+      FrameDecoder[] d = new FrameDecoder[count];
+      int n = decoders == null ? 0 : decoders.length;
+      if (n > 0) System.arraycopy(decoders, 0, d, 0, n);
+      for (int i=n; i<count; i++) {
+        d[i] = new FrameDecoder();
+      }
+      decoders = d;
+    }
+    return decoders;
+  }
+
+  /**
+   * Gets at least the given number of helper readers for multi-file series;
+   * the first is always {@link #helper}.
+   */
+  private DicomReader[] getHelpers(int count) {
+    if (helpers == null || helpers.length < count) {
+      DicomReader[] h = new DicomReader[count];
+      int n = helpers == null ? 0 : helpers.length;
+      if (n > 0) System.arraycopy(helpers, 0, h, 0, n);
+      else {
+        h[0] = helper;
+        n = 1;
+      }
+      for (int i=n; i<count; i++) {
+        h[i] = new DicomReader();
+        h[i].setGroupFiles(false);
+      }
+      helpers = h;
+    }
+    return helpers;
+  }
+
+  private ExecutorService getExecutor() {
+    if (executor == null) {
+      executor = Executors.newFixedThreadPool(threadCount,
+        new ThreadFactory() {
+          public Thread newThread(Runnable r) {
+            Thread t = new Thread(r, "DICOM-Frame-Decoder");
+            t.setDaemon(true);
+            return t;
+          }
+        });
+    }
+    return executor;
+  }
+
+  private void shutdownExecutor() {
+    if (executor != null) {
+      executor.shutdown();
+      executor = null;
+    }
+  }
+
+  private static void waitFor(Future<Object> f)
+    throws FormatException, IOException
+  {
+    try {
+      f.get();
+    }
+    catch (InterruptedException exc) {
+      throw new FormatException(exc);
+    }
+    catch (ExecutionException exc) {
+      Throwable cause = exc.getCause();
+      if (cause instanceof FormatException) throw (FormatException) cause;
+      if (cause instanceof IOException) throw (IOException) cause;
+      if (cause instanceof RuntimeException) throw (RuntimeException) cause;
+      if (cause instanceof Error) throw (Error) cause;
+      throw new FormatException(cause);
+    }
+  }
+
   private void addInfo(int tag, String value) throws IOException {
     String oldValue = value;
     String info = getHeaderInfo(tag, value);
@@ -1030,6 +1447,8 @@ public class DicomReader extends FormatReader {
     }
 
     if (elementLength < 0 && groupWord == 0x7fe0) {
+      // encapsulated pixel data; remember where the item sequence starts
+      pixelDataOffset = stream.getFilePointer();
       stream.skipBytes(12);
       elementLength = stream.readInt();
       if (elementLength < 0) elementLength = stream.readInt();
@@ -1887,4 +2306,27 @@ public class DicomReader extends FormatReader {
     return dict;
   }
 
+  // -- Helper classes --
+
+  /**
+   * Codecs and scratch space for one decoding thread, so that consecutive
+   * frames decoded on the same thread reuse the same codec instances.
+   */
+  private static class FrameDecoder {
+    private PackbitsCodec packbits = new PackbitsCodec();
+    private JPEGCodec jpeg;
+    private JPEG2000Codec jpeg2000;
+    private byte[] plane;
+
+    public Codec getJPEGCodec() {
+      if (jpeg == null) jpeg = new JPEGCodec();
+      return jpeg;
+    }
+
+    public Codec getJPEG2000Codec() {
+      if (jpeg2000 == null) jpeg2000 = new JPEG2000Codec();
+      return jpeg2000;
+    }
+  }
+
 }
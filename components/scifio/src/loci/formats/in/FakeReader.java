@@ -129,95 +129,23 @@ public class FakeReader extends FormatReader {
     throws FormatException, IOException
   {
     FormatTools.checkPlaneParameters(this, no, buf.length, x, y, w, h);
+    fillPlane(no, buf, 0, x, y, w, h);
+    return buf;
+  }
 
-    final int series = getSeries();
-    final int pixelType = getPixelType();
-    final int bpp = FormatTools.getBytesPerPixel(pixelType);
-    final boolean signed = FormatTools.isSigned(pixelType);
-    final boolean floating = FormatTools.isFloatingPoint(pixelType);
-    final int rgb = getRGBChannelCount();
-    final boolean indexed = isIndexed();
-    final boolean little = isLittleEndian();
-    final boolean interleaved = isInterleaved();
-
-    final int[] zct = getZCTCoords(no);
-    final int zIndex = zct[0], cIndex = zct[1], tIndex = zct[2];
-    ac = cIndex;
-
-    // integer types start gradient at the smallest value
-    long min = signed ? (long) -Math.pow(2, 8 * bpp - 1) : 0;
-    if (floating) min = 0; // floating point types always start at 0
-
-    for (int cOffset=0; cOffset<rgb; cOffset++) {
-      int channel = rgb * cIndex + cOffset;
-      for (int row=0; row<h; row++) {
-        int yy = y + row;
-        for (int col=0; col<w; col++) {
-          int xx = x + col;
-          long pixel = min + xx;
-
-          // encode various information into the image plane
-          boolean specialPixel = false;
-          if (yy < BOX_SIZE) {
-            int grid = xx / BOX_SIZE;
-            specialPixel = true;
-            switch (grid) {
-              case 0:
-                pixel = series;
-                break;
-              case 1:
-                pixel = no;
-                break;
-              case 2:
-                pixel = zIndex;
-                break;
-              case 3:
-                pixel = channel;
-                break;
-              case 4:
-                pixel = tIndex;
-                break;
-              default:
-                // just a normal pixel in the gradient
-                specialPixel = false;
-            }
-          }
-
-          // if indexed color with non-null LUT, convert value to index
-          if (indexed) {
-            if (lut8 != null) pixel = valueToIndex[ac][(int) (pixel % 256)];
-            if (lut16 != null) pixel = valueToIndex[ac][(int) (pixel % 65536)];
-          }
-
-          // scale pixel value by the scale factor
-          // if floating point, convert value to raw IEEE floating point bits
-          switch (pixelType) {
-            case FormatTools.FLOAT:
-              float floatPixel;
-              if (specialPixel) floatPixel = pixel;
-              else floatPixel = (float) (scaleFactor * pixel);
-              pixel = Float.floatToIntBits(floatPixel);
-              break;
-            case FormatTools.DOUBLE:
-              double doublePixel;
-              if (specialPixel) doublePixel = pixel;
-              else doublePixel = scaleFactor * pixel;
-              pixel = Double.doubleToLongBits(doublePixel);
-              break;
-            default:
-              if (!specialPixel) pixel = (long) (scaleFactor * pixel);
-          }
+  /* @see IFormatReader#openPlanes(int, int, byte[], int, int, int, int) */
+  @Override
+  public byte[] openPlanes(int no, int count, byte[] buf,
+    int x, int y, int w, int h) throws FormatException, IOException
+  {
+    int[] planes = FormatTools.getPlaneIndexes(no, count);
+    FormatTools.checkPlaneParameters(this, planes, buf.length, x, y, w, h);
 
-          // unpack pixel into byte buffer
-          int index;
-          if (interleaved) index = w * rgb * row + rgb * col + cOffset; // CXY
-          else index = h * w * cOffset + w * row + col; // XYC
-          index *= bpp;
-          DataTools.unpackBytes(pixel, buf, index, bpp, little);
-        }
-      }
+    // generate each plane directly into its slot of the caller's buffer
+    int planeSize = FormatTools.getPlaneSize(this, w, h);
+    for (int i=0; i<count; i++) {
+      fillPlane(no + i, buf, i * planeSize, x, y, w, h);
     }
-
     return buf;
   }
 
@@ -403,6 +331,102 @@ public class FakeReader extends FormatReader {
 
   // -- Helper methods --
 
+  /**
+   * Generates the given region of the given plane into the buffer,
+   * starting at the specified offset.
+   */
+  private void fillPlane(int no, byte[] buf, int offset,
+    int x, int y, int w, int h)
+  {
+    final int series = getSeries();
+    final int pixelType = getPixelType();
+    final int bpp = FormatTools.getBytesPerPixel(pixelType);
+    final boolean signed = FormatTools.isSigned(pixelType);
+    final boolean floating = FormatTools.isFloatingPoint(pixelType);
+    final int rgb = getRGBChannelCount();
+    final boolean indexed = isIndexed();
+    final boolean little = isLittleEndian();
+    final boolean interleaved = isInterleaved();
+
+    final int[] zct = getZCTCoords(no);
+    final int zIndex = zct[0], cIndex = zct[1], tIndex = zct[2];
+    ac = cIndex;
+
+    // integer types start gradient at the smallest value
+    long min = signed ? (long) -Math.pow(2, 8 * bpp - 1) : 0;
+    if (floating) min = 0; // floating point types always start at 0
+
+    for (int cOffset=0; cOffset<rgb; cOffset++) {
+      int channel = rgb * cIndex + cOffset;
+      for (int row=0; row<h; row++) {
+        int yy = y + row;
+        for (int col=0; col<w; col++) {
+          int xx = x + col;
+          long pixel = min + xx;
+
+          // encode various information into the image plane
+          boolean specialPixel = false;
+          if (yy < BOX_SIZE) {
+            int grid = xx / BOX_SIZE;
+            specialPixel = true;
+            switch (grid) {
+              case 0:
+                pixel = series;
+                break;
+              case 1:
+                pixel = no;
+                break;
+              case 2:
+                pixel = zIndex;
+                break;
+              case 3:
+                pixel = channel;
+                break;
+              case 4:
+                pixel = tIndex;
+                break;
+              default:
+                // just a normal pixel in the gradient
+                specialPixel = false;
+            }
+          }
+
+          // if indexed color with non-null LUT, convert value to index
+          if (indexed) {
+            if (lut8 != null) pixel = valueToIndex[ac][(int) (pixel % 256)];
+            if (lut16 != null) pixel = valueToIndex[ac][(int) (pixel % 65536)];
+          }
+
+          // scale pixel value by the scale factor
+          // if floating point, convert value to raw IEEE floating point bits
+          switch (pixelType) {
+            case FormatTools.FLOAT:
+              float floatPixel;
+              if (specialPixel) floatPixel = pixel;
+              else floatPixel = (float) (scaleFactor * pixel);
+              pixel = Float.floatToIntBits(floatPixel);
+              break;
+            case FormatTools.DOUBLE:
+              double doublePixel;
+              if (specialPixel) doublePixel = pixel;
+              else doublePixel = scaleFactor * pixel;
+              pixel = Double.doubleToLongBits(doublePixel);
+              break;
+            default:
+              if (!specialPixel) pixel = (long) (scaleFactor * pixel);
+          }
+
+          // unpack pixel into byte buffer
+          int index;
+          if (interleaved) index = w * rgb * row + rgb * col + cOffset; // CXY
+          else index = h * w * cOffset + w * row + col; // XYC
+          index = offset + index * bpp;
+          DataTools.unpackBytes(pixel, buf, index, bpp, little);
+        }
+      }
+    }
+  }
+
   /** Creates a mapping between indices and color values. */
   private void createIndexMap(int num) {
     int sizeC = core[0].sizeC;
@@ -701,14 +701,7 @@ public class ICSReader extends FormatReader {
     }
 
     if (invertY) {
-      byte[] row = new byte[rowLen];
-      for (int r=0; r<h/2; r++) {
-        int topOffset = r * rowLen;
-        int bottomOffset = (h - r - 1) * rowLen;
-        System.arraycopy(buf, topOffset, row, 0, rowLen);
-        System.arraycopy(buf, bottomOffset, buf, topOffset, rowLen);
-        System.arraycopy(row, 0, buf, bottomOffset, rowLen);
-      }
+      flipRows(buf, 0, rowLen, h);
     }
 
     prevImage = no;
@@ -716,6 +709,36 @@ public class ICSReader extends FormatReader {
     return buf;
   }
 
+  /* @see IFormatReader#openPlanes(int, int, byte[], int, int, int, int) */
+  public byte[] openPlanes(int no, int count, byte[] buf, int x, int y,
+    int w, int h) throws FormatException, IOException
+  {
+    FormatTools.checkPlaneParameters(this,
+      FormatTools.getPlaneIndexes(no, count), buf.length, x, y, w, h);
+
+    // compressed data and separated channels are read one plane at a time
+    int sizeC = lifetime ? 1 : getSizeC();
+    if (gzip ||
+      (!isRGB() && sizeC > 4 && channelLengths.size() == 1 && storedRGB))
+    {
+      return super.openPlanes(no, count, buf, x, y, w, h);
+    }
+
+    long len = FormatTools.getPlaneSize(this);
+    readPlanes(in, offset + no * len, len, count, x, y, w, h, buf);
+
+    if (invertY) {
+      int rowLen = FormatTools.getPlaneSize(this, w, 1);
+      for (int i=0; i<count; i++) {
+        flipRows(buf, i * rowLen * h, rowLen, h);
+      }
+    }
+
+    prevImage = no + count - 1;
+
+    return buf;
+  }
+
   /* @see loci.formats.IFormatReader#getSeriesUsedFiles(boolean) */
   public String[] getSeriesUsedFiles(boolean noPixels) {
     FormatTools.assertId(currentId, true, 1);
@@ -1712,6 +1735,18 @@ public class ICSReader extends FormatReader {
 
   // -- Helper methods --
 
+  /** Reverses the order of the rows of the plane at the given offset. */
+  private void flipRows(byte[] buf, int offset, int rowLen, int h) {
+    byte[] row = new byte[rowLen];
+    for (int r=0; r<h/2; r++) {
+      int topOffset = offset + r * rowLen;
+      int bottomOffset = offset + (h - r - 1) * rowLen;
+      System.arraycopy(buf, topOffset, row, 0, rowLen);
+      System.arraycopy(buf, bottomOffset, buf, topOffset, rowLen);
+      System.arraycopy(row, 0, buf, bottomOffset, rowLen);
+    }
+  }
+
   /*
    * String tokenizer for parsing metadata. Splits on any white-space
    * characters. Tabs and spaces are often used interchangeably in real-life ICS
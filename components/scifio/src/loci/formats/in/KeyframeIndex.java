@@ -0,0 +1,179 @@
+/*
+ * #%L
+ * OME SCIFIO package for reading and converting scientific file formats.
+ * %%
+ * Copyright (C) 2005 - 2012 Open Microscopy Environment:
+ *   - Board of Regents of the University of Wisconsin-Madison
+ *   - Glencoe Software, Inc.
+ *   - University of Dundee
+ * %%
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ * 
+ * The views and conclusions contained in the software and documentation are
+ * those of the authors and should not be interpreted as representing official
+ * policies, either expressed or implied, of any organization.
+ * #L%
+ */
+
+package loci.formats.in;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Index of the key frames in a delta-encoded movie, together with a bounded
+ * cache of decoded checkpoint frames.  A frame that is not a key frame can
+ * only be decoded from the frame immediately before it; checkpoints are
+ * kept every {@link #getInterval()} frames so that a random access decodes
+ * at most that many frames.
+ *
+ * <dl><dt><b>Source code:</b></dt>
+ * <dd><a href="http://trac.openmicroscopy.org.uk/ome/browser/bioformats.git/components/scifio/src/loci/formats/in/KeyframeIndex.java">Trac</a>,
+ * <a href="http://git.openmicroscopy.org/?p=bioformats.git;a=blob;f=components/scifio/src/loci/formats/in/KeyframeIndex.java;hb=HEAD">Gitweb</a></dd></dl>
+ */
+public class KeyframeIndex {
+
+  // -- Constants --
+
+  /** Minimum number of frames between two checkpoints. */
+  public static final int DEFAULT_INTERVAL = 16;
+
+  /** Maximum number of bytes used by cached checkpoints. */
+  public static final long DEFAULT_CACHE_SIZE = 64 * 1024 * 1024;
+
+  // -- Fields --
+
+  /** Sorted indices of the key frames; frame 0 is always a key frame. */
+  private int[] keyframes;
+
+  /** Number of frames between two checkpoints. */
+  private int interval;
+
+  /** Decoded checkpoint frames, in least recently used order. */
+  private Map<Integer, byte[]> checkpoints;
+
+  // -- Constructors --
+
+  /**
+   * Constructs an index in which only the first frame is a key frame.
+   *
+   * @param frameCount the number of frames in the movie
+   * @param frameSize the number of bytes in a decoded frame
+   */
+  public KeyframeIndex(int frameCount, int frameSize) {
+    this(frameCount, frameSize, null);
+  }
+
+  /**
+   * Constructs an index with the given key frames.
+   *
+   * @param frameCount the number of frames in the movie
+   * @param frameSize the number of bytes in a decoded frame
+   * @param keyframes indices of the key frames, or null if only the first
+   *   frame is known to be a key frame
+   */
+  public KeyframeIndex(int frameCount, int frameSize, int[] keyframes) {
+    if (keyframes == null || keyframes.length == 0) {
+      this.keyframes = new int[] {0};
+    }
+    else {
+      int[] sorted = keyframes.clone();
+      Arrays.sort(sorted);
+      if (sorted[0] != 0) {
+        this.keyframes = new int[sorted.length + 1];
+        System.arraycopy(sorted, 0, this.keyframes, 1, sorted.length);
+      }
+      else this.keyframes = sorted;
+    }
+
+    // widen the interval until every checkpoint fits in the cache
+    final int maxCheckpoints =
+      (int) Math.max(1, DEFAULT_CACHE_SIZE / Math.max(1, frameSize));
+    interval = Math.max(DEFAULT_INTERVAL,
+      (int) Math.ceil((double) frameCount / maxCheckpoints));
+
+    checkpoints = new LinkedHashMap<Integer, byte[]>(16, 0.75f, true) {
+      protected boolean removeEldestEntry(Map.Entry<Integer, byte[]> e) {
+        return size() > maxCheckpoints;
+      }
+    };
+  }
+
+  // -- KeyframeIndex API methods --
+
+  /** Gets the number of frames between two checkpoints. */
+  public int getInterval() {
+    return interval;
+  }
+
+  /** Returns true if the given frame can be decoded on its own. */
+  public boolean isKeyframe(int no) {
+    return Arrays.binarySearch(keyframes, no) >= 0;
+  }
+
+  /** Gets the last key frame at or before the given frame. */
+  public int getKeyframe(int no) {
+    int index = Arrays.binarySearch(keyframes, no);
+    if (index >= 0) return no;
+    return keyframes[Math.max(0, -index - 2)];
+  }
+
+  /**
+   * Gets the index of the last cached checkpoint from which the given frame
+   * can be decoded, or -1 if decoding must start from the key frame.
+   */
+  public int getCheckpoint(int no) {
+    int keyframe = getKeyframe(no);
+    for (int i=no - (no % interval); i>keyframe; i-=interval) {
+      if (checkpoints.containsKey(i)) return i;
+    }
+    return -1;
+  }
+
+  /**
+   * Gets a copy of the cached checkpoint for the given frame,
+   * or null if it is not cached.
+   */
+  public byte[] getCheckpointPixels(int no) {
+    byte[] pixels = checkpoints.get(no);
+    return pixels == null ? null : pixels.clone();
+  }
+
+  /**
+   * Records the decoded pixels for the given frame, if the frame is a
+   * checkpoint.  The pixels are copied, as codecs may update the previous
+   * frame in place.
+   */
+  public void update(int no, byte[] pixels) {
+    if (pixels == null || no % interval != 0 || isKeyframe(no)) return;
+    if (!checkpoints.containsKey(no)) {
+      checkpoints.put(no, pixels.clone());
+    }
+  }
+
+  /** Discards all cached checkpoints. */
+  public void clear() {
+    checkpoints.clear();
+  }
+
+}
@@ -38,11 +38,12 @@ package loci.formats.in;
 
 import java.io.File;
 import java.io.IOException;
+import java.io.UnsupportedEncodingException;
 import java.util.Arrays;
 import java.util.HashMap;
-import java.util.StringTokenizer;
 import java.util.Vector;
 
+import loci.common.Constants;
 import loci.common.DataTools;
 import loci.common.DateTools;
 import loci.common.Location;
@@ -181,7 +182,10 @@ public class MicromanagerReader extends FormatReader {
 
     String file = positions.get(getSeries()).getFile(no);
 
-    if (file != null && new Location(file).exists()) {
+    // planes from the file that is already open do not need to be checked
+    if (file != null && (file.equals(tiffReader.getCurrentFile()) ||
+      new Location(file).exists()))
+    {
       tiffReader.setId(file);
       return tiffReader.openBytes(0, buf, x, y, w, h);
     }
@@ -222,6 +226,7 @@ public class MicromanagerReader extends FormatReader {
   public void initFile(String id) throws FormatException, IOException {
     super.initFile(id);
     tiffReader = new MinimalTiffReader();
+    tiffReader.setHomogeneousFileSet(true);
     positions = new Vector<Position>();
 
     LOGGER.info("Reading metadata file");
@@ -324,6 +329,18 @@ public class MicromanagerReader extends FormatReader {
           {
             store.setPlaneDeltaT(p.timestamps[nextStamp++], i, q);
           }
+          if (p.planePositions != null && q < p.planePositions.length) {
+            double[] position = p.planePositions[q];
+            if (!Double.isNaN(position[0])) {
+              store.setPlanePositionX(position[0], i, q);
+            }
+            if (!Double.isNaN(position[1])) {
+              store.setPlanePositionY(position[1], i, q);
+            }
+            if (!Double.isNaN(position[2])) {
+              store.setPlanePositionZ(position[2], i, q);
+            }
+          }
         }
 
         String serialNumber = p.detectorID;
@@ -371,7 +388,15 @@ public class MicromanagerReader extends FormatReader {
       p.metadataFile = "Position #" + (pos + 1);
       positions.add(p);
       setSeries(pos);
-      parsePosition(jsonData[pos], pos);
+      RandomAccessInputStream s =
+        new RandomAccessInputStream(jsonData[pos].getBytes(Constants.ENCODING));
+      try {
+        parsePosition(s, pos);
+      }
+      finally {
+        s.close();
+      }
+      buildPlaneList(pos);
     }
     setSeries(0);
     populateMetadata();
@@ -381,10 +406,16 @@ public class MicromanagerReader extends FormatReader {
 
   private void parsePosition(int posIndex) throws IOException, FormatException {
     Position p = positions.get(posIndex);
-    String s = DataTools.readFile(p.metadataFile);
-    parsePosition(s, posIndex);
+    RandomAccessInputStream s = new RandomAccessInputStream(p.metadataFile);
+    try {
+      parsePosition(s, posIndex);
+    }
+    finally {
+      s.close();
+    }
 
     buildTIFFList(posIndex);
+    buildPlaneList(posIndex);
   }
 
   private void buildTIFFList(int posIndex) throws FormatException {
@@ -430,7 +461,7 @@ public class MicromanagerReader extends FormatReader {
     }
   }
 
-  private void parsePosition(String jsonData, int posIndex)
+  private void parsePosition(RandomAccessInputStream s, int posIndex)
     throws IOException, FormatException
   {
     Position p = positions.get(posIndex);
@@ -446,200 +477,25 @@ public class MicromanagerReader extends FormatReader {
     //      "Array key": [
     //        first array value, second array value
     //      ]
+    //   },
+    //   "FrameKey-T-C-Z": {
+    //      "Key": "Value"
     //   }
-    //
     // }
 
     LOGGER.info("Populating metadata");
 
-    Vector<Double> stamps = new Vector<Double>();
     p.voltage = new Vector<Double>();
+    p.frames = new FrameTable();
 
-    StringTokenizer st = new StringTokenizer(jsonData, "\n");
-    int[] slice = new int[3];
-    while (st.hasMoreTokens()) {
-      String token = st.nextToken().trim();
-      boolean open = token.indexOf("[") != -1;
-      boolean closed = token.indexOf("]") != -1;
-      if (open || (!open && !closed && !token.equals("{") &&
-        !token.startsWith("}")))
-      {
-        int quote = token.indexOf("\"") + 1;
-        String key = token.substring(quote, token.indexOf("\"", quote));
-        String value = null;
-
-        if (open == closed) {
-          value = token.substring(token.indexOf(":") + 1);
-        }
-        else if (!closed) {
-          StringBuffer valueBuffer = new StringBuffer();
-          while (!closed) {
-            token = st.nextToken();
-            closed = token.indexOf("]") != -1;
-            valueBuffer.append(token);
-          }
-          value = valueBuffer.toString();
-          value = value.replaceAll("\n", "");
-        }
-        if (value == null) continue;
-
-        int startIndex = value.indexOf("[");
-        int endIndex = value.indexOf("]");
-        if (endIndex == -1) endIndex = value.length();
-
-        value = value.substring(startIndex + 1, endIndex).trim();
-        if (value.length() == 0) {
-          continue;
-        }
-        value = value.substring(0, value.length() - 1);
-        value = value.replaceAll("\"", "");
-        if (value.endsWith(",")) value = value.substring(0, value.length() - 1);
-        addSeriesMeta(key, value);
-        if (key.equals("Channels")) {
-          core[posIndex].sizeC = Integer.parseInt(value);
-        }
-        else if (key.equals("ChNames")) {
-          p.channels = value.split(",");
-          for (int q=0; q<p.channels.length; q++) {
-            p.channels[q] = p.channels[q].replaceAll("\"", "").trim();
-          }
-        }
-        else if (key.equals("Frames")) {
-          core[posIndex].sizeT = Integer.parseInt(value);
-        }
-        else if (key.equals("Slices")) {
-          core[posIndex].sizeZ = Integer.parseInt(value);
-        }
-        else if (key.equals("PixelSize_um")) {
-          p.pixelSize = new Double(value);
-        }
-        else if (key.equals("z-step_um")) {
-          p.sliceThickness = new Double(value);
-        }
-        else if (key.equals("Time")) {
-          p.time = value;
-        }
-        else if (key.equals("Comment")) {
-          p.comment = value;
-        }
-        else if (key.equals("FileName")) {
-          p.fileNameMap.put(new Index(slice), value);
-          if (p.baseTiff == null) {
-            p.baseTiff = value;
-          }
-        }
-        else if (key.equals("Width")) {
-          core[posIndex].sizeX = Integer.parseInt(value);
-        }
-        else if (key.equals("Height")) {
-          core[posIndex].sizeY = Integer.parseInt(value);
-        }
-        else if (key.equals("IJType")) {
-          int type = Integer.parseInt(value);
-
-          switch (type) {
-            case 0:
-              core[posIndex].pixelType = FormatTools.UINT8;
-              break;
-            case 1:
-              core[posIndex].pixelType = FormatTools.UINT16;
-              break;
-            default:
-              throw new FormatException("Unknown type: " + type);
-          }
-        }
-      }
-
-      if (token.startsWith("\"FrameKey")) {
-        int dash = token.indexOf("-") + 1;
-        int nextDash = token.indexOf("-", dash);
-        slice[2] = Integer.parseInt(token.substring(dash, nextDash));
-        dash = nextDash + 1;
-        nextDash = token.indexOf("-", dash);
-        slice[1] = Integer.parseInt(token.substring(dash, nextDash));
-        dash = nextDash + 1;
-        slice[0] = Integer.parseInt(token.substring(dash,
-          token.indexOf("\"", dash)));
-
-        token = st.nextToken().trim();
-        String key = "", value = "";
-        boolean valueArray = false;
-
-        while (!token.startsWith("}")) {
-          if (valueArray) {
-            if (token.trim().equals("],")) {
-              valueArray = false;
-            }
-            else {
-              value += token.trim().replaceAll("\"", "");
-              token = st.nextToken().trim();
-              continue;
-            }
-          }
-          else {
-            int colon = token.indexOf(":");
-            key = token.substring(1, colon).trim();
-            value = token.substring(colon + 1, token.length() - 1).trim();
-
-            key = key.replaceAll("\"", "");
-            value = value.replaceAll("\"", "");
-
-            if (token.trim().endsWith("[")) {
-              valueArray = true;
-              token = st.nextToken().trim();
-              continue;
-            }
-          }
-
-          addSeriesMeta(key, value);
+    new PositionParser(s, p, posIndex).parse();
 
-          if (key.equals("Exposure-ms")) {
-            double t = Double.parseDouble(value);
-            p.exposureTime = new Double(t / 1000);
-          }
-          else if (key.equals("ElapsedTime-ms")) {
-            double t = Double.parseDouble(value);
-            stamps.add(new Double(t / 1000));
-          }
-          else if (key.equals("Core-Camera")) p.cameraRef = value;
-          else if (key.equals(p.cameraRef + "-Binning")) {
-            if (value.indexOf("x") != -1) p.binning = value;
-            else p.binning = value + "x" + value;
-          }
-          else if (key.equals(p.cameraRef + "-CameraID")) p.detectorID = value;
-          else if (key.equals(p.cameraRef + "-CameraName")) {
-            p.detectorModel = value;
-          }
-          else if (key.equals(p.cameraRef + "-Gain")) {
-            p.gain = (int) Double.parseDouble(value);
-          }
-          else if (key.equals(p.cameraRef + "-Name")) {
-            p.detectorManufacturer = value;
-          }
-          else if (key.equals(p.cameraRef + "-Temperature")) {
-            p.temperature = Double.parseDouble(value);
-          }
-          else if (key.equals(p.cameraRef + "-CCDMode")) {
-            p.cameraMode = value;
-          }
-          else if (key.startsWith("DAC-") && key.endsWith("-Volts")) {
-            p.voltage.add(new Double(value));
-          }
-          else if (key.equals("FileName")) {
-            p.fileNameMap.put(new Index(slice), value);
-            if (p.baseTiff == null) {
-              p.baseTiff = value;
-            }
-          }
-
-          token = st.nextToken().trim();
-        }
-      }
+    p.timestamps = new Double[p.frames.timestampCount];
+    Arrays.sort(p.frames.timestamps, 0, p.frames.timestampCount);
+    for (int i=0; i<p.timestamps.length; i++) {
+      p.timestamps[i] = p.frames.timestamps[i];
     }
 
-    p.timestamps = stamps.toArray(new Double[stamps.size()]);
-    Arrays.sort(p.timestamps);
-
     // look for the optional companion XML file
 
     if (new Location(parent, XML).exists()) {
@@ -660,6 +516,201 @@ public class MicromanagerReader extends FormatReader {
     core[posIndex].metadataComplete = true;
   }
 
+  /** Handles a key/value pair from a section other than a frame. */
+  private void parseSummaryValue(JSONParser parser, Position p, int posIndex,
+    String key)
+    throws FormatException
+  {
+    String value = parser.getValue();
+    if (value.length() == 0) return;
+    addSeriesMeta(key, value);
+    if (key.equals("Channels")) {
+      core[posIndex].sizeC = Integer.parseInt(value);
+    }
+    else if (key.equals("ChNames")) {
+      p.channels = parser.getValues();
+    }
+    else if (key.equals("Frames")) {
+      core[posIndex].sizeT = Integer.parseInt(value);
+    }
+    else if (key.equals("Slices")) {
+      core[posIndex].sizeZ = Integer.parseInt(value);
+    }
+    else if (key.equals("PixelSize_um")) {
+      p.pixelSize = new Double(value);
+    }
+    else if (key.equals("z-step_um")) {
+      p.sliceThickness = new Double(value);
+    }
+    else if (key.equals("Time")) {
+      p.time = value;
+    }
+    else if (key.equals("Comment")) {
+      p.comment = value;
+    }
+    else if (key.equals("FileName")) {
+      p.frames.setFileName(value);
+      if (p.baseTiff == null) {
+        p.baseTiff = value;
+      }
+    }
+    else if (key.equals("Width")) {
+      core[posIndex].sizeX = Integer.parseInt(value);
+    }
+    else if (key.equals("Height")) {
+      core[posIndex].sizeY = Integer.parseInt(value);
+    }
+    else if (key.equals("IJType")) {
+      int type = Integer.parseInt(value);
+
+      switch (type) {
+        case 0:
+          core[posIndex].pixelType = FormatTools.UINT8;
+          break;
+        case 1:
+          core[posIndex].pixelType = FormatTools.UINT16;
+          break;
+        default:
+          throw new FormatException("Unknown type: " + type);
+      }
+    }
+  }
+
+  /** Handles a key/value pair from a "FrameKey-T-C-Z" section. */
+  private void parseFrameValue(JSONParser parser, Position p, String key) {
+    // only build a String for the value if it is needed
+    if (getMetadataOptions().getMetadataLevel() != MetadataLevel.MINIMUM) {
+      addSeriesMeta(key, parser.getValue());
+    }
+
+    if (key.equals("Exposure-ms")) {
+      Double value = getDouble(parser, key);
+      if (value != null) p.exposureTime = new Double(value / 1000);
+    }
+    else if (key.equals("ElapsedTime-ms")) {
+      Double value = getDouble(parser, key);
+      if (value != null) p.frames.addTimestamp(value / 1000);
+    }
+    else if (key.equals("XPositionUm")) {
+      Double value = getDouble(parser, key);
+      if (value != null) p.frames.setPosition(0, value);
+    }
+    else if (key.equals("YPositionUm")) {
+      Double value = getDouble(parser, key);
+      if (value != null) p.frames.setPosition(1, value);
+    }
+    else if (key.equals("ZPositionUm")) {
+      Double value = getDouble(parser, key);
+      if (value != null) p.frames.setPosition(2, value);
+    }
+    else if (key.equals("Core-Camera")) p.cameraRef = parser.getValue();
+    else if (key.equals("FileName")) {
+      String value = parser.getValue();
+      p.frames.setFileName(value);
+      if (p.baseTiff == null) {
+        p.baseTiff = value;
+      }
+    }
+    else if (p.cameraRef != null && key.startsWith(p.cameraRef)) {
+      String value = parser.getValue();
+      if (key.equals(p.cameraRef + "-Binning")) {
+        if (value.indexOf("x") != -1) p.binning = value;
+        else p.binning = value + "x" + value;
+      }
+      else if (key.equals(p.cameraRef + "-CameraID")) p.detectorID = value;
+      else if (key.equals(p.cameraRef + "-CameraName")) {
+        p.detectorModel = value;
+      }
+      else if (key.equals(p.cameraRef + "-Gain")) {
+        Double gain = getDouble(parser, key);
+        if (gain != null) p.gain = gain.intValue();
+      }
+      else if (key.equals(p.cameraRef + "-Name")) {
+        p.detectorManufacturer = value;
+      }
+      else if (key.equals(p.cameraRef + "-Temperature")) {
+        Double temperature = getDouble(parser, key);
+        if (temperature != null) p.temperature = temperature;
+      }
+      else if (key.equals(p.cameraRef + "-CCDMode")) {
+        p.cameraMode = value;
+      }
+    }
+    else if (key.startsWith("DAC-") && key.endsWith("-Volts")) {
+      Double voltage = getDouble(parser, key);
+      if (voltage != null) p.voltage.add(voltage);
+    }
+  }
+
+  /**
+   * Gets the current value as a number, or null if it is empty or not
+   * a number, so that a malformed entry does not prevent the dataset
+   * from being opened.
+   */
+  private Double getDouble(JSONParser parser, String key) {
+    try {
+      return new Double(parser.getDouble());
+    }
+    catch (NumberFormatException e) {
+      LOGGER.debug("Ignoring non-numeric value for {}: '{}'", key,
+        parser.getValue());
+      return null;
+    }
+  }
+
+  /**
+   * Maps each plane of the given position to its TIFF file and stage
+   * position, so that they do not need to be looked up for every plane.
+   */
+  private void buildPlaneList(int posIndex) {
+    Position p = positions.get(posIndex);
+    int imageCount = core[posIndex].imageCount;
+    p.planeFiles = new String[imageCount];
+    p.planePositions = new double[imageCount][];
+    for (int i=0; i<imageCount; i++) {
+      p.planePositions[i] = new double[] {Double.NaN, Double.NaN, Double.NaN};
+    }
+
+    // index the TIFF files by name
+    HashMap<String, String> tiffNames = new HashMap<String, String>();
+    if (p.tiffs != null) {
+      for (String tiff : p.tiffs) {
+        String name = tiff.substring(tiff.lastIndexOf(File.separator) + 1);
+        if (!tiffNames.containsKey(name)) tiffNames.put(name, tiff);
+      }
+    }
+
+    FrameTable frames = p.frames;
+    boolean hasFileNames = false;
+    for (int f=0; f<frames.count; f++) {
+      int z = frames.zct[f * 3];
+      int c = frames.zct[f * 3 + 1];
+      int t = frames.zct[f * 3 + 2];
+      String file = frames.fileNames[f];
+      if (file != null) hasFileNames = true;
+      if (z < 0 || z >= getSizeZ() || c < 0 || c >= getSizeC() ||
+        t < 0 || t >= getSizeT())
+      {
+        continue;
+      }
+      int no = getIndex(z, c, t);
+      System.arraycopy(frames.positions, f * 3, p.planePositions[no], 0, 3);
+
+      if (file != null && p.planeFiles[no] == null) {
+        String tiff =
+          tiffNames.get(file.substring(file.lastIndexOf(File.separator) + 1));
+        if (tiff != null && tiff.endsWith(File.separator + file)) {
+          p.planeFiles[no] = tiff;
+        }
+      }
+    }
+    if (!hasFileNames && p.tiffs != null) {
+      for (int i=0; i<imageCount && i<p.tiffs.size(); i++) {
+        p.planeFiles[i] = p.tiffs.get(i);
+      }
+    }
+  }
+
   /**
    * Populate the list of TIFF files using the given file name as a pattern.
    */
@@ -753,10 +804,281 @@ public class MicromanagerReader extends FormatReader {
     }
   }
 
+  /**
+   * Event-based JSON parser that reads directly from a stream.  Scalar and
+   * array values are unescaped into a reusable buffer, and are only
+   * converted to Strings or numbers on request.
+   */
+  abstract static class JSONParser {
+    private RandomAccessInputStream stream;
+    private byte[] buf = new byte[8192];
+    private int bufferPos, bufferLength;
+
+    /** Current value; array elements are separated by commas. */
+    private byte[] value = new byte[256];
+    private int valueLength;
+
+    /** End offset of each element in the current array value. */
+    private int[] elementEnds = new int[16];
+    private int elementCount;
+
+    public JSONParser(RandomAccessInputStream stream) {
+      this.stream = stream;
+    }
+
+    /** Called when an object starts; key is null for the root object. */
+    protected abstract void startObject(int depth, String key)
+      throws FormatException;
+
+    /** Called when an object ends. */
+    protected abstract void endObject(int depth, String key)
+      throws FormatException;
+
+    /** Called for each scalar value, and for each array of scalars. */
+    protected abstract void value(int depth, String key)
+      throws FormatException;
+
+    /** Parses the whole stream. */
+    public void parse() throws FormatException, IOException {
+      stream.seek(0);
+      skipWhitespace();
+      if (peek() != '{') throw new FormatException("Expected JSON object");
+      parseObject(null, 0);
+    }
+
+    /** Gets the current value as a String. */
+    public String getValue() {
+      return toString(0, valueLength);
+    }
+
+    /** Gets the elements of the current array value. */
+    public String[] getValues() {
+      String[] values = new String[elementCount];
+      int start = 0;
+      for (int i=0; i<elementCount; i++) {
+        values[i] = toString(start, elementEnds[i]).trim();
+        start = elementEnds[i] + 1;
+      }
+      return values;
+    }
+
+    /**
+     * Gets the current value as a number, without creating a String.
+     * @throws NumberFormatException if the value is not a number
+     */
+    public double getDouble() {
+      int start = 0, end = valueLength;
+      while (start < end && value[start] == ' ') start++;
+      while (end > start && value[end - 1] == ' ') end--;
+      return DataTools.parseDouble(value, start, end - start);
+    }
+
+    // -- Helper methods --
+
+    private void parseObject(String key, int depth)
+      throws FormatException, IOException
+    {
+      read();
+      startObject(depth, key);
+      skipWhitespace();
+      if (peek() == '}') {
+        read();
+        endObject(depth, key);
+        return;
+      }
+      while (true) {
+        skipWhitespace();
+        if (read() != '"') throw new FormatException("Expected JSON key");
+        String childKey = readKey();
+        skipWhitespace();
+        if (read() != ':') throw new FormatException("Expected ':'");
+        skipWhitespace();
+        parseValue(childKey, depth + 1);
+        skipWhitespace();
+        int c = read();
+        if (c == '}') break;
+        if (c != ',') throw new FormatException("Expected ',' or '}'");
+      }
+      endObject(depth, key);
+    }
+
+    private void parseValue(String key, int depth)
+      throws FormatException, IOException
+    {
+      int c = peek();
+      if (c == '{') parseObject(key, depth);
+      else if (c == '[') parseArray(key, depth);
+      else {
+        valueLength = 0;
+        readScalar();
+        elementEnds[0] = valueLength;
+        elementCount = 1;
+        value(depth, key);
+      }
+    }
+
+    private void parseArray(String key, int depth)
+      throws FormatException, IOException
+    {
+      read();
+      valueLength = 0;
+      elementCount = 0;
+      boolean scalars = true;
+      skipWhitespace();
+      if (peek() == ']') read();
+      else {
+        while (true) {
+          skipWhitespace();
+          int c = peek();
+          if (c == '{' || c == '[') {
+            // nested structures are reported separately
+            scalars = false;
+            parseValue(key, depth + 1);
+          }
+          else if (scalars) {
+            if (elementCount > 0) append(',');
+            readScalar();
+            if (elementCount == elementEnds.length) {
+              int[] newEnds = new int[elementEnds.length * 2];
+              System.arraycopy(elementEnds, 0, newEnds, 0, elementCount);
+              elementEnds = newEnds;
+            }
+            elementEnds[elementCount++] = valueLength;
+          }
+          else readScalar();
+          skipWhitespace();
+          c = read();
+          if (c == ']') break;
+          if (c != ',') throw new FormatException("Expected ',' or ']'");
+        }
+      }
+      if (scalars) value(depth, key);
+    }
+
+    /** Appends a string or literal to the current value. */
+    private void readScalar() throws FormatException, IOException {
+      if (peek() == '"') {
+        read();
+        readString();
+        return;
+      }
+      while (true) {
+        int c = peek();
+        if (c < 0 || c == ',' || c == '}' || c == ']' || c <= ' ') break;
+        append(read());
+      }
+    }
+
+    /** Appends the remainder of a quoted string to the current value. */
+    private void readString() throws FormatException, IOException {
+      while (true) {
+        int c = read();
+        if (c < 0) throw new FormatException("Unterminated JSON string");
+        if (c == '"') return;
+        if (c != '\\') {
+          append(c);
+          continue;
+        }
+        c = read();
+        switch (c) {
+          case 'b': append('\b'); break;
+          case 'f': append('\f'); break;
+          case 'n': append('\n'); break;
+          case 'r': append('\r'); break;
+          case 't': append('\t'); break;
+          case 'u':
+            int ch = 0;
+            for (int i=0; i<4; i++) {
+              ch = (ch << 4) | Character.digit((char) read(), 16);
+            }
+            appendUTF8(ch);
+            break;
+          default:
+            if (c < 0) throw new FormatException("Unterminated JSON string");
+            append(c);
+        }
+      }
+    }
+
+    private String readKey() throws FormatException, IOException {
+      int start = valueLength;
+      readString();
+      String key = toString(start, valueLength);
+      valueLength = start;
+      return key;
+    }
+
+    private void append(int b) {
+      if (valueLength == value.length) {
+        byte[] newValue = new byte[value.length * 2];
+        System.arraycopy(value, 0, newValue, 0, valueLength);
+        value = newValue;
+      }
+      value[valueLength++] = (byte) b;
+    }
+
+    private void appendUTF8(int ch) {
+      if (ch < 0x80) append(ch);
+      else if (ch < 0x800) {
+        append(0xc0 | (ch >> 6));
+        append(0x80 | (ch & 0x3f));
+      }
+      else {
+        append(0xe0 | (ch >> 12));
+        append(0x80 | ((ch >> 6) & 0x3f));
+        append(0x80 | (ch & 0x3f));
+      }
+    }
+
+    private String toString(int start, int end) {
+      try {
+        return new String(value, start, end - start, Constants.ENCODING);
+      }
+      catch (UnsupportedEncodingException e) {
+        return new String(value, start, end - start);
+      }
+    }
+
+    private void skipWhitespace() throws IOException {
+      while (true) {
+        int c = peek();
+        if (c < 0 || c > ' ') return;
+        bufferPos++;
+      }
+    }
+
+    private int peek() throws IOException {
+      if (bufferPos == bufferLength && !fill()) return -1;
+      return buf[bufferPos] & 0xff;
+    }
+
+    private int read() throws IOException {
+      if (bufferPos == bufferLength && !fill()) return -1;
+      return buf[bufferPos++] & 0xff;
+    }
+
+    private boolean fill() throws IOException {
+      long remaining = stream.length() - stream.getFilePointer();
+      if (remaining <= 0) return false;
+      bufferLength = (int) Math.min(remaining, buf.length);
+      stream.readFully(buf, 0, bufferLength);
+      bufferPos = 0;
+      return true;
+    }
+  }
+
   class Position {
     public String baseTiff;
     public Vector<String> tiffs;
-    public HashMap<Index, String> fileNameMap = new HashMap<Index, String>();
+
+    /** Values recorded for each frame in metadata.txt. */
+    public FrameTable frames = new FrameTable();
+
+    /** TIFF file containing each plane. */
+    public String[] planeFiles;
+
+    /** Stage position (X, Y, Z) of each plane. */
+    public double[][] planePositions;
 
     public String metadataFile;
     public String xmlFile;
@@ -775,33 +1097,132 @@ public class MicromanagerReader extends FormatReader {
     public String cameraMode;
 
     public String getFile(int no) {
-      int[] zct = getZCTCoords(no);
-      for (Index key : fileNameMap.keySet()) {
-        if (key.z == zct[0] && key.c == zct[1] && key.t == zct[2]) {
-          String file = fileNameMap.get(key);
-
-          if (tiffs != null) {
-            for (String tiff : tiffs) {
-              if (tiff.endsWith(File.separator + file)) {
-                return tiff;
-              }
-            }
-          }
-        }
+      if (planeFiles == null || no >= planeFiles.length) return null;
+      return planeFiles[no];
+    }
+  }
+
+  /**
+   * Per-frame values from metadata.txt, stored in primitive arrays.
+   * Frames are identified by their Z, C and T indices.
+   */
+  static class FrameTable {
+    /** Number of frames. */
+    public int count;
+
+    /** Z, C and T index of each frame. */
+    public int[] zct = new int[48];
+
+    /** X, Y and Z stage position of each frame; NaN if not recorded. */
+    public double[] positions = new double[48];
+
+    /** File name of each frame, or null if not recorded. */
+    public String[] fileNames = new String[16];
+
+    /** Elapsed time values, in seconds and in the order they were read. */
+    public double[] timestamps = new double[16];
+    public int timestampCount;
+
+    /** Index of the frame currently being parsed, or -1. */
+    private int current = -1;
+
+    /** Z, C and T indices of the most recent frame. */
+    private int[] slice = new int[3];
+
+    /** Starts a new frame with the given indices. */
+    public void startFrame(int z, int c, int t) {
+      slice[0] = z;
+      slice[1] = c;
+      slice[2] = t;
+      addFrame();
+    }
+
+    /** Finishes the frame that is currently being parsed. */
+    public void endFrame() {
+      current = -1;
+    }
+
+    public void setFileName(String fileName) {
+      if (current < 0) addFrame();
+      fileNames[current] = fileName;
+    }
+
+    public void setPosition(int axis, double value) {
+      if (current >= 0) positions[current * 3 + axis] = value;
+    }
+
+    public void addTimestamp(double value) {
+      if (timestampCount == timestamps.length) {
+        double[] newTimestamps = new double[timestamps.length * 2];
+        System.arraycopy(timestamps, 0, newTimestamps, 0, timestampCount);
+        timestamps = newTimestamps;
       }
-      return fileNameMap.size() == 0 ? tiffs.get(no) : null;
+      timestamps[timestampCount++] = value;
+    }
+
+    private void addFrame() {
+      if (count == fileNames.length) {
+        int[] newZCT = new int[zct.length * 2];
+        System.arraycopy(zct, 0, newZCT, 0, zct.length);
+        zct = newZCT;
+        double[] newPositions = new double[positions.length * 2];
+        System.arraycopy(positions, 0, newPositions, 0, positions.length);
+        positions = newPositions;
+        String[] newFileNames = new String[fileNames.length * 2];
+        System.arraycopy(fileNames, 0, newFileNames, 0, fileNames.length);
+        fileNames = newFileNames;
+      }
+      current = count++;
+      System.arraycopy(slice, 0, zct, current * 3, 3);
+      Arrays.fill(positions, current * 3, current * 3 + 3, Double.NaN);
     }
   }
 
-  class Index {
-    public int z;
-    public int c;
-    public int t;
+  /** Passes the sections of a position's metadata.txt to the reader. */
+  class PositionParser extends JSONParser {
+    private static final String FRAME_KEY = "FrameKey-";
+
+    private Position position;
+    private int posIndex;
+    private boolean inFrame;
+
+    public PositionParser(RandomAccessInputStream stream, Position position,
+      int posIndex)
+    {
+      super(stream);
+      this.position = position;
+      this.posIndex = posIndex;
+    }
+
+    protected void startObject(int depth, String key) {
+      if (depth == 1 && key.startsWith(FRAME_KEY)) {
+        // frame keys are of the form "FrameKey-<T>-<C>-<Z>"
+        String[] indices = key.substring(FRAME_KEY.length()).split("-");
+        try {
+          position.frames.startFrame(Integer.parseInt(indices[2]),
+            Integer.parseInt(indices[1]), Integer.parseInt(indices[0]));
+          inFrame = true;
+        }
+        catch (NumberFormatException e) {
+          LOGGER.debug("Invalid frame key: {}", key);
+        }
+        catch (ArrayIndexOutOfBoundsException e) {
+          LOGGER.debug("Invalid frame key: {}", key);
+        }
+      }
+    }
+
+    protected void endObject(int depth, String key) {
+      if (depth == 1 && inFrame) {
+        position.frames.endFrame();
+        inFrame = false;
+      }
+    }
 
-    public Index(int[] zct) {
-      z = zct[0];
-      c = zct[1];
-      t = zct[2];
+    protected void value(int depth, String key) throws FormatException {
+      if (depth < 2) return;
+      if (inFrame) parseFrameValue(this, position, key);
+      else parseSummaryValue(this, position, posIndex, key);
     }
   }
 
@@ -38,6 +38,7 @@ package loci.formats.in;
 
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -47,6 +48,7 @@ import org.slf4j.LoggerFactory;
 
 import loci.common.DataTools;
 import loci.common.RandomAccessInputStream;
+import loci.common.enumeration.EnumException;
 import loci.formats.CoreMetadata;
 import loci.formats.FormatException;
 import loci.formats.FormatReader;
@@ -56,6 +58,7 @@ import loci.formats.codec.JPEG2000CodecOptions;
 import loci.formats.meta.MetadataStore;
 import loci.formats.tiff.IFD;
 import loci.formats.tiff.IFDList;
+import loci.formats.tiff.IFDType;
 import loci.formats.tiff.PhotoInterp;
 import loci.formats.tiff.TiffCompression;
 import loci.formats.tiff.TiffParser;
@@ -108,6 +111,27 @@ public class MinimalTiffReader extends FormatReader {
   /** Codec options to use when decoding JPEG 2000 data. */
   private JPEG2000CodecOptions j2kCodecOptions;
 
+  /** Whether the files passed to setId are expected to share one layout. */
+  private boolean homogeneousFileSet = false;
+
+  /** Length of the template file, or -1 if there is no template. */
+  private long templateLength = -1;
+
+  /**
+   * Regions of the template file holding the header, the first IFD and
+   * the strip or tile layout, as offset/length pairs for
+   * {@link RandomAccessInputStream#readSegments}.
+   */
+  private long[] layoutOffsets;
+  private int[] layoutLengths;
+  private int[] layoutDestOffsets;
+
+  /** Contents of the layout regions within the template file. */
+  private byte[] templateLayout;
+
+  /** Whether the current file was opened from the template. */
+  private boolean openedFromTemplate = false;
+
   // -- Constructors --
 
   /** Constructs a new MinimalTiffReader. */
@@ -139,6 +163,43 @@ public class MinimalTiffReader extends FormatReader {
     return thumbnailIFDs;
   }
 
+  /**
+   * Returns true if the current file was opened from the template IFD of a
+   * homogeneous file set, rather than parsed.
+   *
+   * @see #setHomogeneousFileSet(boolean)
+   */
+  public boolean isOpenedFromTemplate() {
+    return openedFromTemplate;
+  }
+
+  /**
+   * Sets whether the files subsequently passed to {@link #setId(String)}
+   * are expected to share the TIFF structure of the first one, as is
+   * typical of the per-plane files in a plate scan.
+   *
+   * If enabled, the IFD of the first single-plane file acts as a template.
+   * A later file is checked by comparing its length, header, first IFD and
+   * all out-of-line tag values (such as strip or tile offsets and byte
+   * counts, color maps, JPEG tables and image descriptions) to those of the
+   * template; if
+   * all match, the file is opened without being parsed, and shares the
+   * template's IFD and metadata. Any mismatch falls back to a full parse,
+   * which then becomes the new template.
+   */
+  public void setHomogeneousFileSet(boolean homogeneous) {
+    homogeneousFileSet = homogeneous;
+    if (!homogeneous) clearTemplate();
+  }
+
+  /**
+   * Gets whether the files passed to {@link #setId(String)} are expected to
+   * share the TIFF structure of the first one.
+   */
+  public boolean isHomogeneousFileSet() {
+    return homogeneousFileSet;
+  }
+
   // -- IFormatReader API methods --
 
   /* @see loci.formats.IFormatReader#isThisType(RandomAccessInputStream) */
@@ -342,10 +403,21 @@ public class MinimalTiffReader extends FormatReader {
     return buf;
   }
 
+  /* @see loci.formats.IFormatReader#setId(String) */
+  public void setId(String id) throws FormatException, IOException {
+    if (id.equals(currentId)) return;
+    if (homogeneousFileSet && openFromTemplate(id)) return;
+    openedFromTemplate = false;
+    super.setId(id);
+    if (homogeneousFileSet) recordTemplate();
+  }
+
   /* @see loci.formats.IFormatReader#close(boolean) */
   public void close(boolean fileOnly) throws IOException {
     super.close(fileOnly);
+    openedFromTemplate = false;
     if (!fileOnly) {
+      clearTemplate();
       if (ifds != null) {
         for (IFD ifd : ifds) {
           try {
@@ -560,6 +632,121 @@ public class MinimalTiffReader extends FormatReader {
     MetadataTools.populatePixels(store, this);
   }
 
+  // -- Helper methods --
+
+  /**
+   * Records the current file as the template for subsequent files,
+   * provided that it consists of a single classic (non-BigTIFF) IFD.
+   */
+  private void recordTemplate() throws IOException {
+    clearTemplate();
+    if (ifds.size() != 1 || thumbnailIFDs.size() > 0 ||
+      resolutionLevels != null)
+    {
+      return;
+    }
+    boolean little = isLittleEndian();
+    byte[] header = new byte[8];
+    in.seek(0);
+    in.readFully(header);
+    if (DataTools.bytesToShort(header, 2, little) != 42) return;
+    long offset = DataTools.bytesToInt(header, 4, little) & 0xffffffffL;
+
+    // header, first IFD and every value stored outside of it
+    List<long[]> regions = new ArrayList<long[]>();
+    regions.add(new long[] {0, header.length});
+    in.seek(offset);
+    int entries = in.readUnsignedShort();
+    regions.add(new long[] {offset, 2 + entries * 12 + 4});
+    for (int i=0; i<entries; i++) {
+      in.seek(offset + 2 + i * 12 + 2);
+      int type = in.readUnsignedShort();
+      long count = in.readInt() & 0xffffffffL;
+      long pointer = in.readInt() & 0xffffffffL;
+      long bytes;
+      try {
+        bytes = count * IFDType.get(type).getBytesPerElement();
+      }
+      catch (EnumException e) {
+        LOGGER.debug("", e);
+        return;
+      }
+      if (bytes > Integer.MAX_VALUE) return;
+      if (bytes > 4) regions.add(new long[] {pointer, bytes});
+    }
+
+    int size = 0;
+    layoutOffsets = new long[regions.size()];
+    layoutLengths = new int[regions.size()];
+    layoutDestOffsets = new int[regions.size()];
+    for (int i=0; i<layoutOffsets.length; i++) {
+      layoutOffsets[i] = regions.get(i)[0];
+      layoutLengths[i] = (int) regions.get(i)[1];
+      layoutDestOffsets[i] = size;
+      size += layoutLengths[i];
+    }
+    templateLayout = readLayout(in, size);
+    templateLength = in.length();
+    if (templateLayout == null) clearTemplate();
+  }
+
+  /**
+   * Switches to the given file without parsing it, if its length and
+   * layout match those of the template.
+   */
+  private boolean openFromTemplate(String id) throws IOException {
+    if (templateLayout == null || currentId == null) return false;
+    RandomAccessInputStream stream = new RandomAccessInputStream(id);
+    boolean match = false;
+    try {
+      if (stream.length() == templateLength) {
+        byte[] layout = readLayout(stream, templateLayout.length);
+        match = Arrays.equals(layout, templateLayout);
+      }
+    }
+    finally {
+      if (!match) stream.close();
+    }
+    if (!match) {
+      LOGGER.debug("{} does not match the template layout", id);
+      return false;
+    }
+
+    if (in != null) in.close();
+    in = stream;
+    in.order(isLittleEndian());
+    tiffParser = new TiffParser(in);
+    tiffParser.setDoCaching(false);
+    tiffParser.setUse64BitOffsets(use64Bit);
+    tiffParser.setAssumeEqualStrips(equalStrips);
+    tiffParser.checkHeader();
+    currentId = id;
+    lastPlane = 0;
+    openedFromTemplate = true;
+    return true;
+  }
+
+  /**
+   * Reads the layout regions from the given stream,
+   * returning null if the stream is too short.
+   */
+  private byte[] readLayout(RandomAccessInputStream s, int size)
+    throws IOException
+  {
+    byte[] layout = new byte[size];
+    int n = s.readSegments(layoutOffsets, layoutLengths, layout,
+      layoutDestOffsets);
+    return n == size ? layout : null;
+  }
+
+  private void clearTemplate() {
+    templateLength = -1;
+    templateLayout = null;
+    layoutOffsets = null;
+    layoutLengths = null;
+    layoutDestOffsets = null;
+  }
+
   /**
    * Sets the resolution level when we have JPEG 2000 compressed data.
    * @param ifd The active IFD that is being used in our current
@@ -181,6 +181,30 @@ public class NRRDReader extends FormatReader {
     return helper.openBytes(no, buf, x, y, w, h);
   }
 
+  /* @see IFormatReader#openPlanes(int, int, byte[], int, int, int, int) */
+  public byte[] openPlanes(int no, int count, byte[] buf, int x, int y,
+    int w, int h) throws FormatException, IOException
+  {
+    if (!encoding.equals("raw")) {
+      return super.openPlanes(no, count, buf, x, y, w, h);
+    }
+    FormatTools.checkPlaneParameters(this,
+      FormatTools.getPlaneIndexes(no, count), buf.length, x, y, w, h);
+
+    long planeSize = FormatTools.getPlaneSize(this);
+    if (dataFile == null) {
+      readPlanes(in, offset + no * planeSize, planeSize, count, x, y, w, h,
+        buf);
+    }
+    else {
+      RandomAccessInputStream s = new RandomAccessInputStream(dataFile);
+      readPlanes(s, offset + no * planeSize, planeSize, count, x, y, w, h,
+        buf);
+      s.close();
+    }
+    return buf;
+  }
+
   /* @see loci.formats.IFormatReader#close(boolean) */
   public void close(boolean fileOnly) throws IOException {
     super.close(fileOnly);
@@ -128,6 +128,12 @@ public class NativeQTReader extends FormatReader {
 
   private boolean flip;
 
+  /** Indices of the key frames listed in the sync sample table. */
+  private int[] keyframes;
+
+  /** Key frames and decoded checkpoints for delta-encoded movies. */
+  private KeyframeIndex keyframeIndex;
+
   // -- Constructor --
 
   /** Constructs a new QuickTime reader. */
@@ -167,45 +173,27 @@ public class NativeQTReader extends FormatReader {
     String code = codec;
     if (no >= getImageCount() - altPlanes) code = altCodec;
 
-    int offset = offsets.get(no).intValue();
-    int nextOffset = (int) pixelBytes;
-
-    scale = offsets.get(0).intValue();
-    offset -= scale;
-
-    if (no < offsets.size() - 1) {
-      nextOffset = offsets.get(no + 1).intValue() - scale;
-    }
-
-    if ((nextOffset - offset) < 0) {
-      int temp = offset;
-      offset = nextOffset;
-      nextOffset = temp;
+    byte[] t = null;
+    if (keyframeIndex != null && !code.equals(altCodec)) {
+      t = uncompressDelta(no, code);
     }
+    else {
+      byte[] pixs = readPixels(no);
 
-    byte[] pixs = new byte[nextOffset - offset];
-
-    in.seek(pixelOffset + offset);
-    in.read(pixs);
-
-    canUsePrevious = (prevPixels != null) && (prevPlane == no - 1) &&
-      !code.equals(altCodec);
+      canUsePrevious = (prevPixels != null) && (prevPlane == no - 1) &&
+        !code.equals(altCodec);
 
-    byte[] t = prevPlane == no && prevPixels != null && !code.equals(altCodec) ?
-      prevPixels : uncompress(pixs, code);
-    if (code.equals("rpza")) {
-      for (int i=0; i<t.length; i++) {
-        t[i] = (byte) (255 - t[i]);
+      t = prevPlane == no && prevPixels != null && !code.equals(altCodec) ?
+        prevPixels : uncompress(pixs, code);
+      if (code.equals("rpza")) {
+        for (int i=0; i<t.length; i++) {
+          t[i] = (byte) (255 - t[i]);
+        }
+        prevPlane = no;
+        return buf;
       }
-      prevPlane = no;
-      return buf;
-    }
 
-    // on rare occassions, we need to trim the data
-    if (canUsePrevious && (prevPixels.length < t.length)) {
-      byte[] temp = t;
-      t = new byte[prevPixels.length];
-      System.arraycopy(temp, 0, t, 0, t.length);
+      t = trimToPrevious(t);
     }
 
     prevPixels = t;
@@ -275,6 +263,8 @@ public class NativeQTReader extends FormatReader {
       scale = 0;
       chunkSizes = null;
       interlaced = spork = flip = false;
+      keyframes = null;
+      keyframeIndex = null;
     }
   }
 
@@ -376,6 +366,11 @@ public class NativeQTReader extends FormatReader {
     core[0].interleaved = isRGB();
     core[0].sizeT = getImageCount();
 
+    if ("rle ".equals(codec)) {
+      keyframeIndex = new KeyframeIndex(getImageCount(),
+        FormatTools.getPlaneSize(this), keyframes);
+    }
+
     // The metadata store we're working with.
     MetadataStore store = makeFilterMetadata();
     MetadataTools.populatePixels(store, this);
@@ -566,6 +561,17 @@ public class NativeQTReader extends FormatReader {
             }
           }
         }
+        else if (atomType.equals("stss")) {
+          // found the key frames
+
+          if (keyframes == null) {
+            in.skipBytes(4);
+            keyframes = new int[in.readInt()];
+            for (int i=0; i<keyframes.length; i++) {
+              keyframes[i] = in.readInt() - 1;
+            }
+          }
+        }
         else if (atomType.equals("stts")) {
           in.skipBytes(12);
           int fps = in.readInt();
@@ -602,6 +608,76 @@ public class NativeQTReader extends FormatReader {
     LOGGER.debug(sb.toString());
   }
 
+  /** Reads the compressed pixel data for the given plane. */
+  private byte[] readPixels(int no) throws IOException {
+    int offset = offsets.get(no).intValue();
+    int nextOffset = (int) pixelBytes;
+
+    scale = offsets.get(0).intValue();
+    offset -= scale;
+
+    if (no < offsets.size() - 1) {
+      nextOffset = offsets.get(no + 1).intValue() - scale;
+    }
+
+    if ((nextOffset - offset) < 0) {
+      int temp = offset;
+      offset = nextOffset;
+      nextOffset = temp;
+    }
+
+    byte[] pixs = new byte[nextOffset - offset];
+
+    in.seek(pixelOffset + offset);
+    in.read(pixs);
+    return pixs;
+  }
+
+  /**
+   * Uncompresses a delta-encoded plane, decoding forward from the closest
+   * key frame, cached checkpoint or previously decoded plane.
+   */
+  private byte[] uncompressDelta(int no, String code)
+    throws FormatException, IOException
+  {
+    if (prevPlane == no && prevPixels != null) return prevPixels;
+
+    int keyframe = keyframeIndex.getKeyframe(no);
+    int checkpoint = keyframeIndex.getCheckpoint(no);
+    int start = keyframe;
+    byte[] previous = null;
+    if (checkpoint >= 0) {
+      start = checkpoint + 1;
+      previous = keyframeIndex.getCheckpointPixels(checkpoint);
+    }
+    if (prevPixels != null && prevPlane < no &&
+      prevPlane >= Math.max(keyframe, checkpoint))
+    {
+      start = prevPlane + 1;
+      previous = prevPixels;
+    }
+
+    for (int plane=start; plane<=no; plane++) {
+      prevPixels = previous;
+      canUsePrevious = previous != null;
+      previous = trimToPrevious(uncompress(readPixels(plane), code));
+      keyframeIndex.update(plane, previous);
+    }
+    canUsePrevious = false;
+    return previous;
+  }
+
+  /** Trims the given plane to the size of the previous plane, if needed. */
+  private byte[] trimToPrevious(byte[] t) {
+    // on rare occassions, we need to trim the data
+    if (canUsePrevious && (prevPixels.length < t.length)) {
+      byte[] temp = t;
+      t = new byte[prevPixels.length];
+      System.arraycopy(temp, 0, t, 0, t.length);
+    }
+    return t;
+  }
+
   /** Uncompresses an image plane according to the the codec identifier. */
   private byte[] uncompress(byte[] pixs, String code)
     throws FormatException, IOException
@@ -57,7 +57,6 @@ import loci.formats.FormatTools;
 import loci.formats.IFormatReader;
 import loci.formats.MetadataTools;
 import loci.formats.MissingLibraryException;
-import loci.formats.meta.IMetadata;
 import loci.formats.meta.MetadataStore;
 import loci.formats.ome.OMEXMLMetadata;
 import loci.formats.services.OMEXMLService;
@@ -68,6 +67,8 @@ import loci.formats.tiff.PhotoInterp;
 import loci.formats.tiff.TiffIFDEntry;
 import loci.formats.tiff.TiffParser;
 
+import ome.xml.model.BinaryOnly;
+import ome.xml.model.OME;
 import ome.xml.model.primitives.NonNegativeInteger;
 import ome.xml.model.primitives.PositiveInteger;
 import ome.xml.model.primitives.Timestamp;
@@ -98,6 +99,9 @@ public class OMETiffReader extends FormatReader {
 
   private OMEXMLService service;
 
+  /** Files whose BinaryOnly references are being followed by initFile. */
+  private HashSet<String> redirects;
+
   // -- Constructor --
 
   /** Constructs a new OME-TIFF reader. */
@@ -135,6 +139,7 @@ public class OMETiffReader extends FormatReader {
     if (meta.getRoot() == null) {
       throw new FormatException("Could not parse OME-XML from TIFF comment");
     }
+    if (getMetadataFile(meta) != null) return false;
 
     int nImages = 0;
     for (int i=0; i<meta.getImageCount(); i++) {
@@ -180,7 +185,8 @@ public class OMETiffReader extends FormatReader {
 
     try {
       if (service == null) setupService();
-      IMetadata meta = service.createOMEXMLMetadata(comment);
+      OMEXMLMetadata meta = service.createOMEXMLMetadata(comment);
+      if (getMetadataFile(meta) != null) return true;
       for (int i=0; i<meta.getImageCount(); i++) {
         meta.setPixelsBinDataBigEndian(Boolean.TRUE, i, 0);
         MetadataTools.verifyMinimumPopulated(meta, i);
@@ -350,6 +356,28 @@ public class OMETiffReader extends FormatReader {
       throw new FormatException(se);
     }
 
+    String metadataFile = getMetadataFile(meta);
+    if (metadataFile != null) {
+      // this file only contains pixel data; the complete OME-XML block
+      // is in the referenced file, so initialize from that file instead
+      String masterFile = normalizeFilename(dir, metadataFile);
+      boolean first = redirects == null;
+      if (first) redirects = new HashSet<String>();
+      try {
+        redirects.add(id);
+        if (redirects.contains(masterFile)) {
+          throw new FormatException(
+            "BinaryOnly elements form a cycle at " + masterFile);
+        }
+        close();
+        initFile(masterFile);
+      }
+      finally {
+        if (first) redirects = null;
+      }
+      return;
+    }
+
     hasSPW = meta.getPlateCount() > 0;
 
     for (int i=0; i<meta.getImageCount(); i++) {
@@ -856,6 +884,21 @@ public class OMETiffReader extends FormatReader {
      return new Location(name).getAbsolutePath();
   }
 
+  /**
+   * Gets the name of the file containing the complete OME-XML block, if the
+   * given metadata only contains a BinaryOnly reference to it.
+   * @return the referenced file name, or null if there is no BinaryOnly
+   *   element.
+   */
+  private String getMetadataFile(OMEXMLMetadata meta) {
+    Object root = meta.getRoot();
+    if (root instanceof OME) {
+      BinaryOnly binaryOnly = ((OME) root).getBinaryOnly();
+      if (binaryOnly != null) return binaryOnly.getMetadataFile();
+    }
+    return null;
+  }
+
   private void setupService() throws FormatException {
     try {
       ServiceFactory factory = new ServiceFactory();
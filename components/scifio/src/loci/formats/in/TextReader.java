@@ -36,16 +36,14 @@
 
 package loci.formats.in;
 
-import java.io.BufferedReader;
-import java.io.FileReader;
 import java.io.IOException;
+import java.io.UnsupportedEncodingException;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 
+import loci.common.Constants;
 import loci.common.DataTools;
-import loci.common.IRandomAccess;
-import loci.common.Location;
 import loci.common.RandomAccessInputStream;
 import loci.formats.FormatException;
 import loci.formats.FormatReader;
@@ -54,9 +52,9 @@ import loci.formats.MetadataTools;
 import loci.formats.meta.MetadataStore;
 
 /**
- * Reader for text files containing tables of data. All image planes
- * are stored in memory as 32-bit floats until the file is closed,
- * so very large text documents will require commensurate available RAM.
+ * Reader for text files containing tables of data. The file is indexed
+ * once during initialization; each plane is then parsed from the file
+ * on demand, so only one plane of 32-bit floats needs to fit in memory.
  *
  * Text format is flexible, but assumed to be in tabular form with a consistent
  * number of columns, and a labeled header line immediately preceding the data.
@@ -78,13 +76,13 @@ public class TextReader extends FormatReader {
   /** How often to report progress during initialization, in milliseconds. */
   private static final long TIME_OFFSET = 2000;
 
-  // -- Fields --
+  /** Number of bytes to read from the file at a time. */
+  private static final int BUFFER_SIZE = 64 * 1024;
 
-  /**
-   * Because we have no way of indexing into the text file efficiently
-   * in general, we cheat and store the entire file's data in a giant array.
-   */
-  private float[][] data;
+  /** Number of data rows in each block of the row index. */
+  private static final int BLOCK_ROWS = 4096;
+
+  // -- Fields --
 
   /** Current row number. */
   private int row;
@@ -101,12 +99,39 @@ public class TextReader extends FormatReader {
   /** List of channel labels. */
   private String[] channels;
 
+  /** Column index for each channel. */
+  private int[] channelIndices;
+
   /** Image width. */
   private int sizeX;
 
   /** Image height. */
   private int sizeY;
 
+  /** Offset to the first row of each block of data rows. */
+  private long[] blockOffsets;
+
+  /** Smallest Y coordinate within each block of data rows. */
+  private int[] blockMinY;
+
+  /** Largest Y coordinate within each block of data rows. */
+  private int[] blockMaxY;
+
+  /** Number of blocks of data rows. */
+  private int blockCount;
+
+  /** Offsets to data rows that could not be parsed. */
+  private long[] invalidRows = new long[0];
+
+  /** Number of data rows that could not be parsed. */
+  private int invalidRowCount;
+
+  /** Start and end positions of the tokens in the current line. */
+  private int[] tokenStarts = new int[16], tokenEnds = new int[16];
+
+  /** Number of tokens in the current line. */
+  private int tokenCount;
+
   // -- Constructor --
 
   /** Constructs a new text reader. */
@@ -129,17 +154,15 @@ public class TextReader extends FormatReader {
   public boolean isThisType(RandomAccessInputStream stream) throws IOException {
     final int blockLen = 8192;
     if (!FormatTools.validStream(stream, blockLen, false)) return false;
-    row = 0;
-    String data = stream.readString(blockLen);
-    List<String> lines = Arrays.asList(data.split("\n"));
-    String[] line = getNextLine(lines);
-    if (line == null) return false;
-    int headerRows = 0;
+    LineScanner lines = new LineScanner(stream, stream.getFilePointer(),
+      Math.min(stream.length(), stream.getFilePointer() + blockLen));
     try {
-      headerRows = parseFileHeader(lines);
+      parseFileHeader(lines);
     }
-    catch (FormatException e) { }
-    return headerRows > 0;
+    catch (FormatException e) {
+      return false;
+    }
+    return true;
   }
 
   /* @see IFormatReader#openBytes(int, byte[], int, int, int, int) */
@@ -149,20 +172,13 @@ public class TextReader extends FormatReader {
   {
     FormatTools.checkPlaneParameters(this, no, buf.length, x, y, w, h);
 
-    // copy floating point data into byte buffer
-    final float[] plane = data[no];
-    int q = 0;
-    for (int j=0; j<h; j++) {
-      final int yy = y + j;
-      for (int i=0; i<w; i++) {
-        final int xx = x + i;
-        final int index = yy * sizeX + xx;
-        final int bits = Float.floatToIntBits(plane[index]);
-        DataTools.unpackBytes(bits, buf, q, 4, LITTLE_ENDIAN);
-        q += 4;
-      }
+    // flag all values as missing by default
+    final int missing = Float.floatToIntBits(Float.NaN);
+    for (int q=0; q<w * h * 4; q+=4) {
+      DataTools.unpackBytes(missing, buf, q, 4, LITTLE_ENDIAN);
     }
 
+    parsePlane(no, x, y, w, h, buf, null);
     return buf;
   }
 
@@ -172,7 +188,12 @@ public class TextReader extends FormatReader {
     throws FormatException, IOException
   {
     FormatTools.assertId(currentId, true, 1);
-    return data[no];
+    FormatTools.checkPlaneNumber(this, no);
+    FormatTools.checkTileSize(this, x, y, w, h);
+    float[] plane = new float[w * h];
+    Arrays.fill(plane, Float.NaN);
+    parsePlane(no, x, y, w, h, null, plane);
+    return plane;
   }
 
   /* @see IFormatReader#close(boolean) */
@@ -180,12 +201,17 @@ public class TextReader extends FormatReader {
   public void close(boolean fileOnly) throws IOException {
     super.close(fileOnly);
     if (!fileOnly) {
-      data = null;
       rowLength = 0;
       xIndex = yIndex = -1;
       channels = null;
+      channelIndices = null;
       sizeX = sizeY = 0;
       row = 0;
+      blockOffsets = null;
+      blockMinY = blockMaxY = null;
+      blockCount = 0;
+      invalidRows = new long[0];
+      invalidRowCount = 0;
     }
   }
 
@@ -202,33 +228,22 @@ public class TextReader extends FormatReader {
   /* @see loci.formats.FormatReader#initFile(String) */
   protected void initFile(String id) throws FormatException, IOException {
     super.initFile(id);
-
-    // read file into memory
-    LOGGER.info("Reading file");
-    List<String> lines = readFile(id);
+    in = new RandomAccessInputStream(id);
 
     // parse file header
     LOGGER.info("Parsing file header");
-    final int headerRows = parseFileHeader(lines);
+    LineScanner lines = new LineScanner(in, 0, in.length());
+    parseFileHeader(lines);
 
-    LOGGER.info("Creating images");
-
-    // allocate memory for image data
-    final int sizeZ = 1, sizeT = 1; // no Z or T for now
-    final int sizeC = channels.length;
-    final int imageCount = sizeZ * sizeC * sizeT;
-    final int planeSize = sizeX * sizeY;
-    data = new float[imageCount][planeSize];
-
-    // flag all values as missing by default
-    for (int i=0; i<imageCount; i++) Arrays.fill(data[i], Float.NaN);
-
-    // read data into float array
-    parseTableData(lines, headerRows);
+    // index the table data
+    LOGGER.info("Indexing table data");
+    indexTableData(lines);
 
     LOGGER.info("Populating metadata");
 
     // populate core metadata
+    final int sizeZ = 1, sizeT = 1; // no Z or T for now
+    final int sizeC = channels.length;
     populateCoreMetadata(sizeX, sizeY, sizeZ, sizeC, sizeT);
 
     // populate OME metadata
@@ -238,126 +253,140 @@ public class TextReader extends FormatReader {
 
   // -- Helper methods --
 
-  private List<String> readFile(String id) throws IOException {
-    List<String> lines = new ArrayList<String>();
-    long time = System.currentTimeMillis();
-    IRandomAccess handle = Location.getMappedFile(id);
-    if (handle == null) {
-      // HACK: Read using vanilla BufferedReader, since it's faster.
-      String mapId = Location.getMappedId(id);
-      BufferedReader in = new BufferedReader(new FileReader(mapId));
-      int no = 0;
-      while (true) {
-        no++;
-        time = checkTime(time, no, 0, 0);
-        String line = in.readLine();
-        if (line == null) break; // eof
-        lines.add(line);
-      }
-      in.close();
-    }
-    else {
-      // read data using RandomAccessInputStream (data may not be a file)
-      RandomAccessInputStream in = new RandomAccessInputStream(handle);
-      int no = 0;
-      while (true) {
-        no++;
-        time = checkTime(time, no, in.getFilePointer(), in.length());
-        String line = in.readLine();
-        if (line == null) break; // eof
-        lines.add(line);
-      }
-      in.close();
-    }
-    return lines;
-  }
-
   /**
    * Parses the file looking for the file header.
-   * Determines image extents (sets sizeX and sizeY).
-   * Determines channel names (populates channels array).
-   *
-   * @return number of rows in the header
+   * Determines channel names (populates channels array), and leaves
+   * the given scanner positioned on the first row of data.
    */
-  private int parseFileHeader(List<String> lines) throws FormatException {
+  private void parseFileHeader(LineScanner lines)
+    throws FormatException, IOException
+  {
+    row = 0;
     String[] lastTokens = null;
-    double[] rowData = null;
     while (true) {
-      String[] tokens = getNextLine(lines);
-      if (tokens == null) throw new FormatException("No tabular data found");
-      if (tokens.length >= 3 && // need at least 3 columns of data
-        lastTokens != null && lastTokens.length == tokens.length)
+      if (!nextLine(lines)) {
+        throw new FormatException("No tabular data found");
+      }
+      if (tokenCount >= 3 && // need at least 3 columns of data
+        lastTokens != null && lastTokens.length == tokenCount &&
+        isNumericRow(lines.buffer()))
       {
-        // consistent number of tokens; might be the header and first data row
-
-        // allocate rowData as needed
-        if (rowData == null || rowData.length != tokens.length) {
-          rowData = new double[tokens.length];
-        }
-
-        // try to parse the first data row
-        if (getRowData(tokens, rowData)) {
-          LOGGER.info("Found header on line " + (row - 1));
-          // looks like tabular data; assume previous line is the header
-          parseHeaderRow(lastTokens);
-          break;
-        }
+        // looks like tabular data; assume previous line is the header
+        LOGGER.info("Found header on line " + (row - 1));
+        parseHeaderRow(lastTokens);
+        break;
       }
-      lastTokens = tokens;
+      lastTokens = getTokens(lines.buffer());
     }
-    final int headerRows = row - 1;
 
     if (xIndex < 0) throw new FormatException("No X coordinate column found");
     if (yIndex < 0) throw new FormatException("No Y coordinate column found");
+  }
 
-    // search remainder of tabular data for X and Y extents
-    boolean checkRow = true;
-    while (true) {
-      if (checkRow) {
-        // expand dimensional extents as needed
-        int x = getX(rowData);
-        if (x < 0) {
-          throw new FormatException("Row #" + row + ": invalid X: " + x);
-        }
-        if (sizeX <= x) sizeX = x + 1;
-        int y = getY(rowData);
-        if (y < 0) {
-          throw new FormatException("Row #" + row + ": invalid Y: " + x);
+  /**
+   * Reads through the table data, starting with the current line.
+   * Determines image extents (sets sizeX and sizeY) and records the offset
+   * of every {@link #BLOCK_ROWS} rows, so that planes can be parsed later
+   * without reading the file into memory.
+   */
+  private void indexTableData(LineScanner lines)
+    throws FormatException, IOException
+  {
+    blockOffsets = new long[16];
+    blockMinY = new int[16];
+    blockMaxY = new int[16];
+    blockCount = 0;
+    invalidRowCount = 0;
+
+    long time = System.currentTimeMillis();
+    int rows = 0;
+    do {
+      time = checkTime(time, row, lines.getLineOffset(), lines.getLength());
+      if (rows % BLOCK_ROWS == 0) {
+        if (blockCount == blockOffsets.length) {
+          blockOffsets = grow(blockOffsets, blockCount * 2);
+          blockMinY = grow(blockMinY, blockCount * 2);
+          blockMaxY = grow(blockMaxY, blockCount * 2);
         }
-        if (sizeY <= y) sizeY = y + 1;
+        blockOffsets[blockCount] = lines.getLineOffset();
+        blockMinY[blockCount] = Integer.MAX_VALUE;
+        blockMaxY[blockCount] = -1;
+        blockCount++;
       }
+      rows++;
 
-      // parse next row
-      String[] tokens = getNextLine(lines);
-      if (tokens == null) break; // eof
-      checkRow = getRowData(tokens, rowData);
-    }
-
-    return headerRows;
-  }
-
-  /** Reads the tabular data into the data array. */
-  private void parseTableData(List<String> lines, int linesToSkip) {
-    row = linesToSkip; // skip header lines
-
-    double[] rowData = new double[rowLength];
-    while (true) {
-      String[] tokens = getNextLine(lines);
-      if (tokens == null) break; // eof
-      if (tokens.length != rowLength) {
+      if (tokenCount != rowLength) {
         LOGGER.warn("Ignoring deviant row #" + row);
         continue;
       }
-
-      // parse values from row
-      boolean success = getRowData(tokens, rowData);
-      if (!success) {
+      if (!isNumericRow(lines.buffer())) {
         LOGGER.warn("Ignoring non-numeric row #" + row);
+        if (invalidRowCount == invalidRows.length) {
+          invalidRows = grow(invalidRows, invalidRowCount * 2 + 1);
+        }
+        invalidRows[invalidRowCount++] = lines.getLineOffset();
         continue;
       }
 
-      // copy values into array
-      assignValues(rowData);
+      // expand dimensional extents as needed
+      byte[] b = lines.buffer();
+      int x = getX(b);
+      if (x < 0) {
+        throw new FormatException("Row #" + row + ": invalid X: " + x);
+      }
+      if (sizeX <= x) sizeX = x + 1;
+      int y = getY(b);
+      if (y < 0) {
+        throw new FormatException("Row #" + row + ": invalid Y: " + y);
+      }
+      if (sizeY <= y) sizeY = y + 1;
+
+      int block = blockCount - 1;
+      if (y < blockMinY[block]) blockMinY[block] = y;
+      if (y > blockMaxY[block]) blockMaxY[block] = y;
+    }
+    while (nextLine(lines));
+  }
+
+  /**
+   * Parses the given region of a plane from the file, storing the values
+   * either as big-endian bytes in buf, or as floats in plane.
+   */
+  private void parsePlane(int no, int x, int y, int w, int h,
+    byte[] buf, float[] plane)
+    throws FormatException, IOException
+  {
+    final int column = channelIndices[no];
+    LineScanner lines = new LineScanner(in, 0, in.length());
+    for (int block=0; block<blockCount; block++) {
+      if (blockMaxY[block] < y || blockMinY[block] >= y + h) continue;
+      long end = block < blockCount - 1 ?
+        blockOffsets[block + 1] : in.length();
+      lines.seek(blockOffsets[block]);
+      while (lines.next() && lines.getLineOffset() < end) {
+        if (tokenize(lines.buffer(), lines.getLineStart(),
+          lines.getLineEnd()) != rowLength)
+        {
+          continue;
+        }
+        if (invalidRowCount > 0 && Arrays.binarySearch(invalidRows, 0,
+          invalidRowCount, lines.getLineOffset()) >= 0)
+        {
+          continue;
+        }
+
+        byte[] b = lines.buffer();
+        int xx = getX(b) - x;
+        int yy = getY(b) - y;
+        if (xx < 0 || xx >= w || yy < 0 || yy >= h) continue;
+        float value = (float) parseToken(b, column);
+        int index = yy * w + xx;
+        if (plane != null) plane[index] = value;
+        else {
+          DataTools.unpackBytes(Float.floatToIntBits(value), buf, index * 4,
+            4, LITTLE_ENDIAN);
+        }
+      }
     }
   }
 
@@ -379,18 +408,11 @@ public class TextReader extends FormatReader {
     core[0].metadataComplete = true;
   }
 
-  /**
-   * Parses numerical row data from the given tokens.
-   *
-   * @param tokens list of token strings to parse
-   * @param rowData array to fill in with the data; length must match tokens
-   *
-   * @return true if the data could be parsed
-   */
-  private boolean getRowData(String[] tokens, double[] rowData) {
+  /** Returns true if every token in the current line is a number. */
+  private boolean isNumericRow(byte[] b) {
     try {
-      for (int i=0; i<tokens.length; i++) {
-        rowData[i] = Double.parseDouble(tokens[i]);
+      for (int i=0; i<tokenCount; i++) {
+        parseToken(b, i);
       }
       return true;
     }
@@ -400,10 +422,11 @@ public class TextReader extends FormatReader {
     }
   }
 
-  /** Populates rowLength, xIndex, yIndex, and channels. */
+  /** Populates rowLength, xIndex, yIndex, channels and channelIndices. */
   private void parseHeaderRow(String[] tokens) {
     rowLength = tokens.length;
     List<String> channelsList = new ArrayList<String>();
+    List<Integer> indices = new ArrayList<Integer>();
     for (int i=0; i<rowLength; i++) {
       String token = tokens[i];
       if (token.equals(LABEL_X)) xIndex = i;
@@ -411,20 +434,13 @@ public class TextReader extends FormatReader {
       else {
         // treat column as a channel
         channelsList.add(token);
+        indices.add(i);
       }
     }
     channels = channelsList.toArray(new String[0]);
-  }
-
-  /** Assigns values from the given row into the data array. */
-  private void assignValues(double[] rowData) {
-    int x = getX(rowData);
-    int y = getY(rowData);
-    int c = 0;
-    int index = sizeX * y + x;
-    for (int i=0; i<rowLength; i++) {
-      if (i == xIndex || i == yIndex) continue;
-      data[c++][index] = (float) rowData[i];
+    channelIndices = new int[indices.size()];
+    for (int i=0; i<channelIndices.length; i++) {
+      channelIndices[i] = indices.get(i);
     }
   }
 
@@ -442,17 +458,220 @@ public class TextReader extends FormatReader {
     return time;
   }
 
-  private int getX(double[] rowData) { return (int) rowData[xIndex]; }
-  private int getY(double[] rowData) { return (int) rowData[yIndex]; }
+  private int getX(byte[] b) { return (int) parseToken(b, xIndex); }
+  private int getY(byte[] b) { return (int) parseToken(b, yIndex); }
 
-  private String[] getNextLine(List<String> lines) {
-    while (true) {
-      if (row >= lines.size()) return null; // end of list
-      String line = lines.get(row++);
-      line = line.trim();
-      if (line.equals("")) continue; // skip blank lines
-      return line.split("[\\s,]");
+  /** Advances to the next non-blank line, splitting it into tokens. */
+  private boolean nextLine(LineScanner lines) throws IOException {
+    while (lines.next()) {
+      row++;
+      if (tokenize(lines.buffer(), lines.getLineStart(),
+        lines.getLineEnd()) > 0)
+      {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Splits the given line on whitespace and commas, in the same way as
+   * <code>line.trim().split("[\\s,]")</code>.
+   *
+   * @return the number of tokens
+   */
+  private int tokenize(byte[] b, int start, int end) {
+    while (start < end && (b[start] & 0xff) <= ' ') start++;
+    while (end > start && (b[end - 1] & 0xff) <= ' ') end--;
+    tokenCount = 0;
+    if (start == end) return 0;
+
+    int tokenStart = start;
+    for (int i=start; i<=end; i++) {
+      if (i == end || isSeparator(b[i])) {
+        if (tokenCount == tokenStarts.length) {
+          tokenStarts = grow(tokenStarts, tokenCount * 2);
+          tokenEnds = grow(tokenEnds, tokenCount * 2);
+        }
+        tokenStarts[tokenCount] = tokenStart;
+        tokenEnds[tokenCount] = i;
+        tokenCount++;
+        tokenStart = i + 1;
+      }
+    }
+
+    // trailing empty tokens are discarded
+    while (tokenCount > 0 &&
+      tokenStarts[tokenCount - 1] == tokenEnds[tokenCount - 1])
+    {
+      tokenCount--;
+    }
+    return tokenCount;
+  }
+
+  /** Gets the tokens in the current line as strings. */
+  private String[] getTokens(byte[] b) {
+    String[] tokens = new String[tokenCount];
+    for (int i=0; i<tokenCount; i++) {
+      tokens[i] = getToken(b, tokenStarts[i], tokenEnds[i]);
+    }
+    return tokens;
+  }
+
+  /** Parses the given token in the current line as a number. */
+  private double parseToken(byte[] b, int token) {
+    return DataTools.parseDouble(b, tokenStarts[token],
+      tokenEnds[token] - tokenStarts[token]);
+  }
+
+  private static boolean isSeparator(byte b) {
+    return b == ' ' || b == ',' || b == '\t' || b == '\n' || b == '\r' ||
+      b == '\f' || b == 0x0b;
+  }
+
+  private static String getToken(byte[] b, int start, int end) {
+    try {
+      return new String(b, start, end - start, Constants.ENCODING);
+    }
+    catch (UnsupportedEncodingException e) {
+      return new String(b, start, end - start);
+    }
+  }
+
+  private static int[] grow(int[] array, int length) {
+    int[] newArray = new int[length];
+    System.arraycopy(array, 0, newArray, 0, array.length);
+    return newArray;
+  }
+
+  private static long[] grow(long[] array, int length) {
+    long[] newArray = new long[length];
+    System.arraycopy(array, 0, newArray, 0, array.length);
+    return newArray;
+  }
+
+  // -- Helper classes --
+
+  /** Reads lines from a stream, keeping track of the offset to each line. */
+  private static class LineScanner {
+
+    private RandomAccessInputStream stream;
+
+    /** Offset at which to stop reading. */
+    private long length;
+
+    private byte[] buf = new byte[BUFFER_SIZE];
+
+    /** File offset corresponding to the start of the buffer. */
+    private long bufferOffset;
+
+    /** Number of valid bytes in the buffer. */
+    private int bufferLength;
+
+    /** Position in the buffer at which to look for the next line. */
+    private int position;
+
+    private int lineStart, lineEnd;
+
+    public LineScanner(RandomAccessInputStream stream, long offset,
+      long length)
+    {
+      this.stream = stream;
+      this.length = length;
+      bufferOffset = offset;
     }
+
+    /** Moves to the given offset, which must be the start of a line. */
+    public void seek(long offset) {
+      if (offset >= bufferOffset && offset <= bufferOffset + bufferLength) {
+        position = (int) (offset - bufferOffset);
+      }
+      else {
+        bufferOffset = offset;
+        bufferLength = 0;
+        position = 0;
+      }
+    }
+
+    /**
+     * Advances to the next line; CR, LF and CR-LF are all treated as
+     * line terminators.
+     *
+     * @return false if the end of the stream has been reached
+     */
+    public boolean next() throws IOException {
+      int i = position;
+      while (true) {
+        while (i < bufferLength && buf[i] != '\n' && buf[i] != '\r') i++;
+        if (i < bufferLength) {
+          // found a line terminator; swallow the LF in a CR-LF pair
+          lineStart = position;
+          lineEnd = i;
+          if (buf[i] == '\r') {
+            if (i + 1 == bufferLength) {
+              fill();
+              i = lineEnd;
+            }
+            if (i + 1 < bufferLength && buf[i + 1] == '\n') i++;
+          }
+          position = i + 1;
+          return true;
+        }
+        int offset = i - position;
+        if (fill() <= 0) {
+          if (position == bufferLength) return false;
+          // last line has no terminator
+          lineStart = position;
+          lineEnd = bufferLength;
+          position = bufferLength;
+          return true;
+        }
+        i = position + offset;
+      }
+    }
+
+    public byte[] buffer() { return buf; }
+
+    public int getLineStart() { return lineStart; }
+
+    public int getLineEnd() { return lineEnd; }
+
+    public long getLineOffset() { return bufferOffset + lineStart; }
+
+    public long getLength() { return length; }
+
+    /**
+     * Discards the bytes before the current position and reads more data
+     * into the buffer, growing it if a single line does not fit.
+     *
+     * @return the number of bytes read
+     */
+    private int fill() throws IOException {
+      int remaining = bufferLength - position;
+      int shift = position;
+      if (shift > 0) {
+        System.arraycopy(buf, position, buf, 0, remaining);
+        bufferOffset += shift;
+        lineStart -= shift;
+        lineEnd -= shift;
+        position = 0;
+        bufferLength = remaining;
+      }
+      else if (remaining == buf.length) {
+        byte[] newBuffer = new byte[buf.length * 2];
+        System.arraycopy(buf, 0, newBuffer, 0, bufferLength);
+        buf = newBuffer;
+      }
+
+      long available = length - (bufferOffset + bufferLength);
+      int n = (int) Math.min(available, buf.length - bufferLength);
+      if (n <= 0) return 0;
+      stream.seek(bufferOffset + bufferLength);
+      stream.readFully(buf, bufferLength, n);
+      bufferLength += n;
+      return n;
+    }
+
   }
 
 }
@@ -39,11 +39,9 @@ package loci.formats.in;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.zip.ZipEntry;
-import java.util.zip.ZipInputStream;
 
 import loci.common.IRandomAccess;
 import loci.common.Location;
-import loci.common.RandomAccessInputStream;
 import loci.common.ZipHandle;
 import loci.formats.FormatException;
 import loci.formats.FormatReader;
@@ -125,14 +123,9 @@ public class ZipReader extends FormatReader {
     reader.setNormalized(isNormalized());
     reader.setMetadataStore(getMetadataStore());
 
-    // NB: We need a raw handle on the ZIP data itself, not a ZipHandle.
-    IRandomAccess rawHandle = Location.getHandle(id, false, false);
-    in = new RandomAccessInputStream(rawHandle, id);
-
-    ZipInputStream zip = new ZipInputStream(in);
-    while (true) {
-      ZipEntry ze = zip.getNextEntry();
-      if (ze == null) break;
+    // entries are listed from the central directory,
+    // so none of the entry data needs to be decompressed here
+    for (ZipEntry ze : ZipHandle.getEntries(id)) {
       ZipHandle handle = new ZipHandle(id, ze);
       Location.mapFile(ze.getName(), handle);
       mappedFiles.add(ze.getName());
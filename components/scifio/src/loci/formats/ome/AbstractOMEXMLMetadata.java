@@ -37,6 +37,8 @@
 package loci.formats.ome;
 
 import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
 import java.util.Hashtable;
 
 import javax.xml.parsers.DocumentBuilder;
@@ -98,23 +100,38 @@ public abstract class AbstractOMEXMLMetadata implements OMEXMLMetadata {
    * @return OME-XML as a string.
    */
   public String dumpXML() {
-    if (root == null) {
-      root = (OMEModelObject) getRoot();
-      if (root == null) return null;
-    }
+    if (getModelRoot() == null) return null;
     try {
       ByteArrayOutputStream os = new ByteArrayOutputStream();
+      dumpXML(os);
+      return os.toString();
+    }
+    catch (IOException exc) {
+    }
+    return null;
+  }
+
+  /**
+   * Writes the given OME-XML DOM tree directly to the given stream,
+   * without building an intermediate string.
+   * Nothing is written if there is no root object.
+   */
+  public void dumpXML(OutputStream os) throws IOException {
+    OMEModelObject r = getModelRoot();
+    if (r == null) return;
+    try {
       Document doc = createNewDocument();
-      Element r = root.asXMLElement(doc);
-      r.setAttribute("xmlns:xsi", XSI_NS);
-      r.setAttribute("xsi:schemaLocation", OME.NAMESPACE + " " + SCHEMA);
-      doc.appendChild(r);
+      Element e = r.asXMLElement(doc);
+      e.setAttribute("xmlns:xsi", XSI_NS);
+      e.setAttribute("xsi:schemaLocation", OME.NAMESPACE + " " + SCHEMA);
+      doc.appendChild(e);
       DOMUtil.writeXML(os, doc);
-      return os.toString();
     }
     catch (TransformerException exc) {
+      IOException io = new IOException("Could not write OME-XML");
+      io.initCause(exc);
+      throw io;
     }
-    return null;
   }
 
   // -- MetadataRetrieve API methods --
@@ -192,6 +209,12 @@ public abstract class AbstractOMEXMLMetadata implements OMEXMLMetadata {
     return builder.newDocument();
   }
 
+  /** Gets the root model object, caching it if it has not been set. */
+  private OMEModelObject getModelRoot() {
+    if (root == null) root = (OMEModelObject) getRoot();
+    return root;
+  }
+
   private Element getRootElement() {
     return root.asXMLElement(createNewDocument());
   }
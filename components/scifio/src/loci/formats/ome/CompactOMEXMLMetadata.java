@@ -0,0 +1,518 @@
+/*
+ * #%L
+ * OME SCIFIO package for reading and converting scientific file formats.
+ * %%
+ * Copyright (C) 2005 - 2012 Open Microscopy Environment:
+ *   - Board of Regents of the University of Wisconsin-Madison
+ *   - Glencoe Software, Inc.
+ *   - University of Dundee
+ * %%
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ * 
+ * The views and conclusions contained in the software and documentation are
+ * those of the authors and should not be interpreted as representing official
+ * policies, either expressed or implied, of any organization.
+ * #L%
+ */
+
+package loci.formats.ome;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+
+import ome.xml.model.Image;
+import ome.xml.model.OME;
+import ome.xml.model.Pixels;
+import ome.xml.model.Plane;
+import ome.xml.model.primitives.NonNegativeInteger;
+
+/**
+ * OME-XML metadata implementation that stores the DeltaT, ExposureTime,
+ * PositionX/Y/Z and TheZ/C/T attributes of Planes in primitive arrays
+ * indexed by (image, plane), instead of as one {@link Plane} model object
+ * per plane.  This greatly reduces memory use for datasets with millions
+ * of planes, such as long time-lapses and high content screens.  The
+ * HashSHA1 and AnnotationRef values, which are rarely set, are kept in
+ * sparse per-plane maps.
+ *
+ * The {@link Plane} objects are only created when the OME model is needed
+ * directly, i.e. when {@link #getRoot()} or one of the dumpXML methods is
+ * called.
+ * MetadataRetrieve getters, and therefore metadata conversion, read the
+ * arrays without creating any model objects.
+ *
+ * Values of Double.NaN are treated as unset and retrieved as null.
+ *
+ * <dl><dt><b>Source code:</b></dt>
+ * <dd><a href="http://trac.openmicroscopy.org.uk/ome/browser/bioformats.git/components/bio-formats/src/loci/formats/ome/CompactOMEXMLMetadata.java">Trac</a>,
+ * <a href="http://git.openmicroscopy.org/?p=bioformats.git;a=blob;f=components/bio-formats/src/loci/formats/ome/CompactOMEXMLMetadata.java;hb=HEAD">Gitweb</a></dd></dl>
+ */
+public class CompactOMEXMLMetadata extends OMEXMLMetadataImpl {
+
+  // -- Constants --
+
+  private static final int DELTA_T = 0;
+  private static final int EXPOSURE_TIME = 1;
+  private static final int POSITION_X = 2;
+  private static final int POSITION_Y = 3;
+  private static final int POSITION_Z = 4;
+
+  private static final int THE_Z = 0;
+  private static final int THE_C = 1;
+  private static final int THE_T = 2;
+
+  // -- Fields --
+
+  /** Plane tables for each image; null if an image has no pending planes. */
+  private ArrayList<PlaneTable> tables;
+
+  // -- Constructor --
+
+  public CompactOMEXMLMetadata() {
+    super();
+    tables = new ArrayList<PlaneTable>();
+  }
+
+  // -- CompactOMEXMLMetadata API methods --
+
+  /**
+   * Creates {@link Plane} model objects for all planes that are currently
+   * stored in the primitive arrays.
+   */
+  public void materializePlanes() {
+    for (int image=0; image<tables.size(); image++) {
+      materializePlanes(image);
+    }
+  }
+
+  /**
+   * Returns the number of planes of the given image that are stored in the
+   * primitive arrays rather than as {@link Plane} model objects.
+   */
+  public int getCompactPlaneCount(int imageIndex) {
+    PlaneTable table = getTable(imageIndex);
+    if (table == null) return 0;
+    return Math.max(0, table.count - getModelPlaneCount(imageIndex));
+  }
+
+  // -- MetadataStore API methods --
+
+  public void createRoot() {
+    super.createRoot();
+    if (tables != null) tables.clear();
+  }
+
+  public Object getRoot() {
+    if (tables != null) materializePlanes();
+    return super.getRoot();
+  }
+
+  public void setRoot(Object root) {
+    super.setRoot(root);
+    if (tables != null) tables.clear();
+  }
+
+  // -- AbstractOMEXMLMetadata API methods --
+
+  public void dumpXML(OutputStream os) throws IOException {
+    materializePlanes();
+    super.dumpXML(os);
+  }
+
+  // -- Plane entity counting --
+
+  public int getPlaneCount(int imageIndex) {
+    int count = getModelPlaneCount(imageIndex);
+    PlaneTable table = getTable(imageIndex);
+    return table == null ? count : Math.max(count, table.count);
+  }
+
+  public int getPlaneAnnotationRefCount(int imageIndex, int planeIndex) {
+    PlaneTable table = getPendingTable(imageIndex, planeIndex);
+    if (table == null) {
+      return super.getPlaneAnnotationRefCount(imageIndex, planeIndex);
+    }
+    return table.getAnnotationRefCount(planeIndex);
+  }
+
+  // -- Plane property retrieval --
+
+  public String getPlaneAnnotationRef(int imageIndex, int planeIndex,
+    int annotationRefIndex)
+  {
+    PlaneTable table = getPendingTable(imageIndex, planeIndex);
+    if (table == null) {
+      return super.getPlaneAnnotationRef(imageIndex, planeIndex,
+        annotationRefIndex);
+    }
+    return table.getAnnotationRef(planeIndex, annotationRefIndex);
+  }
+
+  public Double getPlaneDeltaT(int imageIndex, int planeIndex) {
+    PlaneTable table = getPendingTable(imageIndex, planeIndex);
+    if (table == null) return super.getPlaneDeltaT(imageIndex, planeIndex);
+    return table.getDouble(DELTA_T, planeIndex);
+  }
+
+  public Double getPlaneExposureTime(int imageIndex, int planeIndex) {
+    PlaneTable table = getPendingTable(imageIndex, planeIndex);
+    if (table == null) {
+      return super.getPlaneExposureTime(imageIndex, planeIndex);
+    }
+    return table.getDouble(EXPOSURE_TIME, planeIndex);
+  }
+
+  public String getPlaneHashSHA1(int imageIndex, int planeIndex) {
+    PlaneTable table = getPendingTable(imageIndex, planeIndex);
+    if (table == null) return super.getPlaneHashSHA1(imageIndex, planeIndex);
+    return table.getHash(planeIndex);
+  }
+
+  public Double getPlanePositionX(int imageIndex, int planeIndex) {
+    PlaneTable table = getPendingTable(imageIndex, planeIndex);
+    if (table == null) return super.getPlanePositionX(imageIndex, planeIndex);
+    return table.getDouble(POSITION_X, planeIndex);
+  }
+
+  public Double getPlanePositionY(int imageIndex, int planeIndex) {
+    PlaneTable table = getPendingTable(imageIndex, planeIndex);
+    if (table == null) return super.getPlanePositionY(imageIndex, planeIndex);
+    return table.getDouble(POSITION_Y, planeIndex);
+  }
+
+  public Double getPlanePositionZ(int imageIndex, int planeIndex) {
+    PlaneTable table = getPendingTable(imageIndex, planeIndex);
+    if (table == null) return super.getPlanePositionZ(imageIndex, planeIndex);
+    return table.getDouble(POSITION_Z, planeIndex);
+  }
+
+  public NonNegativeInteger getPlaneTheC(int imageIndex, int planeIndex) {
+    PlaneTable table = getPendingTable(imageIndex, planeIndex);
+    if (table == null) return super.getPlaneTheC(imageIndex, planeIndex);
+    return table.getInt(THE_C, planeIndex);
+  }
+
+  public NonNegativeInteger getPlaneTheT(int imageIndex, int planeIndex) {
+    PlaneTable table = getPendingTable(imageIndex, planeIndex);
+    if (table == null) return super.getPlaneTheT(imageIndex, planeIndex);
+    return table.getInt(THE_T, planeIndex);
+  }
+
+  public NonNegativeInteger getPlaneTheZ(int imageIndex, int planeIndex) {
+    PlaneTable table = getPendingTable(imageIndex, planeIndex);
+    if (table == null) return super.getPlaneTheZ(imageIndex, planeIndex);
+    return table.getInt(THE_Z, planeIndex);
+  }
+
+  // -- Plane property storage --
+
+  public void setPlaneAnnotationRef(String annotation, int imageIndex,
+    int planeIndex, int annotationRefIndex)
+  {
+    if (isCompact(imageIndex, planeIndex)) {
+      getOrCreateTable(imageIndex).setAnnotationRef(
+        planeIndex, annotationRefIndex, annotation);
+    }
+    else {
+      super.setPlaneAnnotationRef(annotation, imageIndex, planeIndex,
+        annotationRefIndex);
+    }
+  }
+
+  public void setPlaneDeltaT(Double deltaT, int imageIndex, int planeIndex) {
+    if (isCompact(imageIndex, planeIndex)) {
+      getOrCreateTable(imageIndex).setDouble(DELTA_T, planeIndex, deltaT);
+    }
+    else super.setPlaneDeltaT(deltaT, imageIndex, planeIndex);
+  }
+
+  public void setPlaneExposureTime(Double exposureTime, int imageIndex,
+    int planeIndex)
+  {
+    if (isCompact(imageIndex, planeIndex)) {
+      getOrCreateTable(imageIndex).setDouble(
+        EXPOSURE_TIME, planeIndex, exposureTime);
+    }
+    else super.setPlaneExposureTime(exposureTime, imageIndex, planeIndex);
+  }
+
+  public void setPlaneHashSHA1(String hashSHA1, int imageIndex,
+    int planeIndex)
+  {
+    if (isCompact(imageIndex, planeIndex)) {
+      getOrCreateTable(imageIndex).setHash(planeIndex, hashSHA1);
+    }
+    else super.setPlaneHashSHA1(hashSHA1, imageIndex, planeIndex);
+  }
+
+  public void setPlanePositionX(Double positionX, int imageIndex,
+    int planeIndex)
+  {
+    if (isCompact(imageIndex, planeIndex)) {
+      getOrCreateTable(imageIndex).setDouble(POSITION_X, planeIndex, positionX);
+    }
+    else super.setPlanePositionX(positionX, imageIndex, planeIndex);
+  }
+
+  public void setPlanePositionY(Double positionY, int imageIndex,
+    int planeIndex)
+  {
+    if (isCompact(imageIndex, planeIndex)) {
+      getOrCreateTable(imageIndex).setDouble(POSITION_Y, planeIndex, positionY);
+    }
+    else super.setPlanePositionY(positionY, imageIndex, planeIndex);
+  }
+
+  public void setPlanePositionZ(Double positionZ, int imageIndex,
+    int planeIndex)
+  {
+    if (isCompact(imageIndex, planeIndex)) {
+      getOrCreateTable(imageIndex).setDouble(POSITION_Z, planeIndex, positionZ);
+    }
+    else super.setPlanePositionZ(positionZ, imageIndex, planeIndex);
+  }
+
+  public void setPlaneTheC(NonNegativeInteger theC, int imageIndex,
+    int planeIndex)
+  {
+    if (isCompact(imageIndex, planeIndex)) {
+      getOrCreateTable(imageIndex).setInt(THE_C, planeIndex, theC);
+    }
+    else super.setPlaneTheC(theC, imageIndex, planeIndex);
+  }
+
+  public void setPlaneTheT(NonNegativeInteger theT, int imageIndex,
+    int planeIndex)
+  {
+    if (isCompact(imageIndex, planeIndex)) {
+      getOrCreateTable(imageIndex).setInt(THE_T, planeIndex, theT);
+    }
+    else super.setPlaneTheT(theT, imageIndex, planeIndex);
+  }
+
+  public void setPlaneTheZ(NonNegativeInteger theZ, int imageIndex,
+    int planeIndex)
+  {
+    if (isCompact(imageIndex, planeIndex)) {
+      getOrCreateTable(imageIndex).setInt(THE_Z, planeIndex, theZ);
+    }
+    else super.setPlaneTheZ(theZ, imageIndex, planeIndex);
+  }
+
+  // -- Helper methods --
+
+  /** Returns the OME root without materializing any planes. */
+  private OME getOME() {
+    return (OME) super.getRoot();
+  }
+
+  /** Returns the number of Plane objects in the model for the given image. */
+  private int getModelPlaneCount(int imageIndex) {
+    OME ome = getOME();
+    if (imageIndex >= ome.sizeOfImageList()) return 0;
+    Pixels pixels = ome.getImage(imageIndex).getPixels();
+    return pixels == null ? 0 : pixels.sizeOfPlaneList();
+  }
+
+  /**
+   * Returns true if the given plane should be stored in the arrays.
+   * Planes that already exist in the model are updated in place, and
+   * images which do not yet exist are created by the superclass.
+   */
+  private boolean isCompact(int imageIndex, int planeIndex) {
+    OME ome = getOME();
+    if (imageIndex >= ome.sizeOfImageList()) return false;
+    Image image = ome.getImage(imageIndex);
+    if (image.getPixels() == null) return false;
+    return planeIndex >= image.getPixels().sizeOfPlaneList();
+  }
+
+  private PlaneTable getTable(int imageIndex) {
+    return imageIndex < tables.size() ? tables.get(imageIndex) : null;
+  }
+
+  /**
+   * Returns the table containing the given plane, or null if the plane
+   * is stored in the model.
+   */
+  private PlaneTable getPendingTable(int imageIndex, int planeIndex) {
+    PlaneTable table = getTable(imageIndex);
+    if (table == null || planeIndex >= table.count ||
+      planeIndex < getModelPlaneCount(imageIndex))
+    {
+      return null;
+    }
+    return table;
+  }
+
+  private PlaneTable getOrCreateTable(int imageIndex) {
+    while (tables.size() <= imageIndex) tables.add(null);
+    PlaneTable table = tables.get(imageIndex);
+    if (table == null) {
+      table = new PlaneTable();
+      tables.set(imageIndex, table);
+    }
+    return table;
+  }
+
+  /** Moves the pending planes for the given image into the model. */
+  private void materializePlanes(int imageIndex) {
+    PlaneTable table = getTable(imageIndex);
+    if (table == null) return;
+    tables.set(imageIndex, null);
+
+    Pixels pixels = getOME().getImage(imageIndex).getPixels();
+    int first = pixels.sizeOfPlaneList();
+    for (int p=first; p<table.count; p++) {
+      Plane plane = new Plane();
+      plane.setDeltaT(table.getDouble(DELTA_T, p));
+      plane.setExposureTime(table.getDouble(EXPOSURE_TIME, p));
+      plane.setPositionX(table.getDouble(POSITION_X, p));
+      plane.setPositionY(table.getDouble(POSITION_Y, p));
+      plane.setPositionZ(table.getDouble(POSITION_Z, p));
+      plane.setTheZ(table.getInt(THE_Z, p));
+      plane.setTheC(table.getInt(THE_C, p));
+      plane.setTheT(table.getInt(THE_T, p));
+      plane.setHashSHA1(table.getHash(p));
+      pixels.addPlane(plane);
+    }
+    for (int p=first; p<table.count; p++) {
+      for (int q=0; q<table.getAnnotationRefCount(p); q++) {
+        super.setPlaneAnnotationRef(
+          table.getAnnotationRef(p, q), imageIndex, p, q);
+      }
+    }
+  }
+
+  // -- Helper classes --
+
+  /** Per-image columns of Plane attribute values. */
+  private static class PlaneTable {
+    /** Number of planes, i.e. one more than the largest plane index set. */
+    int count;
+
+    private double[][] doubles = new double[5][];
+    private int[][] ints = new int[3][];
+
+    /** HashSHA1 values, for the planes which have one. */
+    private HashMap<Integer, String> hashes;
+
+    /** AnnotationRef IDs, for the planes which have any. */
+    private HashMap<Integer, ArrayList<String>> annotationRefs;
+
+    String getHash(int plane) {
+      return hashes == null ? null : hashes.get(plane);
+    }
+
+    int getAnnotationRefCount(int plane) {
+      ArrayList<String> refs =
+        annotationRefs == null ? null : annotationRefs.get(plane);
+      return refs == null ? 0 : refs.size();
+    }
+
+    String getAnnotationRef(int plane, int index) {
+      ArrayList<String> refs =
+        annotationRefs == null ? null : annotationRefs.get(plane);
+      return refs == null || index >= refs.size() ? null : refs.get(index);
+    }
+
+    void setHash(int plane, String value) {
+      if (plane >= count) count = plane + 1;
+      if (hashes == null) {
+        if (value == null) return;
+        hashes = new HashMap<Integer, String>();
+      }
+      if (value == null) hashes.remove(plane);
+      else hashes.put(plane, value);
+    }
+
+    void setAnnotationRef(int plane, int index, String value) {
+      if (plane >= count) count = plane + 1;
+      if (annotationRefs == null) {
+        annotationRefs = new HashMap<Integer, ArrayList<String>>();
+      }
+      ArrayList<String> refs = annotationRefs.get(plane);
+      if (refs == null) {
+        refs = new ArrayList<String>();
+        annotationRefs.put(plane, refs);
+      }
+      if (index < refs.size()) refs.set(index, value);
+      else refs.add(value);
+    }
+
+    Double getDouble(int column, int plane) {
+      double[] values = doubles[column];
+      if (values == null || plane >= values.length) return null;
+      double v = values[plane];
+      return Double.isNaN(v) ? null : new Double(v);
+    }
+
+    NonNegativeInteger getInt(int column, int plane) {
+      int[] values = ints[column];
+      if (values == null || plane >= values.length) return null;
+      int v = values[plane];
+      return v < 0 ? null : new NonNegativeInteger(v);
+    }
+
+    void setDouble(int column, int plane, Double value) {
+      if (plane >= count) count = plane + 1;
+      double[] values = doubles[column];
+      if (values == null || plane >= values.length) {
+        if (value == null) return;
+        values = grow(values, plane);
+        doubles[column] = values;
+      }
+      values[plane] = value == null ? Double.NaN : value.doubleValue();
+    }
+
+    void setInt(int column, int plane, NonNegativeInteger value) {
+      if (plane >= count) count = plane + 1;
+      int[] values = ints[column];
+      if (values == null || plane >= values.length) {
+        if (value == null) return;
+        values = grow(values, plane);
+        ints[column] = values;
+      }
+      values[plane] = value == null ? -1 : value.getValue().intValue();
+    }
+
+    private static double[] grow(double[] values, int plane) {
+      int length = values == null ? 0 : values.length;
+      double[] v = new double[Math.max(plane + 1, length * 2)];
+      if (values != null) System.arraycopy(values, 0, v, 0, length);
+      Arrays.fill(v, length, v.length, Double.NaN);
+      return v;
+    }
+
+    private static int[] grow(int[] values, int plane) {
+      int length = values == null ? 0 : values.length;
+      int[] v = new int[Math.max(plane + 1, length * 2)];
+      if (values != null) System.arraycopy(values, 0, v, 0, length);
+      Arrays.fill(v, length, v.length, -1);
+      return v;
+    }
+  }
+
+}
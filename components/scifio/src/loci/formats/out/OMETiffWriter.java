@@ -39,8 +39,10 @@ package loci.formats.out;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
 
 import ome.xml.model.primitives.NonNegativeInteger;
@@ -89,12 +91,41 @@ public class OMETiffWriter extends TiffWriter {
 
   private Map<String, String> uuids = new HashMap<String, String>();
 
+  /**
+   * Whether files other than the first should only contain a BinaryOnly
+   * reference to the first file's OME-XML block.
+   */
+  private boolean binaryOnly = false;
+
   // -- Constructor --
 
   public OMETiffWriter() {
     super("OME-TIFF", new String[] {"ome.tif", "ome.tiff"});
   }
 
+  // -- OMETiffWriter API methods --
+
+  /**
+   * Sets whether the complete OME-XML block is only written to the first
+   * file of a multi-file dataset.  If set, the comment of every other file
+   * is a small OME-XML block containing a BinaryOnly element that references
+   * the first file, which greatly reduces the size of large datasets and
+   * the time taken by {@link #close()}.  Older readers may not be able to
+   * open the files that do not contain the complete OME-XML block.
+   * By default, every file contains the complete OME-XML block.
+   */
+  public void setBinaryOnly(boolean binaryOnly) {
+    this.binaryOnly = binaryOnly;
+  }
+
+  /**
+   * Returns true if only the first file of a multi-file dataset
+   * contains the complete OME-XML block.
+   */
+  public boolean isBinaryOnly() {
+    return binaryOnly;
+  }
+
   // -- IFormatHandler API methods --
 
   /* @see loci.formats.IFormatHandler#close() */
@@ -112,18 +143,31 @@ public class OMETiffWriter extends TiffWriter {
         }
 
         List<String> files = new ArrayList<String>();
+        Set<String> fileSet = new HashSet<String>();
         for (String[] s : imageLocations) {
           for (String f : s) {
-            if (!files.contains(f) && f != null) {
+            if (f != null && fileSet.add(f)) {
               files.add(f);
-
-              String xml = getOMEXML(f);
-
-              // write OME-XML to the first IFD's comment
-              saveComment(f, xml);
             }
           }
         }
+
+        // serialize the OME-XML block once; the copy written to each
+        // subsequent file only differs in the OME element's UUID
+        String masterFile = files.size() > 0 ? files.get(0) : null;
+        String masterXML = masterFile == null ? null : getOMEXML(masterFile);
+        String masterUUID = omeMeta.getUUID();
+
+        for (String f : files) {
+          String xml = masterXML;
+          if (!f.equals(masterFile)) {
+            xml = binaryOnly ? getBinaryOnlyXML(f, masterFile) :
+              getOMEXML(f, masterXML, masterUUID);
+          }
+
+          // write OME-XML to the first IFD's comment
+          saveComment(f, xml);
+        }
       }
     }
     catch (DependencyException de) {
@@ -258,7 +302,54 @@ public class OMETiffWriter extends TiffWriter {
       throw new FormatException(se);
     }
 
-    // insert warning comment
+    return insertWarningComment(xml);
+  }
+
+  /**
+   * Gets the OME-XML block for the given file by replacing the OME
+   * element's UUID in an OME-XML block that has already been serialized,
+   * instead of serializing the metadata again.
+   */
+  private String getOMEXML(String file, String xml, String oldUUID)
+    throws FormatException, IOException
+  {
+    int start = xml.indexOf("<OME ");
+    int end = start < 0 ? -1 : xml.indexOf(">", start);
+    String tag = end < 0 ? "" : xml.substring(start, end);
+    String oldAttribute = "UUID=\"" + oldUUID + "\"";
+    if (oldUUID == null || tag.indexOf(oldAttribute) < 0) {
+      return getOMEXML(file);
+    }
+
+    String uuid = "urn:uuid:" + getUUID(new Location(file).getName());
+    tag = tag.replace(oldAttribute, "UUID=\"" + uuid + "\"");
+    return xml.substring(0, start) + tag + xml.substring(end);
+  }
+
+  /**
+   * Gets an OME-XML block for the given file which only contains a
+   * BinaryOnly reference to the file that contains the complete block.
+   */
+  private String getBinaryOnlyXML(String file, String masterFile)
+    throws FormatException, IOException
+  {
+    String masterName = new Location(masterFile).getName();
+    String xml;
+    try {
+      OMEXMLMetadata meta = service.createOMEXMLMetadata();
+      meta.setUUID("urn:uuid:" + getUUID(new Location(file).getName()));
+      meta.setBinaryOnlyMetadataFile(masterName);
+      meta.setBinaryOnlyUUID("urn:uuid:" + getUUID(masterName));
+      xml = service.getOMEXML(meta);
+    }
+    catch (ServiceException se) {
+      throw new FormatException(se);
+    }
+    return insertWarningComment(xml);
+  }
+
+  /** Inserts the warning comment after the XML declaration. */
+  private String insertWarningComment(String xml) {
     String prefix = xml.substring(0, xml.indexOf(">") + 1);
     String suffix = xml.substring(xml.indexOf(">") + 1);
     return prefix + WARNING_COMMENT + suffix;
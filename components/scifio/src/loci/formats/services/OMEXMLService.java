@@ -36,6 +36,7 @@
 
 package loci.formats.services;
 
+import java.io.OutputStream;
 import java.util.Hashtable;
 
 import loci.common.services.Service;
@@ -151,6 +152,16 @@ public interface OMEXMLService extends Service {
   public String getOMEXML(MetadataRetrieve src)
     throws ServiceException;
 
+  /**
+   * Writes OME-XML from the given metadata object directly to the given
+   * stream, by converting to an OME-XML metadata object if necessary.
+   * This avoids holding the complete OME-XML string in memory.
+   * @throws ServiceException If there is an error creating the OME-XML
+   * metadata object, or writing to the stream.
+   */
+  public void writeOMEXML(MetadataRetrieve src, OutputStream out)
+    throws ServiceException;
+
   /**
    * Attempts to validate the given OME-XML string using
    * Java's XML validation facility. Requires Java 1.5+.
@@ -36,17 +36,23 @@
 
 package loci.formats.services;
 
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
+import java.io.StringReader;
+import java.io.UnsupportedEncodingException;
 import java.util.Hashtable;
 import java.util.List;
 
 import javax.xml.parsers.DocumentBuilder;
 import javax.xml.parsers.DocumentBuilderFactory;
 import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.parsers.SAXParserFactory;
 import javax.xml.transform.Templates;
 import javax.xml.transform.TransformerConfigurationException;
 import javax.xml.transform.TransformerException;
 
+import loci.common.Constants;
 import loci.common.services.AbstractService;
 import loci.common.services.ServiceException;
 import loci.common.xml.XMLTools;
@@ -56,6 +62,7 @@ import loci.formats.meta.IMetadata;
 import loci.formats.meta.MetadataConverter;
 import loci.formats.meta.MetadataRetrieve;
 import loci.formats.meta.MetadataStore;
+import loci.formats.ome.AbstractOMEXMLMetadata;
 import loci.formats.ome.OMEXMLMetadata;
 import loci.formats.ome.OMEXMLMetadataImpl;
 import ome.xml.OMEXMLFactory;
@@ -78,7 +85,10 @@ import org.w3c.dom.Element;
 import org.w3c.dom.NamedNodeMap;
 import org.w3c.dom.Node;
 import org.w3c.dom.NodeList;
+import org.xml.sax.Attributes;
+import org.xml.sax.InputSource;
 import org.xml.sax.SAXException;
+import org.xml.sax.helpers.DefaultHandler;
 
 /**
  * <dl><dt><b>Source code:</b></dt>
@@ -140,9 +150,6 @@ public class OMEXMLServiceImpl extends AbstractService implements OMEXMLService
   private static Templates update201006;
   private static Templates update201106;
 
-  private static final String SCHEMA_PATH =
-    "http://www.openmicroscopy.org/Schemas/OME/";
-
   /**
    * Default constructor.
    */
@@ -356,23 +363,23 @@ public class OMEXMLServiceImpl extends AbstractService implements OMEXMLService
       return OMEXMLFactory.LATEST_VERSION;
     }
     else if (o instanceof String) {
+      // only the root element is needed, so stop parsing as soon as it has
+      // been read instead of building a DOM for the whole document
       String xml = (String) o;
+      RootNamespaceHandler handler = new RootNamespaceHandler();
       try {
-        Element e = XMLTools.parseDOM(xml).getDocumentElement();
-        String namespace = e.getAttribute("xmlns");
-        if (namespace == null || namespace.equals("")) {
-          namespace = e.getAttribute("xmlns:ome");
-        }
-        if (namespace == null || namespace.equals("")) {
-          namespace = e.getAttribute("xmlns:OME");
-        }
-
-        return namespace.endsWith("ome.xsd") ? "2003-FC" :
-          namespace.substring(namespace.lastIndexOf("/") + 1);
+        SAXParserFactory factory = SAXParserFactory.newInstance();
+        factory.newSAXParser().parse(
+          new InputSource(new StringReader(xml)), handler);
       }
       catch (ParserConfigurationException pce) { }
       catch (SAXException se) { }
       catch (IOException ioe) { }
+
+      String namespace = handler.getNamespace();
+      if (namespace == null) return null;
+      return namespace.endsWith("ome.xsd") ? "2003-FC" :
+        namespace.substring(namespace.lastIndexOf("/") + 1);
     }
     return null;
   }
@@ -392,40 +399,43 @@ public class OMEXMLServiceImpl extends AbstractService implements OMEXMLService
 
   /** @see OMEXMLService#getOMEXML(loci.formats.meta.MetadataRetrieve) */
   public String getOMEXML(MetadataRetrieve src) throws ServiceException {
-    OMEXMLMetadata omexmlMeta = getOMEMetadata(src);
-    String xml = omexmlMeta.dumpXML();
-
-    // make sure that the namespace has been set correctly
-
-    // convert XML string to DOM
-    Document doc = null;
-    Exception exception = null;
+    ByteArrayOutputStream os = new ByteArrayOutputStream();
+    writeOMEXML(src, os);
+    if (os.size() == 0) return null;
     try {
-      doc = XMLTools.parseDOM(xml);
+      return os.toString(Constants.ENCODING);
     }
-    catch (ParserConfigurationException exc) { exception = exc; }
-    catch (SAXException exc) { exception = exc; }
-    catch (IOException exc) { exception = exc; }
-    if (exception != null) {
-      LOGGER.info("Malformed OME-XML", exception);
-      return null;
+    catch (UnsupportedEncodingException e) {
+      throw new ServiceException(e);
     }
+  }
 
-    Element root = doc.getDocumentElement();
-    root.setAttribute("xmlns", SCHEMA_PATH + getLatestVersion());
+  /**
+   * @see OMEXMLService#writeOMEXML(loci.formats.meta.MetadataRetrieve,
+   *   java.io.OutputStream)
+   */
+  public void writeOMEXML(MetadataRetrieve src, OutputStream out)
+    throws ServiceException
+  {
+    OMEXMLMetadata omexmlMeta = getOMEMetadata(src);
 
-    // convert tweaked DOM back to XML string
+    // the model always uses the latest schema namespace, so the DOM can be
+    // written as-is without being parsed and serialized a second time
     try {
-      xml = XMLTools.getXML(doc);
+      if (omexmlMeta instanceof AbstractOMEXMLMetadata) {
+        if (omexmlMeta instanceof OMEXMLMetadataImpl) {
+          ((OMEXMLMetadataImpl) omexmlMeta).resolveReferences();
+        }
+        ((AbstractOMEXMLMetadata) omexmlMeta).dumpXML(out);
+      }
+      else {
+        String xml = omexmlMeta.dumpXML();
+        if (xml != null) out.write(xml.getBytes(Constants.ENCODING));
+      }
     }
-    catch (TransformerConfigurationException exc) { exception = exc; }
-    catch (TransformerException exc) { exception = exc; }
-    if (exception != null) {
-      LOGGER.info("Internal XML conversion error", exception);
-      return null;
+    catch (IOException e) {
+      throw new ServiceException(e);
     }
-
-    return xml;
   }
 
   /** @see OMEXMLService#validateOMEXML(java.lang.String) */
@@ -602,9 +612,11 @@ public class OMEXMLServiceImpl extends AbstractService implements OMEXMLService
       dest.setRoot(ome);
     }
     else {
-      // metadata store is incompatible; create an OME-XML
-      // metadata object and copy it into the destination
-      IMetadata src = createOMEXMLMetadata(xml);
+      // metadata store is incompatible; wrap the root that has already
+      // been parsed in an OME-XML metadata object and copy it into the
+      // destination
+      IMetadata src = new OMEXMLMetadataImpl();
+      src.setRoot(ome);
       convertMetadata(src, dest);
     }
   }
@@ -898,4 +910,34 @@ public class OMEXMLServiceImpl extends AbstractService implements OMEXMLService
 
   }
 
+  /**
+   * SAX handler that records the namespace of the root element, and then
+   * stops parsing.
+   */
+  private static class RootNamespaceHandler extends DefaultHandler {
+    private String namespace;
+
+    public String getNamespace() {
+      return namespace;
+    }
+
+    public void startElement(String uri, String localName, String qName,
+      Attributes attributes) throws SAXException
+    {
+      namespace = getAttribute(attributes, "xmlns");
+      if (namespace.equals("")) {
+        namespace = getAttribute(attributes, "xmlns:ome");
+      }
+      if (namespace.equals("")) {
+        namespace = getAttribute(attributes, "xmlns:OME");
+      }
+      throw new SAXException("Root element found");
+    }
+
+    private String getAttribute(Attributes attributes, String name) {
+      String value = attributes.getValue(name);
+      return value == null ? "" : value;
+    }
+  }
+
 }
@@ -117,6 +117,9 @@ public final class ImageConverter {
   private IFormatReader reader;
   private MinMaxCalculator minMax;
 
+  /** Whether planes are scaled to the channel ranges of the whole series. */
+  private boolean scaleToSeries = false;
+
   // -- Constructor --
 
   private ImageConverter() { }
@@ -229,7 +232,11 @@ public final class ImageConverter {
         "              files",
         "  -autoscale: automatically adjust brightness and contrast before",
         "              converting; this may mean that the original pixel",
-        "              values are not preserved",
+        "              values are not preserved.  When a whole series is",
+        "              converted, each channel is scaled to its range over",
+        "              the series; if -range, -crop, -channel, -z or",
+        "              -timepoint limit the output, each plane is scaled to",
+        "              its own range",
         "  -overwrite: always overwrite the output file, if it already exists",
         "-nooverwrite: never overwrite the output file, if it already exists",
         "       -crop: crop images before converting; argument is 'x,y,w,h'",
@@ -430,6 +437,13 @@ public final class ImageConverter {
       int endPlane = (int) Math.min(numImages, lastPlane);
       numImages = endPlane - startPlane;
 
+      scaleToSeries = autoscale && isWholeSeries(startPlane, endPlane);
+      if (scaleToSeries) {
+        // find each channel's range up front, so that every plane
+        // is scaled consistently
+        minMax.computeMinMax();
+      }
+
       if (channel >= 0) {
         numImages /= reader.getEffectiveSizeC();
       }
@@ -517,7 +531,7 @@ public final class ImageConverter {
     byte[] buf =
       reader.openBytes(index, xCoordinate, yCoordinate, width, height);
 
-    autoscalePlane(buf, index);
+    buf = autoscalePlane(buf, index, width, height);
     applyLUT(writer);
     long m = System.currentTimeMillis();
     writer.saveBytes(index - startPlane, buf);
@@ -553,7 +567,7 @@ public final class ImageConverter {
         byte[] buf =
           reader.openBytes(index, tileX, tileY, tileWidth, tileHeight);
 
-        autoscalePlane(buf, index);
+        buf = autoscalePlane(buf, index, tileWidth, tileHeight);
         applyLUT(writer);
         if (m == null) {
           m = System.currentTimeMillis();
@@ -575,27 +589,48 @@ public final class ImageConverter {
     return m;
   }
 
-  private void autoscalePlane(byte[] buf, int index)
+  /**
+   * Returns true if every pixel of the current series will be converted,
+   * in which case scanning the whole series for its channel ranges does not
+   * read anything that is not converted anyway.
+   */
+  private boolean isWholeSeries(int startPlane, int endPlane) {
+    return startPlane == 0 && endPlane == reader.getImageCount() &&
+      channel < 0 && zSection < 0 && timepoint < 0 &&
+      xCoordinate == 0 && yCoordinate == 0 &&
+      width == reader.getSizeX() && height == reader.getSizeY();
+  }
+
+  private byte[] autoscalePlane(byte[] buf, int index, int w, int h)
     throws FormatException, IOException
   {
     if (autoscale) {
       Double min = null;
       Double max = null;
 
-      Double[] planeMin = minMax.getPlaneMinimum(index);
-      Double[] planeMax = minMax.getPlaneMaximum(index);
-
-      if (planeMin != null && planeMax != null) {
-        min = planeMin[0];
-        max = planeMax[0];
-
-        for (int j=1; j<planeMin.length; j++) {
-          if (planeMin[j].doubleValue() < min.doubleValue()) {
-            min = planeMin[j];
-          }
-          if (planeMax[j].doubleValue() < max.doubleValue()) {
-            max = planeMax[j];
-          }
+      int channelCount = reader.getRGBChannelCount();
+      int cBase = reader.getZCTCoords(index)[1] * channelCount;
+      // scale to the channel ranges of the series if they were computed,
+      // or else to the range of this plane (or tile)
+      Double[] planeMin = scaleToSeries ? null : minMax.getPlaneMinimum(index);
+      Double[] planeMax = scaleToSeries ? null : minMax.getPlaneMaximum(index);
+      for (int j=0; j<channelCount; j++) {
+        Double channelMin = scaleToSeries ?
+          minMax.getChannelGlobalMinimum(cBase + j) :
+          planeMin == null ? null : planeMin[j];
+        Double channelMax = scaleToSeries ?
+          minMax.getChannelGlobalMaximum(cBase + j) :
+          planeMax == null ? null : planeMax[j];
+        if (channelMin == null || channelMax == null) {
+          min = null;
+          max = null;
+          break;
+        }
+        if (min == null || channelMin.doubleValue() < min.doubleValue()) {
+          min = channelMin;
+        }
+        if (max == null || channelMax.doubleValue() > max.doubleValue()) {
+          max = channelMax;
         }
       }
 
@@ -604,10 +639,9 @@ public final class ImageConverter {
       boolean floatingPoint = FormatTools.isFloatingPoint(pixelType);
       Object pix = DataTools.makeDataArray(buf, bpp, floatingPoint,
         reader.isLittleEndian());
-      byte[][] b = ImageTools.make24Bits(pix, width, height,
+      byte[][] b = ImageTools.make24Bits(pix, w, h,
         reader.isInterleaved(), false, min, max);
 
-      int channelCount = reader.getRGBChannelCount();
       int copyComponents = (int) Math.min(channelCount, b.length);
 
       buf = new byte[channelCount * b[0].length];
@@ -615,6 +649,7 @@ public final class ImageConverter {
         System.arraycopy(b[j], 0, buf, b[0].length * j, b[0].length);
       }
     }
+    return buf;
   }
 
   private void applyLUT(IFormatWriter writer)
@@ -0,0 +1,131 @@
+/*
+ * #%L
+ * OME SCIFIO package for reading and converting scientific file formats.
+ * %%
+ * Copyright (C) 2005 - 2012 Open Microscopy Environment:
+ *   - Board of Regents of the University of Wisconsin-Madison
+ *   - Glencoe Software, Inc.
+ *   - University of Dundee
+ * %%
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ * 
+ * The views and conclusions contained in the software and documentation are
+ * those of the authors and should not be interpreted as representing official
+ * policies, either expressed or implied, of any organization.
+ * #L%
+ */
+
+package loci.formats.utests;
+
+import static org.testng.AssertJUnit.assertEquals;
+import static org.testng.AssertJUnit.assertNotSame;
+import static org.testng.AssertJUnit.assertSame;
+
+import java.awt.image.BufferedImage;
+
+import loci.formats.FormatTools;
+import loci.formats.ImageReader;
+import loci.formats.gui.AWTImageTools;
+import loci.formats.gui.BufferedImageReader;
+
+import org.testng.annotations.Test;
+
+/**
+ * Unit tests for {@link loci.formats.gui.BufferedImageReader}.
+ *
+ * <dl><dt><b>Source code:</b></dt>
+ * <dd><a href="http://trac.openmicroscopy.org.uk/ome/browser/bioformats.git/components/bio-formats/test/loci/formats/utests/BufferedImageReaderTest.java">Trac</a>,
+ * <a href="http://git.openmicroscopy.org/?p=bioformats.git;a=blob;f=components/bio-formats/test/loci/formats/utests/BufferedImageReaderTest.java;hb=HEAD">Gitweb</a></dd></dl>
+ */
+public class BufferedImageReaderTest {
+
+  private static final String ID =
+    "test&pixelType=%s&sizeX=64&sizeY=32&sizeZ=3.fake";
+
+  // -- Tests --
+
+  @Test
+  public void testStandardImageTypes() throws Exception {
+    assertEquals(BufferedImage.TYPE_BYTE_GRAY, open("uint8").getType());
+    assertEquals(BufferedImage.TYPE_USHORT_GRAY, open("uint16").getType());
+    BufferedImage rgb = AWTImageTools.makeRGBImage(
+      new byte[] {1, 2, 3, 4, 5, 6}, 3, 2, 1, true);
+    assertEquals(BufferedImage.TYPE_INT_RGB, rgb.getType());
+    assertEquals(0x010203, rgb.getRGB(0, 0) & 0xffffff);
+    assertEquals(0x040506, rgb.getRGB(1, 0) & 0xffffff);
+  }
+
+  @Test
+  public void testReuse() throws Exception {
+    String[] types = {"int8", "uint8", "int16", "uint16", "int32", "uint32",
+      "float", "double"};
+    for (String type : types) {
+      BufferedImageReader reader = reader(type);
+      try {
+        BufferedImage img = reader.openImage(0);
+        for (int no=1; no<reader.getImageCount(); no++) {
+          BufferedImage expected = reader.openImage(no);
+          BufferedImage reused = reader.openImage(no, img);
+          assertSame(type, img, reused);
+          assertEquals(type,
+            AWTImageTools.getPixels(expected, 0, 0, 64, 32).getClass(),
+            AWTImageTools.getPixels(reused, 0, 0, 64, 32).getClass());
+          for (int y=0; y<32; y+=7) {
+            for (int x=0; x<64; x+=5) {
+              assertEquals(type, expected.getRaster().getSampleDouble(x, y, 0),
+                reused.getRaster().getSampleDouble(x, y, 0));
+            }
+          }
+        }
+
+        // an image of a different size cannot be reused
+        BufferedImage tile = reader.openImage(0, img, 0, 0, 16, 16);
+        assertNotSame(type, img, tile);
+        assertEquals(type, 16, tile.getWidth());
+      }
+      finally {
+        reader.close();
+      }
+    }
+  }
+
+  // -- Helper methods --
+
+  private BufferedImageReader reader(String pixelType) throws Exception {
+    BufferedImageReader reader = new BufferedImageReader(new ImageReader());
+    reader.setId(String.format(ID, pixelType));
+    assertEquals(FormatTools.pixelTypeFromString(pixelType),
+      reader.getPixelType());
+    return reader;
+  }
+
+  private BufferedImage open(String pixelType) throws Exception {
+    BufferedImageReader reader = reader(pixelType);
+    try {
+      return reader.openImage(0);
+    }
+    finally {
+      reader.close();
+    }
+  }
+
+}
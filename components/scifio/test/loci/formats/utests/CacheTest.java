@@ -0,0 +1,199 @@
+/*
+ * #%L
+ * OME SCIFIO package for reading and converting scientific file formats.
+ * %%
+ * Copyright (C) 2005 - 2012 Open Microscopy Environment:
+ *   - Board of Regents of the University of Wisconsin-Madison
+ *   - Glencoe Software, Inc.
+ *   - University of Dundee
+ * %%
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ * 
+ * The views and conclusions contained in the software and documentation are
+ * those of the authors and should not be interpreted as representing official
+ * policies, either expressed or implied, of any organization.
+ * #L%
+ */
+
+package loci.formats.utests;
+
+import static org.testng.AssertJUnit.assertEquals;
+import static org.testng.AssertJUnit.assertFalse;
+import static org.testng.AssertJUnit.assertNotNull;
+import static org.testng.AssertJUnit.assertNull;
+import static org.testng.AssertJUnit.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import loci.formats.cache.Cache;
+import loci.formats.cache.CacheEvent;
+import loci.formats.cache.CacheException;
+import loci.formats.cache.CacheListener;
+import loci.formats.cache.CrosshairStrategy;
+import loci.formats.cache.ICacheSource;
+
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+/**
+ * Unit tests for {@link loci.formats.cache.Cache}.
+ *
+ * <dl><dt><b>Source code:</b></dt>
+ * <dd><a href="http://trac.openmicroscopy.org.uk/ome/browser/bioformats.git/components/bio-formats/test/loci/formats/utests/CacheTest.java">Trac</a>,
+ * <a href="http://git.openmicroscopy.org/?p=bioformats.git;a=blob;f=components/bio-formats/test/loci/formats/utests/CacheTest.java;hb=HEAD">Gitweb</a></dd></dl>
+ */
+public class CacheTest {
+
+  private static final int PLANE_SIZE = 100;
+
+  private static final int PLANE_COUNT = 10;
+
+  private CountingSource source;
+
+  private CrosshairStrategy strategy;
+
+  @BeforeMethod
+  public void setUp() {
+    source = new CountingSource();
+    strategy = new CrosshairStrategy(new int[] {PLANE_COUNT});
+    strategy.setRange(2, 0);
+  }
+
+  @Test
+  public void testLoadList() throws CacheException {
+    Cache cache = new Cache(strategy, source, true);
+    assertEquals(5, source.loaded.size());
+    assertEquals(0, (int) source.loaded.get(0));
+    assertEquals(5 * PLANE_SIZE, cache.getCachedBytes());
+
+    cache.setCurrentPos(new int[] {5});
+    assertTrue(cache.isInCache(5));
+    assertFalse(cache.isInCache(0));
+    assertNull(cache.getObject(new int[] {0}));
+    assertNotNull(cache.getObject(new int[] {6}));
+    assertEquals(1, cache.getHitCount());
+    assertEquals(1, cache.getMissCount());
+    assertEquals(5 * PLANE_SIZE, cache.getCachedBytes());
+  }
+
+  @Test
+  public void testByteLimit() throws CacheException {
+    Cache cache = new Cache(strategy, source, false);
+    cache.setMaxBytes(3 * PLANE_SIZE);
+    cache.setCurrentPos(new int[] {5});
+    cache.recache();
+
+    // the strategy's first three planes fit; the rest are never loaded
+    assertEquals(3, source.loaded.size());
+    assertEquals(5, (int) source.loaded.get(0));
+    assertEquals(3 * PLANE_SIZE, cache.getCachedBytes());
+    assertEquals(3, cache.getLoadCount());
+
+    // a single plane is always kept, even if it does not fit
+    cache.setMaxBytes(PLANE_SIZE / 2);
+    cache.recache();
+    assertTrue(cache.isInCache(5));
+    assertEquals(PLANE_SIZE, cache.getCachedBytes());
+  }
+
+  @Test
+  public void testBackgroundLoading() throws Exception {
+    Cache cache = new Cache(strategy, source, false);
+    cache.setThreadCount(2);
+    final CountDownLatch latch = new CountDownLatch(5);
+    cache.addCacheListener(new CacheListener() {
+      public void cacheUpdated(CacheEvent e) {
+        if (e.getType() == CacheEvent.OBJECT_LOADED) {
+          assertTrue(e.getLoadTime() >= 0);
+          latch.countDown();
+        }
+      }
+    });
+    cache.setCurrentPos(new int[] {5});
+    cache.recache();
+    assertTrue(latch.await(10, TimeUnit.SECONDS));
+    for (int i=3; i<=7; i++) {
+      assertNotNull(cache.getObject(new int[] {i}));
+    }
+    assertEquals(5, cache.getLoadCount());
+    cache.close();
+  }
+
+  @Test
+  public void testCancelledLoads() throws Exception {
+    Cache cache = new Cache(strategy, source, false);
+    cache.setThreadCount(1);
+    final List<Integer> cancelled = new ArrayList<Integer>();
+    cache.addCacheListener(new CacheListener() {
+      public void cacheUpdated(CacheEvent e) {
+        if (e.getType() == CacheEvent.LOAD_CANCELLED) {
+          synchronized (cancelled) {
+            cancelled.add(e.getIndex());
+          }
+        }
+      }
+    });
+
+    // hold up the loading thread, so that the other loads are still queued
+    source.block = new CountDownLatch(1);
+    cache.recache();
+    cache.setCurrentPos(new int[] {5});
+    cache.recache();
+    source.block.countDown();
+    cache.close();
+
+    synchronized (cancelled) {
+      assertTrue(cancelled.size() > 0);
+      for (int i : cancelled) {
+        assertFalse(cache.isInCache(i));
+      }
+    }
+  }
+
+  // -- Helper classes --
+
+  private static class CountingSource implements ICacheSource {
+    private List<Integer> loaded = new ArrayList<Integer>();
+    private volatile CountDownLatch block;
+
+    public int getObjectCount() { return PLANE_COUNT; }
+
+    public Object getObject(int index) throws CacheException {
+      if (block != null) {
+        try {
+          block.await();
+        }
+        catch (InterruptedException e) {
+          throw new CacheException(e);
+        }
+      }
+      synchronized (loaded) {
+        loaded.add(index);
+      }
+      return new byte[PLANE_SIZE];
+    }
+  }
+
+}
@@ -0,0 +1,188 @@
+/*
+ * #%L
+ * OME SCIFIO package for reading and converting scientific file formats.
+ * %%
+ * Copyright (C) 2005 - 2012 Open Microscopy Environment:
+ *   - Board of Regents of the University of Wisconsin-Madison
+ *   - Glencoe Software, Inc.
+ *   - University of Dundee
+ * %%
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ * 
+ * The views and conclusions contained in the software and documentation are
+ * those of the authors and should not be interpreted as representing official
+ * policies, either expressed or implied, of any organization.
+ * #L%
+ */
+
+package loci.formats.utests;
+
+import static org.testng.AssertJUnit.assertEquals;
+import static org.testng.AssertJUnit.assertNull;
+
+import loci.formats.MetadataTools;
+import loci.formats.meta.MetadataConverter;
+import loci.formats.ome.CompactOMEXMLMetadata;
+import loci.formats.ome.OMEXMLMetadata;
+import loci.formats.ome.OMEXMLMetadataImpl;
+
+import ome.xml.model.OME;
+import ome.xml.model.primitives.NonNegativeInteger;
+
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+/**
+ * Unit tests for {@link loci.formats.ome.CompactOMEXMLMetadata}.
+ *
+ * <dl><dt><b>Source code:</b></dt>
+ * <dd><a href="http://trac.openmicroscopy.org.uk/ome/browser/bioformats.git/components/bio-formats/test/loci/formats/utests/CompactOMEXMLMetadataTest.java">Trac</a>,
+ * <a href="http://git.openmicroscopy.org/?p=bioformats.git;a=blob;f=components/bio-formats/test/loci/formats/utests/CompactOMEXMLMetadataTest.java;hb=HEAD">Gitweb</a></dd></dl>
+ */
+public class CompactOMEXMLMetadataTest {
+
+  private static final int IMAGES = 2;
+  private static final int PLANES = 100;
+
+  private CompactOMEXMLMetadata compact;
+  private OMEXMLMetadata reference;
+
+  @BeforeMethod
+  public void setUp() {
+    compact = new CompactOMEXMLMetadata();
+    reference = new OMEXMLMetadataImpl();
+    populate(compact);
+    populate(reference);
+  }
+
+  @Test
+  public void testPlaneRetrieval() {
+    for (int i=0; i<IMAGES; i++) {
+      assertEquals(PLANES, compact.getPlaneCount(i));
+      for (int p=0; p<PLANES; p++) {
+        assertEquals(new NonNegativeInteger(p % 5), compact.getPlaneTheZ(i, p));
+        assertEquals(new NonNegativeInteger(0), compact.getPlaneTheC(i, p));
+        assertEquals(new NonNegativeInteger(p / 5), compact.getPlaneTheT(i, p));
+        assertEquals(new Double(p * 0.5), compact.getPlaneDeltaT(i, p));
+        assertEquals(new Double(i), compact.getPlanePositionX(i, p));
+        assertNull(compact.getPlaneExposureTime(i, p));
+        assertNull(compact.getPlanePositionY(i, p));
+      }
+    }
+  }
+
+  @Test
+  public void testOverwrite() {
+    compact.setPlaneDeltaT(42.0, 0, 3);
+    compact.setPlaneDeltaT(null, 0, 4);
+    assertEquals(new Double(42.0), compact.getPlaneDeltaT(0, 3));
+    assertNull(compact.getPlaneDeltaT(0, 4));
+  }
+
+  @Test
+  public void testMaterialize() {
+    compact.setPlaneDeltaT(null, 1, 4);
+    reference.setPlaneDeltaT(null, 1, 4);
+    assertEquals(reference.dumpXML(), compact.dumpXML());
+    assertEquals(PLANES, modelPlaneCount(compact, 1));
+
+    // planes in the model are updated in place
+    compact.setPlaneExposureTime(1.5, 1, 7);
+    assertEquals(PLANES, compact.getPlaneCount(1));
+    assertEquals(new Double(1.5), compact.getPlaneExposureTime(1, 7));
+  }
+
+  @Test
+  public void testHashSHA1() {
+    compact.setPlaneHashSHA1("abc", 0, 2);
+    assertEquals("abc", compact.getPlaneHashSHA1(0, 2));
+    assertNull(compact.getPlaneHashSHA1(0, 3));
+    assertEquals(new Double(1.0), compact.getPlaneDeltaT(0, 2));
+    assertEquals(PLANES, compact.getPlaneCount(0));
+    assertEquals(PLANES, compact.getCompactPlaneCount(0));
+
+    // the hash is kept when the planes are materialized
+    reference.setPlaneHashSHA1("abc", 0, 2);
+    assertEquals(reference.dumpXML(), compact.dumpXML());
+    assertEquals(0, compact.getCompactPlaneCount(0));
+    assertEquals("abc", compact.getPlaneHashSHA1(0, 2));
+  }
+
+  @Test
+  public void testAnnotationRef() {
+    compact.setPlaneAnnotationRef("Annotation:0", 1, 5, 0);
+    compact.setPlaneAnnotationRef("Annotation:1", 1, 5, 1);
+    assertEquals(2, compact.getPlaneAnnotationRefCount(1, 5));
+    assertEquals("Annotation:1", compact.getPlaneAnnotationRef(1, 5, 1));
+    assertEquals(0, compact.getPlaneAnnotationRefCount(1, 6));
+    assertEquals(PLANES, compact.getCompactPlaneCount(1));
+  }
+
+  @Test
+  public void testConversionIsCompact() {
+    compact.setPlaneHashSHA1("abc", 0, 2);
+    compact.setPlaneAnnotationRef("Annotation:0", 1, 5, 0);
+    CompactOMEXMLMetadata dest = new CompactOMEXMLMetadata();
+    MetadataConverter.convertMetadata(compact, dest);
+
+    for (int i=0; i<IMAGES; i++) {
+      assertEquals(PLANES, compact.getCompactPlaneCount(i));
+      assertEquals(PLANES, dest.getCompactPlaneCount(i));
+      for (int p=0; p<PLANES; p++) {
+        assertEquals(compact.getPlaneDeltaT(i, p), dest.getPlaneDeltaT(i, p));
+        assertEquals(compact.getPlaneTheT(i, p), dest.getPlaneTheT(i, p));
+      }
+    }
+    assertEquals("abc", dest.getPlaneHashSHA1(0, 2));
+    assertNull(dest.getPlaneHashSHA1(0, 3));
+    assertEquals(1, dest.getPlaneAnnotationRefCount(1, 5));
+    assertEquals("Annotation:0", dest.getPlaneAnnotationRef(1, 5, 0));
+  }
+
+  @Test
+  public void testCreateRoot() {
+    compact.createRoot();
+    assertEquals(0, compact.getImageCount());
+  }
+
+  // -- Helper methods --
+
+  private void populate(OMEXMLMetadata store) {
+    for (int i=0; i<IMAGES; i++) {
+      MetadataTools.populateMetadata(store, i, "image" + i, false, "XYZCT",
+        "uint8", 64, 64, 5, 1, PLANES / 5, 1);
+      for (int p=0; p<PLANES; p++) {
+        store.setPlaneTheZ(new NonNegativeInteger(p % 5), i, p);
+        store.setPlaneTheC(new NonNegativeInteger(0), i, p);
+        store.setPlaneTheT(new NonNegativeInteger(p / 5), i, p);
+        store.setPlaneDeltaT(p * 0.5, i, p);
+        store.setPlanePositionX(new Double(i), i, p);
+      }
+    }
+  }
+
+  private int modelPlaneCount(OMEXMLMetadataImpl store, int image) {
+    OME root = (OME) store.getRoot();
+    return root.getImage(image).getPixels().sizeOfPlaneList();
+  }
+
+}
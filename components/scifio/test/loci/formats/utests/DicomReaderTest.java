@@ -0,0 +1,261 @@
+/*
+ * #%L
+ * OME SCIFIO package for reading and converting scientific file formats.
+ * %%
+ * Copyright (C) 2005 - 2012 Open Microscopy Environment:
+ *   - Board of Regents of the University of Wisconsin-Madison
+ *   - Glencoe Software, Inc.
+ *   - University of Dundee
+ * %%
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ * 
+ * The views and conclusions contained in the software and documentation are
+ * those of the authors and should not be interpreted as representing official
+ * policies, either expressed or implied, of any organization.
+ * #L%
+ */
+package loci.formats.utests;
+
+import static org.testng.AssertJUnit.assertEquals;
+import static org.testng.AssertJUnit.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+
+import loci.common.Constants;
+import loci.common.RandomAccessOutputStream;
+import loci.formats.FormatException;
+import loci.formats.in.DicomReader;
+
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+/**
+ * Unit tests for reading encapsulated (RLE compressed) pixel data with
+ * {@link DicomReader}.
+ *
+ * <dl><dt><b>Source code:</b></dt>
+ * <dd><a href="http://trac.openmicroscopy.org.uk/ome/browser/bioformats.git/components/scifio/test/loci/formats/utests/DicomReaderTest.java">Trac</a>,
+ * <a href="http://git.openmicroscopy.org/?p=bioformats.git;a=blob;f=components/scifio/test/loci/formats/utests/DicomReaderTest.java;hb=HEAD">Gitweb</a></dd></dl>
+ */
+public class DicomReaderTest {
+
+  private static final int WIDTH = 24, HEIGHT = 20, FRAMES = 5;
+
+  private static final String RLE_LOSSLESS = "1.2.840.10008.1.2.5";
+
+  private File file;
+
+  private DicomReader reader;
+
+  @BeforeMethod
+  public void setUp() throws IOException {
+    file = File.createTempFile("DicomReaderTest", ".dcm");
+    file.deleteOnExit();
+    reader = new DicomReader();
+    reader.setGroupFiles(false);
+  }
+
+  @AfterMethod
+  public void tearDown() throws IOException {
+    reader.close();
+    file.delete();
+  }
+
+  @Test
+  public void testFragmentedFrames() throws FormatException, IOException {
+    writeFile(true);
+    checkFrames();
+  }
+
+  @Test
+  public void testEmptyOffsetTable() throws FormatException, IOException {
+    writeFile(false);
+    checkFrames();
+  }
+
+  // -- Helper methods --
+
+  /**
+   * Checks that every frame decodes to the expected values, and that
+   * reading ranges of frames on several threads matches reading each
+   * frame on its own.
+   */
+  private void checkFrames() throws FormatException, IOException {
+    reader.setThreadCount(3);
+    reader.setId(file.getAbsolutePath());
+    assertEquals(WIDTH, reader.getSizeX());
+    assertEquals(HEIGHT, reader.getSizeY());
+    assertEquals(FRAMES, reader.getImageCount());
+
+    int planeSize = WIDTH * HEIGHT;
+    byte[] sequential = new byte[FRAMES * planeSize];
+    for (int no=0; no<FRAMES; no++) {
+      byte[] plane = reader.openBytes(no);
+      assertTrue("frame " + no, Arrays.equals(getFrame(no), plane));
+      System.arraycopy(plane, 0, sequential, no * planeSize, planeSize);
+    }
+
+    byte[] all = new byte[FRAMES * planeSize];
+    reader.openPlanes(0, FRAMES, all, 0, 0, WIDTH, HEIGHT);
+    assertTrue(Arrays.equals(sequential, all));
+
+    byte[] range = new byte[3 * planeSize];
+    reader.openPlanes(1, 3, range, 0, 0, WIDTH, HEIGHT);
+    assertTrue(Arrays.equals(
+      Arrays.copyOfRange(sequential, planeSize, 4 * planeSize), range));
+
+    int x = 3, y = 5, w = 10, h = 7;
+    byte[] tiles = new byte[2 * w * h];
+    reader.openPlanes(2, 2, tiles, x, y, w, h);
+    for (int i=0; i<2; i++) {
+      byte[] tile = reader.openBytes(2 + i, x, y, w, h);
+      assertTrue(Arrays.equals(tile,
+        Arrays.copyOfRange(tiles, i * w * h, (i + 1) * w * h)));
+    }
+  }
+
+  private byte[] getFrame(int no) {
+    byte[] frame = new byte[WIDTH * HEIGHT];
+    for (int i=0; i<frame.length; i++) {
+      frame[i] = (byte) (i * (no + 1) + 7);
+    }
+    return frame;
+  }
+
+  /**
+   * Encodes the given frame as a single RLE segment made of literal runs.
+   * The result has an even length, as all DICOM items must.
+   */
+  private byte[] encodeFrame(byte[] frame) {
+    int runs = (frame.length + 127) / 128;
+    byte[] rle = new byte[64 + runs + frame.length + 1];
+    rle[0] = 1;
+    rle[4] = 64;
+    int pos = 64;
+    for (int i=0; i<frame.length; i+=128) {
+      int n = Math.min(128, frame.length - i);
+      rle[pos++] = (byte) (n - 1);
+      System.arraycopy(frame, i, rle, pos, n);
+      pos += n;
+    }
+    return Arrays.copyOf(rle, pos + (pos & 1));
+  }
+
+  /**
+   * Writes an 8-bit RLE compressed file.  If a basic offset table is
+   * included, each frame is split across two fragments; otherwise the
+   * table is empty and each frame is stored in a single fragment.
+   */
+  private void writeFile(boolean offsetTable) throws IOException {
+    byte[][] frames = new byte[FRAMES][];
+    for (int no=0; no<FRAMES; no++) {
+      frames[no] = encodeFrame(getFrame(no));
+    }
+
+    RandomAccessOutputStream out =
+      new RandomAccessOutputStream(file.getAbsolutePath());
+    try {
+      out.order(true);
+      out.write(new byte[128]);
+      out.writeBytes("DICM");
+      writeString(out, 0x0002, 0x0010, "UI", RLE_LOSSLESS + "\0");
+      writeShort(out, 0x0028, 0x0002, 1);
+      writeString(out, 0x0028, 0x0004, "CS", "MONOCHROME2 ");
+      writeString(out, 0x0028, 0x0008, "IS", String.valueOf(FRAMES) + " ");
+      writeShort(out, 0x0028, 0x0010, HEIGHT);
+      writeShort(out, 0x0028, 0x0011, WIDTH);
+      writeShort(out, 0x0028, 0x0100, 8);
+      writeShort(out, 0x0028, 0x0101, 8);
+      writeShort(out, 0x0028, 0x0103, 0);
+
+      // pixel data of undefined length
+      writeTag(out, 0x7fe0, 0x0010);
+      out.writeBytes("OB");
+      out.writeShort(0);
+      out.writeInt(-1);
+
+      writeTag(out, 0xfffe, 0xe000);
+      if (offsetTable) {
+        out.writeInt(4 * FRAMES);
+        int offset = 0;
+        for (byte[] frame : frames) {
+          out.writeInt(offset);
+          offset += frame.length + 16;
+        }
+      }
+      else out.writeInt(0);
+
+      for (byte[] frame : frames) {
+        if (offsetTable) {
+          int split = (frame.length / 2) & ~1;
+          writeItem(out, Arrays.copyOfRange(frame, 0, split));
+          writeItem(out, Arrays.copyOfRange(frame, split, frame.length));
+        }
+        else writeItem(out, frame);
+      }
+
+      writeTag(out, 0xfffe, 0xe0dd);
+      out.writeInt(0);
+    }
+    finally {
+      out.close();
+    }
+  }
+
+  private void writeTag(RandomAccessOutputStream out, int group, int element)
+    throws IOException
+  {
+    out.writeShort(group);
+    out.writeShort(element);
+  }
+
+  private void writeShort(RandomAccessOutputStream out, int group,
+    int element, int value) throws IOException
+  {
+    writeTag(out, group, element);
+    out.writeBytes("US");
+    out.writeShort(2);
+    out.writeShort(value);
+  }
+
+  private void writeString(RandomAccessOutputStream out, int group,
+    int element, String vr, String value) throws IOException
+  {
+    byte[] b = value.getBytes(Constants.ENCODING);
+    writeTag(out, group, element);
+    out.writeBytes(vr);
+    out.writeShort(b.length);
+    out.write(b);
+  }
+
+  private void writeItem(RandomAccessOutputStream out, byte[] data)
+    throws IOException
+  {
+    writeTag(out, 0xfffe, 0xe000);
+    out.writeInt(data.length);
+    out.write(data);
+  }
+
+}
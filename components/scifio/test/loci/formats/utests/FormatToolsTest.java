@@ -39,8 +39,12 @@ package loci.formats.utests;
 import static org.testng.AssertJUnit.*;
 
 import java.io.IOException;
+import java.nio.ByteBuffer;
 
+import loci.common.DataTools;
+import loci.formats.FormatException;
 import loci.formats.FormatTools;
+import loci.formats.in.FakeReader;
 
 import org.testng.annotations.BeforeMethod;
 import org.testng.annotations.Test;
@@ -111,4 +115,46 @@ public class FormatToolsTest {
     long[] lim = FormatTools.defaultMinMax(9999); // Invalid pixel type number
   }
 
+  @Test
+  public void testOpenShorts() throws Exception {
+    FakeReader reader = new FakeReader();
+    reader.setId("test&pixelType=int16&sizeX=32&sizeY=16&sizeZ=3.fake");
+    byte[] bytes = reader.openBytes(2, 4, 2, 20, 10);
+    short[] shorts = reader.openShorts(2, null, 4, 2, 20, 10);
+    assertEquals(200, shorts.length);
+    ByteBuffer buf = reader.openByteBuffer(2, 4, 2, 20, 10);
+    for (int i=0; i<shorts.length; i++) {
+      short s = DataTools.bytesToShort(bytes, i * 2, reader.isLittleEndian());
+      assertEquals(s, shorts[i]);
+      assertEquals(s, buf.getShort(i * 2));
+    }
+    reader.close();
+  }
+
+  @Test
+  public void testOpenDoubles() throws Exception {
+    FakeReader reader = new FakeReader();
+    reader.setId("test&pixelType=double&sizeX=32&sizeY=16.fake");
+    byte[] bytes = reader.openBytes(0);
+    double[] doubles = new double[32 * 16];
+    reader.openDoubles(0, doubles, 0, 0, 32, 16);
+    for (int i=0; i<doubles.length; i++) {
+      assertEquals(DataTools.bytesToDouble(bytes, i * 8,
+        reader.isLittleEndian()), doubles[i]);
+    }
+    reader.close();
+  }
+
+  @Test(expectedExceptions={FormatException.class})
+  public void testOpenFloatsWrongPixelType() throws Exception {
+    FakeReader reader = new FakeReader();
+    reader.setId("test&pixelType=uint32&sizeX=32&sizeY=16.fake");
+    try {
+      reader.openFloats(0, null, 0, 0, 32, 16);
+    }
+    finally {
+      reader.close();
+    }
+  }
+
 }
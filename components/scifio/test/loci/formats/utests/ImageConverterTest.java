@@ -0,0 +1,141 @@
+/*
+ * #%L
+ * OME SCIFIO package for reading and converting scientific file formats.
+ * %%
+ * Copyright (C) 2005 - 2012 Open Microscopy Environment:
+ *   - Board of Regents of the University of Wisconsin-Madison
+ *   - Glencoe Software, Inc.
+ *   - University of Dundee
+ * %%
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ * 
+ * The views and conclusions contained in the software and documentation are
+ * those of the authors and should not be interpreted as representing official
+ * policies, either expressed or implied, of any organization.
+ * #L%
+ */
+package loci.formats.utests;
+
+import static org.testng.AssertJUnit.assertEquals;
+import static org.testng.AssertJUnit.assertTrue;
+
+import java.io.File;
+import java.lang.reflect.Constructor;
+
+import loci.formats.FormatTools;
+import loci.formats.ImageWriter;
+import loci.formats.in.TiffReader;
+import loci.formats.tools.ImageConverter;
+
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+/**
+ * Tests the <code>-autoscale</code> option of {@link ImageConverter}.
+ *
+ * <dl><dt><b>Source code:</b></dt>
+ * <dd><a href="http://trac.openmicroscopy.org.uk/ome/browser/bioformats.git/components/scifio/test/loci/formats/utests/ImageConverterTest.java">Trac</a>,
+ * <a href="http://git.openmicroscopy.org/?p=bioformats.git;a=blob;f=components/scifio/test/loci/formats/utests/ImageConverterTest.java;hb=HEAD">Gitweb</a></dd></dl>
+ */
+public class ImageConverterTest {
+
+  /** Each row of a fake plane is a gradient from 0 to 63. */
+  private static final String INPUT =
+    "test&pixelType=uint16&sizeX=64&sizeY=32&sizeZ=3.fake";
+
+  private File output;
+
+  @BeforeMethod
+  public void setUp() throws Exception {
+    output = File.createTempFile("ImageConverterTest", ".tif");
+    output.delete();
+  }
+
+  @AfterMethod
+  public void tearDown() {
+    output.delete();
+  }
+
+  @Test
+  public void testAutoscaleSeries() throws Exception {
+    convert("-autoscale");
+    assertRange(3, 32, 0, 255);
+  }
+
+  @Test
+  public void testAutoscaleRange() throws Exception {
+    convert("-autoscale", "-range", "1", "1");
+    assertRange(1, 32, 0, 255);
+  }
+
+  @Test
+  public void testAutoscaleCrop() throws Exception {
+    // the cropped columns hold the values 32 to 47 only
+    convert("-autoscale", "-crop", "32,16,16,8");
+    assertRange(3, 8, 0, 255);
+  }
+
+  // -- Helper methods --
+
+  private void convert(String... options) throws Exception {
+    String[] args = new String[options.length + 2];
+    System.arraycopy(options, 0, args, 0, options.length);
+    args[options.length] = INPUT;
+    args[options.length + 1] = output.getAbsolutePath();
+
+    Constructor<ImageConverter> constructor =
+      ImageConverter.class.getDeclaredConstructor();
+    constructor.setAccessible(true);
+    assertTrue(constructor.newInstance().testConvert(new ImageWriter(), args));
+  }
+
+  /**
+   * Checks that every plane of the output holds 8-bit values spanning
+   * exactly the given range.
+   */
+  private void assertRange(int planes, int height, int min, int max)
+    throws Exception
+  {
+    TiffReader reader = new TiffReader();
+    try {
+      reader.setId(output.getAbsolutePath());
+      assertEquals(planes, reader.getImageCount());
+      assertEquals(height, reader.getSizeY());
+      assertEquals(FormatTools.UINT8, reader.getPixelType());
+      for (int no=0; no<planes; no++) {
+        byte[] plane = reader.openBytes(no);
+        int planeMin = 255, planeMax = 0;
+        for (byte b : plane) {
+          planeMin = Math.min(planeMin, b & 0xff);
+          planeMax = Math.max(planeMax, b & 0xff);
+        }
+        assertEquals(min, planeMin);
+        assertEquals(max, planeMax);
+      }
+    }
+    finally {
+      reader.close();
+    }
+  }
+
+}
@@ -0,0 +1,225 @@
+/*
+ * #%L
+ * OME SCIFIO package for reading and converting scientific file formats.
+ * %%
+ * Copyright (C) 2005 - 2012 Open Microscopy Environment:
+ *   - Board of Regents of the University of Wisconsin-Madison
+ *   - Glencoe Software, Inc.
+ *   - University of Dundee
+ * %%
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ * 
+ * The views and conclusions contained in the software and documentation are
+ * those of the authors and should not be interpreted as representing official
+ * policies, either expressed or implied, of any organization.
+ * #L%
+ */
+package loci.formats.utests;
+
+import static org.testng.AssertJUnit.assertEquals;
+import static org.testng.AssertJUnit.assertTrue;
+
+import java.util.Arrays;
+
+import loci.common.DataTools;
+import loci.formats.ImageTools;
+
+import org.testng.annotations.Test;
+
+/**
+ * Unit tests for {@link ImageTools}.
+ *
+ * <dl><dt><b>Source code:</b></dt>
+ * <dd><a href="http://trac.openmicroscopy.org.uk/ome/browser/bioformats.git/components/scifio/test/loci/formats/utests/ImageToolsTest.java">Trac</a>,
+ * <a href="http://git.openmicroscopy.org/?p=bioformats.git;a=blob;f=components/scifio/test/loci/formats/utests/ImageToolsTest.java;hb=HEAD">Gitweb</a></dd></dl>
+ */
+public class ImageToolsTest {
+
+  @Test
+  public void testAutoscaleShorts() {
+    short[] s = new short[] {100, 150, 200, 50, 250, 125};
+    byte[] b = DataTools.shortsToBytes(s, false);
+    byte[] out = ImageTools.autoscale(b, 100, 200, 2, false);
+    assertBytes(new int[] {0, 127, 255, 0, 255, 63}, out);
+
+    b = DataTools.shortsToBytes(s, true);
+    out = ImageTools.autoscale(b, 100, 200, 2, true);
+    assertBytes(new int[] {0, 127, 255, 0, 255, 63}, out);
+  }
+
+  @Test
+  public void testAutoscaleUnsignedShorts() {
+    short[] s = new short[] {(short) 40000, (short) 50000, (short) 60000};
+    byte[] b = DataTools.shortsToBytes(s, false);
+    byte[] out = ImageTools.autoscale(b, 40000, 60000, 2, false);
+    assertBytes(new int[] {0, 127, 255}, out);
+  }
+
+  @Test
+  public void testAutoscaleInts() {
+    int[] s = new int[] {-1000, 0, 1000, 2000};
+    byte[] b = DataTools.intsToBytes(s, true);
+    byte[] out = ImageTools.autoscale(b, 0, 1000, 4, true);
+    assertBytes(new int[] {0, 0, 255, 255}, out);
+
+    s = new int[] {250, 500, 750};
+    b = DataTools.intsToBytes(s, false);
+    out = ImageTools.autoscale(b, 0, 1000, 4, false);
+    assertBytes(new int[] {63, 127, 191}, out);
+  }
+
+  @Test
+  public void testAutoscaleBytes() {
+    byte[] b = new byte[] {1, 2, 3};
+    assertTrue(b == ImageTools.autoscale(b, 0, 2, 1, false));
+  }
+
+  @Test
+  public void testMake24BitsInterleaved() {
+    byte[] b = new byte[] {1, 2, 3, 4, 5, 6, 7, 8};
+    int[] pix = ImageTools.make24Bits(b, 2, 1, true);
+    assertEquals(0x04010203, pix[0]);
+    assertEquals(0x08050607, pix[1]);
+
+    b = new byte[] {1, 2, 3, 4, 5, (byte) 0xff};
+    pix = ImageTools.make24Bits(b, 2, 1, true);
+    assertEquals(0x00010203, pix[0]);
+    assertEquals(0x000405ff, pix[1]);
+  }
+
+  @Test
+  public void testMake24BitsPlanar() {
+    byte[] b = new byte[] {1, 2, 3, 4, 5, 6};
+    int[] pix = ImageTools.make24Bits(b, 2, 1, false);
+    assertEquals(0x00010305, pix[0]);
+    assertEquals(0x00020406, pix[1]);
+
+    b = new byte[] {1, 2, 3, 4};
+    pix = ImageTools.make24Bits(b, 2, 1, false);
+    assertEquals(0x00010300, pix[0]);
+    assertEquals(0x00020400, pix[1]);
+  }
+
+  @Test
+  public void testMake24BitsSingleChannel() {
+    byte[] b = new byte[] {5, (byte) 0x80};
+    int[] pix = ImageTools.make24Bits(b, 2, 1, false);
+    assertEquals(0x05050505, pix[0]);
+    assertEquals(0x80808080, pix[1]);
+  }
+
+  @Test
+  public void testMake24BitsChannels() {
+    short[] s = new short[] {0, 1000, 0, 0, 0, 1000};
+    byte[][] rgb = ImageTools.make24Bits(s, 2, 1, true, false, 0d, 1000d);
+    assertBytes(new int[] {0, 0}, rgb[0]);
+    assertBytes(new int[] {255, 0}, rgb[1]);
+    assertBytes(new int[] {0, 255}, rgb[2]);
+
+    rgb = ImageTools.make24Bits(s, 2, 1, true, true, 0d, 1000d);
+    assertBytes(new int[] {0, 255}, rgb[0]);
+    assertBytes(new int[] {0, 0}, rgb[2]);
+  }
+
+  @Test
+  public void testSplitChannelsInterleaved() {
+    byte[] b = new byte[] {1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11, 12};
+    assertBytes(new int[] {3, 4, 9, 10},
+      ImageTools.splitChannels(b, 1, 3, 2, false, true));
+    assertBytes(new int[] {5, 6, 11, 12},
+      ImageTools.splitChannels(b, 0, 3, 2, true, true));
+    assertBytes(new int[] {1, 4, 7, 10},
+      ImageTools.splitChannels(b, 0, 3, 1, false, true));
+    assertBytes(new int[] {3, 6, 9, 12},
+      ImageTools.splitChannels(b, 2, 3, 1, false, true));
+  }
+
+  @Test
+  public void testSplitChannelsPlanar() {
+    byte[] b = new byte[] {1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11, 12};
+    assertBytes(new int[] {5, 6, 7, 8},
+      ImageTools.splitChannels(b, 1, 3, 2, false, false));
+    assertBytes(new int[] {1, 2, 3, 4},
+      ImageTools.splitChannels(b, 2, 3, 2, true, false));
+    assertTrue(b == ImageTools.splitChannels(b, 0, 1, 2, false, true));
+  }
+
+  @Test
+  public void testSplitChannelsInto() {
+    byte[] b = new byte[] {1, 2, 3, 4, 5, 6};
+    byte[] rtn = new byte[4];
+    Arrays.fill(rtn, (byte) -1);
+    assertTrue(rtn ==
+      ImageTools.splitChannels(b, rtn, 1, 2, 1, false, true, 3));
+    assertBytes(new int[] {2, 4, 6, 255}, rtn);
+  }
+
+  @Test
+  public void testInterleave() {
+    byte[] planar = new byte[] {1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11, 12};
+    byte[] interleaved = ImageTools.interleave(planar, null, 3, 2);
+    assertBytes(new int[] {1, 2, 5, 6, 9, 10, 3, 4, 7, 8, 11, 12},
+      interleaved);
+
+    interleaved = ImageTools.interleave(planar, null, 3, 1);
+    assertBytes(new int[] {1, 5, 9, 2, 6, 10, 3, 7, 11, 4, 8, 12},
+      interleaved);
+  }
+
+  @Test
+  public void testDeinterleave() {
+    byte[] interleaved = new byte[] {1, 2, 5, 6, 9, 10, 3, 4, 7, 8, 11, 12};
+    byte[] rtn = new byte[interleaved.length];
+    assertTrue(rtn == ImageTools.deinterleave(interleaved, rtn, 3, 2));
+    assertBytes(new int[] {1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11, 12}, rtn);
+  }
+
+  @Test
+  public void testInterleaveRoundTrip() {
+    byte[] b = new byte[48];
+    for (int i=0; i<b.length; i++) {
+      b[i] = (byte) i;
+    }
+    for (int c=1; c<=3; c++) {
+      for (int bytes=1; bytes<=4; bytes*=2) {
+        byte[] interleaved = ImageTools.interleave(b, null, c, bytes);
+        byte[] planar = ImageTools.deinterleave(interleaved, null, c, bytes);
+        assertTrue(Arrays.equals(b, planar));
+        for (int ch=0; ch<c; ch++) {
+          assertTrue(Arrays.equals(
+            ImageTools.splitChannels(b, ch, c, bytes, false, false),
+            ImageTools.splitChannels(interleaved, ch, c, bytes, false, true)));
+        }
+      }
+    }
+  }
+
+  // -- Helper methods --
+
+  private void assertBytes(int[] expected, byte[] actual) {
+    assertEquals(expected.length, actual.length);
+    for (int i=0; i<expected.length; i++) {
+      assertEquals("byte " + i, (byte) expected[i], actual[i]);
+    }
+  }
+
+}
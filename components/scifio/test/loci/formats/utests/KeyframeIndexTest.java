@@ -0,0 +1,125 @@
+/*
+ * #%L
+ * OME SCIFIO package for reading and converting scientific file formats.
+ * %%
+ * Copyright (C) 2005 - 2012 Open Microscopy Environment:
+ *   - Board of Regents of the University of Wisconsin-Madison
+ *   - Glencoe Software, Inc.
+ *   - University of Dundee
+ * %%
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ * 
+ * The views and conclusions contained in the software and documentation are
+ * those of the authors and should not be interpreted as representing official
+ * policies, either expressed or implied, of any organization.
+ * #L%
+ */
+
+package loci.formats.utests;
+
+import static org.testng.AssertJUnit.assertEquals;
+import static org.testng.AssertJUnit.assertFalse;
+import static org.testng.AssertJUnit.assertNull;
+import static org.testng.AssertJUnit.assertTrue;
+
+import loci.formats.in.KeyframeIndex;
+
+import org.testng.annotations.Test;
+
+/**
+ * Unit tests for {@link KeyframeIndex}.
+ *
+ * <dl><dt><b>Source code:</b></dt>
+ * <dd><a href="http://trac.openmicroscopy.org.uk/ome/browser/bioformats.git/components/scifio/test/loci/formats/utests/KeyframeIndexTest.java">Trac</a>,
+ * <a href="http://git.openmicroscopy.org/?p=bioformats.git;a=blob;f=components/scifio/test/loci/formats/utests/KeyframeIndexTest.java;hb=HEAD">Gitweb</a></dd></dl>
+ */
+public class KeyframeIndexTest {
+
+  private static final int FRAME_COUNT = 200;
+
+  private static final int FRAME_SIZE = 64;
+
+  @Test
+  public void testKeyframes() {
+    KeyframeIndex index =
+      new KeyframeIndex(FRAME_COUNT, FRAME_SIZE, new int[] {100, 50});
+    assertTrue(index.isKeyframe(0));
+    assertTrue(index.isKeyframe(50));
+    assertFalse(index.isKeyframe(51));
+    assertEquals(0, index.getKeyframe(49));
+    assertEquals(50, index.getKeyframe(50));
+    assertEquals(50, index.getKeyframe(99));
+    assertEquals(100, index.getKeyframe(FRAME_COUNT - 1));
+  }
+
+  @Test
+  public void testNoKeyframes() {
+    KeyframeIndex index = new KeyframeIndex(FRAME_COUNT, FRAME_SIZE);
+    assertTrue(index.isKeyframe(0));
+    assertEquals(0, index.getKeyframe(FRAME_COUNT - 1));
+    assertEquals(KeyframeIndex.DEFAULT_INTERVAL, index.getInterval());
+  }
+
+  @Test
+  public void testCheckpoints() {
+    KeyframeIndex index =
+      new KeyframeIndex(FRAME_COUNT, FRAME_SIZE, new int[] {0, 40});
+    int interval = index.getInterval();
+    for (int i=0; i<FRAME_COUNT; i++) {
+      index.update(i, new byte[] {(byte) i});
+    }
+    assertEquals(-1, index.getCheckpoint(interval - 1));
+    assertEquals(interval, index.getCheckpoint(interval));
+    assertEquals(interval, index.getCheckpoint(2 * interval - 1));
+    assertEquals((byte) interval, index.getCheckpointPixels(interval)[0]);
+    assertNull(index.getCheckpointPixels(interval + 1));
+
+    // checkpoints before the last key frame cannot be used
+    assertEquals(-1, index.getCheckpoint(40));
+    assertEquals(-1, index.getCheckpoint(47));
+    assertEquals(48, index.getCheckpoint(48));
+
+    index.clear();
+    assertEquals(-1, index.getCheckpoint(FRAME_COUNT - 1));
+  }
+
+  @Test
+  public void testCheckpointCopies() {
+    KeyframeIndex index = new KeyframeIndex(FRAME_COUNT, FRAME_SIZE);
+    int interval = index.getInterval();
+    byte[] pixels = new byte[] {1, 2, 3};
+    index.update(interval, pixels);
+    pixels[0] = 0;
+    byte[] cached = index.getCheckpointPixels(interval);
+    assertEquals(1, cached[0]);
+    cached[1] = 0;
+    assertEquals(2, index.getCheckpointPixels(interval)[1]);
+  }
+
+  @Test
+  public void testIntervalGrowsWithFrameSize() {
+    int frameSize = (int) (KeyframeIndex.DEFAULT_CACHE_SIZE / 10);
+    KeyframeIndex index = new KeyframeIndex(1000, frameSize);
+    assertEquals(100, index.getInterval());
+  }
+
+}
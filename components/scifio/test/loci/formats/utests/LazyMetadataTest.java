@@ -0,0 +1,188 @@
+/*
+ * #%L
+ * OME SCIFIO package for reading and converting scientific file formats.
+ * %%
+ * Copyright (C) 2005 - 2012 Open Microscopy Environment:
+ *   - Board of Regents of the University of Wisconsin-Madison
+ *   - Glencoe Software, Inc.
+ *   - University of Dundee
+ * %%
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ * 
+ * The views and conclusions contained in the software and documentation are
+ * those of the authors and should not be interpreted as representing official
+ * policies, either expressed or implied, of any organization.
+ * #L%
+ */
+
+package loci.formats.utests;
+
+import static org.testng.AssertJUnit.assertEquals;
+import static org.testng.AssertJUnit.assertNull;
+import static org.testng.AssertJUnit.assertTrue;
+import static org.testng.AssertJUnit.fail;
+
+import java.io.IOException;
+
+import loci.common.Location;
+import loci.formats.ChannelSeparator;
+import loci.formats.DimensionSwapper;
+import loci.formats.FormatException;
+import loci.formats.IFormatReader;
+import loci.formats.LazyMetadata;
+import loci.formats.MetadataTools;
+import loci.formats.in.FakeReader;
+import loci.formats.in.MetadataLevel;
+import loci.formats.meta.IMetadata;
+import loci.formats.meta.MetadataStore;
+
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+/**
+ * Unit tests for {@link loci.formats.LazyMetadata}.
+ *
+ * <dl><dt><b>Source code:</b></dt>
+ * <dd><a href="http://trac.openmicroscopy.org.uk/ome/browser/bioformats.git/components/bio-formats/test/loci/formats/utests/LazyMetadataTest.java">Trac</a>,
+ * <a href="http://git.openmicroscopy.org/?p=bioformats.git;a=blob;f=components/bio-formats/test/loci/formats/utests/LazyMetadataTest.java;hb=HEAD">Gitweb</a></dd></dl>
+ */
+public class LazyMetadataTest {
+
+  private static final String TEST_FILE =
+    "test&pixelType=uint8&sizeX=64&sizeY=32&sizeC=2&sizeZ=3&series=2.fake";
+
+  private static final String DESCRIPTION = "full metadata";
+
+  private static int fullInitCount;
+
+  @BeforeMethod
+  public void setUp() {
+    Location.mapId(TEST_FILE, TEST_FILE);
+    fullInitCount = 0;
+  }
+
+  @Test
+  public void testMinimumLevelIsUsed() throws FormatException, IOException {
+    IFormatReader reader = new DetailReader();
+    LazyMetadata.attach(reader, MetadataTools.createOMEXMLMetadata());
+    assertEquals(MetadataLevel.MINIMUM,
+      reader.getMetadataOptions().getMetadataLevel());
+    reader.setId(TEST_FILE);
+    assertEquals(64, reader.getSizeX());
+    reader.openBytes(0);
+    reader.close();
+    assertEquals(0, fullInitCount);
+  }
+
+  @Test
+  public void testPopulatedOnFirstRetrieve()
+    throws FormatException, IOException
+  {
+    IMetadata delegate = MetadataTools.createOMEXMLMetadata();
+    IFormatReader reader = new ChannelSeparator(new DetailReader());
+    IMetadata lazy = LazyMetadata.attach(reader, delegate);
+    reader.setId(TEST_FILE);
+    assertTrue(LazyMetadata.isLazy(lazy));
+    assertNull(delegate.getImageDescription(0));
+    assertEquals(0, fullInitCount);
+
+    assertEquals(DESCRIPTION, lazy.getImageDescription(0));
+    assertEquals(2, lazy.getImageCount());
+    assertEquals(64, lazy.getPixelsSizeX(0).getValue().intValue());
+    assertEquals(1, fullInitCount);
+    reader.close();
+
+    // the metadata must remain available after the reader is closed
+    assertEquals(DESCRIPTION, lazy.getImageDescription(1));
+    assertEquals(1, fullInitCount);
+  }
+
+  @Test
+  public void testWrapperStateIsPreserved()
+    throws FormatException, IOException
+  {
+    IMetadata delegate = MetadataTools.createOMEXMLMetadata();
+    DimensionSwapper reader = new DimensionSwapper(new DetailReader());
+    IMetadata lazy = LazyMetadata.attach(reader, delegate);
+    reader.setId(TEST_FILE);
+    for (int s=0; s<reader.getSeriesCount(); s++) {
+      reader.setSeries(s);
+      reader.swapDimensions("XYCZT");
+    }
+    reader.setSeries(0);
+    assertEquals(2, reader.getSizeZ());
+
+    assertEquals(DESCRIPTION, lazy.getImageDescription(0));
+    assertEquals(1, fullInitCount);
+    for (int s=0; s<2; s++) {
+      assertEquals(2, lazy.getPixelsSizeZ(s).getValue().intValue());
+      assertEquals(3, lazy.getPixelsSizeC(s).getValue().intValue());
+    }
+    assertEquals(0, reader.getSeries());
+    reader.close();
+  }
+
+  @Test
+  public void testFailureIsReported() throws FormatException, IOException {
+    IMetadata delegate = MetadataTools.createOMEXMLMetadata();
+    IFormatReader reader = new FailingReader();
+    IMetadata lazy = LazyMetadata.attach(reader, delegate);
+    reader.setId(TEST_FILE);
+    assertNull(LazyMetadata.getFailure(lazy));
+
+    assertNull(lazy.getImageDescription(0));
+    assertTrue(LazyMetadata.getFailure(lazy) instanceof FormatException);
+    try {
+      LazyMetadata.populate(lazy);
+      fail("Expected FormatException");
+    }
+    catch (FormatException e) { }
+    reader.close();
+  }
+
+  // -- Helper classes --
+
+  /** Fake reader that stores a description only at the ALL level. */
+  public static class DetailReader extends FakeReader {
+    protected void initFile(String id) throws FormatException, IOException {
+      super.initFile(id);
+      if (getMetadataOptions().getMetadataLevel() == MetadataLevel.ALL) {
+        fullInitCount++;
+        MetadataStore store = makeFilterMetadata();
+        for (int s=0; s<getSeriesCount(); s++) {
+          store.setImageDescription(DESCRIPTION, s);
+        }
+      }
+    }
+  }
+
+  /** Fake reader that cannot be initialized at the ALL level. */
+  public static class FailingReader extends FakeReader {
+    protected void initFile(String id) throws FormatException, IOException {
+      super.initFile(id);
+      if (getMetadataOptions().getMetadataLevel() == MetadataLevel.ALL) {
+        throw new FormatException("full metadata unavailable");
+      }
+    }
+  }
+
+}
@@ -38,11 +38,13 @@ package loci.formats.utests;
 
 import static org.testng.AssertJUnit.*;
 
+import java.io.File;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 
+import loci.common.DataTools;
 import loci.common.Location;
 import loci.formats.FormatException;
 import loci.formats.FormatTools;
@@ -206,6 +208,150 @@ public class MinMaxCalculatorTest {
     assertMinMax(-2.0, 2.0);
   }
 
+  @Test
+  public void testComputeMinMax() throws Exception {
+    String[] ids = {
+      "test&pixelType=int16&sizeX=33&sizeY=21&sizeZ=3&sizeC=2&sizeT=2.fake",
+      "test&pixelType=uint8&sizeX=17&sizeY=9&sizeZ=5&sizeC=3&rgb=3" +
+        "&interleaved=true.fake",
+      "test&pixelType=float&sizeX=10&sizeY=12&sizeC=2&rgb=2&little=false.fake"
+    };
+    for (String id : ids) {
+      Location.mapId(id, id);
+      FakeReader fake = new FakeReader();
+      fake.setId(id);
+      MinMaxCalculator calculator = new MinMaxCalculator(fake);
+      calculator.setThreadCount(3);
+      calculator.setHistogramEnabled(true);
+      TestMinMaxStore store = new TestMinMaxStore();
+      calculator.setMinMaxStore(store);
+      calculator.computeMinMax();
+      assertTrue(calculator.isMinMaxPopulated());
+
+      int numRGB = fake.getRGBChannelCount();
+      double[] min = new double[fake.getSizeC()];
+      double[] max = new double[fake.getSizeC()];
+      Arrays.fill(min, Double.POSITIVE_INFINITY);
+      Arrays.fill(max, Double.NEGATIVE_INFINITY);
+      for (int no=0; no<fake.getImageCount(); no++) {
+        double[][] range = getPlaneRange(fake, no);
+        Double[] planeMin = calculator.getPlaneMinimum(no);
+        Double[] planeMax = calculator.getPlaneMaximum(no);
+        int cBase = fake.getZCTCoords(no)[1] * numRGB;
+        for (int c=0; c<numRGB; c++) {
+          assertEquals(range[0][c], planeMin[c].doubleValue());
+          assertEquals(range[1][c], planeMax[c].doubleValue());
+          min[cBase + c] = Math.min(min[cBase + c], range[0][c]);
+          max[cBase + c] = Math.max(max[cBase + c], range[1][c]);
+        }
+      }
+      long planePixels = fake.getSizeX() * fake.getSizeY() *
+        fake.getImageCount() / fake.getEffectiveSizeC();
+      for (int c=0; c<fake.getSizeC(); c++) {
+        assertEquals(min[c], calculator.getChannelGlobalMinimum(c));
+        assertEquals(max[c], calculator.getChannelGlobalMaximum(c));
+        double[] stored = store.seriesGlobalMinimaMaxima.get(0).get(c);
+        assertEquals(min[c], stored[0]);
+        assertEquals(max[c], stored[1]);
+
+        long[] histogram = calculator.getChannelHistogram(c);
+        if (fake.getPixelType() == FormatTools.FLOAT) {
+          assertNull(histogram);
+          continue;
+        }
+        long total = 0;
+        for (long count : histogram) total += count;
+        assertEquals(planePixels, total);
+        assertEquals(min[c], calculator.getChannelPercentile(c, 0));
+        assertEquals(max[c], calculator.getChannelPercentile(c, 100));
+      }
+      calculator.close();
+    }
+  }
+
+  @Test
+  public void testStatisticsDirectory() throws Exception {
+    File dir = File.createTempFile("minmax", "");
+    dir.delete();
+    File file = new File(dir, "test&pixelType=uint16&sizeZ=4&sizeC=2.fake");
+    File statistics = new File(dir, "statistics");
+    try {
+      assertTrue(dir.mkdir());
+      assertTrue(file.createNewFile());
+
+      PlaneCountingReader fake = new PlaneCountingReader();
+      MinMaxCalculator calculator = new MinMaxCalculator(fake);
+      calculator.setStatisticsDirectory(statistics.getAbsolutePath());
+      calculator.setHistogramEnabled(true);
+      calculator.setId(file.getAbsolutePath());
+      calculator.computeMinMax();
+      assertEquals(8, fake.planes);
+      assertEquals(1, statistics.list().length);
+      Double min = calculator.getChannelGlobalMinimum(1);
+      Double max = calculator.getChannelGlobalMaximum(1);
+      Double median = calculator.getChannelPercentile(1, 50);
+      calculator.close();
+
+      // unchanged files are not read again
+      fake = new PlaneCountingReader();
+      calculator = new MinMaxCalculator(fake);
+      calculator.setStatisticsDirectory(statistics.getAbsolutePath());
+      calculator.setHistogramEnabled(true);
+      calculator.setId(file.getAbsolutePath());
+      calculator.computeMinMax();
+      assertEquals(0, fake.planes);
+      assertEquals(min, calculator.getChannelGlobalMinimum(1));
+      assertEquals(max, calculator.getChannelGlobalMaximum(1));
+      assertEquals(median, calculator.getChannelPercentile(1, 50));
+      assertNotNull(calculator.getPlaneMinimum(7));
+      calculator.close();
+
+      // modified files are
+      assertTrue(file.setLastModified(file.lastModified() - 10000));
+      fake = new PlaneCountingReader();
+      calculator = new MinMaxCalculator(fake);
+      calculator.setStatisticsDirectory(statistics.getAbsolutePath());
+      calculator.setId(file.getAbsolutePath());
+      calculator.computeMinMax();
+      assertEquals(8, fake.planes);
+      calculator.close();
+    }
+    finally {
+      File[] saved = statistics.listFiles();
+      for (int i=0; saved != null && i<saved.length; i++) saved[i].delete();
+      statistics.delete();
+      file.delete();
+      dir.delete();
+    }
+  }
+
+  /** Computes the minimum and maximum of each channel within a plane. */
+  private double[][] getPlaneRange(FakeReader fake, int no) throws Exception {
+    byte[] plane = fake.openBytes(no);
+    int numRGB = fake.getRGBChannelCount();
+    int bpp = FormatTools.getBytesPerPixel(fake.getPixelType());
+    int pixels = fake.getSizeX() * fake.getSizeY();
+    double[][] range = new double[2][numRGB];
+    Arrays.fill(range[0], Double.POSITIVE_INFINITY);
+    Arrays.fill(range[1], Double.NEGATIVE_INFINITY);
+    for (int i=0; i<pixels; i++) {
+      for (int c=0; c<numRGB; c++) {
+        int index = fake.isInterleaved() ? i * numRGB + c : c * pixels + i;
+        double v;
+        if (fake.getPixelType() == FormatTools.FLOAT) {
+          v = DataTools.bytesToFloat(plane, index * 4, fake.isLittleEndian());
+        }
+        else if (bpp == 2) {
+          v = DataTools.bytesToShort(plane, index * 2, fake.isLittleEndian());
+        }
+        else v = plane[index] & 0xff;
+        range[0][c] = Math.min(range[0][c], v);
+        range[1][c] = Math.max(range[1][c], v);
+      }
+    }
+    return range;
+  }
+
   /**
    * A testing implementation of {@link loci.formats.meta.IMinMaxStore} that
    * we'll use to ensure that the various methods are called with the correct
@@ -293,4 +439,27 @@ public class MinMaxCalculatorTest {
       return buf;
     }
   }
+
+  /**
+   * An extension of {@link loci.formats.in.FakeReader} that counts the
+   * planes which are read.
+   */
+  class PlaneCountingReader extends FakeReader {
+
+    public int planes;
+
+    @Override
+    public byte[] openBytes(int no, byte[] buf, int x, int y, int w, int h)
+        throws FormatException, IOException {
+      planes++;
+      return super.openBytes(no, buf, x, y, w, h);
+    }
+
+    @Override
+    public byte[] openPlanes(int no, int count, byte[] buf, int x, int y,
+        int w, int h) throws FormatException, IOException {
+      planes += count;
+      return super.openPlanes(no, count, buf, x, y, w, h);
+    }
+  }
 }
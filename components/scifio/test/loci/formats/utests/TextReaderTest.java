@@ -0,0 +1,249 @@
+/*
+ * #%L
+ * OME SCIFIO package for reading and converting scientific file formats.
+ * %%
+ * Copyright (C) 2005 - 2012 Open Microscopy Environment:
+ *   - Board of Regents of the University of Wisconsin-Madison
+ *   - Glencoe Software, Inc.
+ *   - University of Dundee
+ * %%
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ * 
+ * The views and conclusions contained in the software and documentation are
+ * those of the authors and should not be interpreted as representing official
+ * policies, either expressed or implied, of any organization.
+ * #L%
+ */
+package loci.formats.utests;
+
+import static org.testng.AssertJUnit.assertEquals;
+import static org.testng.AssertJUnit.assertTrue;
+import static org.testng.AssertJUnit.fail;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import loci.common.Constants;
+import loci.common.DataTools;
+import loci.formats.FormatException;
+import loci.formats.FormatTools;
+import loci.formats.in.TextReader;
+
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+/**
+ * Unit tests for {@link TextReader}.
+ *
+ * <dl><dt><b>Source code:</b></dt>
+ * <dd><a href="http://trac.openmicroscopy.org.uk/ome/browser/bioformats.git/components/scifio/test/loci/formats/utests/TextReaderTest.java">Trac</a>,
+ * <a href="http://git.openmicroscopy.org/?p=bioformats.git;a=blob;f=components/scifio/test/loci/formats/utests/TextReaderTest.java;hb=HEAD">Gitweb</a></dd></dl>
+ */
+public class TextReaderTest {
+
+  /** Enough rows for the table to span several blocks of the row index. */
+  private static final int WIDTH = 100, HEIGHT = 90;
+
+  private TextReader reader;
+
+  private List<File> files;
+
+  @BeforeMethod
+  public void setUp() {
+    reader = new TextReader();
+    files = new ArrayList<File>();
+  }
+
+  @AfterMethod
+  public void tearDown() throws IOException {
+    reader.close();
+    for (File file : files) {
+      file.delete();
+    }
+  }
+
+  @Test
+  public void testPixelValues() throws FormatException, IOException {
+    reader.setId(write(
+      "Exported table\n" +
+      "x,y,intensity,lifetime\n" +
+      "0,0,1.5,10\n" +
+      "1,0,2.5,20\n" +
+      "2,0,3.5,30\n" +
+      "0,1,4.5,40\n" +
+      "2,1,6.5,60\n", "\n"));
+
+    assertEquals(3, reader.getSizeX());
+    assertEquals(2, reader.getSizeY());
+    assertEquals(2, reader.getSizeC());
+    assertEquals(2, reader.getImageCount());
+    assertEquals(FormatTools.FLOAT, reader.getPixelType());
+    assertEquals("intensity", reader.getChannelLabel(0));
+    assertEquals("lifetime", reader.getChannelLabel(1));
+
+    float[] intensity = (float[]) reader.openPlane(0, 0, 0, 3, 2);
+    assertEquals(1.5f, intensity[0], 0f);
+    assertEquals(2.5f, intensity[1], 0f);
+    assertEquals(3.5f, intensity[2], 0f);
+    assertEquals(4.5f, intensity[3], 0f);
+    assertTrue(Float.isNaN(intensity[4]));
+    assertEquals(6.5f, intensity[5], 0f);
+
+    float[] lifetime = toFloats(reader.openBytes(1));
+    assertEquals(10f, lifetime[0], 0f);
+    assertTrue(Float.isNaN(lifetime[4]));
+    assertEquals(60f, lifetime[5], 0f);
+
+    float[] region = toFloats(reader.openBytes(1, 1, 1, 2, 1));
+    assertEquals(2, region.length);
+    assertTrue(Float.isNaN(region[0]));
+    assertEquals(60f, region[1], 0f);
+  }
+
+  @Test
+  public void testLineEndings() throws FormatException, IOException {
+    String table = createTable(WIDTH, HEIGHT);
+    float[] expected = read(write(table, "\n"));
+    assertEquals(WIDTH * HEIGHT, expected.length);
+    assertTrue(Arrays.equals(expected, read(write(table, "\r\n"))));
+    assertTrue(Arrays.equals(expected, read(write(table, "\r"))));
+  }
+
+  @Test
+  public void testDeviantRows() throws FormatException, IOException {
+    reader.setId(write(
+      "x y value\n" +
+      "0 0 1\n" +
+      "1 0\n" +
+      "\n" +
+      "0 1 3 99\n" +
+      "1 1 four\n" +
+      "1 1 4\n", "\n"));
+
+    assertEquals(2, reader.getSizeX());
+    assertEquals(2, reader.getSizeY());
+    float[] plane = toFloats(reader.openBytes(0));
+    assertEquals(1f, plane[0], 0f);
+    assertTrue(Float.isNaN(plane[1]));
+    assertTrue(Float.isNaN(plane[2]));
+    assertEquals(4f, plane[3], 0f);
+  }
+
+  @Test
+  public void testManyRows() throws FormatException, IOException {
+    reader.setId(write(createTable(WIDTH, HEIGHT), "\n"));
+    assertEquals(WIDTH, reader.getSizeX());
+    assertEquals(HEIGHT, reader.getSizeY());
+
+    float[] plane = (float[]) reader.openPlane(0, 0, 0, WIDTH, HEIGHT);
+    for (int y=0; y<HEIGHT; y++) {
+      for (int x=0; x<WIDTH; x++) {
+        assertEquals(getValue(x, y), plane[y * WIDTH + x], 0f);
+      }
+    }
+
+    // a region near the end of the table, within a later block
+    int y0 = HEIGHT - 3;
+    float[] region = toFloats(reader.openBytes(0, 10, y0, 5, 3));
+    for (int y=0; y<3; y++) {
+      for (int x=0; x<5; x++) {
+        assertEquals(getValue(x + 10, y + y0), region[y * 5 + x], 0f);
+      }
+    }
+  }
+
+  @Test
+  public void testHeaderOnly() throws IOException {
+    assertInvalid(write("x,y,value\n", "\n"));
+  }
+
+  @Test
+  public void testEmptyFile() throws IOException {
+    assertInvalid(write("", "\n"));
+  }
+
+  // -- Helper methods --
+
+  private float getValue(int x, int y) {
+    return y * 1000 + x + 0.25f;
+  }
+
+  private String createTable(int width, int height) {
+    StringBuilder table = new StringBuilder("x,y,value\n");
+    for (int y=0; y<height; y++) {
+      for (int x=0; x<width; x++) {
+        table.append(x).append(',').append(y).append(',');
+        table.append(getValue(x, y)).append('\n');
+      }
+    }
+    return table.toString();
+  }
+
+  private void assertInvalid(String id) throws IOException {
+    assertTrue(!reader.isThisType(id, true));
+    try {
+      reader.setId(id);
+      fail("Expected FormatException");
+    }
+    catch (FormatException e) { }
+  }
+
+  private float[] read(String id) throws FormatException, IOException {
+    TextReader r = new TextReader();
+    try {
+      r.setId(id);
+      return toFloats(r.openBytes(0));
+    }
+    finally {
+      r.close();
+    }
+  }
+
+  private float[] toFloats(byte[] b) {
+    return (float[]) DataTools.makeDataArray(b, 4, true, false);
+  }
+
+  /**
+   * Writes the given table to a temporary file, replacing each line feed
+   * with the given line terminator.
+   */
+  private String write(String table, String terminator) throws IOException {
+    File file = File.createTempFile("TextReaderTest", ".csv");
+    file.deleteOnExit();
+    files.add(file);
+    OutputStream out = new FileOutputStream(file);
+    try {
+      out.write(table.replace("\n", terminator).getBytes(Constants.ENCODING));
+    }
+    finally {
+      out.close();
+    }
+    return file.getAbsolutePath();
+  }
+
+}
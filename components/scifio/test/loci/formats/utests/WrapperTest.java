@@ -38,8 +38,10 @@ package loci.formats.utests;
 
 import static org.testng.AssertJUnit.assertEquals;
 import static org.testng.AssertJUnit.assertNotNull;
+import static org.testng.AssertJUnit.assertTrue;
 
 import java.io.IOException;
+import java.util.Arrays;
 
 import loci.common.Location;
 import loci.formats.ChannelFiller;
@@ -49,6 +51,7 @@ import loci.formats.CoreMetadata;
 import loci.formats.DimensionSwapper;
 import loci.formats.FileStitcher;
 import loci.formats.FormatException;
+import loci.formats.FormatTools;
 import loci.formats.IFormatReader;
 import loci.formats.ImageReader;
 import loci.formats.MinMaxCalculator;
@@ -110,4 +113,36 @@ public class WrapperTest {
       assertEquals(core[i].indexed, reader.isIndexed());
     }
   }
+
+  @Test(dataProvider = "wrappers")
+  public void testOpenPlanes(IFormatReader reader) throws Exception {
+    int x = 3, y = 5, w = reader.getSizeX() - 10, h = reader.getSizeY() - 7;
+    int planeSize = FormatTools.getPlaneSize(reader, w, h);
+    int count = reader.getImageCount() - 1;
+    byte[] planes = reader.openPlanes(1, count, new byte[planeSize * count],
+      x, y, w, h);
+    int[] indexes = FormatTools.getPlaneIndexes(reader, 1, 0, 2,
+      reader.getSizeZ() - 1, reader.getEffectiveSizeC(), 2);
+    byte[] slab = reader.openPlanes(indexes,
+      new byte[planeSize * indexes.length], x, y, w, h);
+
+    byte[] plane = new byte[planeSize];
+    for (int i=0; i<count; i++) {
+      reader.openBytes(i + 1, plane, x, y, w, h);
+      assertTrue(Arrays.equals(plane,
+        copyOfRange(planes, i * planeSize, planeSize)));
+    }
+    for (int i=0; i<indexes.length; i++) {
+      reader.openBytes(indexes[i], plane, x, y, w, h);
+      assertTrue(Arrays.equals(plane,
+        copyOfRange(slab, i * planeSize, planeSize)));
+    }
+  }
+
+  private static byte[] copyOfRange(byte[] buf, int offset, int len) {
+    byte[] copy = new byte[len];
+    System.arraycopy(buf, offset, copy, 0, len);
+    return copy;
+  }
+
 }
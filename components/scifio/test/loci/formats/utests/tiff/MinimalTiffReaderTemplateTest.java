@@ -0,0 +1,244 @@
+/*
+ * #%L
+ * OME SCIFIO package for reading and converting scientific file formats.
+ * %%
+ * Copyright (C) 2005 - 2012 Open Microscopy Environment:
+ *   - Board of Regents of the University of Wisconsin-Madison
+ *   - Glencoe Software, Inc.
+ *   - University of Dundee
+ * %%
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ * 
+ * The views and conclusions contained in the software and documentation are
+ * those of the authors and should not be interpreted as representing official
+ * policies, either expressed or implied, of any organization.
+ * #L%
+ */
+
+package loci.formats.utests.tiff;
+
+import static org.testng.AssertJUnit.assertEquals;
+import static org.testng.AssertJUnit.assertFalse;
+import static org.testng.AssertJUnit.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+
+import loci.common.RandomAccessOutputStream;
+import loci.formats.FormatException;
+import loci.formats.FormatTools;
+import loci.formats.in.MinimalTiffReader;
+import loci.formats.tiff.IFD;
+import loci.formats.tiff.TiffCompression;
+import loci.formats.tiff.TiffSaver;
+
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+/**
+ * Tests opening a set of similar TIFF files with a
+ * {@link MinimalTiffReader} in homogeneous file set mode.
+ *
+ * <dl><dt><b>Source code:</b></dt>
+ * <dd><a href="http://trac.openmicroscopy.org.uk/ome/browser/bioformats.git/components/scifio/test/loci/formats/utests/tiff/MinimalTiffReaderTemplateTest.java">Trac</a>,
+ * <a href="http://git.openmicroscopy.org/?p=bioformats.git;a=blob;f=components/scifio/test/loci/formats/utests/tiff/MinimalTiffReaderTemplateTest.java;hb=HEAD">Gitweb</a></dd></dl>
+ */
+public class MinimalTiffReaderTemplateTest {
+
+  private static final int FILE_COUNT = 4;
+
+  private File[] files;
+
+  private MinimalTiffReader reader;
+
+  @BeforeMethod
+  public void setUp() throws FormatException, IOException {
+    files = new File[FILE_COUNT + 1];
+    for (int i=0; i<FILE_COUNT; i++) {
+      files[i] = writeFile(64, 64, i);
+    }
+    files[FILE_COUNT] = writeFile(32, 48, FILE_COUNT);
+
+    reader = new MinimalTiffReader();
+    reader.setHomogeneousFileSet(true);
+  }
+
+  @AfterMethod
+  public void tearDown() throws IOException {
+    reader.close();
+    for (File file : files) {
+      file.delete();
+    }
+  }
+
+  @Test
+  public void testMatchingFiles() throws FormatException, IOException {
+    for (int i=0; i<FILE_COUNT; i++) {
+      reader.setId(files[i].getAbsolutePath());
+      assertEquals(files[i].getAbsolutePath(), reader.getCurrentFile());
+      assertEquals(i > 0, reader.isOpenedFromTemplate());
+      assertEquals(64, reader.getSizeX());
+      assertEquals(64, reader.getSizeY());
+      assertTrue(Arrays.equals(readFresh(files[i]), reader.openBytes(0)));
+    }
+  }
+
+  @Test
+  public void testMismatchedFile() throws FormatException, IOException {
+    reader.setId(files[0].getAbsolutePath());
+    reader.setId(files[FILE_COUNT].getAbsolutePath());
+    assertFalse(reader.isOpenedFromTemplate());
+    assertEquals(32, reader.getSizeX());
+    assertEquals(48, reader.getSizeY());
+    assertTrue(Arrays.equals(
+      readFresh(files[FILE_COUNT]), reader.openBytes(0)));
+
+    // the mismatched file is now the template
+    reader.setId(files[1].getAbsolutePath());
+    assertFalse(reader.isOpenedFromTemplate());
+    assertEquals(64, reader.getSizeX());
+    assertTrue(Arrays.equals(readFresh(files[1]), reader.openBytes(0)));
+  }
+
+  @Test
+  public void testSubRegion() throws FormatException, IOException {
+    reader.setId(files[0].getAbsolutePath());
+    reader.setId(files[2].getAbsolutePath());
+    assertTrue(reader.isOpenedFromTemplate());
+    byte[] full = readFresh(files[2]);
+    byte[] region = reader.openBytes(0, 8, 4, 16, 8);
+    for (int y=0; y<8; y++) {
+      for (int x=0; x<16; x++) {
+        assertEquals(full[(y + 4) * 64 + x + 8], region[y * 16 + x]);
+      }
+    }
+  }
+
+  @Test
+  public void testDifferentDescription() throws FormatException, IOException {
+    File first = writeFile(64, 64, 0, "description A", null);
+    File second = writeFile(64, 64, 0, "description B", null);
+    try {
+      reader.setId(first.getAbsolutePath());
+      reader.setId(second.getAbsolutePath());
+      assertFalse(reader.isOpenedFromTemplate());
+      assertEquals("description B", reader.getIFDs().get(0).getComment());
+    }
+    finally {
+      first.delete();
+      second.delete();
+    }
+  }
+
+  @Test
+  public void testDifferentColorMap() throws FormatException, IOException {
+    File first = writeFile(64, 64, 0, null, createColorMap(1));
+    File second = writeFile(64, 64, 0, null, createColorMap(2));
+    File third = writeFile(64, 64, 1, null, createColorMap(2));
+    try {
+      reader.setId(first.getAbsolutePath());
+      assertTrue(reader.isIndexed());
+      reader.setId(second.getAbsolutePath());
+      assertFalse(reader.isOpenedFromTemplate());
+      assertEquals((byte) 2, reader.get8BitLookupTable()[0][1]);
+
+      // same color map, different pixel values
+      reader.setId(third.getAbsolutePath());
+      assertTrue(reader.isOpenedFromTemplate());
+      assertEquals((byte) 2, reader.get8BitLookupTable()[0][1]);
+      assertTrue(Arrays.equals(readFresh(third), reader.openBytes(0)));
+    }
+    finally {
+      first.delete();
+      second.delete();
+      third.delete();
+    }
+  }
+
+  // -- Helper methods --
+
+  private byte[] readFresh(File file) throws FormatException, IOException {
+    MinimalTiffReader fresh = new MinimalTiffReader();
+    try {
+      fresh.setId(file.getAbsolutePath());
+      return fresh.openBytes(0);
+    }
+    finally {
+      fresh.close();
+    }
+  }
+
+  private int[] createColorMap(int scale) {
+    int[] colorMap = new int[3 * 256];
+    for (int i=0; i<colorMap.length; i++) {
+      colorMap[i] = ((i % 256) * scale) << 8;
+    }
+    return colorMap;
+  }
+
+  private File writeFile(int width, int height, int seed)
+    throws FormatException, IOException
+  {
+    return writeFile(width, height, seed, null, null);
+  }
+
+  private File writeFile(int width, int height, int seed, String description,
+    int[] colorMap)
+    throws FormatException, IOException
+  {
+    File file = File.createTempFile("template-", ".tif");
+    file.deleteOnExit();
+    byte[] data = new byte[width * height];
+    for (int i=0; i<data.length; i++) {
+      data[i] = (byte) (i * (seed + 1));
+    }
+    IFD ifd = new IFD();
+    ifd.put(IFD.IMAGE_WIDTH, width);
+    ifd.put(IFD.IMAGE_LENGTH, height);
+    ifd.put(IFD.BITS_PER_SAMPLE, new int[] {8});
+    ifd.put(IFD.SAMPLES_PER_PIXEL, 1);
+    ifd.put(IFD.LITTLE_ENDIAN, Boolean.TRUE);
+    ifd.put(IFD.COMPRESSION, TiffCompression.UNCOMPRESSED.getCode());
+    ifd.put(IFD.ROWS_PER_STRIP, new long[] {8});
+    if (description != null) ifd.put(IFD.IMAGE_DESCRIPTION, description);
+    if (colorMap != null) {
+      ifd.put(IFD.PHOTOMETRIC_INTERPRETATION, 3);
+      ifd.put(IFD.COLOR_MAP, colorMap);
+    }
+
+    RandomAccessOutputStream out =
+      new RandomAccessOutputStream(file.getAbsolutePath());
+    try {
+      TiffSaver saver = new TiffSaver(out, file.getAbsolutePath());
+      saver.setLittleEndian(true);
+      saver.writeHeader();
+      saver.writeImage(data, ifd, 0, FormatTools.UINT8, true);
+    }
+    finally {
+      out.close();
+    }
+    return file;
+  }
+
+}
@@ -0,0 +1,228 @@
+/*
+ * #%L
+ * OME SCIFIO package for reading and converting scientific file formats.
+ * %%
+ * Copyright (C) 2005 - 2012 Open Microscopy Environment:
+ *   - Board of Regents of the University of Wisconsin-Madison
+ *   - Glencoe Software, Inc.
+ *   - University of Dundee
+ * %%
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ * 
+ * The views and conclusions contained in the software and documentation are
+ * those of the authors and should not be interpreted as representing official
+ * policies, either expressed or implied, of any organization.
+ * #L%
+ */
+
+package loci.formats.utests.tiff;
+
+import static org.testng.AssertJUnit.assertEquals;
+import static org.testng.AssertJUnit.assertFalse;
+import static org.testng.AssertJUnit.assertNotNull;
+import static org.testng.AssertJUnit.assertTrue;
+import static org.testng.AssertJUnit.fail;
+
+import java.io.File;
+
+import loci.common.RandomAccessInputStream;
+import loci.common.services.ServiceFactory;
+import loci.formats.FormatException;
+import loci.formats.in.OMETiffReader;
+import loci.formats.ome.OMEXMLMetadata;
+import loci.formats.out.OMETiffWriter;
+import loci.formats.services.OMEXMLService;
+import loci.formats.tiff.TiffParser;
+import loci.formats.tiff.TiffSaver;
+
+import ome.xml.model.enums.DimensionOrder;
+import ome.xml.model.enums.PixelType;
+import ome.xml.model.primitives.PositiveInteger;
+
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+/**
+ * Tests writing an OME-TIFF dataset with one file per series.
+ *
+ * <dl><dt><b>Source code:</b></dt>
+ * <dd><a href="http://trac.openmicroscopy.org.uk/ome/browser/bioformats.git/components/bio-formats/test/loci/formats/utests/tiff/OMETiffWriterMultiFileTest.java">Trac</a>,
+ * <a href="http://git.openmicroscopy.org/?p=bioformats.git;a=blob;f=components/bio-formats/test/loci/formats/utests/tiff/OMETiffWriterMultiFileTest.java;hb=HEAD">Gitweb</a></dd></dl>
+ */
+public class OMETiffWriterMultiFileTest {
+
+  private static final int SERIES = 3;
+
+  private static final byte[] buf = new byte[16];
+
+  private File[] targets;
+
+  private OMEXMLService service;
+
+  @BeforeMethod
+  public void setUp() throws Exception {
+    service = new ServiceFactory().getInstance(OMEXMLService.class);
+    File dir = File.createTempFile("OMETiffWriterMultiFileTest", "");
+    dir.delete();
+    dir.mkdir();
+    targets = new File[SERIES];
+    for (int s=0; s<SERIES; s++) {
+      targets[s] = new File(dir, "series" + s + ".ome.tiff");
+    }
+  }
+
+  @AfterMethod
+  public void tearDown() throws Exception {
+    for (File target : targets) {
+      target.delete();
+    }
+    targets[0].getParentFile().delete();
+  }
+
+  @Test
+  public void testCompleteMetadata() throws Exception {
+    write(false);
+
+    String uuid = null;
+    for (File target : targets) {
+      OMEXMLMetadata meta = service.createOMEXMLMetadata(getComment(target));
+      assertEquals(SERIES, meta.getImageCount());
+      assertNotNull(meta.getUUID());
+      assertFalse(meta.getUUID().equals(uuid));
+      uuid = meta.getUUID();
+    }
+    assertSeriesCount(targets[SERIES - 1]);
+  }
+
+  @Test
+  public void testBinaryOnly() throws Exception {
+    write(true);
+
+    OMEXMLMetadata master =
+      service.createOMEXMLMetadata(getComment(targets[0]));
+    assertEquals(SERIES, master.getImageCount());
+
+    for (int s=1; s<SERIES; s++) {
+      String comment = getComment(targets[s]);
+      assertTrue(comment.indexOf("BinaryOnly") >= 0);
+      OMEXMLMetadata meta = service.createOMEXMLMetadata(comment);
+      assertEquals(0, meta.getImageCount());
+      assertEquals(targets[0].getName(), meta.getBinaryOnlyMetadataFile(0));
+      assertEquals(master.getUUID(), meta.getBinaryOnlyUUID(0));
+    }
+    assertSeriesCount(targets[SERIES - 1]);
+  }
+
+  @Test
+  public void testBinaryOnlyCycle() throws Exception {
+    write(true);
+
+    setMetadataFile(targets[0], targets[1]);
+    setMetadataFile(targets[2], targets[2]);
+
+    // 0 -> 1 -> 0, and 2 -> 2
+    for (int s=0; s<SERIES; s+=2) {
+      OMETiffReader reader = new OMETiffReader();
+      try {
+        reader.setId(targets[s].getAbsolutePath());
+        fail("Expected FormatException");
+      }
+      catch (FormatException e) { }
+      finally {
+        reader.close();
+      }
+    }
+  }
+
+  // -- Helper methods --
+
+  private void write(boolean binaryOnly) throws Exception {
+    OMEXMLMetadata ms = service.createOMEXMLMetadata();
+    for (int s=0; s<SERIES; s++) {
+      ms.setImageID("Image:" + s, s);
+      ms.setPixelsID("Pixels:" + s, s);
+      ms.setPixelsDimensionOrder(DimensionOrder.XYZCT, s);
+      ms.setPixelsSizeX(new PositiveInteger(4), s);
+      ms.setPixelsSizeY(new PositiveInteger(4), s);
+      ms.setPixelsSizeZ(new PositiveInteger(1), s);
+      ms.setPixelsSizeC(new PositiveInteger(1), s);
+      ms.setPixelsSizeT(new PositiveInteger(1), s);
+      ms.setPixelsType(PixelType.UINT8, s);
+      ms.setPixelsBinDataBigEndian(true, s, 0);
+      ms.setChannelID("Channel:" + s + ":0", s, 0);
+      ms.setChannelSamplesPerPixel(new PositiveInteger(1), s, 0);
+    }
+
+    OMETiffWriter writer = new OMETiffWriter();
+    writer.setBinaryOnly(binaryOnly);
+    writer.setMetadataRetrieve(ms);
+    for (int s=0; s<SERIES; s++) {
+      writer.changeOutputFile(targets[s].getAbsolutePath());
+      writer.setSeries(s);
+      writer.saveBytes(0, buf);
+    }
+    writer.close();
+  }
+
+  /**
+   * Replaces the OME-XML block of the given file with a BinaryOnly
+   * reference to the given master file.
+   */
+  private void setMetadataFile(File file, File master) throws Exception {
+    String comment = getComment(targets[1]).replace(
+      targets[0].getName(), master.getName());
+    RandomAccessInputStream in =
+      new RandomAccessInputStream(file.getAbsolutePath());
+    try {
+      new TiffSaver(file.getAbsolutePath()).overwriteComment(in, comment);
+    }
+    finally {
+      in.close();
+    }
+  }
+
+  private String getComment(File file) throws Exception {
+    RandomAccessInputStream in =
+      new RandomAccessInputStream(file.getAbsolutePath());
+    try {
+      return new TiffParser(in).getComment();
+    }
+    finally {
+      in.close();
+    }
+  }
+
+  private void assertSeriesCount(File file) throws Exception {
+    OMETiffReader reader = new OMETiffReader();
+    try {
+      assertTrue(reader.isThisType(file.getAbsolutePath()));
+      reader.setId(file.getAbsolutePath());
+      assertEquals(SERIES, reader.getSeriesCount());
+      assertEquals(SERIES, reader.getUsedFiles().length);
+    }
+    finally {
+      reader.close();
+    }
+  }
+
+}